@@ -17,10 +17,8 @@ import tiameds.com.tiameds.audit.helpers.AuditDataExtractor;
 import tiameds.com.tiameds.audit.helpers.FieldChangeTracker;
 import tiameds.com.tiameds.dto.lab.PatientDTO;
 import tiameds.com.tiameds.entity.LabAuditLogs;
-import tiameds.com.tiameds.entity.PatientEntity;
 import tiameds.com.tiameds.repository.PatientRepository;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
-import tiameds.com.tiameds.entity.User;
 
 import java.time.LocalDateTime;
 import java.util.Map;
@@ -57,7 +55,6 @@ public class AuditAspect {
         
         // Extract PatientDTO from method arguments for CREATE/UPDATE operations
         PatientDTO requestPatientDTO = auditDataExtractor.extractPatientDTOFromArgs(pjp.getArgs());
-        PatientEntity oldPatientEntity = null;
         PatientDTO oldPatientSnapshot = null;
         Long patientIdFromPath = null;
         
@@ -85,11 +82,7 @@ public class AuditAspect {
         }
         
         if (("PUT".equals(httpMethod) || "PATCH".equals(httpMethod)) && patientIdToFetch != null) {
-            Optional<PatientEntity> oldPatientOpt = patientRepository.findById(patientIdToFetch);
-            if (oldPatientOpt.isPresent()) {
-                oldPatientEntity = oldPatientOpt.get();
-                oldPatientSnapshot = new PatientDTO(oldPatientEntity);
-            }
+            oldPatientSnapshot = loadPatientSnapshot(patientIdToFetch);
         }
 
         // Let the business logic run first
@@ -102,14 +95,8 @@ public class AuditAspect {
         // User and role
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.getPrincipal() instanceof MyUserDetails principal) {
-            User user = principal.getUser();
-            if (user != null) {
-                auditLog.setUsername(user.getUsername());
-                auditLog.setUserId(user.getId());
-            } else {
-                auditLog.setUsername(authentication.getName());
-                auditLog.setUserId(null);
-            }
+            auditLog.setUsername(principal.getUsername());
+            auditLog.setUserId(principal.getUserId());
             String role = authentication.getAuthorities() != null && !authentication.getAuthorities().isEmpty()
                     ? authentication.getAuthorities().iterator().next().getAuthority()
                     : null;
@@ -217,10 +204,8 @@ public class AuditAspect {
 
                     // If response didn't include updated data, load it from the repository
                     if (newPatientDTO == null && patientIdToFetch != null) {
-                        Optional<PatientEntity> updatedPatientOpt = patientRepository.findById(patientIdToFetch);
-                        if (updatedPatientOpt.isPresent()) {
-                            newPatientDTO = new PatientDTO(updatedPatientOpt.get());
-                        } else {
+                        newPatientDTO = loadPatientSnapshot(patientIdToFetch);
+                        if (newPatientDTO == null) {
                             log.warn("Patient UPDATE audit: could not load updated patient with id {}", patientIdToFetch);
                         }
                     }
@@ -237,8 +222,7 @@ public class AuditAspect {
 
                     // Track field changes using helper
                     if (oldPatientSnapshot != null && newPatientDTO != null) {
-                        Map<String, Object> fieldChanges = fieldChangeTracker.comparePatientFields(oldPatientSnapshot, newPatientDTO);
-                        String fieldChangedJson = fieldChangeTracker.fieldChangesToJson(fieldChanges);
+                        String fieldChangedJson = fieldChangeTracker.patientChangesJson(oldPatientSnapshot, newPatientDTO);
                         if (fieldChangedJson != null) {
                             auditLog.setFieldChanged(fieldChangedJson);
                         }
@@ -260,6 +244,34 @@ public class AuditAspect {
         return result;
     }
 
+    /**
+     * Audited patient columns only; the entity (and its lazy visits) is not loaded.
+     */
+    private PatientDTO loadPatientSnapshot(Long patientId) {
+        return patientRepository.findAuditSnapshotById(patientId)
+                .map(p -> {
+                    PatientDTO dto = new PatientDTO();
+                    dto.setId(p.getId());
+                    dto.setFirstName(p.getFirstName());
+                    dto.setLastName(p.getLastName());
+                    dto.setEmail(p.getEmail());
+                    dto.setPhone(p.getPhone());
+                    dto.setAddress(p.getAddress());
+                    dto.setCity(p.getCity());
+                    dto.setState(p.getState());
+                    dto.setZip(p.getZip());
+                    dto.setBloodGroup(p.getBloodGroup());
+                    dto.setDateOfBirth(p.getDateOfBirth());
+                    dto.setAge(p.getAge());
+                    dto.setGender(p.getGender());
+                    dto.setCreatedBy(p.getCreatedBy());
+                    dto.setUpdatedBy(p.getUpdatedBy());
+                    dto.setRegisteredAt(p.getRegisteredAt());
+                    return dto;
+                })
+                .orElse(null);
+    }
+
     private String deriveActionFromHttpMethod(String httpMethod) {
         if (httpMethod == null) return "VIEW";
         return switch (httpMethod) {
@@ -1,10 +1,8 @@
 package tiameds.com.tiameds.audit;
 
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import tiameds.com.tiameds.entity.LabAuditLogs;
-import tiameds.com.tiameds.repository.AuditLogsRepository;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -13,13 +11,15 @@ import java.util.UUID;
 @Service
 public class AuditLogService {
 
-    private final AuditLogsRepository auditLogsRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    public AuditLogService(AuditLogsRepository auditLogsRepository) {
-        this.auditLogsRepository = auditLogsRepository;
+    public AuditLogService(AuditLogWriter auditLogWriter) {
+        this.auditLogWriter = auditLogWriter;
     }
 
-    @Async
+    /**
+     * Normalizes the event and hands it to {@link AuditLogWriter}; the insert happens later on the writer thread.
+     */
     public void persistAsync(LabAuditLogs auditLog) {
         try {
             if (auditLog.getTimestamp() == null) {
@@ -43,9 +43,9 @@ public class AuditLogService {
             if (auditLog.getActionType() == null) auditLog.setActionType("");
             if (auditLog.getUsername() == null) auditLog.setUsername("");
 
-            auditLogsRepository.save(auditLog);
+            auditLogWriter.enqueue(auditLog);
         } catch (Exception ex) {
-            log.error("Failed to persist audit log: {}", ex.getMessage(), ex);
+            log.error("Failed to queue audit log: {}", ex.getMessage(), ex);
         }
     }
 }
@@ -0,0 +1,382 @@
+package tiameds.com.tiameds.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.config.AuditProperties;
+import tiameds.com.tiameds.config.DatabaseDialect;
+import tiameds.com.tiameds.entity.LabAuditLogs;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer for audit events. Request threads only hand events over; a single daemon thread writes
+ * them to lab_audit_logs in JDBC batches.
+ *
+ * With {@code audit.writer.wal-enabled} (the default) events are appended to {@link AuditWriteAheadLog} and
+ * replayed from there, so a slow or unavailable database never blocks a request and queued events survive
+ * restarts. Inserts are idempotent on the event UUID, which makes replaying a batch twice harmless. If the log
+ * cannot be written, events fall back to the bounded in-memory queue and its overflow policy.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter implements SmartLifecycle {
+
+    private static final long MAX_RETRY_DELAY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect databaseDialect;
+    private final AuditProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<LabAuditLogs> queue;
+    private final AuditWriteAheadLog wal;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Counter droppedLowCounter;
+    private final Counter droppedFullCounter;
+    private final Counter walAppendFailures;
+
+    private volatile String insertSql;
+    private volatile boolean running;
+    private Thread worker;
+
+    private long retryDelayNanos;
+    private long retryNotBefore;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          DatabaseDialect databaseDialect,
+                          AuditProperties properties,
+                          PlatformTransactionManager transactionManager,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseDialect = databaseDialect;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.wal = properties.isWalEnabled() ? openWal(objectMapper) : null;
+
+        Gauge.builder("audit.queue.depth", queue, BlockingQueue::size)
+                .description("Audit events waiting in the in-memory queue")
+                .register(meterRegistry);
+        if (wal != null) {
+            Gauge.builder("audit.wal.segments", wal, AuditWriteAheadLog::segmentCount)
+                    .description("Write-ahead log segments on disk, including the active one")
+                    .register(meterRegistry);
+        }
+        this.flushTimer = Timer.builder("audit.flush")
+                .description("Time to write one batch of audit events")
+                .register(meterRegistry);
+        this.writtenCounter = Counter.builder("audit.events.written").register(meterRegistry);
+        this.failedCounter = Counter.builder("audit.events.failed").register(meterRegistry);
+        this.droppedLowCounter = Counter.builder("audit.events.dropped").tag("reason", "low-severity").register(meterRegistry);
+        this.droppedFullCounter = Counter.builder("audit.events.dropped").tag("reason", "queue-full").register(meterRegistry);
+        this.walAppendFailures = Counter.builder("audit.wal.append.failures").register(meterRegistry);
+    }
+
+    /**
+     * Hands an event over for writing: appended to the write-ahead log, or queued in memory applying the
+     * configured overflow policy when the queue is full.
+     *
+     * @return false if the event was dropped
+     */
+    public boolean enqueue(LabAuditLogs auditLog) {
+        if (wal != null) {
+            try {
+                wal.append(auditLog);
+                return true;
+            } catch (IOException e) {
+                walAppendFailures.increment();
+                log.error("Failed to append audit event to write-ahead log, using in-memory queue: {}", e.getMessage());
+            }
+        }
+        if (!running) {
+            // before start or after shutdown there is no writer thread to drain the queue
+            writeIndividually(List.of(auditLog));
+            return true;
+        }
+        if (queue.offer(auditLog)) {
+            return true;
+        }
+        if (properties.getOverflowPolicy() == AuditProperties.OverflowPolicy.DROP_LOW
+                && (auditLog.getSeverity() == null || auditLog.getSeverity() == LabAuditLogs.Severity.LOW)) {
+            droppedLowCounter.increment();
+            return false;
+        }
+        try {
+            if (queue.offer(auditLog, properties.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        droppedFullCounter.increment();
+        log.warn("Audit queue full, dropping {} event for entity {} {}",
+                auditLog.getActionType(), auditLog.getEntityType(), auditLog.getEntityId());
+        return false;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        worker = new Thread(this::run, "audit-log-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("Audit writer stopped with {} events still queued in memory", queue.size());
+        }
+        worker = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // stopped after the web server, so in-flight requests can still enqueue, and before the datasource closes
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<LabAuditLogs> batch = new ArrayList<>(batchSize);
+        while (running) {
+            boolean backlog = false;
+            try {
+                syncWal();
+                backlog = replayWal(batchSize);
+                LabAuditLogs first = queue.poll(backlog ? 0 : flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+            } catch (InterruptedException e) {
+                // stop() interrupts the wait; anything still pending is drained below
+            } catch (RuntimeException e) {
+                log.error("Audit writer iteration failed: {}", e.getMessage(), e);
+            }
+            flushQueued(batch);
+        }
+        drainOnShutdown(batchSize, batch);
+    }
+
+    private void drainOnShutdown(int batchSize, List<LabAuditLogs> batch) {
+        while (!queue.isEmpty()) {
+            queue.drainTo(batch, batchSize);
+            flushQueued(batch);
+        }
+        if (wal == null) {
+            return;
+        }
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        retryNotBefore = 0;
+        try {
+            syncWal();
+            while (System.nanoTime() < deadline && replayWal(batchSize)) {
+                // keep replaying full batches until caught up; the rest is replayed after restart
+            }
+            wal.close();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to drain audit write-ahead log on shutdown: {}", e.getMessage(), e);
+        }
+    }
+
+    private void syncWal() {
+        if (wal == null) {
+            return;
+        }
+        try {
+            wal.sync();
+        } catch (IOException e) {
+            log.error("Failed to sync audit write-ahead log: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replays one batch from the write-ahead log.
+     *
+     * @return true if a full batch was written, i.e. more events are probably waiting
+     */
+    private boolean replayWal(int batchSize) {
+        if (wal == null || System.nanoTime() < retryNotBefore) {
+            return false;
+        }
+        AuditWriteAheadLog.Batch batch;
+        try {
+            batch = wal.read(batchSize);
+        } catch (IOException e) {
+            log.error("Failed to read audit write-ahead log: {}", e.getMessage(), e);
+            return false;
+        }
+        if (batch.events().isEmpty()) {
+            return false;
+        }
+        try {
+            writeBatch(batch.events());
+        } catch (RuntimeException ex) {
+            if (isTransient(ex) || !writeIndividually(batch.events())) {
+                // database unavailable: keep the events in the log and try again later
+                scheduleRetry(ex);
+                return false;
+            }
+        }
+        retryDelayNanos = 0;
+        try {
+            wal.commit(batch);
+        } catch (IOException e) {
+            // the batch is replayed again later, which the idempotent insert tolerates
+            log.error("Failed to write audit write-ahead log checkpoint: {}", e.getMessage(), e);
+        }
+        return batch.events().size() == batchSize;
+    }
+
+    private void flushQueued(List<LabAuditLogs> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            writeBatch(batch);
+        } catch (RuntimeException ex) {
+            log.error("Failed to persist batch of {} audit logs, retrying individually: {}", batch.size(), ex.getMessage());
+            writeIndividually(batch);
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<LabAuditLogs> events) {
+        String sql = insertSql();
+        flushTimer.record(() -> transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(sql, events, events.size(), this::bind)));
+        writtenCounter.increment(events.size());
+    }
+
+    /**
+     * Writes the events one by one so a single bad row does not take the rest of the batch with it.
+     *
+     * @return false if the database became unreachable; the remaining events were not attempted
+     */
+    private boolean writeIndividually(List<LabAuditLogs> events) {
+        for (LabAuditLogs auditLog : events) {
+            try {
+                writeBatch(List.of(auditLog));
+            } catch (RuntimeException ex) {
+                if (isTransient(ex)) {
+                    return false;
+                }
+                failedCounter.increment();
+                log.error("Failed to persist audit log {}: {}", auditLog.getId(), ex.getMessage(), ex);
+            }
+        }
+        return true;
+    }
+
+    private void scheduleRetry(RuntimeException ex) {
+        long initial = properties.getReplayRetryDelay().toNanos();
+        retryDelayNanos = retryDelayNanos == 0 ? initial : Math.min(retryDelayNanos * 2, MAX_RETRY_DELAY_NANOS);
+        retryNotBefore = System.nanoTime() + retryDelayNanos;
+        log.warn("Audit replay deferred for {} ms, database unavailable: {}",
+                TimeUnit.NANOSECONDS.toMillis(retryDelayNanos), ex.getMessage());
+    }
+
+    private static boolean isTransient(Throwable ex) {
+        return ex instanceof TransientDataAccessException
+                || ex instanceof RecoverableDataAccessException
+                || ex instanceof DataAccessResourceFailureException
+                || ex instanceof CannotCreateTransactionException;
+    }
+
+    private void bind(PreparedStatement ps, LabAuditLogs auditLog) throws SQLException {
+        if (auditLog.getId() == null) {
+            auditLog.setId(UUID.randomUUID());
+        }
+        ps.setObject(1, auditLog.getId());
+        ps.setObject(2, auditLog.getTimestamp());
+        ps.setObject(3, auditLog.getUserId());
+        ps.setString(4, auditLog.getLab_id());
+        ps.setString(5, auditLog.getUsername());
+        ps.setString(6, auditLog.getRole());
+        ps.setString(7, auditLog.getIpAddress());
+        ps.setString(8, auditLog.getModule());
+        ps.setString(9, auditLog.getEntityType());
+        ps.setString(10, auditLog.getEntityId());
+        ps.setString(11, auditLog.getActionType());
+        ps.setString(12, auditLog.getFieldChanged());
+        ps.setString(13, auditLog.getOldValue());
+        ps.setString(14, auditLog.getNewValue());
+        ps.setString(15, auditLog.getChangeReason());
+        ps.setString(16, auditLog.getRequestId());
+        ps.setString(17, auditLog.getDeviceInfo());
+        ps.setString(18, auditLog.getSeverity() != null ? auditLog.getSeverity().name() : null);
+        ps.setObject(19, auditLog.getId());
+    }
+
+    /**
+     * INSERT ... SELECT ... WHERE NOT EXISTS keeps replays idempotent on both PostgreSQL and H2.
+     * The jsonb columns need an explicit cast on PostgreSQL when bound as strings.
+     */
+    private String insertSql() {
+        String sql = insertSql;
+        if (sql == null) {
+            String json = databaseDialect.jsonParameter();
+            sql = "INSERT INTO lab_audit_logs (id, timestamp, user_id, lab_id, username, role, ip_address, module, "
+                    + "entity_type, entity_id, action_type, field_changed, old_value, new_value, change_reason, "
+                    + "request_id, device_info, severity) "
+                    + "SELECT ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + json + ", " + json + ", " + json + ", ?, ?, ?, ? "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM lab_audit_logs WHERE id = ?)";
+            insertSql = sql;
+        }
+        return sql;
+    }
+
+    private AuditWriteAheadLog openWal(ObjectMapper objectMapper) {
+        Path directory = Path.of(properties.getWalDirectory()).toAbsolutePath();
+        try {
+            return new AuditWriteAheadLog(directory, properties.getWalSegmentSize().toBytes(), objectMapper);
+        } catch (IOException e) {
+            log.error("Cannot open audit write-ahead log in {}, audit events use the in-memory queue only: {}",
+                    directory, e.getMessage(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package tiameds.com.tiameds.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import tiameds.com.tiameds.entity.LabAuditLogs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, segmented local log of audit events (one JSON document per line).
+ *
+ * Request threads only {@link #append(LabAuditLogs)}, which is a write into the OS page cache; {@link #sync()}
+ * forces the active segment to disk and is called periodically by the replayer, so fsyncs are batched.
+ * A process crash loses nothing that was appended, a host crash at most one sync interval.
+ *
+ * The replayer reads with {@link #read(int)} and acknowledges with {@link #commit(Batch)}; the read position
+ * is persisted in a checkpoint file and fully replayed segments are deleted. Every event carries its UUID from
+ * the moment it is appended, so replaying a batch twice (e.g. after a crash before the checkpoint was written)
+ * is harmless as long as the insert is idempotent on the id.
+ *
+ * Not thread-safe for readers: {@link #read(int)} and {@link #commit(Batch)} must be called from one thread.
+ */
+@Slf4j
+class AuditWriteAheadLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int INITIAL_READ_BYTES = 256 * 1024;
+
+    /**
+     * Events read from the log together with the position just after the last of them.
+     */
+    record Batch(List<LabAuditLogs> events, long segment, long offset) {
+    }
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final ObjectMapper objectMapper;
+
+    private final Object appendLock = new Object();
+    private FileChannel activeChannel;
+    private volatile long activeSegment;
+    private long activeSize;
+    private volatile boolean dirty;
+
+    // reader position; only touched by the replayer thread
+    private long readSegment;
+    private long readOffset;
+
+    AuditWriteAheadLog(Path directory, long segmentMaxBytes, ObjectMapper objectMapper) throws IOException {
+        this.directory = directory;
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.objectMapper = objectMapper;
+
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> segments = listSegments();
+        long lastSegment = segments.isEmpty() ? 0 : segments.lastKey();
+        // always append to a fresh segment; an older one may end in a torn line from a crash
+        openSegment(lastSegment + 1);
+        loadCheckpoint(segments.isEmpty() ? activeSegment : segments.firstKey());
+        if (!segments.isEmpty()) {
+            log.info("Audit write-ahead log has {} segment(s) pending replay in {}", segments.size(), directory);
+        }
+    }
+
+    /**
+     * Assigns the event its id (if it has none) and appends it to the active segment.
+     */
+    void append(LabAuditLogs auditLog) throws IOException {
+        if (auditLog.getId() == null) {
+            auditLog.setId(UUID.randomUUID());
+        }
+        byte[] json = objectMapper.writeValueAsBytes(auditLog);
+        ByteBuffer line = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        synchronized (appendLock) {
+            if (activeSize > 0 && activeSize + line.remaining() > segmentMaxBytes) {
+                rollSegment();
+            }
+            while (line.hasRemaining()) {
+                activeSize += activeChannel.write(line);
+            }
+            dirty = true;
+        }
+    }
+
+    /**
+     * Forces appended events of the active segment to disk if anything was written since the last sync.
+     */
+    void sync() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        synchronized (appendLock) {
+            dirty = false;
+            activeChannel.force(false);
+        }
+    }
+
+    /**
+     * Reads up to {@code maxEvents} complete events after the committed position. Never blocks; returns an
+     * empty batch when the replayer has caught up.
+     */
+    Batch read(int maxEvents) throws IOException {
+        List<LabAuditLogs> events = new ArrayList<>();
+        long segment = readSegment;
+        long offset = readOffset;
+        while (events.size() < maxEvents) {
+            // check activeSegment before the file size: a segment that was rolled before this point has its final size
+            boolean sealed = segment < activeSegment;
+            Path path = segmentPath(segment);
+            long size = Files.exists(path) ? Files.size(path) : 0;
+            if (offset < size) {
+                offset = readLines(path, offset, size, maxEvents, events);
+                if (offset < size && !sealed) {
+                    // partially written line at the end of the active segment
+                    break;
+                }
+                if (offset < size && events.size() < maxEvents) {
+                    log.warn("Skipping {} bytes of incomplete audit event at the end of {}", size - offset, path);
+                    offset = size;
+                }
+            }
+            if (offset >= size && sealed) {
+                segment = nextSegmentAfter(segment);
+                offset = 0;
+                continue;
+            }
+            break;
+        }
+        Batch batch = new Batch(events, segment, offset);
+        if (events.isEmpty() && (segment != readSegment || offset != readOffset)) {
+            // only skipped a finished segment or a torn tail; nothing to write, so acknowledge right away
+            commit(batch);
+        }
+        return batch;
+    }
+
+    /**
+     * Persists the read position after a batch has been written to the database and deletes replayed segments.
+     */
+    void commit(Batch batch) throws IOException {
+        Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(tmp, batch.segment() + " " + batch.offset(), StandardCharsets.US_ASCII);
+        Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Long segment : listSegments().headMap(batch.segment()).keySet()) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        readSegment = batch.segment();
+        readOffset = batch.offset();
+    }
+
+    /**
+     * Number of segment files on disk, including the active one.
+     */
+    int segmentCount() {
+        try {
+            return listSegments().size();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            activeChannel.force(false);
+            activeChannel.close();
+        }
+    }
+
+    private long readLines(Path path, long offset, long size, int maxEvents, List<LabAuditLogs> events) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            int bufferSize = (int) Math.min(size - offset, INITIAL_READ_BYTES);
+            while (true) {
+                ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+                channel.read(buffer, offset);
+                byte[] bytes = buffer.array();
+                int length = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < length && events.size() < maxEvents; i++) {
+                    if (bytes[i] == '\n') {
+                        parseLine(path, bytes, lineStart, i - lineStart, events);
+                        lineStart = i + 1;
+                    }
+                }
+                if (lineStart > 0 || bufferSize >= size - offset) {
+                    return offset + lineStart;
+                }
+                // a single event larger than the buffer
+                bufferSize = (int) Math.min(size - offset, (long) bufferSize * 2);
+            }
+        }
+    }
+
+    private void parseLine(Path path, byte[] bytes, int start, int length, List<LabAuditLogs> events) {
+        if (length == 0) {
+            return;
+        }
+        try {
+            events.add(objectMapper.readValue(bytes, start, length, LabAuditLogs.class));
+        } catch (IOException e) {
+            log.error("Skipping unreadable audit event in {}: {}", path, new String(bytes, start, length, StandardCharsets.UTF_8), e);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        activeChannel.force(false);
+        activeChannel.close();
+        openSegment(activeSegment + 1);
+    }
+
+    private void openSegment(long segment) throws IOException {
+        activeChannel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSize = activeChannel.size();
+        activeSegment = segment;
+    }
+
+    private void loadCheckpoint(long firstSegment) throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        readSegment = firstSegment;
+        readOffset = 0;
+        if (Files.exists(checkpoint)) {
+            String[] parts = Files.readString(checkpoint, StandardCharsets.US_ASCII).trim().split(" ");
+            long segment = Long.parseLong(parts[0]);
+            if (segment >= firstSegment && segment <= activeSegment) {
+                readSegment = segment;
+                readOffset = Long.parseLong(parts[1]);
+            }
+        }
+    }
+
+    private long nextSegmentAfter(long segment) throws IOException {
+        Long next = listSegments().higherKey(segment);
+        return next != null ? next : activeSegment;
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+                    } catch (NumberFormatException ignored) {
+                        // not one of ours
+                    }
+                }
+            });
+        }
+        return segments;
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
@@ -1,5 +1,6 @@
 package tiameds.com.tiameds.audit.helpers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -11,6 +12,7 @@ import tiameds.com.tiameds.dto.visits.BillDTO;
 import tiameds.com.tiameds.entity.PatientEntity;
 
 import java.math.BigDecimal;
+import java.io.StringWriter;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.HashMap;
@@ -19,12 +21,29 @@ import java.util.Set;
 
 /**
  * Helper class for tracking field changes between old and new entity states.
- * Designed to be extensible for other entity types in the future.
+ * The audited properties of each DTO are declared once as a {@link FieldDiffer}; new entity types add a table.
  */
 @Slf4j
 @Component
 public class FieldChangeTracker {
 
+    private static final FieldDiffer<PatientDTO> PATIENT_FIELDS = FieldDiffer.of(PatientDTO.class,
+            "firstName", "lastName", "email", "phone", "address", "city", "state", "zip",
+            "bloodGroup", "dateOfBirth", "age", "gender");
+
+    private static final FieldDiffer<DoctorDTO> DOCTOR_FIELDS = FieldDiffer.of(DoctorDTO.class,
+            "name", "email", "speciality", "qualification", "hospitalAffiliation", "licenseNumber",
+            "phone", "address", "city", "state", "country");
+
+    private static final FieldDiffer<TestDTO> TEST_FIELDS = FieldDiffer.of(TestDTO.class,
+            "category", "name", "price");
+
+    private static final FieldDiffer<SampleDto> SAMPLE_FIELDS = FieldDiffer.of(SampleDto.class, "name");
+
+    private static final FieldDiffer<BillDTO> BILL_FIELDS = FieldDiffer.of(BillDTO.class,
+            "totalAmount", "paymentStatus", "paymentMethod", "paymentDate", "discount", "discountReason",
+            "netAmount", "receivedAmount", "actualReceivedAmount", "dueAmount", "refundAmount");
+
     private final ObjectMapper objectMapper;
 
     public FieldChangeTracker(ObjectMapper objectMapper) {
@@ -49,72 +68,19 @@ public class FieldChangeTracker {
      * Useful when the old state is captured as a DTO snapshot.
      */
     public Map<String, Object> comparePatientFields(PatientDTO oldPatient, PatientDTO newPatient) {
-        Map<String, Object> changes = new HashMap<>();
-
-        if (oldPatient == null || newPatient == null) {
-            return changes;
-        }
-
-        // Compare each field
-        compareField(changes, "firstName", oldPatient.getFirstName(), newPatient.getFirstName());
-        compareField(changes, "lastName", oldPatient.getLastName(), newPatient.getLastName());
-        compareField(changes, "email", oldPatient.getEmail(), newPatient.getEmail());
-        compareField(changes, "phone", oldPatient.getPhone(), newPatient.getPhone());
-        compareField(changes, "address", oldPatient.getAddress(), newPatient.getAddress());
-        compareField(changes, "city", oldPatient.getCity(), newPatient.getCity());
-        compareField(changes, "state", oldPatient.getState(), newPatient.getState());
-        compareField(changes, "zip", oldPatient.getZip(), newPatient.getZip());
-        compareField(changes, "bloodGroup", oldPatient.getBloodGroup(), newPatient.getBloodGroup());
-        compareField(changes, "dateOfBirth", oldPatient.getDateOfBirth(), newPatient.getDateOfBirth());
-        compareField(changes, "age", oldPatient.getAge(), newPatient.getAge());
-        compareField(changes, "gender", oldPatient.getGender(), newPatient.getGender());
-
-        return changes;
+        return toChangeMap(PATIENT_FIELDS, oldPatient, newPatient);
     }
 
     public Map<String, Object> compareDoctorFields(DoctorDTO oldDoctor, DoctorDTO newDoctor) {
-        Map<String, Object> changes = new HashMap<>();
-
-        if (oldDoctor == null || newDoctor == null) {
-            return changes;
-        }
-
-        compareField(changes, "name", oldDoctor.getName(), newDoctor.getName());
-        compareField(changes, "email", oldDoctor.getEmail(), newDoctor.getEmail());
-        compareField(changes, "speciality", oldDoctor.getSpeciality(), newDoctor.getSpeciality());
-        compareField(changes, "qualification", oldDoctor.getQualification(), newDoctor.getQualification());
-        compareField(changes, "hospitalAffiliation", oldDoctor.getHospitalAffiliation(), newDoctor.getHospitalAffiliation());
-        compareField(changes, "licenseNumber", oldDoctor.getLicenseNumber(), newDoctor.getLicenseNumber());
-        compareField(changes, "phone", oldDoctor.getPhone(), newDoctor.getPhone());
-        compareField(changes, "address", oldDoctor.getAddress(), newDoctor.getAddress());
-        compareField(changes, "city", oldDoctor.getCity(), newDoctor.getCity());
-        compareField(changes, "state", oldDoctor.getState(), newDoctor.getState());
-        compareField(changes, "country", oldDoctor.getCountry(), newDoctor.getCountry());
-
-        return changes;
+        return toChangeMap(DOCTOR_FIELDS, oldDoctor, newDoctor);
     }
 
     public Map<String, Object> compareTestFields(TestDTO oldTest, TestDTO newTest) {
-        Map<String, Object> changes = new HashMap<>();
-
-        if (oldTest == null || newTest == null) {
-            return changes;
-        }
-
-        compareField(changes, "category", oldTest.getCategory(), newTest.getCategory());
-        compareField(changes, "name", oldTest.getName(), newTest.getName());
-        compareBigDecimalField(changes, "price", oldTest.getPrice(), newTest.getPrice());
-
-        return changes;
+        return toChangeMap(TEST_FIELDS, oldTest, newTest);
     }
 
     public Map<String, Object> compareSampleFields(SampleDto oldSample, SampleDto newSample) {
-        Map<String, Object> changes = new HashMap<>();
-        if (oldSample == null || newSample == null) {
-            return changes;
-        }
-        compareField(changes, "name", oldSample.getName(), newSample.getName());
-        return changes;
+        return toChangeMap(SAMPLE_FIELDS, oldSample, newSample);
     }
 
     public Map<String, Object> compareMaps(Map<String, Object> oldValues, Map<String, Object> newValues) {
@@ -145,54 +111,73 @@ public class FieldChangeTracker {
      * Compares two BillDTO instances to identify changed billing fields.
      */
     public Map<String, Object> compareBillFields(BillDTO oldBill, BillDTO newBill) {
-        Map<String, Object> changes = new HashMap<>();
+        return toChangeMap(BILL_FIELDS, oldBill, newBill);
+    }
 
-        if (oldBill == null || newBill == null) {
-            return changes;
-        }
+    /**
+     * Field changes between two patient snapshots as the final fieldChanged JSON, or null if nothing changed.
+     * Same payload as {@code fieldChangesToJson(comparePatientFields(...))} without the intermediate maps.
+     */
+    public String patientChangesJson(PatientDTO oldPatient, PatientDTO newPatient) {
+        return toChangeJson(PATIENT_FIELDS, oldPatient, newPatient);
+    }
 
-        compareBigDecimalField(changes, "totalAmount", oldBill.getTotalAmount(), newBill.getTotalAmount());
-        compareField(changes, "paymentStatus", oldBill.getPaymentStatus(), newBill.getPaymentStatus());
-        compareField(changes, "paymentMethod", oldBill.getPaymentMethod(), newBill.getPaymentMethod());
-        compareField(changes, "paymentDate", oldBill.getPaymentDate(), newBill.getPaymentDate());
-        compareBigDecimalField(changes, "discount", oldBill.getDiscount(), newBill.getDiscount());
-        compareField(changes, "discountReason", oldBill.getDiscountReason(), newBill.getDiscountReason());
-        compareBigDecimalField(changes, "netAmount", oldBill.getNetAmount(), newBill.getNetAmount());
-        compareBigDecimalField(changes, "receivedAmount", oldBill.getReceivedAmount(), newBill.getReceivedAmount());
-        compareBigDecimalField(changes, "actualReceivedAmount", oldBill.getActualReceivedAmount(), newBill.getActualReceivedAmount());
-        compareBigDecimalField(changes, "dueAmount", oldBill.getDueAmount(), newBill.getDueAmount());
-        compareBigDecimalField(changes, "refundAmount", oldBill.getRefundAmount(), newBill.getRefundAmount());
+    public String doctorChangesJson(DoctorDTO oldDoctor, DoctorDTO newDoctor) {
+        return toChangeJson(DOCTOR_FIELDS, oldDoctor, newDoctor);
+    }
 
-        return changes;
+    public String testChangesJson(TestDTO oldTest, TestDTO newTest) {
+        return toChangeJson(TEST_FIELDS, oldTest, newTest);
     }
 
-    /**
-     * Helper method to compare a single field and add to changes map if different.
-     */
-    private void compareField(Map<String, Object> changes, String fieldName, Object oldValue, Object newValue) {
-        if (!equals(oldValue, newValue)) {
-            changes.put(fieldName, Map.of(
-                "old", safeString(oldValue),
-                "new", safeString(newValue)
-            ));
-        }
+    public String sampleChangesJson(SampleDto oldSample, SampleDto newSample) {
+        return toChangeJson(SAMPLE_FIELDS, oldSample, newSample);
     }
 
-    private void compareBigDecimalField(Map<String, Object> changes, String fieldName, BigDecimal oldValue, BigDecimal newValue) {
-        if (oldValue == null && newValue == null) {
-            return;
-        }
-        boolean differs;
-        if (oldValue == null || newValue == null) {
-            differs = true;
-        } else {
-            differs = oldValue.compareTo(newValue) != 0;
+    public String billChangesJson(BillDTO oldBill, BillDTO newBill) {
+        return toChangeJson(BILL_FIELDS, oldBill, newBill);
+    }
+
+    private <T> Map<String, Object> toChangeMap(FieldDiffer<T> differ, T oldValue, T newValue) {
+        Map<String, Object> changes = new HashMap<>();
+        try {
+            differ.diff(oldValue, newValue, (field, before, after) -> changes.put(field, Map.of(
+                    "old", safeString(before),
+                    "new", safeString(after)
+            )));
+        } catch (Exception e) {
+            log.warn("Failed to compare fields: {}", e.getMessage());
         }
-        if (differs) {
-            changes.put(fieldName, Map.of(
-                    "old", safeString(oldValue),
-                    "new", safeString(newValue)
-            ));
+        return changes;
+    }
+
+    /**
+     * Streams only the changed properties straight into the JSON payload; the generator is not created
+     * until the first change is found.
+     */
+    private <T> String toChangeJson(FieldDiffer<T> differ, T oldValue, T newValue) {
+        StringWriter out = new StringWriter();
+        JsonGenerator[] generator = new JsonGenerator[1];
+        try {
+            differ.diff(oldValue, newValue, (field, before, after) -> {
+                if (generator[0] == null) {
+                    generator[0] = objectMapper.getFactory().createGenerator(out);
+                    generator[0].writeStartObject();
+                }
+                generator[0].writeObjectFieldStart(field);
+                generator[0].writeStringField("old", safeString(before));
+                generator[0].writeStringField("new", safeString(after));
+                generator[0].writeEndObject();
+            });
+            if (generator[0] == null) {
+                return null;
+            }
+            generator[0].writeEndObject();
+            generator[0].close();
+            return out.toString();
+        } catch (Exception e) {
+            log.warn("Failed to serialize field changes to JSON: {}", e.getMessage());
+            return null;
         }
     }
 
@@ -227,15 +212,6 @@ public class FieldChangeTracker {
         }
     }
 
-    /**
-     * Compares two objects for equality, handling null values.
-     */
-    private boolean equals(Object a, Object b) {
-        if (a == null && b == null) return true;
-        if (a == null || b == null) return false;
-        return a.equals(b);
-    }
-
     private boolean valuesEqual(Object a, Object b) {
         if (a == null && b == null) {
             return true;
@@ -0,0 +1,98 @@
+package tiameds.com.tiameds.audit.helpers;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Objects;
+
+/**
+ * Accessor table for the audited properties of one DTO class. Getters are resolved to method handles once,
+ * when the differ is built; comparing two instances then reads the properties directly, without converting
+ * either object to JSON or to a map. BigDecimal properties are compared with compareTo so 10.0 equals 10.00.
+ */
+final class FieldDiffer<T> {
+
+    /**
+     * Receives every property whose value differs, in the order the properties were declared.
+     */
+    @FunctionalInterface
+    interface ChangeSink {
+        void changed(String field, Object oldValue, Object newValue) throws Exception;
+    }
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final String[] fields;
+    private final MethodHandle[] getters;
+    private final boolean[] decimal;
+
+    private FieldDiffer(String[] fields, MethodHandle[] getters, boolean[] decimal) {
+        this.fields = fields;
+        this.getters = getters;
+        this.decimal = decimal;
+    }
+
+    static <T> FieldDiffer<T> of(Class<T> type, String... fields) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle[] getters = new MethodHandle[fields.length];
+        boolean[] decimal = new boolean[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            Method getter = findGetter(type, fields[i]);
+            try {
+                getters[i] = lookup.unreflect(getter).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Getter for " + type.getSimpleName() + "." + fields[i] + " is not accessible", e);
+            }
+            decimal[i] = BigDecimal.class.equals(getter.getReturnType());
+        }
+        return new FieldDiffer<>(fields.clone(), getters, decimal);
+    }
+
+    /**
+     * Reports each audited property whose value differs between the two instances. Nothing is reported if
+     * either instance is null.
+     */
+    void diff(T oldValue, T newValue, ChangeSink sink) throws Exception {
+        if (oldValue == null || newValue == null) {
+            return;
+        }
+        for (int i = 0; i < getters.length; i++) {
+            Object before = read(i, oldValue);
+            Object after = read(i, newValue);
+            if (differs(i, before, after)) {
+                sink.changed(fields[i], before, after);
+            }
+        }
+    }
+
+    private Object read(int index, Object target) {
+        try {
+            return getters[index].invokeExact(target);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Failed to read " + fields[index], t);
+        }
+    }
+
+    private boolean differs(int index, Object before, Object after) {
+        if (decimal[index] && before != null && after != null) {
+            return ((BigDecimal) before).compareTo((BigDecimal) after) != 0;
+        }
+        return !Objects.equals(before, after);
+    }
+
+    private static Method findGetter(Class<?> type, String field) {
+        String suffix = Character.toUpperCase(field.charAt(0)) + field.substring(1);
+        for (String prefix : new String[]{"get", "is"}) {
+            try {
+                return type.getMethod(prefix + suffix);
+            } catch (NoSuchMethodException ignored) {
+                // try the next naming convention
+            }
+        }
+        throw new IllegalArgumentException("No getter for " + type.getSimpleName() + "." + field);
+    }
+}
@@ -0,0 +1,74 @@
+package tiameds.com.tiameds.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "audit.writer")
+public class AuditProperties {
+
+    /**
+     * Maximum number of audit events buffered in memory before the overflow policy applies.
+     */
+    private int queueCapacity = 10_000;
+
+    /**
+     * Events written per transaction, sent as a single JDBC batch insert.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Longest time an event waits before a partial batch is flushed; also the fsync interval of the write-ahead log.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * What the request thread does when the in-memory queue is full.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_LOW;
+
+    /**
+     * How long a request thread may block waiting for queue space before the event is dropped.
+     */
+    private Duration offerTimeout = Duration.ofMillis(100);
+
+    /**
+     * How long shutdown waits for the queue to drain.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    /**
+     * Append audit events to a local write-ahead log first and replay them into the database asynchronously.
+     * When disabled (or when the log cannot be written) events go through the in-memory queue only.
+     */
+    private boolean walEnabled = true;
+
+    /**
+     * Directory holding the write-ahead log segments and the replay checkpoint. Must survive restarts.
+     */
+    private String walDirectory = "data/audit-wal";
+
+    /**
+     * Size at which the active write-ahead log segment is closed and a new one started.
+     */
+    private DataSize walSegmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Initial delay before replaying again after the database was unreachable; doubled up to one minute.
+     */
+    private Duration replayRetryDelay = Duration.ofSeconds(1);
+
+    public enum OverflowPolicy {
+        /** Wait up to offer-timeout for space, then drop. */
+        BLOCK,
+        /** Drop LOW severity events immediately; wait up to offer-timeout for everything else. */
+        DROP_LOW
+    }
+}
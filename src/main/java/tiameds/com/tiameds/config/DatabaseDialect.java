@@ -0,0 +1,38 @@
+package tiameds.com.tiameds.config;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which database the application talks to, for the few statements that differ between PostgreSQL in production
+ * and H2 in tests. Read from the connection metadata on first use.
+ */
+@Component
+public class DatabaseDialect {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean postgres;
+
+    public DatabaseDialect(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isPostgres() {
+        Boolean result = postgres;
+        if (result == null) {
+            result = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase().contains("postgres")));
+            postgres = result;
+        }
+        return result;
+    }
+
+    /**
+     * Placeholder for a string bound to a jsonb column, which PostgreSQL only accepts with an explicit cast.
+     */
+    public String jsonParameter() {
+        return isPostgres() ? "CAST(? AS jsonb)" : "?";
+    }
+}
@@ -33,6 +33,12 @@ public class JwtProperties {
     private Duration accessTokenTtl = Duration.ofMinutes(15);
     private Duration refreshTokenTtl = Duration.ofHours(24);
 
+    /**
+     * Maximum number of recently verified tokens whose claims are kept in memory (until their expiry)
+     * so repeated parsing of the same token skips the RSA signature check. 0 disables the cache.
+     */
+    private long verifiedClaimsCacheSize = 10_000;
+
     @NotBlank
     private String issuer = "tiameds-lab-automation";
 
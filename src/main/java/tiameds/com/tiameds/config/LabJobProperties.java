@@ -0,0 +1,53 @@
+package tiameds.com.tiameds.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "lab.jobs")
+public class LabJobProperties {
+
+    /**
+     * Jobs running at the same time on this node.
+     */
+    private int threads = 4;
+
+    /**
+     * Jobs waiting for a thread; further submissions are refused until the queue drains.
+     */
+    private int queueCapacity = 100;
+
+    /**
+     * Name under which this node owns the jobs it runs, so after a restart it recovers its own at once.
+     * Defaults to the host name; jobs left under a name that does not come back are taken over once their lease
+     * expires.
+     */
+    private String nodeId;
+
+    /**
+     * How often a node renews the lease on its unfinished jobs and looks for expired ones.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+    /**
+     * Age of a lease after which its queued or running job is taken to be orphaned and is resumed or failed by
+     * whichever node claims it first. Must be a few heartbeat intervals long.
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(2);
+
+    /**
+     * Minimum interval between two progress writes of one job; cancellation is noticed at the same rate.
+     */
+    private Duration progressInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long shutdown waits for running jobs before leaving them to be recovered on the next start.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(20);
+}
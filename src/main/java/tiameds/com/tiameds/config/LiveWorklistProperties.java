@@ -0,0 +1,46 @@
+package tiameds.com.tiameds.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "worklist.live")
+public class LiveWorklistProperties {
+
+    /**
+     * Most recent visit events kept per lab so a reconnecting client can resume from its Last-Event-ID.
+     */
+    private int replayBufferSize = 500;
+
+    /**
+     * Events queued for one subscriber beyond its replay; a subscriber that falls further behind is disconnected
+     * and resumes from the replay buffer when it reconnects.
+     */
+    private int subscriberQueueCapacity = 256;
+
+    /**
+     * Open streams per lab on this node.
+     */
+    private int maxSubscribersPerLab = 200;
+
+    /**
+     * Lifetime of one stream; EventSource clients reconnect on their own when it ends.
+     */
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Interval of comment lines sent to keep idle streams open through proxies.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(25);
+
+    /**
+     * Threads writing events to subscribers.
+     */
+    private int senderThreads = 4;
+}
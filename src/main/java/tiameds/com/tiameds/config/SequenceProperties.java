@@ -0,0 +1,40 @@
+package tiameds.com.tiameds.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import tiameds.com.tiameds.entity.EntityType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "sequence")
+public class SequenceProperties {
+
+    /**
+     * Number of codes reserved from lab_entity_sequence in one round-trip when no
+     * per-entity override is configured. A value of 1 reproduces the old one-lock-per-code behaviour.
+     */
+    private int defaultBlockSize = 20;
+
+    /**
+     * Per-entity block sizes, e.g. sequence.block-size.VISIT_TEST_RESULT=200.
+     */
+    private Map<EntityType, Integer> blockSize = new EnumMap<>(EntityType.class);
+
+    public int blockSizeFor(String entityName) {
+        try {
+            Integer size = blockSize.get(EntityType.valueOf(entityName));
+            if (size != null && size > 0) {
+                return size;
+            }
+        } catch (IllegalArgumentException ignored) {
+            // entity names outside the enum fall back to the default block size
+        }
+        return Math.max(1, defaultBlockSize);
+    }
+}
@@ -1,4 +1,5 @@
 package tiameds.com.tiameds.config;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -72,6 +73,7 @@ public class SpringSecurityConfig {
                 )
                 .authorizeHttpRequests(auth -> auth
                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()  // Permit CORS preflight requests
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()  // Completion of streams already authorized on the original request
 
                                 // ---------------list of all endpoints with roles as DESKROLE and admin---------------------
                                 .requestMatchers(
@@ -115,7 +117,8 @@ public class SpringSecurityConfig {
                                 ).hasAnyRole("ADMIN", "TECHNICIAN","SUPERADMIN")
 
                                 .requestMatchers(
-                                        "/lab/*/datewise-lab-visits"
+                                        "/lab/*/datewise-lab-visits",
+                                        "/lab/*/worklist/stream"
                                 ).hasAnyRole("ADMIN", "TECHNICIAN","SUPERADMIN", "DESKROLE")
 
                         //---------- admin and super admin endpoints -------------------
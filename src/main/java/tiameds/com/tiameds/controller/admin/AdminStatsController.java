@@ -18,6 +18,8 @@ import tiameds.com.tiameds.repository.UserRepository;
 import tiameds.com.tiameds.repository.VisitRepository;
 import tiameds.com.tiameds.repository.VisitSampleRepository;
 import tiameds.com.tiameds.repository.VisitTestResultRepository;
+import tiameds.com.tiameds.services.lab.LabDailyStatsService;
+import tiameds.com.tiameds.services.lab.LabKpiService;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
 import tiameds.com.tiameds.utils.UserAuthService;
 
@@ -54,6 +56,8 @@ public class AdminStatsController {
     private final DoctorRepository doctorRepository;
     private final HealthPackageRepository healthPackageRepository;
     private final UserAuthService userAuthService;
+    private final LabKpiService labKpiService;
+    private final LabDailyStatsService labDailyStatsService;
 
     public AdminStatsController(LabRepository labRepository,
                                 PatientRepository patientRepository,
@@ -65,7 +69,9 @@ public class AdminStatsController {
                                 VisitSampleRepository visitSampleRepository,
                                 DoctorRepository doctorRepository,
                                 HealthPackageRepository healthPackageRepository,
-                                UserAuthService userAuthService) {
+                                UserAuthService userAuthService,
+                                LabKpiService labKpiService,
+                                LabDailyStatsService labDailyStatsService) {
         this.labRepository = labRepository;
         this.patientRepository = patientRepository;
         this.visitTestResultRepository = visitTestResultRepository;
@@ -77,6 +83,8 @@ public class AdminStatsController {
         this.doctorRepository = doctorRepository;
         this.healthPackageRepository = healthPackageRepository;
         this.userAuthService = userAuthService;
+        this.labKpiService = labKpiService;
+        this.labDailyStatsService = labDailyStatsService;
     }
 
     // ─── Auth & access helpers ────────────────────────────────────────────────
@@ -451,9 +459,7 @@ public class AdminStatsController {
         ResponseEntity<?> err = authenticate(token, labId, u, l);
         if (err != null) return err;
 
-        Instant start = toInstantStart(startDate);
-        Instant end   = toInstantEnd(endDate);
-        List<BillingRepository.DailyRevenueProjection> trend = billingRepository.getDailyPaidAmountTrendByLabId(labId, start, end);
+        List<BillingRepository.DailyRevenueProjection> trend = labDailyStatsService.getDailyRevenue(labId, startDate, endDate);
 
         BigDecimal totalRevenue = trend.stream()
                 .map(BillingRepository.DailyRevenueProjection::getRevenue)
@@ -700,9 +706,7 @@ public class AdminStatsController {
         ResponseEntity<?> err = authenticate(token, labId, u, l);
         if (err != null) return err;
 
-        Double avg = (startDate != null && endDate != null)
-                ? visitTestResultRepository.getAvgTatHoursByLabIdAndDateRange(labId, toInstantStart(startDate), toInstantEnd(endDate))
-                : visitTestResultRepository.getAvgTatHoursByLabId(labId);
+        Double avg = labDailyStatsService.getAvgTatHours(labId, startDate, endDate);
         double avgTat = (avg != null) ? Math.round(avg * 10.0) / 10.0 : 0.0;
         return ApiResponseHelper.successResponse("Avg TAT retrieved successfully", Map.of("avgTatHours", avgTat));
     }
@@ -715,52 +719,25 @@ public class AdminStatsController {
         ResponseEntity<?> err = authenticate(token, labId, u, l);
         if (err != null) return err;
 
-        LocalDate today       = LocalDate.now();
-        LocalDate currStart   = today.minusDays(6);
-        LocalDate prevStart   = today.minusDays(13);
-        LocalDate prevEnd     = today.minusDays(7);
-
-        Instant iCurrStart = toInstantStart(currStart);
-        Instant iCurrEnd   = toInstantEnd(today);
-        Instant iPrevStart = toInstantStart(prevStart);
-        Instant iPrevEnd   = toInstantEnd(prevEnd);
-        LocalDateTime lCurrStart = toStart(currStart);
-        LocalDateTime lCurrEnd   = toEnd(today);
-        LocalDateTime lPrevStart = toStart(prevStart);
-        LocalDateTime lPrevEnd   = toEnd(prevEnd);
-
-        // ── Revenue ──
-        BigDecimal currRevenue = billingRepository.sumPaidAmountByLabId(labId, iCurrStart, iCurrEnd);
-        BigDecimal prevRevenue = billingRepository.sumPaidAmountByLabId(labId, iPrevStart, iPrevEnd);
-        if (currRevenue == null) currRevenue = BigDecimal.ZERO;
-        if (prevRevenue == null) prevRevenue = BigDecimal.ZERO;
-
-        // ── Tests ──
-        long currTests = visitTestResultRepository.countAllTestsByLabIdAndCreatedAtBetween(labId, lCurrStart, lCurrEnd);
-        long prevTests = visitTestResultRepository.countAllTestsByLabIdAndCreatedAtBetween(labId, lPrevStart, lPrevEnd);
-
-        // ── Patients ──
-        long currPatients = patientRepository.countByLabIdAndCreatedAtBetween(labId, iCurrStart, iCurrEnd);
-        long prevPatients = patientRepository.countByLabIdAndCreatedAtBetween(labId, iPrevStart, iPrevEnd);
-
-        // ── Pending Samples ──
-        long currPending = visitRepository.countPendingVisitsByLabIdAndCreatedAtBetween(labId, iCurrStart, iCurrEnd);
-        long prevPending = visitRepository.countPendingVisitsByLabIdAndCreatedAtBetween(labId, iPrevStart, iPrevEnd);
-
-        // ── Reports Generated ──
-        long currReports = visitTestResultRepository.countCompletedReportsByLabIdAndCreatedAtBetween(labId, lCurrStart, lCurrEnd);
-        long prevReports = visitTestResultRepository.countCompletedReportsByLabIdAndCreatedAtBetween(labId, lPrevStart, lPrevEnd);
-
-        // ── Avg TAT ──
-        Double currTatRaw = visitTestResultRepository.getAvgTatHoursByLabIdAndDateRange(labId, iCurrStart, iCurrEnd);
-        Double prevTatRaw = visitTestResultRepository.getAvgTatHoursByLabIdAndDateRange(labId, iPrevStart, iPrevEnd);
-        double currTat = currTatRaw != null ? Math.round(currTatRaw * 10.0) / 10.0 : 0.0;
-        double prevTat = prevTatRaw != null ? Math.round(prevTatRaw * 10.0) / 10.0 : 0.0;
+        LabRepository.LabKpiProjection kpis = labKpiService.getDashboardKpis(labId, LocalDate.now());
+
+        BigDecimal currRevenue = kpis.getRevenue() != null ? kpis.getRevenue() : BigDecimal.ZERO;
+        BigDecimal prevRevenue = kpis.getPreviousRevenue() != null ? kpis.getPreviousRevenue() : BigDecimal.ZERO;
+        long currTests    = orZero(kpis.getTests());
+        long prevTests    = orZero(kpis.getPreviousTests());
+        long currPatients = orZero(kpis.getPatients());
+        long prevPatients = orZero(kpis.getPreviousPatients());
+        long currPending  = orZero(kpis.getPendingSamples());
+        long prevPending  = orZero(kpis.getPreviousPendingSamples());
+        long currReports  = orZero(kpis.getReportsGenerated());
+        long prevReports  = orZero(kpis.getPreviousReportsGenerated());
+        double currTat = kpis.getAvgTatHours() != null ? Math.round(kpis.getAvgTatHours() * 10.0) / 10.0 : 0.0;
+        double prevTat = kpis.getPreviousAvgTatHours() != null ? Math.round(kpis.getPreviousAvgTatHours() * 10.0) / 10.0 : 0.0;
 
         // ── Role counts (all-time, no comparison needed) ──
-        long admins      = userRepository.countByRolesNameAndLabsId("ADMIN", labId);
-        long deskUsers   = userRepository.countByRolesNameAndLabsId("DESKROLE", labId);
-        long technicians = userRepository.countByRolesNameAndLabsId("TECHNICIAN", labId);
+        long admins      = orZero(kpis.getAdmins());
+        long deskUsers   = orZero(kpis.getDeskUsers());
+        long technicians = orZero(kpis.getTechnicians());
 
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("totalRevenue",      kpiMap(currRevenue, pctChange(currRevenue, prevRevenue)));
@@ -791,6 +768,10 @@ public class AdminStatsController {
         return m;
     }
 
+    private long orZero(Long value) {
+        return value != null ? value : 0L;
+    }
+
     private double pctChange(long curr, long prev) {
         if (prev == 0) return curr > 0 ? 100.0 : 0.0;
         return Math.round(((double)(curr - prev) / prev) * 1000.0) / 10.0;
@@ -927,29 +908,14 @@ public class AdminStatsController {
     }
 
     private Map<String, Object> buildAllKpis(Long labId, LocalDate startDate, LocalDate endDate, boolean hasDates) {
-        long totalAdmins, totalTechnicians, totalDeskRoles, totalTests, reportsGenerated, pendingSamples;
-        BigDecimal totalRevenue;
-        if (hasDates) {
-            LocalDateTime s = toStart(startDate);
-            LocalDateTime e = toEnd(endDate);
-            Instant is = toInstantStart(startDate);
-            Instant ie = toInstantEnd(endDate);
-            totalAdmins      = userRepository.countByRolesNameAndLabsIdAndCreatedAtBetween("ADMIN", labId, s, e);
-            totalTechnicians = userRepository.countByRolesNameAndLabsIdAndCreatedAtBetween("TECHNICIAN", labId, s, e);
-            totalDeskRoles   = userRepository.countByRolesNameAndLabsIdAndCreatedAtBetween("DESKROLE", labId, s, e);
-            totalTests       = visitTestResultRepository.countAllTestsByLabIdAndCreatedAtBetween(labId, s, e);
-            reportsGenerated = visitTestResultRepository.countCompletedReportsByLabIdAndCreatedAtBetween(labId, s, e);
-            pendingSamples   = visitRepository.countPendingVisitsByLabIdAndCreatedAtBetween(labId, is, ie);
-            totalRevenue     = billingRepository.sumPaidAmountByLabId(labId, is, ie);
-        } else {
-            totalAdmins      = userRepository.countByRolesNameAndLabsId("ADMIN", labId);
-            totalTechnicians = userRepository.countByRolesNameAndLabsId("TECHNICIAN", labId);
-            totalDeskRoles   = userRepository.countByRolesNameAndLabsId("DESKROLE", labId);
-            totalTests       = visitTestResultRepository.countAllTestsByLabId(labId);
-            reportsGenerated = visitTestResultRepository.countCompletedReportsByLabId(labId);
-            pendingSamples   = visitRepository.countPendingVisitsByLabId(labId);
-            totalRevenue     = billingRepository.sumPaidAmountByLabIdAllTime(labId);
-        }
+        LabRepository.LabKpiProjection row = labKpiService.getKpis(labId, startDate, endDate);
+        long totalAdmins      = orZero(row.getAdmins());
+        long totalTechnicians = orZero(row.getTechnicians());
+        long totalDeskRoles   = orZero(row.getDeskUsers());
+        long totalTests       = orZero(row.getTests());
+        long reportsGenerated = orZero(row.getReportsGenerated());
+        long pendingSamples   = orZero(row.getPendingSamples());
+        BigDecimal totalRevenue = row.getRevenue();
         Map<String, Object> kpis = new LinkedHashMap<>();
         kpis.put("totalAdmins",      totalAdmins);
         kpis.put("totalTechnicians", totalTechnicians);
@@ -1043,9 +1009,7 @@ public class AdminStatsController {
     }
 
     private Map<String, Object> buildAllRevenueTrend(Long labId, LocalDate startDate, LocalDate endDate) {
-        Instant start = toInstantStart(startDate);
-        Instant end   = toInstantEnd(endDate);
-        List<BillingRepository.DailyRevenueProjection> trend = billingRepository.getDailyPaidAmountTrendByLabId(labId, start, end);
+        List<BillingRepository.DailyRevenueProjection> trend = labDailyStatsService.getDailyRevenue(labId, startDate, endDate);
         BigDecimal total = trend.stream().map(BillingRepository.DailyRevenueProjection::getRevenue).reduce(BigDecimal.ZERO, BigDecimal::add);
         Map<String, Object> result = new LinkedHashMap<>();
         result.put("totalRevenue", total);
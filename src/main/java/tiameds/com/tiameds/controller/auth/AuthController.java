@@ -39,6 +39,7 @@ import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.UserRepository;
 import tiameds.com.tiameds.services.auth.RefreshTokenException;
 import tiameds.com.tiameds.services.auth.RefreshTokenService;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
 import tiameds.com.tiameds.services.auth.UserDetailsServiceImpl;
 import tiameds.com.tiameds.services.auth.OtpService;
 import tiameds.com.tiameds.services.auth.PasswordResetRateLimitService;
@@ -82,6 +83,7 @@ public class  AuthController {
     private final PasswordResetRateLimitService passwordResetRateLimitService;
     private final PasswordEncoder passwordEncoder;
     private final AuditLogService auditLogService;
+    private final AuthUserCache authUserCache;
 
     @Value("${password.reset.url:https://app.com/reset-password}")
     private String passwordResetUrl;
@@ -243,6 +245,7 @@ public class  AuthController {
 
         user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
+        authUserCache.evictUser(user.getId());
 
         ResponseCookie clearedAccessCookie = expireCookie(jwtProperties.getAccessCookieName());
         ResponseCookie clearedRefreshCookie = expireCookie(jwtProperties.getRefreshCookieName());
@@ -672,6 +675,7 @@ public class  AuthController {
             // Increment token version to invalidate all existing sessions
             user.setTokenVersion(user.getTokenVersion() + 1);
             userRepository.save(user);
+            authUserCache.evictUser(user.getId());
 
             // Mark token as used
             passwordResetService.markTokenAsUsed(resetToken);
@@ -1,21 +1,26 @@
 package tiameds.com.tiameds.controller.lab;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import tiameds.com.tiameds.dto.lab.BillingDTO;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
 import tiameds.com.tiameds.services.lab.BillingService;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
+import tiameds.com.tiameds.utils.KeysetPage;
 import tiameds.com.tiameds.utils.LabAccessableFilter;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.Optional;
 
 @Transactional
@@ -33,11 +38,15 @@ public class BillingController {
         this.userService = userService;
         this.labAccessableFilter = labAccessableFilter;
     }
-    // Get all billings of a respective lab
+    // Get all billings of a respective lab, one keyset page at a time (newest first)
     @GetMapping("/{labId}/billing")
     public ResponseEntity<?> getBillingList(
             BillingDTO billingDTO,
-            @PathVariable("labId") Long labId) {
+            @PathVariable("labId") Long labId,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
         try {
             Optional<User> currentUser = getAuthenticatedUser();
             if (currentUser.isEmpty()) {
@@ -47,8 +56,39 @@ public class BillingController {
             if (!isAccessible) {
                 return ApiResponseHelper.errorResponse("Lab is not accessible", HttpStatus.UNAUTHORIZED);
             }
-            List<BillingDTO> billingList = billingService.getBillingList(labId, currentUser, billingDTO);
-            return ApiResponseHelper.successResponse("Billing list fetched successfully", billingList);
+            KeysetPage<BillingDTO> billingPage = billingService.getBillingList(labId, currentUser, billingDTO, startDate, endDate, cursor, size);
+            return ApiResponseHelper.successResponse("Billing list fetched successfully", billingPage);
+        } catch (IllegalArgumentException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Export all matching billings of a lab as CSV, streamed row by row
+    @GetMapping("/{labId}/billing/export")
+    public ResponseEntity<?> exportBillingList(
+            BillingDTO billingDTO,
+            @PathVariable("labId") Long labId,
+            @RequestParam(required = false) LocalDate startDate,
+            @RequestParam(required = false) LocalDate endDate) {
+        try {
+            Optional<User> currentUser = getAuthenticatedUser();
+            if (currentUser.isEmpty()) {
+                return ApiResponseHelper.errorResponse("User not found", HttpStatus.UNAUTHORIZED);
+            }
+            boolean isAccessible = labAccessableFilter.isLabAccessible(labId);
+            if (!isAccessible) {
+                return ApiResponseHelper.errorResponse("Lab is not accessible", HttpStatus.UNAUTHORIZED);
+            }
+            billingService.checkLabMembership(labId, currentUser);
+
+            StreamingResponseBody body = outputStream ->
+                    billingService.exportBillingCsv(labId, billingDTO, startDate, endDate, outputStream);
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=lab_" + labId + "_billing.csv")
+                    .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                    .body(body);
         } catch (Exception e) {
             return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -62,7 +102,7 @@ public class BillingController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
@@ -23,7 +23,6 @@ import tiameds.com.tiameds.utils.ApiResponseHelper;
 import tiameds.com.tiameds.utils.LabAccessableFilter;
 
 import java.time.LocalDateTime;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -203,7 +202,7 @@ public class DoctorController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
@@ -254,8 +253,7 @@ public class DoctorController {
         auditLog.setOldValue(fieldChangeTracker.objectToJson(oldDoctor));
         auditLog.setNewValue(fieldChangeTracker.objectToJson(newDoctor));
 
-        Map<String, Object> fieldChanges = fieldChangeTracker.compareDoctorFields(oldDoctor, newDoctor);
-        String fieldChangedJson = fieldChangeTracker.fieldChangesToJson(fieldChanges);
+        String fieldChangedJson = fieldChangeTracker.doctorChangesJson(oldDoctor, newDoctor);
         if (fieldChangedJson != null) {
             auditLog.setFieldChanged(fieldChangedJson);
         }
@@ -23,6 +23,7 @@ import tiameds.com.tiameds.repository.LabRepository;
 import tiameds.com.tiameds.repository.TestRepository;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
+import tiameds.com.tiameds.services.lab.LabCatalogCache;
 import tiameds.com.tiameds.services.lab.SequenceGeneratorService;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
 import tiameds.com.tiameds.utils.LabAccessableFilter;
@@ -51,6 +52,7 @@ public class HealthPackageController {
     private final AuditLogService auditLogService;
     private final FieldChangeTracker fieldChangeTracker;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final LabCatalogCache labCatalogCache;
 
     //default constructor
     public HealthPackageController(LabRepository labRepository,
@@ -60,7 +62,8 @@ public class HealthPackageController {
                                    LabAccessableFilter labAccessableFilter,
                                    AuditLogService auditLogService,
                                    FieldChangeTracker fieldChangeTracker,
-                                   SequenceGeneratorService sequenceGeneratorService) {
+                                   SequenceGeneratorService sequenceGeneratorService,
+                                   LabCatalogCache labCatalogCache) {
         this.labRepository = labRepository;
         this.testRepository = testRepository;
         this.userService = userService;
@@ -69,6 +72,7 @@ public class HealthPackageController {
         this.auditLogService = auditLogService;
         this.fieldChangeTracker = fieldChangeTracker;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.labCatalogCache = labCatalogCache;
     }
 
 
@@ -103,7 +107,7 @@ public class HealthPackageController {
         }
 
         // Fetch the health packages of the lab
-        List<HealthPackage> healthPackages = healthPackageRepository.findAllByLabsAndIsActiveTrue(lab.get());
+        List<LabCatalogCache.CatalogPackage> healthPackages = labCatalogCache.get(labId).packages(true);
 
         // Return the success response with the fetched health packages
         return ApiResponseHelper.successResponse(
@@ -137,7 +141,7 @@ public class HealthPackageController {
             return ApiResponseHelper.errorResponse("User is not a member of this lab", HttpStatus.UNAUTHORIZED);
         }
 
-        List<HealthPackage> disabledPackages = healthPackageRepository.findAllByLabsAndIsActiveFalse(lab.get());
+        List<LabCatalogCache.CatalogPackage> disabledPackages = labCatalogCache.get(labId).packages(false);
 
         return ApiResponseHelper.successResponse(
                 "Disabled health packages fetched successfully",
@@ -192,6 +196,7 @@ public class HealthPackageController {
         Map<String, Object> oldData = toAuditMap(healthPackage);
         healthPackage.setActive(true);
         HealthPackage enabledPackage = healthPackageRepository.save(healthPackage);
+        labCatalogCache.evictAll(healthPackage.getLabs().stream().map(Lab::getId).toList());
 
         logHealthPackageAudit(
                 labId,
@@ -269,6 +274,7 @@ public class HealthPackageController {
         // Save the health package to the database
         HealthPackage savedPackage = healthPackageRepository.save(healthPackage);
         labRepository.save(lab); // Ensure the lab entity updates the relationship
+        labCatalogCache.evict(labId);
 
         Map<String, Object> newData = toAuditMap(savedPackage);
         logHealthPackageAudit(
@@ -415,6 +421,7 @@ public class HealthPackageController {
         // Save the updated health package to the database
         HealthPackage updatedPackage = healthPackageRepository.save(healthPackage);
         labRepository.save(lab);
+        labCatalogCache.evictAll(updatedPackage.getLabs().stream().map(Lab::getId).toList());
 
         Map<String, Object> newData = toAuditMap(updatedPackage);
 
@@ -502,6 +509,7 @@ public class HealthPackageController {
         // Soft delete: mark as inactive instead of removing from the database
         healthPackage.setActive(false);
         healthPackageRepository.save(healthPackage);
+        labCatalogCache.evictAll(healthPackage.getLabs().stream().map(Lab::getId).toList());
 
         logHealthPackageAudit(
                 labId,
@@ -528,7 +536,7 @@ public class HealthPackageController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
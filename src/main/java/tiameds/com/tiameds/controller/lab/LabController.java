@@ -15,8 +15,10 @@ import tiameds.com.tiameds.dto.lab.LabRequestDTO;
 import tiameds.com.tiameds.dto.lab.LabLogoUploadRequestDTO;
 import tiameds.com.tiameds.dto.lab.LabLogoUploadResponseDTO;
 import tiameds.com.tiameds.entity.Lab;
+import tiameds.com.tiameds.entity.LabJob;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.LabRepository;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
 import tiameds.com.tiameds.dto.lab.LabCreationResponseDTO;
@@ -31,7 +33,7 @@ import tiameds.com.tiameds.utils.LabAccessableFilter;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 
 @Slf4j
@@ -46,6 +48,7 @@ public class LabController {
     private final UserService userService;
     private final LabCreationService labCreationService;
     private final LabService labService;
+    private final AuthUserCache authUserCache;
 
     public LabController(UserLabService userLabService,
                          LabRepository labRepository,
@@ -53,7 +56,8 @@ public class LabController {
                          LabDefaultDataService labDefaultDataService,
                          UserService userService,
                          LabCreationService labCreationService,
-                         LabService labService) {
+                         LabService labService,
+                         AuthUserCache authUserCache) {
         this.userLabService = userLabService;
         this.labRepository = labRepository;
         this.labAccessableFilter = labAccessableFilter;
@@ -61,6 +65,7 @@ public class LabController {
         this.userService = userService;
         this.labCreationService = labCreationService;
         this.labService = labService;
+        this.authUserCache = authUserCache;
     }
 
     // ---------- Get all labs created by the user ----------
@@ -157,7 +162,7 @@ public class LabController {
                     response);
             
             // Trigger default data upload asynchronously - never block the response
-            triggerDefaultDataUploadAsync(response);
+            triggerDefaultDataUploadAsync(response, currentUser.getUsername());
             
             return successResponse;
 
@@ -177,10 +182,10 @@ public class LabController {
         }
         }
     /**
-     * Triggers default data upload asynchronously without blocking the HTTP response.
+     * Queues the default data upload as a lab job without blocking the HTTP response.
      * This ensures lab creation response is returned immediately even if upload takes time.
      */
-    private void triggerDefaultDataUploadAsync(LabCreationResponseDTO response) {
+    private void triggerDefaultDataUploadAsync(LabCreationResponseDTO response, String createdBy) {
         if (response == null) {
             return;
         }
@@ -191,18 +196,15 @@ public class LabController {
             log.warn("Skipping default data upload due to null labId or userId (labId={}, userId={})", labId, userId);
             return;
         }
-        // Execute asynchronously - don't block the HTTP response
-        CompletableFuture.runAsync(() -> {
-            try {
-                log.info("Starting async default data upload for lab {} (userId: {})", labId, userId);
-                labDefaultDataService.uploadDefaultData(labId, userId);
-                log.info("Completed async default data upload for lab {}", labId);
-            } catch (Exception e) {
-                // Log but never throw - lab creation succeeded, this is just a convenience feature
-                log.error("Default data upload failed but lab creation succeeded for lab {}: {}", 
-                        labId, e.getMessage(), e);
-            }
-        });
+        // Runs on the lab job pool; clients can poll the job under /lab/{labId}/jobs
+        try {
+            LabJob job = labDefaultDataService.submitDefaultData(labId, userId, createdBy);
+            log.info("Queued default data upload for lab {} as job {}", labId, job.getId());
+        } catch (RejectedExecutionException e) {
+            // Log but never throw - lab creation succeeded, this is just a convenience feature
+            log.error("Default data upload could not be queued but lab creation succeeded for lab {}: {}",
+                    labId, e.getMessage());
+        }
     }
 
     private void addMemberToLab(Long labId, Long userId) {
@@ -230,6 +232,7 @@ public class LabController {
         }
         lab.getMembers().add(userToAdd);
         labRepository.save(lab);
+        authUserCache.evictUser(userId);
     }
 
     private Optional<User> getAuthenticatedUser() {
@@ -239,7 +242,7 @@ public class LabController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
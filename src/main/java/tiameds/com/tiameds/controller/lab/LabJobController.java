@@ -0,0 +1,93 @@
+package tiameds.com.tiameds.controller.lab;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import tiameds.com.tiameds.dto.lab.LabJobDTO;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
+import tiameds.com.tiameds.services.lab.LabJobService;
+import tiameds.com.tiameds.utils.ApiResponseHelper;
+import tiameds.com.tiameds.utils.LabAccessableFilter;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/lab")
+@Tag(name = "Lab jobs", description = "status of background operations of a lab")
+public class LabJobController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final LabJobService labJobService;
+    private final LabAccessableFilter labAccessableFilter;
+    private final AuthUserCache authUserCache;
+
+    public LabJobController(LabJobService labJobService,
+                            LabAccessableFilter labAccessableFilter,
+                            AuthUserCache authUserCache) {
+        this.labJobService = labJobService;
+        this.labAccessableFilter = labAccessableFilter;
+        this.authUserCache = authUserCache;
+    }
+
+    /**
+     * Most recent jobs of the lab, newest first.
+     */
+    @GetMapping("/{labId}/jobs")
+    public ResponseEntity<?> getJobs(
+            @PathVariable Long labId,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (!isMember(labId)) {
+            return ApiResponseHelper.errorResponse("User is not authorized for this lab", HttpStatus.UNAUTHORIZED);
+        }
+        List<LabJobDTO> jobs = labJobService.getRecentJobs(labId, Math.max(1, Math.min(limit, MAX_LIMIT)));
+        return ApiResponseHelper.successResponseWithDataAndMessage("Jobs fetched successfully", HttpStatus.OK, jobs);
+    }
+
+    @GetMapping("/{labId}/jobs/{jobId}")
+    public ResponseEntity<?> getJob(
+            @PathVariable Long labId,
+            @PathVariable UUID jobId) {
+        if (!isMember(labId)) {
+            return ApiResponseHelper.errorResponse("User is not authorized for this lab", HttpStatus.UNAUTHORIZED);
+        }
+        Optional<LabJobDTO> job = labJobService.getJob(labId, jobId);
+        if (job.isEmpty()) {
+            return ApiResponseHelper.errorResponse("Job not found", HttpStatus.NOT_FOUND);
+        }
+        return ApiResponseHelper.successResponseWithDataAndMessage("Job fetched successfully", HttpStatus.OK, job.get());
+    }
+
+    /**
+     * Asks an unfinished job to stop. The job is marked cancelled once it reaches its next checkpoint.
+     */
+    @PostMapping("/{labId}/jobs/{jobId}/cancel")
+    public ResponseEntity<?> cancelJob(
+            @PathVariable Long labId,
+            @PathVariable UUID jobId) {
+        if (!isMember(labId)) {
+            return ApiResponseHelper.errorResponse("User is not authorized for this lab", HttpStatus.UNAUTHORIZED);
+        }
+        Optional<LabJobDTO> job = labJobService.cancel(labId, jobId);
+        if (job.isEmpty()) {
+            return ApiResponseHelper.errorResponse("Job not found", HttpStatus.NOT_FOUND);
+        }
+        return ApiResponseHelper.successResponseWithDataAndMessage("Cancellation requested", HttpStatus.ACCEPTED, job.get());
+    }
+
+    private boolean isMember(Long labId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        boolean member = authUserCache.get(authentication.getName())
+                .map(summary -> summary.enabled() && summary.labIds().contains(labId))
+                .orElse(false);
+        return member && labAccessableFilter.isLabAccessible(labId);
+    }
+}
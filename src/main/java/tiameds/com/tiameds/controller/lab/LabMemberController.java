@@ -25,6 +25,7 @@ import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.LabRepository;
 import tiameds.com.tiameds.repository.ModuleRepository;
 import tiameds.com.tiameds.repository.UserRepository;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
 import tiameds.com.tiameds.services.auth.UserService;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.lab.UserLabService;
@@ -49,6 +50,7 @@ public class LabMemberController {
     private LabAccessableFilter labAccessableFilter;
     private final AuditLogService auditLogService;
     private final FieldChangeTracker fieldChangeTracker;
+    private final AuthUserCache authUserCache;
 
     @Autowired
     public LabMemberController(
@@ -59,7 +61,8 @@ public class LabMemberController {
             LabAccessableFilter labAccessableFilter,
             UserRepository userRepository,
             AuditLogService auditLogService,
-            FieldChangeTracker fieldChangeTracker) {
+            FieldChangeTracker fieldChangeTracker,
+            AuthUserCache authUserCache) {
         this.userLabService = userLabService;
         this.labRepository = labRepository;
         this.userService = userService;
@@ -69,6 +72,7 @@ public class LabMemberController {
         this.userRepository = userRepository;
         this.auditLogService = auditLogService;
         this.fieldChangeTracker = fieldChangeTracker;
+        this.authUserCache = authUserCache;
     }
 
     @PostMapping("/add-member/{labId}/member/{userId}")
@@ -113,6 +117,7 @@ public class LabMemberController {
         }
         lab.getMembers().add(userToAdd);
         labRepository.save(lab);
+        authUserCache.evictUser(userId);
 
         // Capture new state after modification
         Map<String, Object> newData = toLabAuditMap(lab);
@@ -207,6 +212,7 @@ public class LabMemberController {
 
         lab.getMembers().remove(userToRemove);
         labRepository.save(lab);
+        authUserCache.evictUser(userId);
 
         // Capture new state after modification
         Map<String, Object> newData = toLabAuditMap(lab);
@@ -901,7 +907,7 @@ public class LabMemberController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
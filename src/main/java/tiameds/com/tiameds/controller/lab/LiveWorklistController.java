@@ -0,0 +1,65 @@
+package tiameds.com.tiameds.controller.lab;
+
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
+import tiameds.com.tiameds.services.lab.LiveWorklistHub;
+import tiameds.com.tiameds.utils.LabAccessableFilter;
+
+@RestController
+@RequestMapping("/lab")
+@Tag(name = "Live worklist", description = "server-sent visit changes of a lab")
+public class LiveWorklistController {
+
+    private final LiveWorklistHub liveWorklistHub;
+    private final LabAccessableFilter labAccessableFilter;
+    private final AuthUserCache authUserCache;
+
+    public LiveWorklistController(LiveWorklistHub liveWorklistHub,
+                                  LabAccessableFilter labAccessableFilter,
+                                  AuthUserCache authUserCache) {
+        this.liveWorklistHub = liveWorklistHub;
+        this.labAccessableFilter = labAccessableFilter;
+        this.authUserCache = authUserCache;
+    }
+
+    /**
+     * Event stream of visit changes in the lab. Browsers resend the id of the last event they saw in the
+     * Last-Event-ID header when reconnecting; clients that cannot set headers may pass it as lastEventId.
+     * Errors are returned without a body so EventSource stops instead of retrying.
+     */
+    @GetMapping("/{labId}/worklist/stream")
+    public ResponseEntity<SseEmitter> streamWorklist(
+            @PathVariable Long labId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        boolean member = authUserCache.get(authentication.getName())
+                .map(summary -> summary.enabled() && summary.labIds().contains(labId))
+                .orElse(false);
+        if (!member || !labAccessableFilter.isLabAccessible(labId)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        SseEmitter emitter;
+        try {
+            emitter = liveWorklistHub.subscribe(labId, lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                // keep reverse proxies from buffering the stream
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+}
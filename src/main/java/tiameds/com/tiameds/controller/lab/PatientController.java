@@ -33,7 +33,6 @@ import tiameds.com.tiameds.utils.LabAccessableFilter;
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -552,8 +551,7 @@ public class PatientController {
             auditLog.setOldValue(fieldChangeTracker.objectToJson(oldBillSnapshot));
             auditLog.setNewValue(fieldChangeTracker.objectToJson(updatedBill));
 
-            Map<String, Object> billingFieldChanges = fieldChangeTracker.compareBillFields(oldBillSnapshot, updatedBill);
-            String fieldChangedJson = fieldChangeTracker.fieldChangesToJson(billingFieldChanges);
+            String fieldChangedJson = fieldChangeTracker.billChangesJson(oldBillSnapshot, updatedBill);
             if (fieldChangedJson != null) {
                 auditLog.setFieldChanged(fieldChangedJson);
             }
@@ -575,7 +573,7 @@ public class PatientController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
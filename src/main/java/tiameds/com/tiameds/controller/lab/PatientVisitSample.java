@@ -1,39 +1,40 @@
 package tiameds.com.tiameds.controller.lab;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 import tiameds.com.tiameds.audit.AuditLogService;
 import tiameds.com.tiameds.audit.helpers.FieldChangeTracker;
 import tiameds.com.tiameds.dto.lab.PatientVisitSampleDto;
-import tiameds.com.tiameds.dto.lab.TestSummaryDto;
 import tiameds.com.tiameds.dto.lab.VisitSampleDto;
-import tiameds.com.tiameds.dto.lab.VisitTestResultResponseDTO;
 import tiameds.com.tiameds.entity.*;
-import tiameds.com.tiameds.repository.ReportRepository;
 import tiameds.com.tiameds.repository.SampleAssocationRepository;
 import tiameds.com.tiameds.repository.VisitRepository;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
+import tiameds.com.tiameds.services.lab.LiveWorklistHub;
+import tiameds.com.tiameds.services.lab.SampleWorklistService;
 import tiameds.com.tiameds.services.lab.SequenceGeneratorService;
+import tiameds.com.tiameds.utils.ApiResponse;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
+import tiameds.com.tiameds.utils.KeysetPage;
 import tiameds.com.tiameds.utils.LabAccessableFilter;
 import tiameds.com.tiameds.repository.LabRepository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.Comparator;
-import java.util.Locale;
 import java.util.stream.Collectors;
 
 
@@ -45,30 +46,36 @@ public class PatientVisitSample {
     private final SampleAssocationRepository sampleAssocationRepository;
     private final LabAccessableFilter labAccessableFilter;
     private final LabRepository labRepository;
-    private final ReportRepository reportRepository;
     private final AuditLogService auditLogService;
     private final FieldChangeTracker fieldChangeTracker;
     private final SequenceGeneratorService sequenceGeneratorService;
     private final UserService userService;
+    private final SampleWorklistService sampleWorklistService;
+    private final ObjectMapper objectMapper;
+    private final LiveWorklistHub liveWorklistHub;
 
     public PatientVisitSample(VisitRepository visitRepository,
                               SampleAssocationRepository sampleAssocationRepository,
                               LabAccessableFilter labAccessableFilter,
                               LabRepository labRepository,
-                              ReportRepository reportRepository,
                               AuditLogService auditLogService,
                               FieldChangeTracker fieldChangeTracker,
                               SequenceGeneratorService sequenceGeneratorService,
-                              UserService userService) {
+                              UserService userService,
+                              SampleWorklistService sampleWorklistService,
+                              ObjectMapper objectMapper,
+                              LiveWorklistHub liveWorklistHub) {
         this.visitRepository = visitRepository;
         this.sampleAssocationRepository = sampleAssocationRepository;
         this.labAccessableFilter = labAccessableFilter;
         this.labRepository = labRepository;
-        this.reportRepository = reportRepository;
         this.auditLogService = auditLogService;
         this.fieldChangeTracker = fieldChangeTracker;
         this.sequenceGeneratorService = sequenceGeneratorService;
         this.userService = userService;
+        this.sampleWorklistService = sampleWorklistService;
+        this.objectMapper = objectMapper;
+        this.liveWorklistHub = liveWorklistHub;
     }
 
     @PostMapping("/add-samples")
@@ -94,6 +101,8 @@ public class PatientVisitSample {
             return ResponseEntity.badRequest().body("Visit is not linked to any lab");
         }
         
+        Iterator<String> visitSampleCodes = sequenceGeneratorService
+                .generateCodes(labId, EntityType.VISIT_SAMPLE, request.getSampleNames().size()).iterator();
         for (String sampleName : request.getSampleNames()) {
             SampleEntity sample = getOrCreateSample(sampleName, labId);
 
@@ -101,10 +110,7 @@ public class PatientVisitSample {
             VisitSample visitSample = new VisitSample();
             visitSample.setVisit(visit);
             visitSample.setSample(sample);
-            
-            // Generate unique visit sample code
-            String visitSampleCode = sequenceGeneratorService.generateCode(labId, EntityType.VISIT_SAMPLE);
-            visitSample.setVisitSampleCode(visitSampleCode);
+            visitSample.setVisitSampleCode(visitSampleCodes.next());
             
             // Set audit fields
             visitSample.setCreatedBy(currentUser.getUsername());
@@ -133,6 +139,7 @@ public class PatientVisitSample {
                 httpRequest,
                 visit.getVisitId()
         );
+        liveWorklistHub.samplesChanged(labId, visit);
 
         return ResponseEntity.ok("Samples added to visit successfully");
     }
@@ -164,6 +171,8 @@ public class PatientVisitSample {
         }
         
         // 3. Create new VisitSample entities for each sample
+        Iterator<String> visitSampleCodes = sequenceGeneratorService
+                .generateCodes(labId, EntityType.VISIT_SAMPLE, request.getSampleNames().size()).iterator();
         for (String sampleName : request.getSampleNames()) {
             SampleEntity sample = getOrCreateSample(sampleName, labId);
 
@@ -171,10 +180,7 @@ public class PatientVisitSample {
             VisitSample visitSample = new VisitSample();
             visitSample.setVisit(visit);
             visitSample.setSample(sample);
-            
-            // Generate unique visit sample code
-            String visitSampleCode = sequenceGeneratorService.generateCode(labId, EntityType.VISIT_SAMPLE);
-            visitSample.setVisitSampleCode(visitSampleCode);
+            visitSample.setVisitSampleCode(visitSampleCodes.next());
             
             // Set audit fields
             visitSample.setCreatedBy(currentUser.getUsername());
@@ -199,6 +205,7 @@ public class PatientVisitSample {
                 httpRequest,
                 visit.getVisitId()
         );
+        liveWorklistHub.samplesChanged(labId, visit);
 
         return ResponseEntity.ok("Samples updated to visit successfully");
     }
@@ -256,17 +263,23 @@ public class PatientVisitSample {
                 httpRequest,
                 visit.getVisitId()
         );
+        liveWorklistHub.samplesChanged(labId, visit);
 
         return ResponseEntity.ok("Samples deleted from visit successfully");
     }
 
 
+    /**
+     * One keyset page of the collected/completed worklist. The response carries an ETag of its body, so a
+     * client that polls with If-None-Match gets 304 Not Modified while the page is unchanged.
+     */
     @GetMapping("/{labId}/patients/collected-completed")
-    @Transactional
     public ResponseEntity<?> getCollectedAndCompletedPatientData(
             @PathVariable("labId") Long labId,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
 
         User currentUser = getAuthenticatedUser().orElse(null);
         if (currentUser == null) {
@@ -277,8 +290,7 @@ public class PatientVisitSample {
             return ApiResponseHelper.errorResponse("Lab is not accessible", HttpStatus.UNAUTHORIZED);
         }
 
-        Lab lab = labRepository.findById(labId).orElse(null);
-        if (lab == null) {
+        if (!labRepository.existsById(labId)) {
             return ResponseEntity.badRequest().body("Lab not found");
         }
 
@@ -286,78 +298,25 @@ public class PatientVisitSample {
             return ApiResponseHelper.errorResponse("Start date and end date are required", HttpStatus.BAD_REQUEST);
         }
 
-        List<String> visitStatus = Arrays.asList("Collected", "Completed");
-        List<VisitEntity> visits = visitRepository.findAllByPatient_LabsAndVisitDateBetweenAndVisitStatusIn(
-                lab, startDate, endDate, visitStatus);
-
-        List<VisitSampleDto> visitSamples = visits.stream()
-                .map(visit -> {
-                    Map<String, List<Long>> reportIdsByTestName = reportRepository
-                            .findByVisitIdAndLabId(visit.getVisitId(), labId)
-                            .stream()
-                            .filter(report -> report.getTestName() != null)
-                            .collect(Collectors.groupingBy(
-                                    report -> normalizeReportTestName(report.getTestName()),
-                                    Collectors.collectingAndThen(
-                                            Collectors.mapping(ReportEntity::getReportId, Collectors.toCollection(LinkedHashSet::new)),
-                                            ArrayList::new
-                                    )
-                            ));
-
-                    List<VisitTestResultResponseDTO> testResults = visit.getTestResults().stream()
-                            .map(result -> {
-                                VisitTestResultResponseDTO dto = new VisitTestResultResponseDTO(result);
-                                String testName = result.getTest() != null ? result.getTest().getName() : null;
-                                String normalizedTestName = normalizeReportTestName(testName);
-                                Long reportId = normalizedTestName != null
-                                        ? reportIdsByTestName.getOrDefault(normalizedTestName, Collections.emptyList())
-                                            .stream()
-                                            .findFirst()
-                                            .orElse(null)
-                                        : null;
-                                dto.setReportId(reportId);
-                                return dto;
-                            })
-                            .collect(Collectors.toList());
-
-                    VisitSampleDto visitSampleDto = new VisitSampleDto(
-                            visit.getVisitId(),
-                            visit.getPatient().getFirstName() + " " + visit.getPatient().getLastName(),
-                            visit.getPatient().getGender(),
-                            visit.getPatient().getDateOfBirth().toString(),
-                            visit.getPatient().getPhone(),
-                            visit.getPatient().getEmail(),
-                            visit.getVisitDate(),
-                            visit.getVisitStatus(),
-                            visit.getVisitType(),
-                            visit.getDoctor() != null ? visit.getDoctor().getName() : null, // Handle potential null doctor
-                            visit.getVisitCode(),
-                            visit.getSamples().stream()
-                                    .map(SampleEntity::getName)
-                                    .collect(Collectors.toSet()),
-                            visit.getTests().stream()
-                                    .map(test -> new TestSummaryDto(test.getId(), test.getName()))
-                                    .collect(Collectors.toList()),
-                            visit.getPackages().stream()
-                                    .map(pkg -> pkg.getId())
-                                    .collect(Collectors.toList()),
-                            testResults
-                    );
-                    visit.getVisitSamples().stream()
-                            .map(VisitSample::getCreatedAt)
-                            .filter(Objects::nonNull)
-                            .max(Comparator.naturalOrder())
-                            .map(dt -> dt.atZone(ZoneId.systemDefault())
-                                    .withZoneSameInstant(ZoneId.of("Asia/Kolkata"))
-                                    .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME))
-                            .ifPresent(visitSampleDto::setSampleCollectedAt);
-                    visitSampleDto.setPatientRegisteredAt(
-                            visit.getVisitTime() != null ? visit.getVisitTime() : visit.getCreatedAt());
-                    return visitSampleDto;
-                })
-                .collect(Collectors.toList());
-
-        return ApiResponseHelper.successResponse("Visits filtered by date and status", visitSamples);
+        KeysetPage<VisitSampleDto> page;
+        try {
+            page = sampleWorklistService.getCollectedAndCompleted(labId, startDate, endDate, cursor, size);
+        } catch (IllegalArgumentException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+
+        ApiResponse<Object> body = new ApiResponse<>("success", "Visits filtered by date and status", page);
+        String etag;
+        try {
+            etag = "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(body)) + "\"";
+        } catch (JsonProcessingException e) {
+            return ResponseEntity.ok(body);
+        }
+        // Spring answers 304 itself when the request's If-None-Match matches this ETag
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
     }
 
     private Optional<User> getAuthenticatedUser() {
@@ -367,7 +326,7 @@ public class PatientVisitSample {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
@@ -456,13 +415,6 @@ public class PatientVisitSample {
         return sampleName == null ? "" : sampleName.trim();
     }
 
-    private String normalizeReportTestName(String testName) {
-        if (testName == null) {
-            return null;
-        }
-        return testName.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
-    }
-
     private Map<String, Object> toAuditMap(VisitEntity visit) {
         if (visit == null) {
             return null;
@@ -10,6 +10,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import tiameds.com.tiameds.dto.lab.DatewiseBillingPage;
 import tiameds.com.tiameds.dto.lab.StaticDto;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
@@ -69,8 +70,9 @@ public class StaticController {
             @PathVariable Long labId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotals
     ) {
         try {
             Optional<User> currentUser = getAuthenticatedUser();
@@ -83,24 +85,13 @@ public class StaticController {
                 return ApiResponseHelper.successResponseWithDataAndMessage("Lab is not accessible", HttpStatus.UNAUTHORIZED, null);
             }
 
-            int sanitizedPage = Math.max(page, 0);
             int sanitizedSize = Math.min(Math.max(size, 10), 200);
 
-            var dtoPage = staticServices.getTransactionDatewise(labId, startDate, endDate, currentUser.get(), sanitizedPage, sanitizedSize);
-
-            var responseBody = new java.util.HashMap<String, Object>();
-            responseBody.put("status", "success");
-            responseBody.put("message", "Transaction details fetched successfully");
-            responseBody.put("data", dtoPage.getContent());
-
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.add("X-Total-Elements", String.valueOf(dtoPage.getTotalElements()));
-            headers.add("X-Total-Pages", String.valueOf(dtoPage.getTotalPages()));
-            headers.add("X-Page-Number", String.valueOf(dtoPage.getNumber()));
-            headers.add("X-Page-Size", String.valueOf(dtoPage.getSize()));
-
-            return new ResponseEntity<>(responseBody, headers, HttpStatus.OK);
+            DatewiseBillingPage datewisePage = staticServices.getTransactionDatewise(labId, startDate, endDate, currentUser.get(), cursor, sanitizedSize, includeTotals);
+            return datewiseResponse(datewisePage, "Transaction details fetched successfully");
 
+        } catch (IllegalArgumentException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error("Error fetching datewise transactions for lab {}", labId, e);
             return ApiResponseHelper.successResponseWithDataAndMessage("No transactions found", HttpStatus.OK, List.of());
@@ -119,7 +110,8 @@ public class StaticController {
      * - Bills created on the filter date
      * - Bills without transactions
      * 
-     * Results are sorted by most recent transaction date (descending).
+     * Results are sorted by most recent transaction date (descending) and paged with the
+     * nextCursor of the previous page.
      * 
      * Example: Filter by 30th December will show bills created before 30th December
      * that were paid on 30th December, but NOT bills created on 30th December.
@@ -129,8 +121,9 @@ public class StaticController {
             @PathVariable Long labId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "50") int size
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotals
     ) {
         try {
             Optional<User> currentUser = getAuthenticatedUser();
@@ -143,24 +136,13 @@ public class StaticController {
                 return ApiResponseHelper.successResponseWithDataAndMessage("Lab is not accessible", HttpStatus.UNAUTHORIZED, null);
             }
 
-            int sanitizedPage = Math.max(page, 0);
             int sanitizedSize = Math.min(Math.max(size, 10), 200);
 
-            var dtoPage = staticServices.getPaymentDatewise(labId, startDate, endDate, currentUser.get(), sanitizedPage, sanitizedSize);
-
-            var responseBody = new java.util.HashMap<String, Object>();
-            responseBody.put("status", "success");
-            responseBody.put("message", "Payment details fetched successfully");
-            responseBody.put("data", dtoPage.getContent());
-
-            org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
-            headers.add("X-Total-Elements", String.valueOf(dtoPage.getTotalElements()));
-            headers.add("X-Total-Pages", String.valueOf(dtoPage.getTotalPages()));
-            headers.add("X-Page-Number", String.valueOf(dtoPage.getNumber()));
-            headers.add("X-Page-Size", String.valueOf(dtoPage.getSize()));
-
-            return new ResponseEntity<>(responseBody, headers, HttpStatus.OK);
+            DatewiseBillingPage datewisePage = staticServices.getPaymentDatewise(labId, startDate, endDate, currentUser.get(), cursor, sanitizedSize, includeTotals);
+            return datewiseResponse(datewisePage, "Payment details fetched successfully");
 
+        } catch (IllegalArgumentException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             log.error("Error fetching datewise payment details for lab {}", labId, e);
             return ApiResponseHelper.successResponseWithDataAndMessage("No payment details found", HttpStatus.OK, List.of());
@@ -168,6 +150,31 @@ public class StaticController {
     }
 
 
+    /**
+     * Body of the datewise listings: the page rows under "data", the keyset position, and the whole-range
+     * totals when they were requested.
+     */
+    private ResponseEntity<?> datewiseResponse(DatewiseBillingPage datewisePage, String message) {
+        var responseBody = new java.util.HashMap<String, Object>();
+        responseBody.put("status", "success");
+        responseBody.put("message", message);
+        responseBody.put("data", datewisePage.page().content());
+        responseBody.put("size", datewisePage.page().size());
+        responseBody.put("hasNext", datewisePage.page().hasNext());
+        responseBody.put("nextCursor", datewisePage.page().nextCursor());
+        if (datewisePage.totals() != null) {
+            responseBody.put("totals", datewisePage.totals());
+        }
+
+        org.springframework.http.HttpHeaders headers = new org.springframework.http.HttpHeaders();
+        headers.add("X-Page-Size", String.valueOf(datewisePage.page().size()));
+        if (datewisePage.page().nextCursor() != null) {
+            headers.add("X-Next-Cursor", datewisePage.page().nextCursor());
+        }
+
+        return new ResponseEntity<>(responseBody, headers, HttpStatus.OK);
+    }
+
     private Optional<User> getAuthenticatedUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
@@ -175,7 +182,7 @@ public class StaticController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
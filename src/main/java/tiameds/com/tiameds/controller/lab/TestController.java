@@ -12,20 +12,26 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import tiameds.com.tiameds.audit.AuditLogService;
 import tiameds.com.tiameds.audit.helpers.FieldChangeTracker;
+import tiameds.com.tiameds.dto.lab.CsvImportReport;
 import tiameds.com.tiameds.dto.lab.TestDTO;
 import tiameds.com.tiameds.entity.EntityType;
 import tiameds.com.tiameds.entity.Lab;
 import tiameds.com.tiameds.entity.LabAuditLogs;
+import tiameds.com.tiameds.entity.LabJob;
+import tiameds.com.tiameds.entity.LabJobType;
 import tiameds.com.tiameds.entity.Test;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.LabRepository;
 import tiameds.com.tiameds.repository.TestRepository;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
+import tiameds.com.tiameds.services.lab.LabCatalogCache;
+import tiameds.com.tiameds.services.lab.LabJobService;
 import tiameds.com.tiameds.services.lab.SequenceGeneratorService;
 import tiameds.com.tiameds.services.lab.TestServices;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
 import tiameds.com.tiameds.utils.LabAccessableFilter;
+import tiameds.com.tiameds.utils.SpooledMultipartFile;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -33,7 +39,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/admin/lab")
@@ -48,6 +54,8 @@ public class TestController {
     private final FieldChangeTracker fieldChangeTracker;
     private final SequenceGeneratorService sequenceGeneratorService;
     private final UserService userService;
+    private final LabCatalogCache labCatalogCache;
+    private final LabJobService labJobService;
 
     public TestController(LabRepository labRepository,
                           TestRepository testRepository,
@@ -56,7 +64,9 @@ public class TestController {
                           AuditLogService auditLogService,
                           FieldChangeTracker fieldChangeTracker,
                           SequenceGeneratorService sequenceGeneratorService,
-                          UserService userService) {
+                          UserService userService,
+                          LabCatalogCache labCatalogCache,
+                          LabJobService labJobService) {
         this.labRepository = labRepository;
         this.testRepository = testRepository;
         this.labAccessableFilter = labAccessableFilter;
@@ -65,6 +75,8 @@ public class TestController {
         this.fieldChangeTracker = fieldChangeTracker;
         this.sequenceGeneratorService = sequenceGeneratorService;
         this.userService = userService;
+        this.labCatalogCache = labCatalogCache;
+        this.labJobService = labJobService;
     }
     // 1. Get all tests in a lab
     @Transactional
@@ -196,6 +208,7 @@ public class TestController {
 
             // Persist the new Test entity and update the Lab entity
             labRepository.save(lab); // This will cascade and save the Test entity if properly configured
+            labCatalogCache.evict(labId);
 
             // Optionally, map the saved Test back to a DTO to include generated data like ID
             TestDTO savedTestDTO = toTestDTO(test);
@@ -263,6 +276,8 @@ public class TestController {
 
             // Persist the updated Test entity
             testRepository.save(test);
+            // the test is listed in the catalog of every lab it belongs to
+            labCatalogCache.evictAll(test.getLabs().stream().map(Lab::getId).toList());
 
             // Optionally, map the updated Test back to a DTO to include generated data like ID
             TestDTO updatedTestDTO = toTestDTO(test);
@@ -376,6 +391,7 @@ public class TestController {
             }
 
             TestDTO oldTestSnapshot = getTestSnapshot(labId, testId);
+            labCatalogCache.evictAll(test.getLabs().stream().map(Lab::getId).toList());
 
             // Remove the test from the lab and maintain the bidirectional relationship
             lab.removeTest(test);
@@ -432,22 +448,25 @@ public class TestController {
                 return ApiResponseHelper.successResponseWithDataAndMessage("Please upload a CSV file", HttpStatus.BAD_REQUEST, null);
             }
 
-            // Process the file and save tests
-            List<Test> tests = testServices.uploadCSV(file, lab);
-            // Convert saved tests to DTOs for response
-            List<TestDTO> testDTOs = tests.stream()
-                    .map(this::toTestDTO)
-                    .collect(Collectors.toList());
-
-            if (!testDTOs.isEmpty()) {
-                String changeReason = String.format("Uploaded %d tests via CSV", testDTOs.size());
-                logTestBulkUpload(labId,
-                        testDTOs,
-                        changeReason,
-                        currentUser,
-                        request);
-            }
-            return ApiResponseHelper.successResponseWithDataAndMessage("Tests uploaded successfully", HttpStatus.CREATED, testDTOs);
+            // Process the file in a lab job; the request and its multipart file are gone by the time it runs,
+            // so the upload waits on disk and the lab is read again by the job
+            LabAuditLogs auditLog = newTestBulkUploadLog(labId, currentUser, request);
+            SpooledMultipartFile upload = SpooledMultipartFile.spool(file);
+            LabJob job = labJobService.submit(labId, LabJobType.TEST_CSV_UPLOAD, currentUser.getId(),
+                    currentUser.getUsername(), context -> {
+                        Lab jobLab = labRepository.findById(labId)
+                                .orElseThrow(() -> new IllegalStateException("Lab " + labId + " no longer exists"));
+                        CsvImportReport report = testServices.uploadCSV(upload, jobLab);
+                        if (report.imported() > 0) {
+                            auditLog.setChangeReason(String.format("Uploaded %d tests via CSV", report.imported()));
+                            auditLog.setNewValue(fieldChangeTracker.objectToJson(report));
+                            auditLogService.persistAsync(auditLog);
+                        }
+                        return report;
+                    }, upload::delete);
+            return ApiResponseHelper.successResponseWithDataAndMessage("Test upload queued", HttpStatus.ACCEPTED, labJobService.toDto(job));
+        } catch (RejectedExecutionException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         } catch (RuntimeException e) {
             return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
@@ -493,7 +512,7 @@ public class TestController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
@@ -547,8 +566,7 @@ public class TestController {
             auditLog.setNewValue(fieldChangeTracker.objectToJson(newTest));
         }
 
-        Map<String, Object> fieldChanges = fieldChangeTracker.compareTestFields(oldTest, newTest);
-        String fieldChangedJson = fieldChangeTracker.fieldChangesToJson(fieldChanges);
+        String fieldChangedJson = fieldChangeTracker.testChangesJson(oldTest, newTest);
         if (fieldChangedJson != null) {
             auditLog.setFieldChanged(fieldChangedJson);
         }
@@ -557,18 +575,20 @@ public class TestController {
         auditLogService.persistAsync(auditLog);
     }
 
-    private void logTestBulkUpload(Long labId,
-                                   List<TestDTO> uploadedTests,
-                                   String changeReason,
-                                   User currentUser,
-                                   HttpServletRequest request) {
+    /**
+     * Audit entry of a CSV upload with everything taken from the request filled in; the upload job adds the
+     * change reason and the report once it knows them.
+     */
+    private LabAuditLogs newTestBulkUploadLog(Long labId,
+                                             User currentUser,
+                                             HttpServletRequest request) {
         LabAuditLogs auditLog = new LabAuditLogs();
         auditLog.setTimestamp(LocalDateTime.now());
         auditLog.setModule("Lab");
         auditLog.setEntityType("Test");
         auditLog.setLab_id(String.valueOf(labId));
         auditLog.setActionType("TEST_UPLOAD_CSV");
-        auditLog.setChangeReason(changeReason != null ? changeReason : "");
+        auditLog.setChangeReason("");
 
         if (currentUser != null) {
             auditLog.setUsername(currentUser.getUsername());
@@ -585,9 +605,8 @@ public class TestController {
             auditLog.setRequestId(request.getHeader("X-Request-ID"));
         }
 
-        auditLog.setNewValue(fieldChangeTracker.objectToJson(uploadedTests));
         auditLog.setSeverity(LabAuditLogs.Severity.MEDIUM);
-        auditLogService.persistAsync(auditLog);
+        return auditLog;
     }
 
     private TestDTO getTestSnapshot(Long labId, Long testId) {
@@ -9,18 +9,23 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import tiameds.com.tiameds.dto.lab.TestReferenceDTO;
 import tiameds.com.tiameds.entity.Lab;
-import tiameds.com.tiameds.entity.TestReferenceEntity;
+import tiameds.com.tiameds.entity.LabJob;
+import tiameds.com.tiameds.entity.LabJobType;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.LabRepository;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
+import tiameds.com.tiameds.services.lab.LabBulkDeleteJobs;
+import tiameds.com.tiameds.services.lab.LabJobService;
 import tiameds.com.tiameds.services.lab.TestReferenceServices;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
 import tiameds.com.tiameds.utils.LabAccessableFilter;
+import tiameds.com.tiameds.utils.SpooledMultipartFile;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Logger;
 
 @RestController
@@ -32,17 +37,23 @@ public class TestReferenceController {
     private final TestReferenceServices testReferenceServices;
     private final LabAccessableFilter labAccessableFilter;
     private final UserService userService;
+    private final LabJobService labJobService;
+    private final LabBulkDeleteJobs labBulkDeleteJobs;
     private static final Logger LOGGER = Logger.getLogger(TestReferenceController.class.getName());
 
     public TestReferenceController(
             LabRepository labRepository,
             TestReferenceServices testReferenceServices,
             LabAccessableFilter labAccessableFilter,
-            UserService userService) {
+            UserService userService,
+            LabJobService labJobService,
+            LabBulkDeleteJobs labBulkDeleteJobs) {
         this.labRepository = labRepository;
         this.testReferenceServices = testReferenceServices;
         this.labAccessableFilter = labAccessableFilter;
         this.userService = userService;
+        this.labJobService = labJobService;
+        this.labBulkDeleteJobs = labBulkDeleteJobs;
     }
 
     @Transactional
@@ -70,8 +81,17 @@ public class TestReferenceController {
             if (file.isEmpty() || !"text/csv".equals(file.getContentType())) {
                 return ApiResponseHelper.errorResponse("Please upload a valid CSV file", HttpStatus.BAD_REQUEST);
             }
-            List<TestReferenceEntity> testReferenceEntities = testReferenceServices.uploadCsv(lab, file, currentUser);
-            return ApiResponseHelper.successResponseWithDataAndMessage("Test references uploaded successfully", HttpStatus.CREATED, testReferenceEntities);
+            // the request's multipart file is deleted once the response is sent, so the job reads a copy on disk
+            SpooledMultipartFile upload = SpooledMultipartFile.spool(file);
+            LabJob job = labJobService.submit(labId, LabJobType.TEST_REFERENCE_CSV_UPLOAD, currentUser.getId(),
+                    currentUser.getUsername(), context -> {
+                        Lab jobLab = labRepository.findById(labId)
+                                .orElseThrow(() -> new IllegalStateException("Lab " + labId + " no longer exists"));
+                        return testReferenceServices.uploadCsv(jobLab, upload, currentUser);
+                    }, upload::delete);
+            return ApiResponseHelper.successResponseWithDataAndMessage("Test reference upload queued", HttpStatus.ACCEPTED, labJobService.toDto(job));
+        } catch (RejectedExecutionException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             LOGGER.severe("Error processing CSV upload: " + e.getMessage());
             return ApiResponseHelper.errorResponse("Error processing request: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -103,9 +123,11 @@ public class TestReferenceController {
                 return ApiResponseHelper.errorResponse("Lab is not accessible", HttpStatus.UNAUTHORIZED);
             }
 
-            testReferenceServices.deleteAllTestReferences(lab);
-            return ApiResponseHelper.successResponseWithDataAndMessage("All test references deleted successfully", HttpStatus.OK, null);
+            LabJob job = labBulkDeleteJobs.submitDeleteAllTestReferences(labId, currentUser.getId(), currentUser.getUsername());
+            return ApiResponseHelper.successResponseWithDataAndMessage("Deletion of all test references queued", HttpStatus.ACCEPTED, labJobService.toDto(job));
 
+        } catch (RejectedExecutionException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             LOGGER.severe("Error deleting all test references: " + e.getMessage());
             return ApiResponseHelper.errorResponse("Error processing request: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -117,7 +139,8 @@ public class TestReferenceController {
     public ResponseEntity<?> getAllTestReferences(
             @RequestParam Long labId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(value = "include", required = false) String include) {
         try {
             Optional<User> userOptional = getAuthenticatedUser();
             if (userOptional.isEmpty()) {
@@ -142,7 +165,9 @@ public class TestReferenceController {
                 return ApiResponseHelper.errorResponse("Lab is not accessible", HttpStatus.UNAUTHORIZED);
             }
 
-            Map<String, Object> paginatedResponse = testReferenceServices.getAllTestReferences(lab, page, size);
+            // reportJson, referenceRanges, dropdown and impression are only returned with ?include=json
+            boolean includeJson = "json".equalsIgnoreCase(include);
+            Map<String, Object> paginatedResponse = testReferenceServices.getAllTestReferences(lab, page, size, includeJson);
             return ApiResponseHelper.successResponseWithDataAndMessage("Test references fetched successfully", HttpStatus.OK, paginatedResponse);
 
         } catch (Exception e) {
@@ -497,9 +522,9 @@ public class TestReferenceController {
                 return ApiResponseHelper.errorResponse("Lab is not accessible", HttpStatus.UNAUTHORIZED);
             }
 
-            LOGGER.info("Searching for test name: '" + testName + "' in lab: " + labId);
+            LOGGER.fine("Searching for test name: '" + testName + "' in lab: " + labId);
             List<TestReferenceDTO> testReferenceEntities = testReferenceServices.getTestReferenceByTestName(lab, testName);
-            LOGGER.info("Found " + testReferenceEntities.size() + " test references for test name: '" + testName + "'");
+            LOGGER.fine("Found " + testReferenceEntities.size() + " test references for test name: '" + testName + "'");
             return ApiResponseHelper.successResponseWithDataAndMessage("Test references fetched successfully", HttpStatus.OK, testReferenceEntities);
 
         } catch (Exception e) {
@@ -514,7 +539,7 @@ public class TestReferenceController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
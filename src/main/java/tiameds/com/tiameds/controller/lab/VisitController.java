@@ -10,19 +10,26 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import tiameds.com.tiameds.audit.Auditable;
+import tiameds.com.tiameds.dto.lab.PatientDTO;
 import tiameds.com.tiameds.dto.lab.PatientDetailsDto;
 import tiameds.com.tiameds.dto.lab.VisitDTO;
 import tiameds.com.tiameds.dto.visits.PatientVisitDTO;
+import tiameds.com.tiameds.entity.LabJob;
 import tiameds.com.tiameds.entity.User;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
 import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
 import tiameds.com.tiameds.services.lab.BillingService;
+import tiameds.com.tiameds.services.lab.LabBulkDeleteJobs;
+import tiameds.com.tiameds.services.lab.LabJobService;
 import tiameds.com.tiameds.services.lab.VisitService;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
+import tiameds.com.tiameds.utils.KeysetPage;
 import tiameds.com.tiameds.utils.LabAccessableFilter;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 
 @Transactional
@@ -33,11 +40,18 @@ public class VisitController {
     private final VisitService visitService;
     private final LabAccessableFilter labAccessableFilter;
     private final UserService userService;
+    private final AuthUserCache authUserCache;
+    private final LabJobService labJobService;
+    private final LabBulkDeleteJobs labBulkDeleteJobs;
 
-    public VisitController(VisitService visitService, BillingService billingService, LabAccessableFilter labAccessableFilter, UserService userService) {
+    public VisitController(VisitService visitService, BillingService billingService, LabAccessableFilter labAccessableFilter, UserService userService,
+                           AuthUserCache authUserCache, LabJobService labJobService, LabBulkDeleteJobs labBulkDeleteJobs) {
         this.visitService = visitService;
         this.labAccessableFilter = labAccessableFilter;
         this.userService = userService;
+        this.authUserCache = authUserCache;
+        this.labJobService = labJobService;
+        this.labBulkDeleteJobs = labBulkDeleteJobs;
     }
 
     @Auditable(module = "Lab")
@@ -66,7 +80,12 @@ public class VisitController {
     @Auditable(module = "Lab")
     @GetMapping("/{labId}/visits")
     public ResponseEntity<?> getVisits(
-            @PathVariable Long labId
+            @PathVariable Long labId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size
     ) {
         try {
             Optional<User> currentUser = getAuthenticatedUser();
@@ -77,8 +96,10 @@ public class VisitController {
             if (!isAccessible) {
                 return ApiResponseHelper.successResponseWithDataAndMessage("Lab is not accessible", HttpStatus.UNAUTHORIZED, null);
             }
-            Object visits = visitService.getVisits(labId, currentUser);
+            KeysetPage<PatientDTO> visits = visitService.getVisits(labId, currentUser, startDate, endDate, status, cursor, size);
             return ApiResponseHelper.successResponseWithDataAndMessage("Visits fetched successfully", HttpStatus.OK, visits);
+        } catch (IllegalArgumentException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
         } catch (Exception e) {
             return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -303,9 +324,20 @@ public class VisitController {
                 return ApiResponseHelper.errorResponse("Lab is not accessible", HttpStatus.UNAUTHORIZED);
             }
             
-            // Delete all visits and their related data for the lab
-            int deletedCount = visitService.deleteAllVisitsForLab(labId, currentUser);
-            return ApiResponseHelper.successResponse("Successfully deleted " + deletedCount + " visits and all related data", HttpStatus.OK);
+            // Validate user access to lab; the user's labs are not loaded outside a transaction
+            User user = currentUser.get();
+            boolean member = authUserCache.get(user.getUsername())
+                    .map(summary -> summary.enabled() && summary.labIds().contains(labId))
+                    .orElse(false);
+            if (!member) {
+                return ApiResponseHelper.errorResponse("User is not a member of this lab", HttpStatus.UNAUTHORIZED);
+            }
+            
+            // Delete all visits and their related data for the lab in a lab job
+            LabJob job = labBulkDeleteJobs.submitDeleteAllVisits(labId, user.getId(), user.getUsername());
+            return ApiResponseHelper.successResponseWithDataAndMessage("Deletion of all visits queued", HttpStatus.ACCEPTED, labJobService.toDto(job));
+        } catch (RejectedExecutionException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
         } catch (Exception e) {
             return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -318,7 +350,7 @@ public class VisitController {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
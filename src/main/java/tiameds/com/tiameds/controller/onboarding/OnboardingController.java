@@ -12,11 +12,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import tiameds.com.tiameds.dto.onboarding.OnboardingRequestDTO;
 import tiameds.com.tiameds.dto.onboarding.OnboardingResponseDTO;
+import tiameds.com.tiameds.entity.LabJob;
 import tiameds.com.tiameds.services.lab.LabDefaultDataService;
 import tiameds.com.tiameds.services.onboarding.OnboardingService;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Controller for onboarding form submission.
@@ -102,7 +103,7 @@ public class OnboardingController {
     }
 
     /**
-     * Triggers default data upload asynchronously without blocking the HTTP response.
+     * Queues the default data upload as a lab job without blocking the HTTP response.
      * This ensures onboarding response is returned immediately even if upload takes time.
      */
     private void triggerDefaultDataUploadAsync(OnboardingResponseDTO response) {
@@ -112,24 +113,22 @@ public class OnboardingController {
         
         Long labId = response.getLabId();
         Long userId = response.getUserId();
+        String createdBy = response.getUsername();
         
         if (labId == null || userId == null) {
             log.warn("Skipping default data upload due to null labId or userId (labId={}, userId={})", labId, userId);
             return;
         }
         
-        // Execute asynchronously - don't block the HTTP response
-        CompletableFuture.runAsync(() -> {
-            try {
-                log.info("Starting async default data upload for lab {} (userId: {})", labId, userId);
-                labDefaultDataService.uploadDefaultData(labId, userId);
-                log.info("Completed async default data upload for lab {}", labId);
-            } catch (Exception e) {
-                // Log but never throw - onboarding succeeded, this is just a convenience feature
-                log.error("Default data upload failed but onboarding succeeded for lab {}: {}", 
-                        labId, e.getMessage(), e);
-            }
-        });
+        // Runs on the lab job pool; clients can poll the job under /lab/{labId}/jobs
+        try {
+            LabJob job = labDefaultDataService.submitDefaultData(labId, userId, createdBy);
+            log.info("Queued default data upload for lab {} as job {}", labId, job.getId());
+        } catch (RejectedExecutionException e) {
+            // Log but never throw - onboarding succeeded, this is just a convenience feature
+            log.error("Default data upload could not be queued but onboarding succeeded for lab {}: {}",
+                    labId, e.getMessage());
+        }
     }
 }
 
@@ -100,7 +100,7 @@ public class ReportGeneration {
         Map<String, Object> oldData = toAuditMap(oldVisitOpt.get());
 
         // Call the service to complete the visit
-        ResponseEntity<?> response = reportService.completeVisit(visitId);
+        ResponseEntity<?> response = reportService.completeVisit(labId, visitId);
 
         // Capture new state after modification
         Optional<VisitEntity> newVisitOpt = visitRepository.findById(visitId);
@@ -154,7 +154,7 @@ public class ReportGeneration {
         Map<String, Object> oldData = toAuditMap(oldVisitOpt.get());
 
         // Call the service to cancel the visit
-        ResponseEntity<?> response = reportService.canceledVisit(visitId);
+        ResponseEntity<?> response = reportService.canceledVisit(labId, visitId);
 
         // Capture new state after modification
         Optional<VisitEntity> newVisitOpt = visitRepository.findById(visitId);
@@ -504,7 +504,7 @@ public class ReportGeneration {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
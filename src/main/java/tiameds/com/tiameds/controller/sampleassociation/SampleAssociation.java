@@ -21,7 +21,6 @@ import tiameds.com.tiameds.utils.LabAccessableFilter;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -242,8 +241,7 @@ public class SampleAssociation {
         auditLog.setOldValue(fieldChangeTracker.objectToJson(oldSample));
         auditLog.setNewValue(fieldChangeTracker.objectToJson(newSample));
 
-        Map<String, Object> fieldChanges = fieldChangeTracker.compareSampleFields(oldSample, newSample);
-        String fieldChangedJson = fieldChangeTracker.fieldChangesToJson(fieldChanges);
+        String fieldChangedJson = fieldChangeTracker.sampleChangesJson(oldSample, newSample);
         if (fieldChangedJson != null) {
             auditLog.setFieldChanged(fieldChangedJson);
         }
@@ -269,7 +267,7 @@ public class SampleAssociation {
         }
         Object principal = authentication.getPrincipal();
         if (principal instanceof MyUserDetails myUserDetails) {
-            return userService.findByUsername(myUserDetails.getUsername());
+            return userService.findAuthenticatedUser(myUserDetails);
         }
         if (principal instanceof UserDetails userDetails) {
             return userService.findByUsername(userDetails.getUsername());
@@ -181,13 +181,15 @@ public class ReferanceAndTestController {
     public ResponseEntity<?> searchTestReferencesByJson(
             @RequestParam(required = false) String jsonKey,
             @RequestParam(required = false) String jsonValue,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
             @RequestHeader("Authorization") String token) {
         try {
             Optional<User> userOptional = userAuthService.authenticateUser(token);
             if (userOptional.isEmpty()) {
                 return ApiResponseHelper.errorResponse("User authentication failed", HttpStatus.UNAUTHORIZED);
             }
-            return adminTestReferanceandTestServices.searchTestReferencesByJson(jsonKey, jsonValue);
+            return adminTestReferanceandTestServices.searchTestReferencesByJson(jsonKey, jsonValue, page, size);
         } catch (Exception e) {
             return ApiResponseHelper.errorResponse("Error searching test references: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -233,13 +235,15 @@ public class ReferanceAndTestController {
             @RequestParam(required = false) String gender,
             @RequestParam(required = false) String ageMin,
             @RequestParam(required = false) String ageMax,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
             @RequestHeader("Authorization") String token) {
         try {
             Optional<User> userOptional = userAuthService.authenticateUser(token);
             if (userOptional.isEmpty()) {
                 return ApiResponseHelper.errorResponse("User authentication failed", HttpStatus.UNAUTHORIZED);
             }
-            return adminTestReferanceandTestServices.searchTestReferencesByReferenceRanges(gender, ageMin, ageMax);
+            return adminTestReferanceandTestServices.searchTestReferencesByReferenceRanges(gender, ageMin, ageMax, page, size);
         } catch (Exception e) {
             return ApiResponseHelper.errorResponse("Error searching test references by reference ranges: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
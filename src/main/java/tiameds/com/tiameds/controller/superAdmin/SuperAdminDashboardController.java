@@ -6,6 +6,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.*;
+import tiameds.com.tiameds.services.lab.LabDailyStatsService;
+import tiameds.com.tiameds.services.superAdmin.SuperAdminStatsService;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
 import tiameds.com.tiameds.utils.UserAuthService;
 
@@ -37,6 +39,8 @@ public class SuperAdminDashboardController {
     private final DoctorRepository doctorRepository;
     private final HealthPackageRepository healthPackageRepository;
     private final UserAuthService userAuthService;
+    private final LabDailyStatsService labDailyStatsService;
+    private final SuperAdminStatsService superAdminStatsService;
 
     public SuperAdminDashboardController(LabRepository labRepository,
                                          UserRepository userRepository,
@@ -45,7 +49,9 @@ public class SuperAdminDashboardController {
                                          VisitRepository visitRepository,
                                          DoctorRepository doctorRepository,
                                          HealthPackageRepository healthPackageRepository,
-                                         UserAuthService userAuthService) {
+                                         UserAuthService userAuthService,
+                                         LabDailyStatsService labDailyStatsService,
+                                         SuperAdminStatsService superAdminStatsService) {
         this.labRepository = labRepository;
         this.userRepository = userRepository;
         this.visitTestResultRepository = visitTestResultRepository;
@@ -54,6 +60,8 @@ public class SuperAdminDashboardController {
         this.doctorRepository = doctorRepository;
         this.healthPackageRepository = healthPackageRepository;
         this.userAuthService = userAuthService;
+        this.labDailyStatsService = labDailyStatsService;
+        this.superAdminStatsService = superAdminStatsService;
     }
 
     @GetMapping("/all")
@@ -201,50 +209,33 @@ public class SuperAdminDashboardController {
             return kpis;
         }
 
-        // All labs — include lab-wise breakdowns for role counts
-        if (hasDates) {
-            LocalDateTime s = toStart(startDate);
-            LocalDateTime e = toEnd(endDate);
-            Instant is = toInstantStart(startDate);
-            Instant ie = toInstantEnd(endDate);
-            totalLabs        = labRepository.countByCreatedByAndCreatedAtBetween(currentUser, s, e);
-            totalTests       = visitTestResultRepository.countAllTestsByLabsCreatedByAndCreatedAtBetween(currentUser, s, e);
-            reportsGenerated = visitTestResultRepository.countCompletedReportsByLabsCreatedByAndCreatedAtBetween(currentUser, s, e);
-            pendingSamples   = visitRepository.countPendingVisitsByLabsCreatedByAndCreatedAtBetween(currentUser, is, ie);
-            totalRevenue     = billingRepository.sumPaidAmountByLabsCreatedByAndCreatedAtBetween(currentUser, is, ie);
-        } else {
-            totalLabs        = labRepository.countByCreatedBy(currentUser);
-            totalTests       = visitTestResultRepository.countAllTestsByLabsCreatedBy(currentUser);
-            reportsGenerated = visitTestResultRepository.countCompletedReportsByLabsCreatedBy(currentUser);
-            pendingSamples   = visitRepository.countPendingVisitsByLabsCreatedBy(currentUser);
-            totalRevenue     = billingRepository.sumPaidAmountByLabsCreatedBy(currentUser);
-        }
+        // All labs — include lab-wise breakdowns for role counts, all from one grouped query
+        SuperAdminStatsService.PlatformTotals totals = superAdminStatsService.getPlatformTotals(currentUser, startDate, endDate);
+        List<UserRepository.LabRoleCountProjection> roleCounts =
+                superAdminStatsService.getRoleCountsByLab(userId, startDate, endDate);
 
         Map<String, Object> kpis = new LinkedHashMap<>();
-        kpis.put("totalLabs",        totalLabs);
-        kpis.put("totalAdmins",      buildRoleLabWise("ADMIN",      currentUser, startDate, endDate, hasDates));
-        kpis.put("totalTechnicians", buildRoleLabWise("TECHNICIAN", currentUser, startDate, endDate, hasDates));
-        kpis.put("totalDeskRoles",   buildRoleLabWise("DESKROLE",   currentUser, startDate, endDate, hasDates));
-        kpis.put("totalTests",       totalTests);
-        kpis.put("totalRevenue",     safe(totalRevenue));
-        kpis.put("reportsGenerated", reportsGenerated);
-        kpis.put("pendingSamples",   pendingSamples);
+        kpis.put("totalLabs",        totals.totalLabs());
+        kpis.put("totalAdmins",      buildRoleLabWise(roleCounts, UserRepository.LabRoleCountProjection::getAdmins));
+        kpis.put("totalTechnicians", buildRoleLabWise(roleCounts, UserRepository.LabRoleCountProjection::getTechnicians));
+        kpis.put("totalDeskRoles",   buildRoleLabWise(roleCounts, UserRepository.LabRoleCountProjection::getDeskRoles));
+        kpis.put("totalTests",       totals.totalTests());
+        kpis.put("totalRevenue",     safe(totals.totalRevenue()));
+        kpis.put("reportsGenerated", totals.reportsGenerated());
+        kpis.put("pendingSamples",   totals.pendingSamples());
         return kpis;
     }
 
-    private Map<String, Object> buildRoleLabWise(String roleName, User currentUser,
-                                                  LocalDate startDate, LocalDate endDate, boolean hasDates) {
-        List<tiameds.com.tiameds.entity.Lab> labs = labRepository.findByCreatedBy(currentUser);
+    private Map<String, Object> buildRoleLabWise(List<UserRepository.LabRoleCountProjection> roleCounts,
+                                                  Function<UserRepository.LabRoleCountProjection, Long> roleCount) {
         List<Map<String, Object>> labWise = new ArrayList<>();
         long total = 0;
-        for (tiameds.com.tiameds.entity.Lab lab : labs) {
-            long count = hasDates
-                    ? userRepository.countByRolesNameAndLabsIdAndCreatedAtBetween(roleName, lab.getId(), toStart(startDate), toEnd(endDate))
-                    : userRepository.countByRolesNameAndLabsId(roleName, lab.getId());
+        for (UserRepository.LabRoleCountProjection lab : roleCounts) {
+            long count = roleCount.apply(lab);
             total += count;
             Map<String, Object> row = new LinkedHashMap<>();
-            row.put("labId",   lab.getId());
-            row.put("labName", lab.getName());
+            row.put("labId",   lab.getLabId());
+            row.put("labName", lab.getLabName());
             row.put("count",   count);
             labWise.add(row);
         }
@@ -256,18 +247,8 @@ public class SuperAdminDashboardController {
 
     private Map<String, Object> buildDashboardSummary(Long userId,
                                                        LocalDate startDate, LocalDate endDate, boolean hasDates, Long labId) {
-        List<LabRepository.LabPerformanceSummaryProjection> labRows;
-        if (hasDates) {
-            long periodDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-            LocalDate prevEnd   = startDate.minusDays(1);
-            LocalDate prevStart = prevEnd.minusDays(periodDays - 1);
-            labRows = labRepository.getAllLabsSummaryWithDateRange(
-                    userId,
-                    toInstantStart(startDate), toInstantEnd(endDate),
-                    toInstantStart(prevStart), toInstantEnd(prevEnd));
-        } else {
-            labRows = labRepository.getAllLabsSummaryAllTime(userId);
-        }
+        List<LabRepository.LabPerformanceSummaryProjection> labRows =
+                superAdminStatsService.getLabSummaries(userId, startDate, endDate);
 
         if (labId != null) {
             final Long filterLabId = labId;
@@ -371,13 +352,11 @@ public class SuperAdminDashboardController {
     }
 
     private Map<String, Object> buildRevenueTrend(Long userId, LocalDate startDate, LocalDate endDate, Long labId) {
-        Instant start = toInstantStart(startDate);
-        Instant end   = toInstantEnd(endDate);
         List<BillingRepository.DailyRevenueProjection> trend;
         if (labId != null) {
-            trend = billingRepository.getDailyPaidAmountTrendByLabId(labId, start, end);
+            trend = labDailyStatsService.getDailyRevenue(labId, startDate, endDate);
         } else {
-            trend = billingRepository.getDailyPaidAmountTrend(userId, start, end);
+            trend = labDailyStatsService.getDailyRevenueByLabCreator(userId, startDate, endDate);
         }
         BigDecimal total = trend.stream()
                 .map(BillingRepository.DailyRevenueProjection::getRevenue)
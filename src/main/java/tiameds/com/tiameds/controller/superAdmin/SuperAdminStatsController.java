@@ -16,6 +16,8 @@ import tiameds.com.tiameds.repository.UserRepository;
 import tiameds.com.tiameds.repository.VisitRepository;
 import tiameds.com.tiameds.repository.VisitSampleRepository;
 import tiameds.com.tiameds.repository.VisitTestResultRepository;
+import tiameds.com.tiameds.services.lab.LabDailyStatsService;
+import tiameds.com.tiameds.services.superAdmin.SuperAdminStatsService;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
 import tiameds.com.tiameds.utils.UserAuthService;
 
@@ -40,6 +42,8 @@ import java.util.function.Function;
 @Tag(name = "Super Admin Stats Controller", description = "Statistics endpoints for super admin")
 public class SuperAdminStatsController {
 
+    private static final int MAX_LAB_PAGE_SIZE = 500;
+
     private final LabRepository labRepository;
     private final PatientRepository patientRepository;
     private final VisitTestResultRepository visitTestResultRepository;
@@ -51,6 +55,8 @@ public class SuperAdminStatsController {
     private final DoctorRepository doctorRepository;
     private final HealthPackageRepository healthPackageRepository;
     private final UserAuthService userAuthService;
+    private final LabDailyStatsService labDailyStatsService;
+    private final SuperAdminStatsService superAdminStatsService;
 
     public SuperAdminStatsController(LabRepository labRepository,
                                      PatientRepository patientRepository,
@@ -62,7 +68,9 @@ public class SuperAdminStatsController {
                                      VisitRepository visitRepository,
                                      DoctorRepository doctorRepository,
                                      HealthPackageRepository healthPackageRepository,
-                                     UserAuthService userAuthService) {
+                                     UserAuthService userAuthService,
+                                     LabDailyStatsService labDailyStatsService,
+                                     SuperAdminStatsService superAdminStatsService) {
         this.labRepository = labRepository;
         this.patientRepository = patientRepository;
         this.visitTestResultRepository = visitTestResultRepository;
@@ -74,6 +82,8 @@ public class SuperAdminStatsController {
         this.doctorRepository = doctorRepository;
         this.healthPackageRepository = healthPackageRepository;
         this.userAuthService = userAuthService;
+        this.labDailyStatsService = labDailyStatsService;
+        this.superAdminStatsService = superAdminStatsService;
     }
 
     @GetMapping("/my-labs/count")
@@ -160,22 +170,23 @@ public class SuperAdminStatsController {
 
     private Map<String, Object> buildRoleCountWithLabWise(String roleName, User currentUser,
                                                            LocalDate startDate, LocalDate endDate) {
-        boolean hasDates = startDate != null && endDate != null;
-        List<Lab> labs = labRepository.findByCreatedBy(currentUser);
+        Function<UserRepository.LabRoleCountProjection, Long> count = switch (roleName) {
+            case "ADMIN" -> UserRepository.LabRoleCountProjection::getAdmins;
+            case "TECHNICIAN" -> UserRepository.LabRoleCountProjection::getTechnicians;
+            default -> UserRepository.LabRoleCountProjection::getDeskRoles;
+        };
 
         List<Map<String, Object>> labWise = new ArrayList<>();
         long total = 0;
 
-        for (Lab lab : labs) {
-            long count = hasDates
-                    ? userRepository.countByRolesNameAndLabsIdAndCreatedAtBetween(roleName, lab.getId(), toStart(startDate), toEnd(endDate))
-                    : userRepository.countByRolesNameAndLabsId(roleName, lab.getId());
-            total += count;
+        for (UserRepository.LabRoleCountProjection lab : superAdminStatsService.getRoleCountsByLab(currentUser.getId(), startDate, endDate)) {
+            long labCount = count.apply(lab);
+            total += labCount;
 
             Map<String, Object> row = new LinkedHashMap<>();
-            row.put("labId",   lab.getId());
-            row.put("labName", lab.getName());
-            row.put("count",   count);
+            row.put("labId",   lab.getLabId());
+            row.put("labName", lab.getLabName());
+            row.put("count",   labCount);
             labWise.add(row);
         }
 
@@ -328,11 +339,8 @@ public class SuperAdminStatsController {
         }
 
         User currentUser = userOptional.get();
-        Instant start = toInstantStart(startDate);
-        Instant end   = toInstantEnd(endDate);
-
         List<BillingRepository.DailyRevenueProjection> trend =
-                billingRepository.getDailyPaidAmountTrend(currentUser.getId(), start, end);
+                labDailyStatsService.getDailyRevenueByLabCreator(currentUser.getId(), startDate, endDate);
 
         BigDecimal totalRevenue = trend.stream()
                 .map(BillingRepository.DailyRevenueProjection::getRevenue)
@@ -674,7 +682,11 @@ public class SuperAdminStatsController {
     public ResponseEntity<?> getDashboardSummary(
             @RequestHeader("Authorization") String token,
             @RequestParam(required = false) LocalDate startDate,
-            @RequestParam(required = false) LocalDate endDate) {
+            @RequestParam(required = false) LocalDate endDate,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
         Optional<User> userOptional = userAuthService.authenticateUser(token);
         if (userOptional.isEmpty()) {
             return ApiResponseHelper.errorResponse("User authentication failed", HttpStatus.UNAUTHORIZED);
@@ -684,17 +696,18 @@ public class SuperAdminStatsController {
         Long userId = currentUser.getId();
 
         List<LabRepository.LabPerformanceSummaryProjection> labRows;
-        if (startDate != null && endDate != null) {
-            long periodDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
-            LocalDate prevEnd   = startDate.minusDays(1);
-            LocalDate prevStart = prevEnd.minusDays(periodDays - 1);
-            labRows = labRepository.getAllLabsSummaryWithDateRange(
-                    userId,
-                    toInstantStart(startDate), toInstantEnd(endDate),
-                    toInstantStart(prevStart), toInstantEnd(prevEnd));
-        } else {
-            labRows = labRepository.getAllLabsSummaryAllTime(userId);
+        try {
+            labRows = SuperAdminStatsService.sortLabSummaries(
+                    superAdminStatsService.getLabSummaries(userId, startDate, endDate), sortBy, direction);
+        } catch (IllegalArgumentException e) {
+            return ApiResponseHelper.errorResponse(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
+        // without a size every lab is returned, as before paging was added
+        int pageSize = size != null ? Math.min(Math.max(size, 1), MAX_LAB_PAGE_SIZE) : Math.max(labRows.size(), 1);
+        int pageNumber = size != null ? Math.max(page, 0) : 0;
+        int from = (int) Math.min((long) pageNumber * pageSize, labRows.size());
+        List<LabRepository.LabPerformanceSummaryProjection> pageRows =
+                labRows.subList(from, Math.min(from + pageSize, labRows.size()));
 
         long totalLabs             = labRows.size();
         BigDecimal totalRevenue    = BigDecimal.ZERO;
@@ -716,15 +729,18 @@ public class SuperAdminStatsController {
             totalPatients        += patients;
             totalPendingSamples  += pending;
             totalReportsGenerated+= reports;
+        }
 
+        for (LabRepository.LabPerformanceSummaryProjection row : pageRows) {
+            BigDecimal rev = row.getRevenue() != null ? row.getRevenue() : BigDecimal.ZERO;
             Map<String, Object> lab = new LinkedHashMap<>();
             lab.put("labId",            row.getLabId());
             lab.put("labName",          row.getLabName());
             lab.put("revenue",          rev.setScale(2, RoundingMode.HALF_UP));
-            lab.put("tests",            tests);
-            lab.put("patients",         patients);
-            lab.put("pendingSamples",   pending);
-            lab.put("reportsGenerated", reports);
+            lab.put("tests",            row.getTestCount()        != null ? row.getTestCount()        : 0L);
+            lab.put("patients",         row.getPatientCount()     != null ? row.getPatientCount()     : 0L);
+            lab.put("pendingSamples",   row.getPendingSamples()   != null ? row.getPendingSamples()   : 0L);
+            lab.put("reportsGenerated", row.getReportsGenerated() != null ? row.getReportsGenerated() : 0L);
             lab.put("avgTatHours",      row.getAvgTatHours());
             labWise.add(lab);
         }
@@ -740,6 +756,13 @@ public class SuperAdminStatsController {
         Map<String, Object> response = new LinkedHashMap<>();
         response.put("cumulative", cumulative);
         response.put("labWise",    labWise);
+        int totalPages = (int) Math.ceil((double) labRows.size() / pageSize);
+        response.put("page",          pageNumber);
+        response.put("size",          pageSize);
+        response.put("totalElements", labRows.size());
+        response.put("totalPages",    totalPages);
+        response.put("hasNext",       pageNumber < totalPages - 1);
+        response.put("hasPrevious",   pageNumber > 0);
 
         return ApiResponseHelper.successResponse("Dashboard summary retrieved successfully", response);
     }
@@ -0,0 +1,24 @@
+package tiameds.com.tiameds.dto.lab;
+
+import java.util.List;
+
+/**
+ * Outcome of one CSV import. Every data row is either imported or skipped; {@code errors} says why a row was
+ * skipped and holds at most the first {@code MAX_ERRORS} of them, {@code errorsTruncated} is set when more
+ * rows were skipped than reported.
+ */
+public record CsvImportReport(String importType,
+                              int totalRows,
+                              int imported,
+                              int skipped,
+                              List<RowError> errors,
+                              boolean errorsTruncated) {
+
+    public static final int MAX_ERRORS = 1000;
+
+    /**
+     * @param recordNumber number of the CSV record as counted by the parser, the header included
+     */
+    public record RowError(long recordNumber, String message) {
+    }
+}
@@ -0,0 +1,10 @@
+package tiameds.com.tiameds.dto.lab;
+
+import tiameds.com.tiameds.controller.lab.LabStatisticsDTO;
+import tiameds.com.tiameds.utils.KeysetPage;
+
+/**
+ * One keyset page of a datewise billing listing; {@code totals} is null unless they were requested.
+ */
+public record DatewiseBillingPage(KeysetPage<LabStatisticsDTO> page, DatewiseTotalsDTO totals) {
+}
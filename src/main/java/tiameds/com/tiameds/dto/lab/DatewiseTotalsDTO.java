@@ -0,0 +1,18 @@
+package tiameds.com.tiameds.dto.lab;
+
+import java.math.BigDecimal;
+
+/**
+ * Footer totals of a datewise billing listing over its whole date range, not just the page returned with them.
+ * {@code paidInRange} and {@code refundedInRange} sum the transactions made in the range and are only set for
+ * the payment listing.
+ */
+public record DatewiseTotalsDTO(long billingCount,
+                                BigDecimal totalAmount,
+                                BigDecimal totalDiscount,
+                                BigDecimal totalNetAmount,
+                                BigDecimal totalReceivedAmount,
+                                BigDecimal totalDueAmount,
+                                BigDecimal paidInRange,
+                                BigDecimal refundedInRange) {
+}
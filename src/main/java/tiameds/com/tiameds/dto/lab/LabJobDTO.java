@@ -0,0 +1,25 @@
+package tiameds.com.tiameds.dto.lab;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * State of a background lab job as returned when it is accepted and when it is polled. {@code result} is the
+ * job type's own result (e.g. a CSV import report) once the job has finished.
+ */
+public record LabJobDTO(UUID jobId,
+                        Long labId,
+                        String type,
+                        String status,
+                        Integer progress,
+                        Integer total,
+                        String message,
+                        JsonNode result,
+                        boolean cancelRequested,
+                        String createdBy,
+                        LocalDateTime createdAt,
+                        LocalDateTime startedAt,
+                        LocalDateTime finishedAt) {
+}
@@ -20,7 +20,10 @@ import java.util.Set;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "billing")
+@Table(name = "billing", indexes = {
+        @Index(name = "idx_billing_created_at_id", columnList = "created_at, billing_id"),
+        @Index(name = "idx_billing_updated_at", columnList = "updated_at")
+})
 public class BillingEntity {
 
     @Id
@@ -65,7 +68,8 @@ public class BillingEntity {
     @ManyToMany(fetch = FetchType.LAZY, cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinTable(name = "lab_billing",
             joinColumns = @JoinColumn(name = "billing_id"),
-            inverseJoinColumns = @JoinColumn(name = "lab_id"))
+            inverseJoinColumns = @JoinColumn(name = "lab_id"),
+            indexes = @Index(name = "idx_lab_billing_lab_billing", columnList = "lab_id, billing_id"))
     private Set<Lab> labs = new HashSet<>();
 
     @OneToMany(mappedBy = "billing", cascade = CascadeType.ALL, orphanRemoval = true)
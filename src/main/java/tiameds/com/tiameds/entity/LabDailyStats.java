@@ -0,0 +1,52 @@
+package tiameds.com.tiameds.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Daily rollup of a lab's revenue, test volume and turnaround time, maintained by LabDailyStatsService. Each
+ * figure is bucketed by the day its source row was created: revenue and billings by billing day, tests by test
+ * day, TAT by visit day. Cancelled visits and inactive tests are left out, as in the stats queries on raw rows.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "lab_daily_stats")
+public class LabDailyStats {
+
+    @EmbeddedId
+    private LabDailyStatsId id;
+
+    /**
+     * Sum of actual_received_amount of the day's billings.
+     */
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    @Column(name = "billing_count", nullable = false)
+    private Long billingCount;
+
+    @Column(name = "test_count", nullable = false)
+    private Long testCount;
+
+    @Column(name = "completed_test_count", nullable = false)
+    private Long completedTestCount;
+
+    /**
+     * Sum of report-minus-visit hours over tat_report_count reports; their ratio is the day's average TAT.
+     */
+    @Column(name = "tat_hours_sum", nullable = false)
+    private Double tatHoursSum;
+
+    @Column(name = "tat_report_count", nullable = false)
+    private Long tatReportCount;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private Instant refreshedAt;
+}
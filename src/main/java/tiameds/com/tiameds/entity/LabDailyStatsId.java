@@ -0,0 +1,32 @@
+package tiameds.com.tiameds.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Embedded ID class for LabDailyStats: one row per lab and day.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Embeddable
+public class LabDailyStatsId implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Column(name = "lab_id", nullable = false)
+    private Long labId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+}
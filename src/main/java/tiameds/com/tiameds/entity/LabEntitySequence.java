@@ -28,6 +28,14 @@ public class LabEntitySequence {
     @Column(name = "last_number", nullable = false)
     private Long lastNumber = 0L;
 
+    /**
+     * Highest number known to be taken by codes written outside the sequence (see
+     * SequenceGeneratorService#ensureMinimumSequence). Blocks reserved or re-checked after it was raised skip every
+     * number at or below it. Null when never raised.
+     */
+    @Column(name = "floor_number")
+    private Long floorNumber;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -0,0 +1,83 @@
+package tiameds.com.tiameds.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A long-running operation on a lab, run in the background by LabJobService and polled by its id.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "lab_jobs", indexes = {
+        @Index(name = "idx_lab_jobs_lab_created", columnList = "lab_id, created_at"),
+        @Index(name = "idx_lab_jobs_node_status", columnList = "node, status"),
+        @Index(name = "idx_lab_jobs_status_updated", columnList = "status, updated_at")
+})
+public class LabJob {
+
+    @Id
+    @Column(name = "job_id")
+    private UUID id;
+
+    @Column(name = "lab_id", nullable = false)
+    private Long labId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private LabJobType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private LabJobStatus status;
+
+    /**
+     * Units of work done so far; what a unit is depends on the job type (CSV rows, deleted visits).
+     */
+    private Integer progress;
+
+    /**
+     * Units of work in total, when known.
+     */
+    private Integer total;
+
+    @Column(length = 1000)
+    private String message;
+
+    @Column(columnDefinition = "jsonb")
+    @JdbcTypeCode(SqlTypes.JSON)
+    private String result;
+
+    private Long userId;
+
+    private String createdBy;
+
+    /**
+     * Node that runs or last ran the job.
+     */
+    @Column(length = 100)
+    private String node;
+
+    @Column(nullable = false)
+    private boolean cancelRequested;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * Last write by the owning node; doubles as its lease on the job while the job is unfinished.
+     */
+    private LocalDateTime updatedAt;
+}
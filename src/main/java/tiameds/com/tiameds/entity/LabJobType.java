@@ -0,0 +1,9 @@
+package tiameds.com.tiameds.entity;
+
+public enum LabJobType {
+    DEFAULT_DATA,
+    TEST_CSV_UPLOAD,
+    TEST_REFERENCE_CSV_UPLOAD,
+    DELETE_ALL_TEST_REFERENCES,
+    DELETE_ALL_VISITS
+}
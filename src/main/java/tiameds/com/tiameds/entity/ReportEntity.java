@@ -18,7 +18,10 @@ import java.util.List;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "lab_report")
+@Table(name = "lab_report", indexes = {
+        @Index(name = "idx_lab_report_visit_lab", columnList = "visit_id, lab_id"),
+        @Index(name = "idx_lab_report_updated_at", columnList = "updated_at")
+})
 public class ReportEntity {
 
     @Id
@@ -31,6 +31,13 @@ public class SuperAdminReferanceEntity {
     @Column(nullable = false)
     private String testName;
 
+    /**
+     * {@link TestReferenceEntity#normalizeTestName(String)} of testName, copied as is when the catalog is cloned
+     * into a lab.
+     */
+    @Column(name = "normalized_test_name")
+    private String normalizedTestName;
+
     @Column(nullable = true)
     private String testDescription;
 
@@ -87,5 +94,11 @@ public class SuperAdminReferanceEntity {
 
     @Column(name = "super_admin_reference_code", unique = true)
     private String superAdminReferenceCode;
+
+    @PrePersist
+    @PreUpdate
+    void syncNormalizedTestName() {
+        this.normalizedTestName = TestReferenceEntity.normalizeTestName(testName);
+    }
 }
 
@@ -12,13 +12,21 @@ import tiameds.com.tiameds.repository.GenderConverter;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 @Entity
-@Table(name = "test_reference")
+@Table(name = "test_reference", indexes = {
+        @Index(name = "idx_test_reference_normalized_name", columnList = "normalized_test_name")
+})
 @Data
 public class TestReferenceEntity {
 
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern OPEN_PAREN = Pattern.compile("\\s*\\(");
+    private static final Pattern CLOSE_PAREN = Pattern.compile("\\s*\\)");
+
     @Id
     @GeneratedValue(generator = "snowflake-id")
     @GenericGenerator(
@@ -35,6 +43,12 @@ public class TestReferenceEntity {
     @Column(nullable = false)
     private String testName;
 
+    /**
+     * {@link #normalizeTestName(String)} of testName, kept in step on every insert and update.
+     */
+    @Column(name = "normalized_test_name")
+    private String normalizedTestName;
+
     @Column(nullable = false)
     private String testDescription;
 
@@ -107,4 +121,24 @@ public class TestReferenceEntity {
         this.labs.add(lab);
         lab.getTestReferences().add(this);
     }
+
+    @PrePersist
+    @PreUpdate
+    void syncNormalizedTestName() {
+        this.normalizedTestName = normalizeTestName(testName);
+    }
+
+    /**
+     * Key under which report screens look a test reference up: whitespace collapsed, one space before an opening
+     * and after a closing parenthesis, lower case.
+     */
+    public static String normalizeTestName(String testName) {
+        if (testName == null) {
+            return null;
+        }
+        String normalized = WHITESPACE.matcher(testName.trim()).replaceAll(" ");
+        normalized = OPEN_PAREN.matcher(normalized).replaceAll(" (");
+        normalized = CLOSE_PAREN.matcher(normalized).replaceAll(") ");
+        return normalized.toLowerCase(Locale.ROOT);
+    }
 }
@@ -16,7 +16,9 @@ import java.time.Instant;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "billing_transaction")
+@Table(name = "billing_transaction", indexes = {
+        @Index(name = "idx_billing_transaction_billing_created_at", columnList = "billing_id, created_at")
+})
 public class TransactionEntity {
 
     @Id
@@ -20,7 +20,10 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "patient_visits")
+@Table(name = "patient_visits", indexes = {
+        @Index(name = "idx_patient_visits_patient", columnList = "patient_id"),
+        @Index(name = "idx_patient_visits_updated_at", columnList = "updated_at")
+})
 public class VisitEntity {
 
     @Id
@@ -19,7 +19,9 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "patient_visit_sample")
+@Table(name = "patient_visit_sample", indexes = {
+        @Index(name = "idx_patient_visit_sample_visit", columnList = "visit_id")
+})
 public class VisitSample {
 
     @Id
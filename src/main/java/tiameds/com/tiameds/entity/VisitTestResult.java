@@ -16,7 +16,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "visit_test_result")
+@Table(name = "visit_test_result", indexes = {
+        @Index(name = "idx_visit_test_result_visit", columnList = "visit_id"),
+        @Index(name = "idx_visit_test_result_updated_at", columnList = "updated_at")
+})
 public class VisitTestResult {
 
     @Id
@@ -14,14 +14,13 @@ import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import tiameds.com.tiameds.config.JwtProperties;
-import tiameds.com.tiameds.entity.User;
-import tiameds.com.tiameds.repository.UserRepository;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
+import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.utils.JwtUtil;
 
 import java.io.IOException;
@@ -44,9 +43,8 @@ public class JwtFilter extends OncePerRequestFilter {
             "/public/register"
     );
 
-    private final UserDetailsService userDetailsService;
     private final JwtUtil jwtUtil;
-    private final UserRepository userRepository;
+    private final AuthUserCache authUserCache;
     private final JwtProperties jwtProperties;
 
     @Override
@@ -80,20 +78,23 @@ public class JwtFilter extends OncePerRequestFilter {
                 return;
             }
 
-            User user = userRepository.findByUsername(username).orElse(null);
-            if (user == null) {
+            // Served from the short-lived auth cache; the users table is only read on a miss
+            AuthUserCache.AuthUserSummary summary = authUserCache.get(username).orElse(null);
+            if (summary == null) {
                 writeUnauthorized(response, "User associated with token not found");
                 return;
             }
 
             Integer tokenVersionClaim = getTokenVersion(claims);
-            if (!Objects.equals(tokenVersionClaim, user.getTokenVersion())) {
+            if (!Objects.equals(tokenVersionClaim, summary.tokenVersion())) {
                 writeUnauthorized(response, "Token version mismatch");
                 return;
             }
 
             if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                // Controllers and AuditAspect read the user back from this principal;
+                // the User entity itself is only loaded if a controller asks for it.
+                UserDetails userDetails = new MyUserDetails(summary);
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,7 +1,9 @@
 package tiameds.com.tiameds.repository;
 
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import tiameds.com.tiameds.entity.BillingEntity;
 import tiameds.com.tiameds.entity.User;
@@ -9,6 +11,7 @@ import tiameds.com.tiameds.entity.User;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface BillingRepository extends JpaRepository<BillingEntity, Long> {
 
@@ -367,51 +370,99 @@ public interface BillingRepository extends JpaRepository<BillingEntity, Long> {
         BigDecimal getTotalCredit();
     }
 
-    @Query(value = "SELECT DISTINCT b FROM BillingEntity b " +
-            "JOIN b.labs l " +
-            "JOIN b.visit v " +
-            "JOIN v.patient p " +
-            "WHERE l.id = :labId " +
-            "AND b.createdAt BETWEEN :startDate AND :endDate",
-            countQuery = "SELECT COUNT(DISTINCT b) FROM BillingEntity b " +
-                    "JOIN b.labs l " +
-                    "JOIN b.visit v " +
-                    "WHERE l.id = :labId " +
-                    "AND b.createdAt BETWEEN :startDate AND :endDate")
-    org.springframework.data.domain.Page<BillingEntity> findBillingsByLabAndDateRange(
+    // billings of the lab created in the range that have a visit
+    String TRANSACTION_DATEWISE_SCOPE = "FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
+            "JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
+            "WHERE lb.lab_id = :labId AND b.created_at BETWEEN :startDate AND :endDate ";
+
+    // billings of the lab created before the range that have a visit and a transaction in the range
+    String PAYMENT_DATEWISE_SCOPE = "FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
+            "JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
+            "WHERE lb.lab_id = :labId AND b.created_at < :startDate " +
+            "AND EXISTS (SELECT 1 FROM billing_transaction t WHERE t.billing_id = b.billing_id " +
+            "AND t.created_at BETWEEN :startDate AND :endDate) ";
+
+    String DATEWISE_TOTAL_COLUMNS = "COUNT(*) AS billingCount, SUM(b.total_amount) AS totalAmount, " +
+            "SUM(b.discount) AS totalDiscount, SUM(b.net_amount) AS totalNetAmount, " +
+            "SUM(b.received_amount) AS totalReceivedAmount, SUM(b.due_amount) AS totalDueAmount";
+
+    /**
+     * One keyset page of the billings created in the range, newest first by (created_at, billing_id): only rows
+     * before the cursor are read, up to the limit. With withTotals, the totals columns of every row cover the
+     * whole range; without, they are 0 or null. An empty page is a single row with a null billingId.
+     */
+    @Query(value =
+        "SELECT pg.billing_id AS billingId, pg.sort_at AS sortAt, " +
+        "tot.billingCount AS billingCount, tot.totalAmount AS totalAmount, tot.totalDiscount AS totalDiscount, " +
+        "tot.totalNetAmount AS totalNetAmount, tot.totalReceivedAmount AS totalReceivedAmount, " +
+        "tot.totalDueAmount AS totalDueAmount, " +
+        "CAST(NULL AS numeric) AS paidInRange, CAST(NULL AS numeric) AS refundedInRange " +
+        "FROM (SELECT " + DATEWISE_TOTAL_COLUMNS + " " + TRANSACTION_DATEWISE_SCOPE + "AND :withTotals = true) tot " +
+        "LEFT JOIN ( " +
+        "    SELECT b.billing_id, b.created_at AS sort_at " + TRANSACTION_DATEWISE_SCOPE +
+        "    AND (b.created_at, b.billing_id) < (:cursorAt, :cursorId) " +
+        "    ORDER BY b.created_at DESC, b.billing_id DESC LIMIT :limit " +
+        ") pg ON 1 = 1 " +
+        "ORDER BY pg.sort_at DESC, pg.billing_id DESC", nativeQuery = true)
+    List<DatewiseBillingRowProjection> findTransactionDatewisePage(
             @Param("labId") Long labId,
             @Param("startDate") Instant startDate,
             @Param("endDate") Instant endDate,
-            org.springframework.data.domain.Pageable pageable
-    );
+            @Param("cursorAt") Instant cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit,
+            @Param("withTotals") boolean withTotals);
 
     /**
-     * Finds billings by payment date (past bills paid on filter date):
-     * - Includes ONLY billings created BEFORE the filter date
-     * - AND have transactions where transaction.createdAt is in the date range (payment made on filter date)
-     * - Excludes bills created on the filter date
-     * - Excludes bills without transactions
-     * Note: Sorting by most recent transaction date should be handled in service layer
+     * One keyset page of the past billings paid in the range (see {@link #PAYMENT_DATEWISE_SCOPE}), ordered by
+     * their most recent transaction, newest first, then billing_id. With withTotals, the totals columns cover
+     * the whole range, paidInRange and refundedInRange summing only the transactions made in it. An empty page
+     * is a single row with a null billingId.
      */
-    @Query(value = "SELECT DISTINCT b FROM BillingEntity b " +
-            "JOIN b.labs l " +
-            "JOIN b.visit v " +
-            "JOIN v.patient p " +
-            "WHERE l.id = :labId " +
-            "AND b.createdAt < :startDate " +
-            "AND EXISTS (SELECT 1 FROM TransactionEntity t WHERE t.billing = b AND t.createdAt BETWEEN :startDate AND :endDate)",
-            countQuery = "SELECT COUNT(DISTINCT b) FROM BillingEntity b " +
-                    "JOIN b.labs l " +
-                    "JOIN b.visit v " +
-                    "WHERE l.id = :labId " +
-                    "AND b.createdAt < :startDate " +
-                    "AND EXISTS (SELECT 1 FROM TransactionEntity t WHERE t.billing = b AND t.createdAt BETWEEN :startDate AND :endDate)")
-    org.springframework.data.domain.Page<BillingEntity> findBillingsByLabAndPaymentDateRange(
+    @Query(value =
+        "SELECT pg.billing_id AS billingId, pg.sort_at AS sortAt, " +
+        "tot.billingCount AS billingCount, tot.totalAmount AS totalAmount, tot.totalDiscount AS totalDiscount, " +
+        "tot.totalNetAmount AS totalNetAmount, tot.totalReceivedAmount AS totalReceivedAmount, " +
+        "tot.totalDueAmount AS totalDueAmount, tot.paidInRange AS paidInRange, tot.refundedInRange AS refundedInRange " +
+        "FROM ( " +
+        "    SELECT " + DATEWISE_TOTAL_COLUMNS + ", SUM(b.paid) AS paidInRange, SUM(b.refunded) AS refundedInRange " +
+        "    FROM (SELECT b.*, " +
+        "        (SELECT SUM(t.received_amount) FROM billing_transaction t WHERE t.billing_id = b.billing_id " +
+        "            AND t.created_at BETWEEN :startDate AND :endDate) AS paid, " +
+        "        (SELECT SUM(t.refund_amount) FROM billing_transaction t WHERE t.billing_id = b.billing_id " +
+        "            AND t.created_at BETWEEN :startDate AND :endDate) AS refunded " +
+        "        " + PAYMENT_DATEWISE_SCOPE + "AND :withTotals = true) b " +
+        ") tot " +
+        "LEFT JOIN ( " +
+        "    SELECT s.billing_id, s.sort_at FROM ( " +
+        "        SELECT b.billing_id, (SELECT MAX(t.created_at) FROM billing_transaction t " +
+        "            WHERE t.billing_id = b.billing_id) AS sort_at " + PAYMENT_DATEWISE_SCOPE +
+        "    ) s " +
+        "    WHERE (s.sort_at, s.billing_id) < (:cursorAt, :cursorId) " +
+        "    ORDER BY s.sort_at DESC, s.billing_id DESC LIMIT :limit " +
+        ") pg ON 1 = 1 " +
+        "ORDER BY pg.sort_at DESC, pg.billing_id DESC", nativeQuery = true)
+    List<DatewiseBillingRowProjection> findPaymentDatewisePage(
             @Param("labId") Long labId,
             @Param("startDate") Instant startDate,
             @Param("endDate") Instant endDate,
-            org.springframework.data.domain.Pageable pageable
-    );
+            @Param("cursorAt") Instant cursorAt,
+            @Param("cursorId") Long cursorId,
+            @Param("limit") int limit,
+            @Param("withTotals") boolean withTotals);
+
+    interface DatewiseBillingRowProjection {
+        Long getBillingId();
+        Instant getSortAt();
+        Long getBillingCount();
+        BigDecimal getTotalAmount();
+        BigDecimal getTotalDiscount();
+        BigDecimal getTotalNetAmount();
+        BigDecimal getTotalReceivedAmount();
+        BigDecimal getTotalDueAmount();
+        BigDecimal getPaidInRange();
+        BigDecimal getRefundedInRange();
+    }
 
     @Query("SELECT COALESCE(SUM(b.dueAmount), 0) FROM BillingEntity b JOIN b.labs l WHERE l.id = :labId AND LOWER(b.visit.visitStatus) != 'cancelled'")
     BigDecimal sumDueAmountByLabId(@Param("labId") Long labId);
@@ -599,4 +650,68 @@ public interface BillingRepository extends JpaRepository<BillingEntity, Long> {
             @Param("endDate") Instant endDate,
             org.springframework.data.domain.Pageable pageable);
 
+
+    String BILLING_LIST_COLUMNS = "SELECT b.id AS billingId, b.totalAmount AS totalAmount, b.paymentStatus AS paymentStatus, " +
+            "b.paymentMethod AS paymentMethod, b.paymentDate AS paymentDate, b.discount AS discount, b.gstRate AS gstRate, " +
+            "b.gstAmount AS gstAmount, b.cgstAmount AS cgstAmount, b.sgstAmount AS sgstAmount, b.igstAmount AS igstAmount, " +
+            "b.netAmount AS netAmount, b.discountReason AS discountReason, b.receivedAmount AS receivedAmount, " +
+            "b.actualReceivedAmount AS actualReceivedAmount, b.dueAmount AS dueAmount, b.createdBy AS createdBy, " +
+            "b.billingDate AS billingDate, b.createdAt AS createdAt " +
+            "FROM BillingEntity b JOIN b.labs l " +
+            "WHERE l.id = :labId " +
+            "AND (:status IS NULL OR b.paymentStatus = :status) " +
+            "AND (:method IS NULL OR b.paymentMethod = :method) " +
+            "AND (:startDate IS NULL OR b.createdAt >= :startDate) " +
+            "AND (:endDate IS NULL OR b.createdAt <= :endDate) ";
+
+    /**
+     * One keyset page of a lab's billings, newest first. Pass a Pageable of (0, size + 1) to detect the next page;
+     * the cursor parameters are null for the first page.
+     */
+    @Query(BILLING_LIST_COLUMNS +
+            "AND (:cursorCreatedAt IS NULL OR b.createdAt < :cursorCreatedAt " +
+            "     OR (b.createdAt = :cursorCreatedAt AND b.id < :cursorId)) " +
+            "ORDER BY b.createdAt DESC, b.id DESC")
+    List<BillingListProjection> findBillingPage(@Param("labId") Long labId,
+                                                @Param("status") String status,
+                                                @Param("method") String method,
+                                                @Param("startDate") Instant startDate,
+                                                @Param("endDate") Instant endDate,
+                                                @Param("cursorCreatedAt") Instant cursorCreatedAt,
+                                                @Param("cursorId") Long cursorId,
+                                                org.springframework.data.domain.Pageable limit);
+
+    /**
+     * Same filters as {@link #findBillingPage} without a page limit, fetched through a server-side cursor.
+     * Must be consumed inside a read-only transaction and closed.
+     */
+    @Query(BILLING_LIST_COLUMNS + "ORDER BY b.createdAt DESC, b.id DESC")
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<BillingListProjection> streamBillings(@Param("labId") Long labId,
+                                                 @Param("status") String status,
+                                                 @Param("method") String method,
+                                                 @Param("startDate") Instant startDate,
+                                                 @Param("endDate") Instant endDate);
+
+    interface BillingListProjection {
+        Long getBillingId();
+        BigDecimal getTotalAmount();
+        String getPaymentStatus();
+        String getPaymentMethod();
+        String getPaymentDate();
+        BigDecimal getDiscount();
+        BigDecimal getGstRate();
+        BigDecimal getGstAmount();
+        BigDecimal getCgstAmount();
+        BigDecimal getSgstAmount();
+        BigDecimal getIgstAmount();
+        BigDecimal getNetAmount();
+        String getDiscountReason();
+        BigDecimal getReceivedAmount();
+        BigDecimal getActualReceivedAmount();
+        BigDecimal getDueAmount();
+        String getCreatedBy();
+        String getBillingDate();
+        Instant getCreatedAt();
+    }
 }
@@ -106,4 +106,31 @@ public interface DoctorRepository extends JpaRepository<Doctors, Long> {
         BigDecimal getRevenue();
         Long getTotalTests();
     }
+
+    @Query("SELECT d.id AS id, d.name AS name, d.email AS email, d.speciality AS speciality, " +
+            "d.qualification AS qualification, d.hospitalAffiliation AS hospitalAffiliation, " +
+            "d.licenseNumber AS licenseNumber, d.phone AS phone, d.address AS address, d.city AS city, " +
+            "d.state AS state, d.country AS country, d.CreatedBy AS createdBy, d.UpdatedBy AS updatedBy, " +
+            "d.createdAt AS createdAt, d.updatedAt AS updatedAt " +
+            "FROM Doctors d JOIN d.labs l WHERE l.id = :labId ORDER BY d.id")
+    List<CatalogDoctorProjection> findCatalogByLabId(@Param("labId") Long labId);
+
+    interface CatalogDoctorProjection {
+        Long getId();
+        String getName();
+        String getEmail();
+        String getSpeciality();
+        String getQualification();
+        String getHospitalAffiliation();
+        String getLicenseNumber();
+        String getPhone();
+        String getAddress();
+        String getCity();
+        String getState();
+        String getCountry();
+        String getCreatedBy();
+        String getUpdatedBy();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
 }
@@ -287,4 +287,36 @@ public interface HealthPackageRepository extends JpaRepository<HealthPackage, Lo
         BigDecimal getUpiRevenue();
         BigDecimal getCardRevenue();
     }
+
+    @Query("SELECT p.id AS id, p.packageCode AS packageCode, p.packageName AS packageName, p.price AS price, " +
+            "p.discount AS discount, p.isActive AS active, p.createdAt AS createdAt, p.updatedAt AS updatedAt " +
+            "FROM HealthPackage p JOIN p.labs l WHERE l.id = :labId ORDER BY p.id")
+    List<CatalogPackageProjection> findCatalogByLabId(@Param("labId") Long labId);
+
+    @Query("SELECT p.id AS packageId, t.id AS testId, t.testCode AS testCode, t.category AS category, " +
+            "t.name AS name, t.price AS price, t.createdAt AS createdAt, t.updatedAt AS updatedAt " +
+            "FROM HealthPackage p JOIN p.labs l JOIN p.tests t WHERE l.id = :labId ORDER BY p.id, t.id")
+    List<CatalogPackageTestProjection> findCatalogTestsByLabId(@Param("labId") Long labId);
+
+    interface CatalogPackageProjection {
+        Long getId();
+        String getPackageCode();
+        String getPackageName();
+        Double getPrice();
+        Double getDiscount();
+        Boolean getActive();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+
+    interface CatalogPackageTestProjection {
+        Long getPackageId();
+        Long getTestId();
+        String getTestCode();
+        String getCategory();
+        String getName();
+        BigDecimal getPrice();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
 }
@@ -22,4 +22,21 @@ public interface InsuranceRepository extends JpaRepository<InsuranceEntity, Long
 
 //    List<InsuranceEntity> findAllById(List<Long> insuranceIds);
 
+    @Query("SELECT i.id AS id, i.name AS name, i.description AS description, i.price AS price, " +
+            "i.duration AS duration, i.coverageLimit AS coverageLimit, i.coverageType AS coverageType, " +
+            "i.status AS status, i.provider AS provider " +
+            "FROM InsuranceEntity i JOIN i.labs l WHERE l.id = :labId ORDER BY i.id")
+    List<CatalogInsuranceProjection> findCatalogByLabId(@Param("labId") Long labId);
+
+    interface CatalogInsuranceProjection {
+        Long getId();
+        String getName();
+        String getDescription();
+        Double getPrice();
+        Integer getDuration();
+        Double getCoverageLimit();
+        String getCoverageType();
+        String getStatus();
+        String getProvider();
+    }
 }
@@ -0,0 +1,33 @@
+package tiameds.com.tiameds.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tiameds.com.tiameds.entity.LabDailyStats;
+import tiameds.com.tiameds.entity.LabDailyStatsId;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LabDailyStatsRepository extends JpaRepository<LabDailyStats, LabDailyStatsId> {
+
+    @Query(value = "SELECT s.stat_date AS date, s.revenue AS revenue FROM lab_daily_stats s " +
+            "WHERE s.lab_id = :labId AND s.stat_date BETWEEN :startDate AND :endDate AND s.billing_count > 0 " +
+            "ORDER BY s.stat_date", nativeQuery = true)
+    List<BillingRepository.DailyRevenueProjection> getDailyRevenueByLabId(@Param("labId") Long labId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT s.stat_date AS date, SUM(s.revenue) AS revenue FROM lab_daily_stats s " +
+            "JOIN labs l ON l.lab_id = s.lab_id " +
+            "WHERE l.created_by = :createdById AND s.stat_date BETWEEN :startDate AND :endDate AND s.billing_count > 0 " +
+            "GROUP BY s.stat_date " +
+            "ORDER BY s.stat_date", nativeQuery = true)
+    List<BillingRepository.DailyRevenueProjection> getDailyRevenueByLabCreator(@Param("createdById") Long createdById, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT SUM(s.tat_hours_sum) / SUM(s.tat_report_count) FROM lab_daily_stats s " +
+            "WHERE s.lab_id = :labId AND s.stat_date BETWEEN :startDate AND :endDate AND s.tat_report_count > 0", nativeQuery = true)
+    Double getAvgTatHoursByLabIdAndDateRange(@Param("labId") Long labId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    @Query(value = "SELECT SUM(s.tat_hours_sum) / SUM(s.tat_report_count) FROM lab_daily_stats s " +
+            "WHERE s.lab_id = :labId AND s.tat_report_count > 0", nativeQuery = true)
+    Double getAvgTatHoursByLabId(@Param("labId") Long labId);
+}
@@ -0,0 +1,58 @@
+package tiameds.com.tiameds.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tiameds.com.tiameds.entity.LabJob;
+import tiameds.com.tiameds.entity.LabJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface LabJobRepository extends JpaRepository<LabJob, UUID> {
+
+    Optional<LabJob> findByIdAndLabId(UUID id, Long labId);
+
+    List<LabJob> findByLabIdOrderByCreatedAtDesc(Long labId, Pageable pageable);
+
+    List<LabJob> findByNodeAndStatusIn(String node, Collection<LabJobStatus> statuses);
+
+    List<LabJob> findByStatusInAndUpdatedAtBefore(Collection<LabJobStatus> statuses, LocalDateTime updatedBefore);
+
+    @Modifying
+    @Query("UPDATE LabJob j SET j.updatedAt = :updatedAt " +
+            "WHERE j.id IN :ids AND j.node = :node AND j.status IN :statuses")
+    int renewLeases(@Param("ids") Collection<UUID> ids,
+                    @Param("node") String node,
+                    @Param("statuses") Collection<LabJobStatus> statuses,
+                    @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Moves an unfinished job to the given node, provided nobody touched it since it was read.
+     *
+     * @return 1 if the job was claimed, 0 if another node got there first or it has finished
+     */
+    @Modifying
+    @Query("UPDATE LabJob j SET j.node = :node, j.updatedAt = :updatedAt " +
+            "WHERE j.id = :id AND j.updatedAt = :seenUpdatedAt AND j.status IN :statuses")
+    int claim(@Param("id") UUID id,
+              @Param("seenUpdatedAt") LocalDateTime seenUpdatedAt,
+              @Param("node") String node,
+              @Param("statuses") Collection<LabJobStatus> statuses,
+              @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("UPDATE LabJob j SET j.progress = :progress, j.total = :total, j.updatedAt = :updatedAt WHERE j.id = :id")
+    int updateProgress(@Param("id") UUID id,
+                       @Param("progress") Integer progress,
+                       @Param("total") Integer total,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT j.cancelRequested FROM LabJob j WHERE j.id = :id")
+    Optional<Boolean> findCancelRequested(@Param("id") UUID id);
+}
@@ -56,14 +56,14 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    SELECT lb.lab_id, SUM(b.actual_received_amount) AS revenue" +
         "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
         "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
-        "    WHERE b.created_at BETWEEN :startDate AND :endDate AND LOWER(pv.visit_status) != 'cancelled' " +
+        "    WHERE lb.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND b.created_at BETWEEN :startDate AND :endDate AND LOWER(pv.visit_status) != 'cancelled' " +
         "    GROUP BY lb.lab_id " +
         ") curr ON curr.lab_id = l.lab_id " +
         "LEFT JOIN ( " +
         "    SELECT lb.lab_id, SUM(b.actual_received_amount) AS revenue" +
         "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
         "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
-        "    WHERE b.created_at BETWEEN :prevStartDate AND :prevEndDate AND LOWER(pv.visit_status) != 'cancelled' " +
+        "    WHERE lb.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND b.created_at BETWEEN :prevStartDate AND :prevEndDate AND LOWER(pv.visit_status) != 'cancelled' " +
         "    GROUP BY lb.lab_id " +
         ") prev ON prev.lab_id = l.lab_id " +
         "LEFT JOIN ( " +
@@ -77,7 +77,7 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    JOIN patient_visits v ON v.visit_id = lv.visit_id " +
         "    LEFT JOIN visit_test_result vtr ON vtr.visit_id = v.visit_id AND LOWER(vtr.test_status) = 'active' " +
         "    LEFT JOIN lab_report r ON r.visit_id = v.visit_id AND r.lab_id = lv.lab_id " +
-        "    WHERE v.created_at BETWEEN :startDate AND :endDate AND LOWER(v.visit_status) != 'cancelled' " +
+        "    WHERE lv.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND v.created_at BETWEEN :startDate AND :endDate AND LOWER(v.visit_status) != 'cancelled' " +
         "    GROUP BY lv.lab_id " +
         ") vstats ON vstats.lab_id = l.lab_id " +
         "WHERE l.created_by = :createdById " +
@@ -105,7 +105,7 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    SELECT lb.lab_id, SUM(b.actual_received_amount) AS revenue" +
         "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
         "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
-        "    WHERE LOWER(pv.visit_status) != 'cancelled' " +
+        "    WHERE lb.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND LOWER(pv.visit_status) != 'cancelled' " +
         "    GROUP BY lb.lab_id " +
         ") curr ON curr.lab_id = l.lab_id " +
         "LEFT JOIN ( " +
@@ -119,7 +119,7 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    JOIN patient_visits v ON v.visit_id = lv.visit_id " +
         "    LEFT JOIN visit_test_result vtr ON vtr.visit_id = v.visit_id AND LOWER(vtr.test_status) = 'active' " +
         "    LEFT JOIN lab_report r ON r.visit_id = v.visit_id AND r.lab_id = lv.lab_id " +
-        "    WHERE LOWER(v.visit_status) != 'cancelled' " +
+        "    WHERE lv.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND LOWER(v.visit_status) != 'cancelled' " +
         "    GROUP BY lv.lab_id " +
         ") vstats ON vstats.lab_id = l.lab_id " +
         "WHERE l.created_by = :createdById " +
@@ -143,7 +143,7 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    SELECT lb.lab_id, SUM(b.actual_received_amount) AS revenue" +
         "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
         "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
-        "    WHERE LOWER(pv.visit_status) != 'cancelled' " +
+        "    WHERE lb.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND LOWER(pv.visit_status) != 'cancelled' " +
         "    GROUP BY lb.lab_id " +
         ") curr ON curr.lab_id = l.lab_id " +
         "LEFT JOIN ( " +
@@ -157,7 +157,7 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    JOIN patient_visits v ON v.visit_id = lv.visit_id " +
         "    LEFT JOIN visit_test_result vtr ON vtr.visit_id = v.visit_id AND LOWER(vtr.test_status) = 'active' " +
         "    LEFT JOIN lab_report r ON r.visit_id = v.visit_id AND r.lab_id = lv.lab_id " +
-        "    WHERE LOWER(v.visit_status) != 'cancelled' " +
+        "    WHERE lv.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND LOWER(v.visit_status) != 'cancelled' " +
         "    GROUP BY lv.lab_id " +
         ") vstats ON vstats.lab_id = l.lab_id " +
         "WHERE l.created_by = :createdById " +
@@ -178,14 +178,14 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    SELECT lb.lab_id, SUM(b.actual_received_amount) AS revenue" +
         "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
         "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
-        "    WHERE b.created_at BETWEEN :startDate AND :endDate AND LOWER(pv.visit_status) != 'cancelled' " +
+        "    WHERE lb.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND b.created_at BETWEEN :startDate AND :endDate AND LOWER(pv.visit_status) != 'cancelled' " +
         "    GROUP BY lb.lab_id " +
         ") curr ON curr.lab_id = l.lab_id " +
         "LEFT JOIN ( " +
         "    SELECT lb.lab_id, SUM(b.actual_received_amount) AS revenue" +
         "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
         "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
-        "    WHERE b.created_at BETWEEN :prevStartDate AND :prevEndDate AND LOWER(pv.visit_status) != 'cancelled' " +
+        "    WHERE lb.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND b.created_at BETWEEN :prevStartDate AND :prevEndDate AND LOWER(pv.visit_status) != 'cancelled' " +
         "    GROUP BY lb.lab_id " +
         ") prev ON prev.lab_id = l.lab_id " +
         "LEFT JOIN ( " +
@@ -199,7 +199,7 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "    JOIN patient_visits v ON v.visit_id = lv.visit_id " +
         "    LEFT JOIN visit_test_result vtr ON vtr.visit_id = v.visit_id AND LOWER(vtr.test_status) = 'active' " +
         "    LEFT JOIN lab_report r ON r.visit_id = v.visit_id AND r.lab_id = lv.lab_id " +
-        "    WHERE v.created_at BETWEEN :startDate AND :endDate AND LOWER(v.visit_status) != 'cancelled' " +
+        "    WHERE lv.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND v.created_at BETWEEN :startDate AND :endDate AND LOWER(v.visit_status) != 'cancelled' " +
         "    GROUP BY lv.lab_id " +
         ") vstats ON vstats.lab_id = l.lab_id " +
         "WHERE l.created_by = :createdById " +
@@ -291,6 +291,193 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         "WHERE l.lab_id = :labId", nativeQuery = true)
     java.util.Optional<LabPerformanceSummaryProjection> getLabPerformanceByLabIdAllTime(@Param("labId") Long labId);
 
+    // ─── KPI snapshots: one round trip, each table scanned once ─────────────
+
+    /**
+     * Dashboard KPIs of the current window and of the previous one, which must end right before the current
+     * window starts: both are read in the same scan and split with CASE. Role counts are all-time.
+     */
+    @Query(value =
+        "WITH rev AS ( " +
+        "    SELECT SUM(CASE WHEN b.created_at >= :currStart THEN b.actual_received_amount END) AS curr, " +
+        "        SUM(CASE WHEN b.created_at <= :prevEnd THEN b.actual_received_amount END) AS prev " +
+        "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
+        "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
+        "    WHERE lb.lab_id = :labId AND b.created_at BETWEEN :prevStart AND :currEnd AND LOWER(pv.visit_status) != 'cancelled' " +
+        "), tst AS ( " +
+        "    SELECT COUNT(CASE WHEN vtr.created_at >= :currStartLocal THEN 1 END) AS curr, " +
+        "        COUNT(CASE WHEN vtr.created_at <= :prevEndLocal THEN 1 END) AS prev, " +
+        "        COUNT(CASE WHEN vtr.created_at >= :currStartLocal AND vtr.report_status = 'Completed' THEN 1 END) AS currReports, " +
+        "        COUNT(CASE WHEN vtr.created_at <= :prevEndLocal AND vtr.report_status = 'Completed' THEN 1 END) AS prevReports " +
+        "    FROM visit_test_result vtr JOIN lab_visit lv ON lv.visit_id = vtr.visit_id " +
+        "    JOIN patient_visits pv ON pv.visit_id = vtr.visit_id " +
+        "    WHERE lv.lab_id = :labId AND vtr.created_at BETWEEN :prevStartLocal AND :currEndLocal " +
+        "    AND LOWER(vtr.test_status) = 'active' AND LOWER(pv.visit_status) != 'cancelled' " +
+        "), pat AS ( " +
+        "    SELECT COUNT(CASE WHEN p.created_at >= :currStart THEN 1 END) AS curr, " +
+        "        COUNT(CASE WHEN p.created_at <= :prevEnd THEN 1 END) AS prev " +
+        "    FROM patients p JOIN lab_patients lp ON lp.patient_id = p.patient_id " +
+        "    WHERE lp.lab_id = :labId AND p.created_at BETWEEN :prevStart AND :currEnd " +
+        "), pend AS ( " +
+        "    SELECT COUNT(CASE WHEN v.created_at >= :currStart THEN 1 END) AS curr, " +
+        "        COUNT(CASE WHEN v.created_at <= :prevEnd THEN 1 END) AS prev " +
+        "    FROM patient_visits v JOIN lab_visit lv ON lv.visit_id = v.visit_id " +
+        "    WHERE lv.lab_id = :labId AND v.visit_status = 'Pending' AND v.created_at BETWEEN :prevStart AND :currEnd " +
+        "), tat AS ( " +
+        "    SELECT AVG(CASE WHEN v.created_at >= :currStart THEN EXTRACT(EPOCH FROM (r.created_at - v.created_at)) / 3600.0 END) AS curr, " +
+        "        AVG(CASE WHEN v.created_at <= :prevEnd THEN EXTRACT(EPOCH FROM (r.created_at - v.created_at)) / 3600.0 END) AS prev " +
+        "    FROM lab_report r JOIN patient_visits v ON r.visit_id = v.visit_id " +
+        "    WHERE r.lab_id = :labId AND v.created_at BETWEEN :prevStart AND :currEnd " +
+        "), rol AS ( " +
+        "    SELECT COUNT(CASE WHEN r.name = 'ADMIN' THEN 1 END) AS admins, " +
+        "        COUNT(CASE WHEN r.name = 'DESKROLE' THEN 1 END) AS deskUsers, " +
+        "        COUNT(CASE WHEN r.name = 'TECHNICIAN' THEN 1 END) AS technicians " +
+        "    FROM users u JOIN users_roles ur ON ur.user_id = u.user_id " +
+        "    JOIN roles r ON r.role_id = ur.role_id " +
+        "    JOIN lab_members lm ON lm.user_id = u.user_id " +
+        "    WHERE lm.lab_id = :labId AND u.enabled = true AND r.name IN ('ADMIN', 'DESKROLE', 'TECHNICIAN') " +
+        ") " +
+        "SELECT COALESCE(rev.curr, 0) AS revenue, COALESCE(rev.prev, 0) AS previousRevenue, " +
+        "tst.curr AS tests, tst.prev AS previousTests, " +
+        "pat.curr AS patients, pat.prev AS previousPatients, " +
+        "pend.curr AS pendingSamples, pend.prev AS previousPendingSamples, " +
+        "tst.currReports AS reportsGenerated, tst.prevReports AS previousReportsGenerated, " +
+        "tat.curr AS avgTatHours, tat.prev AS previousAvgTatHours, " +
+        "rol.admins AS admins, rol.deskUsers AS deskUsers, rol.technicians AS technicians " +
+        "FROM rev CROSS JOIN tst CROSS JOIN pat CROSS JOIN pend CROSS JOIN tat CROSS JOIN rol", nativeQuery = true)
+    LabKpiProjection getDashboardKpisByLabId(
+            @Param("labId") Long labId,
+            @Param("currStart") Instant currStart,
+            @Param("currEnd") Instant currEnd,
+            @Param("prevStart") Instant prevStart,
+            @Param("prevEnd") Instant prevEnd,
+            @Param("currStartLocal") LocalDateTime currStartLocal,
+            @Param("currEndLocal") LocalDateTime currEndLocal,
+            @Param("prevStartLocal") LocalDateTime prevStartLocal,
+            @Param("prevEndLocal") LocalDateTime prevEndLocal);
+
+    /**
+     * KPIs of one window; role counts are of the users created in it. The previous-window columns are 0 and
+     * patients and TAT are not computed.
+     */
+    @Query(value =
+        "WITH rev AS ( " +
+        "    SELECT SUM(b.actual_received_amount) AS curr " +
+        "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
+        "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
+        "    WHERE lb.lab_id = :labId AND b.created_at BETWEEN :startDate AND :endDate AND LOWER(pv.visit_status) != 'cancelled' " +
+        "), tst AS ( " +
+        "    SELECT COUNT(*) AS curr, " +
+        "        COUNT(CASE WHEN vtr.report_status = 'Completed' THEN 1 END) AS currReports " +
+        "    FROM visit_test_result vtr JOIN lab_visit lv ON lv.visit_id = vtr.visit_id " +
+        "    JOIN patient_visits pv ON pv.visit_id = vtr.visit_id " +
+        "    WHERE lv.lab_id = :labId AND vtr.created_at BETWEEN :startLocal AND :endLocal " +
+        "    AND LOWER(vtr.test_status) = 'active' AND LOWER(pv.visit_status) != 'cancelled' " +
+        "), pend AS ( " +
+        "    SELECT COUNT(*) AS curr " +
+        "    FROM patient_visits v JOIN lab_visit lv ON lv.visit_id = v.visit_id " +
+        "    WHERE lv.lab_id = :labId AND v.visit_status = 'Pending' AND v.created_at BETWEEN :startDate AND :endDate " +
+        "), rol AS ( " +
+        "    SELECT COUNT(CASE WHEN r.name = 'ADMIN' THEN 1 END) AS admins, " +
+        "        COUNT(CASE WHEN r.name = 'DESKROLE' THEN 1 END) AS deskUsers, " +
+        "        COUNT(CASE WHEN r.name = 'TECHNICIAN' THEN 1 END) AS technicians " +
+        "    FROM users u JOIN users_roles ur ON ur.user_id = u.user_id " +
+        "    JOIN roles r ON r.role_id = ur.role_id " +
+        "    JOIN lab_members lm ON lm.user_id = u.user_id " +
+        "    WHERE lm.lab_id = :labId AND u.enabled = true AND r.name IN ('ADMIN', 'DESKROLE', 'TECHNICIAN') " +
+        "    AND u.created_at BETWEEN :startLocal AND :endLocal " +
+        ") " +
+        "SELECT COALESCE(rev.curr, 0) AS revenue, 0 AS previousRevenue, " +
+        "tst.curr AS tests, 0 AS previousTests, 0 AS patients, 0 AS previousPatients, " +
+        "pend.curr AS pendingSamples, 0 AS previousPendingSamples, " +
+        "tst.currReports AS reportsGenerated, 0 AS previousReportsGenerated, " +
+        "NULL AS avgTatHours, NULL AS previousAvgTatHours, " +
+        "rol.admins AS admins, rol.deskUsers AS deskUsers, rol.technicians AS technicians " +
+        "FROM rev CROSS JOIN tst CROSS JOIN pend CROSS JOIN rol", nativeQuery = true)
+    LabKpiProjection getKpisByLabIdAndDateRange(
+            @Param("labId") Long labId,
+            @Param("startDate") Instant startDate,
+            @Param("endDate") Instant endDate,
+            @Param("startLocal") LocalDateTime startLocal,
+            @Param("endLocal") LocalDateTime endLocal);
+
+    @Query(value =
+        "WITH rev AS ( " +
+        "    SELECT SUM(b.actual_received_amount) AS curr " +
+        "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
+        "    JOIN patient_visits pv ON pv.billing_id = b.billing_id " +
+        "    WHERE lb.lab_id = :labId AND LOWER(pv.visit_status) != 'cancelled' " +
+        "), tst AS ( " +
+        "    SELECT COUNT(*) AS curr, " +
+        "        COUNT(CASE WHEN vtr.report_status = 'Completed' THEN 1 END) AS currReports " +
+        "    FROM visit_test_result vtr JOIN lab_visit lv ON lv.visit_id = vtr.visit_id " +
+        "    JOIN patient_visits pv ON pv.visit_id = vtr.visit_id " +
+        "    WHERE lv.lab_id = :labId AND LOWER(vtr.test_status) = 'active' AND LOWER(pv.visit_status) != 'cancelled' " +
+        "), pend AS ( " +
+        "    SELECT COUNT(*) AS curr " +
+        "    FROM patient_visits v JOIN lab_visit lv ON lv.visit_id = v.visit_id " +
+        "    WHERE lv.lab_id = :labId AND v.visit_status = 'Pending' " +
+        "), rol AS ( " +
+        "    SELECT COUNT(CASE WHEN r.name = 'ADMIN' THEN 1 END) AS admins, " +
+        "        COUNT(CASE WHEN r.name = 'DESKROLE' THEN 1 END) AS deskUsers, " +
+        "        COUNT(CASE WHEN r.name = 'TECHNICIAN' THEN 1 END) AS technicians " +
+        "    FROM users u JOIN users_roles ur ON ur.user_id = u.user_id " +
+        "    JOIN roles r ON r.role_id = ur.role_id " +
+        "    JOIN lab_members lm ON lm.user_id = u.user_id " +
+        "    WHERE lm.lab_id = :labId AND u.enabled = true AND r.name IN ('ADMIN', 'DESKROLE', 'TECHNICIAN') " +
+        ") " +
+        "SELECT COALESCE(rev.curr, 0) AS revenue, 0 AS previousRevenue, " +
+        "tst.curr AS tests, 0 AS previousTests, 0 AS patients, 0 AS previousPatients, " +
+        "pend.curr AS pendingSamples, 0 AS previousPendingSamples, " +
+        "tst.currReports AS reportsGenerated, 0 AS previousReportsGenerated, " +
+        "NULL AS avgTatHours, NULL AS previousAvgTatHours, " +
+        "rol.admins AS admins, rol.deskUsers AS deskUsers, rol.technicians AS technicians " +
+        "FROM rev CROSS JOIN tst CROSS JOIN pend CROSS JOIN rol", nativeQuery = true)
+    LabKpiProjection getKpisByLabIdAllTime(@Param("labId") Long labId);
+
+    /**
+     * Home dashboard figures of one lab, as StaticServices.getStaticData reports them, in one round trip: each
+     * source table is scanned once with conditional aggregates. Patients, visits and billing are bounded by the
+     * Instant range, tests, packages and doctors by the LocalDateTime one.
+     */
+    @Query(value =
+        "WITH pat AS ( " +
+        "    SELECT COUNT(*) AS patients " +
+        "    FROM patients p JOIN lab_patients lp ON lp.patient_id = p.patient_id " +
+        "    WHERE lp.lab_id = :labId AND p.created_at BETWEEN :startDate AND :endDate " +
+        "), vis AS ( " +
+        "    SELECT COUNT(*) AS visits, " +
+        "        COUNT(CASE WHEN pv.visit_status = 'Collected' THEN 1 END) AS collected, " +
+        "        COUNT(CASE WHEN pv.visit_status = 'Pending' THEN 1 END) AS pending " +
+        "    FROM patient_visits pv JOIN lab_patients lp ON lp.patient_id = pv.patient_id " +
+        "    WHERE lp.lab_id = :labId AND pv.created_at BETWEEN :startDate AND :endDate " +
+        "), bil AS ( " +
+        "    SELECT COUNT(*) AS bills, " +
+        "        COUNT(CASE WHEN b.payment_status = 'PAID' THEN 1 END) AS paid, " +
+        "        SUM(b.total_amount) AS sales, " +
+        "        SUM(CASE WHEN b.discount > 0 THEN b.discount END) AS discounts, " +
+        "        SUM(CASE WHEN b.total_amount > 0 THEN b.total_amount END) AS gross " +
+        "    FROM billing b JOIN lab_billing lb ON lb.billing_id = b.billing_id " +
+        "    WHERE lb.lab_id = :labId AND b.created_at BETWEEN :startDate AND :endDate " +
+        ") " +
+        "SELECT pat.patients AS patients, vis.visits AS visits, " +
+        "vis.collected AS collectedSamples, vis.pending AS pendingSamples, " +
+        "bil.paid AS paidVisits, bil.bills AS bills, COALESCE(bil.sales, 0) AS totalSales, " +
+        "COALESCE(bil.discounts, 0) AS totalDiscounts, COALESCE(bil.gross, 0) AS totalGrossSales, " +
+        "(SELECT COUNT(*) FROM tests t JOIN lab_tests lt ON lt.test_id = t.test_id " +
+        "    WHERE lt.lab_id = :labId AND t.created_at BETWEEN :startLocal AND :endLocal) AS tests, " +
+        "(SELECT COUNT(*) FROM health_packages h JOIN lab_packages lpk ON lpk.package_id = h.package_id " +
+        "    WHERE lpk.lab_id = :labId AND h.created_at BETWEEN :startLocal AND :endLocal) AS healthPackages, " +
+        "(SELECT COUNT(*) FROM doctors d JOIN lab_doctors ld ON ld.doctor_id = d.doctor_id " +
+        "    WHERE ld.lab_id = :labId AND d.created_at BETWEEN :startLocal AND :endLocal) AS doctors " +
+        "FROM pat CROSS JOIN vis CROSS JOIN bil", nativeQuery = true)
+    LabStaticDataProjection getStaticDataByLabId(
+            @Param("labId") Long labId,
+            @Param("startDate") Instant startDate,
+            @Param("endDate") Instant endDate,
+            @Param("startLocal") LocalDateTime startLocal,
+            @Param("endLocal") LocalDateTime endLocal);
+
     interface LabPerformanceSummaryProjection {
         Long getLabId();
         String getLabName();
@@ -302,5 +489,37 @@ public interface LabRepository extends JpaRepository<Lab, Long> {
         Long getReportsGenerated();
         Double getAvgTatHours();
     }
-}
 
+    interface LabKpiProjection {
+        BigDecimal getRevenue();
+        BigDecimal getPreviousRevenue();
+        Long getTests();
+        Long getPreviousTests();
+        Long getPatients();
+        Long getPreviousPatients();
+        Long getPendingSamples();
+        Long getPreviousPendingSamples();
+        Long getReportsGenerated();
+        Long getPreviousReportsGenerated();
+        Double getAvgTatHours();
+        Double getPreviousAvgTatHours();
+        Long getAdmins();
+        Long getDeskUsers();
+        Long getTechnicians();
+    }
+
+    interface LabStaticDataProjection {
+        Long getPatients();
+        Long getVisits();
+        Long getCollectedSamples();
+        Long getPendingSamples();
+        Long getPaidVisits();
+        Long getBills();
+        BigDecimal getTotalSales();
+        BigDecimal getTotalDiscounts();
+        BigDecimal getTotalGrossSales();
+        Long getTests();
+        Long getHealthPackages();
+        Long getDoctors();
+    }
+}
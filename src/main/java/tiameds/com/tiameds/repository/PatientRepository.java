@@ -6,6 +6,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tiameds.com.tiameds.entity.PatientEntity;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -108,6 +109,35 @@ public interface PatientRepository extends JpaRepository<PatientEntity, Long> {
             @Param("startDate") Instant startDate,
             @Param("endDate") Instant endDate);
 
+    /**
+     * Scalar patient columns needed for audit snapshots; avoids loading the entity and its visits.
+     */
+    @Query("SELECT p.patientId AS id, p.firstName AS firstName, p.lastName AS lastName, p.email AS email, " +
+            "p.phone AS phone, p.address AS address, p.city AS city, p.state AS state, p.zip AS zip, " +
+            "p.bloodGroup AS bloodGroup, p.dateOfBirth AS dateOfBirth, p.age AS age, p.gender AS gender, " +
+            "p.createdBy AS createdBy, p.updatedBy AS updatedBy, p.createdAt AS registeredAt " +
+            "FROM PatientEntity p WHERE p.patientId = :patientId")
+    Optional<PatientAuditProjection> findAuditSnapshotById(@Param("patientId") Long patientId);
+
+    interface PatientAuditProjection {
+        Long getId();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+        String getPhone();
+        String getAddress();
+        String getCity();
+        String getState();
+        String getZip();
+        String getBloodGroup();
+        LocalDate getDateOfBirth();
+        String getAge();
+        String getGender();
+        String getCreatedBy();
+        String getUpdatedBy();
+        Instant getRegisteredAt();
+    }
+
     interface GenderCountProjection {
         String getGender();
         Long getCount();
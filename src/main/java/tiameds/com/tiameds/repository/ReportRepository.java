@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import tiameds.com.tiameds.entity.ReportEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ReportRepository extends JpaRepository<ReportEntity, Long> {
@@ -15,4 +16,14 @@ public interface ReportRepository extends JpaRepository<ReportEntity, Long> {
             "WHERE v.patient_id = :patientId AND r.lab_id = :labId " +
             "ORDER BY r.test_name ASC, r.created_at ASC", nativeQuery = true)
     List<ReportEntity> findByPatientIdAndLabId(@Param("patientId") Long patientId, @Param("labId") Long labId);
+
+    @Query("SELECT r.reportId AS reportId, r.visitId AS visitId, r.testName AS testName FROM ReportEntity r " +
+            "WHERE r.labId = :labId AND r.visitId IN :visitIds AND r.testName IS NOT NULL ORDER BY r.reportId")
+    List<ReportRefProjection> findReportRefsByVisitIds(@Param("visitIds") Collection<Long> visitIds, @Param("labId") Long labId);
+
+    interface ReportRefProjection {
+        Long getReportId();
+        Long getVisitId();
+        String getTestName();
+    }
 }
@@ -1,8 +1,73 @@
 package tiameds.com.tiameds.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import tiameds.com.tiameds.entity.SuperAdminReferanceEntity;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public interface SuperAdminReferanceRepository extends JpaRepository<SuperAdminReferanceEntity , Long> {
 
+    @Query("SELECT r.id AS id, r.testName AS testName FROM SuperAdminReferanceEntity r " +
+            "WHERE r.normalizedTestName IS NULL AND r.testName IS NOT NULL ORDER BY r.id")
+    List<TestNameProjection> findWithoutNormalizedTestName(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE SuperAdminReferanceEntity r SET r.normalizedTestName = :normalizedTestName WHERE r.id = :id")
+    int updateNormalizedTestName(@Param("id") Long id, @Param("normalizedTestName") String normalizedTestName);
+
+    /**
+     * Copies the first {@code count} catalog references, in id order, into test_reference. Ids and codes follow
+     * the row number n: the id is firstId + ((n - 1) / 4096) * 4194304 + (n - 1) % 4096, as reserved by
+     * SnowflakeIdGenerator#reserve, and the code is codePrefix followed by firstNumber + n - 1, zero-padded to
+     * five digits like SequenceGeneratorService does. Missing description and age bounds get the CSV import defaults.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO test_reference (test_reference_id, test_reference_code, category, test_name, normalized_test_name,
+                                        test_description, units, gender, min_reference_range, max_reference_range,
+                                        age_min, min_age_unit, age_max, max_age_unit, created_by, updated_by,
+                                        created_at, updated_at, report_json, reference_ranges)
+            SELECT :firstId + ((s.rn - 1) / 4096) * 4194304 + MOD(s.rn - 1, 4096),
+                   CAST(:codePrefix AS VARCHAR) || CASE WHEN :firstNumber + s.rn - 1 < 100000
+                       THEN LPAD(CAST(:firstNumber + s.rn - 1 AS VARCHAR), 5, '0')
+                       ELSE CAST(:firstNumber + s.rn - 1 AS VARCHAR) END,
+                   s.category, s.test_name, s.normalized_test_name, COALESCE(s.test_description, ''), s.units,
+                   s.gender, s.min_reference_range, s.max_reference_range, COALESCE(s.age_min, 0),
+                   COALESCE(s.min_age_unit, 'YEARS'), COALESCE(s.age_max, 100), COALESCE(s.max_age_unit, 'YEARS'),
+                   :username, :username, :now, :now, s.report_json, s.reference_ranges
+            FROM (SELECT r.*, ROW_NUMBER() OVER (ORDER BY r.test_reference_id) AS rn
+                  FROM super_admin_test_referance r) s
+            WHERE s.rn <= :count
+            """, nativeQuery = true)
+    int cloneIntoTestReferences(@Param("firstId") long firstId,
+                                @Param("codePrefix") String codePrefix,
+                                @Param("firstNumber") long firstNumber,
+                                @Param("count") int count,
+                                @Param("username") String username,
+                                @Param("now") LocalDateTime now);
+
+    /**
+     * Links the references written by {@link #cloneIntoTestReferences} with the same firstId and count to the lab.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO lab_test_references (lab_id, test_reference_id)
+            SELECT :labId, :firstId + ((s.rn - 1) / 4096) * 4194304 + MOD(s.rn - 1, 4096)
+            FROM (SELECT ROW_NUMBER() OVER (ORDER BY r.test_reference_id) AS rn
+                  FROM super_admin_test_referance r) s
+            WHERE s.rn <= :count
+            """, nativeQuery = true)
+    int linkClonedTestReferences(@Param("labId") Long labId,
+                                 @Param("firstId") long firstId,
+                                 @Param("count") int count);
+
+    interface TestNameProjection {
+        Long getId();
+        String getTestName();
+    }
 }
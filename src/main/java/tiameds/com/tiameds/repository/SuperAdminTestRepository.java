@@ -1,8 +1,52 @@
 package tiameds.com.tiameds.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import tiameds.com.tiameds.entity.SuperAdminTestEntity;
 
+import java.time.LocalDateTime;
+
 public interface SuperAdminTestRepository extends JpaRepository<SuperAdminTestEntity, Long> {
 
-}
\ No newline at end of file
+    /**
+     * Copies the first {@code count} catalog tests, in id order, into tests. The n-th copy gets the code
+     * codePrefix followed by firstNumber + n - 1, zero-padded to five digits like SequenceGeneratorService does.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO tests (category, name, price, test_code, created_at, updated_at)
+            SELECT s.category, s.name, s.price,
+                   CAST(:codePrefix AS VARCHAR) || CASE WHEN :firstNumber + s.rn - 1 < 100000
+                       THEN LPAD(CAST(:firstNumber + s.rn - 1 AS VARCHAR), 5, '0')
+                       ELSE CAST(:firstNumber + s.rn - 1 AS VARCHAR) END,
+                   :now, :now
+            FROM (SELECT t.category, t.name, t.price, ROW_NUMBER() OVER (ORDER BY t.test_id) AS rn
+                  FROM super_admin_test_pricelistentity t) s
+            WHERE s.rn <= :count
+            """, nativeQuery = true)
+    int cloneIntoTests(@Param("codePrefix") String codePrefix,
+                       @Param("firstNumber") long firstNumber,
+                       @Param("count") int count,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Links the tests written by {@link #cloneIntoTests} with the same arguments to the lab.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO lab_tests (lab_id, test_id)
+            SELECT :labId, t.test_id
+            FROM (SELECT ROW_NUMBER() OVER (ORDER BY c.test_id) AS rn
+                  FROM super_admin_test_pricelistentity c) s
+            JOIN tests t ON t.test_code = CAST(:codePrefix AS VARCHAR) || CASE WHEN :firstNumber + s.rn - 1 < 100000
+                       THEN LPAD(CAST(:firstNumber + s.rn - 1 AS VARCHAR), 5, '0')
+                       ELSE CAST(:firstNumber + s.rn - 1 AS VARCHAR) END
+            WHERE s.rn <= :count
+            """, nativeQuery = true)
+    int linkClonedTests(@Param("labId") Long labId,
+                        @Param("codePrefix") String codePrefix,
+                        @Param("firstNumber") long firstNumber,
+                        @Param("count") int count);
+}
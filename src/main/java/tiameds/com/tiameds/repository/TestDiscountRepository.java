@@ -1,10 +1,13 @@
 package tiameds.com.tiameds.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import tiameds.com.tiameds.entity.BillingEntity;
 import tiameds.com.tiameds.entity.TestDiscountEntity;
 
+import java.math.BigDecimal;
 import java.util.Collection;
 import java.util.List;
 
@@ -18,4 +21,23 @@ public interface TestDiscountRepository extends JpaRepository<TestDiscountEntity
     void deleteByBillingId(Long id);
 
     void deleteByBilling(BillingEntity billing);
+
+    /**
+     * Per-test discounts of several billings at once, for list pages that would otherwise query per billing.
+     */
+    @Query("SELECT td.billing.id AS billingId, td.testId AS testId, td.discountAmount AS discountAmount, " +
+            "td.discountPercent AS discountPercent, td.finalPrice AS finalPrice, " +
+            "td.createdBy AS createdBy, td.updatedBy AS updatedBy " +
+            "FROM TestDiscountEntity td WHERE td.billing.id IN :billingIds")
+    List<TestDiscountProjection> findAllByBillingIds(@Param("billingIds") Collection<Long> billingIds);
+
+    interface TestDiscountProjection {
+        Long getBillingId();
+        Long getTestId();
+        BigDecimal getDiscountAmount();
+        BigDecimal getDiscountPercent();
+        BigDecimal getFinalPrice();
+        String getCreatedBy();
+        String getUpdatedBy();
+    }
 }
\ No newline at end of file
@@ -2,10 +2,18 @@ package tiameds.com.tiameds.repository;
 
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import tiameds.com.tiameds.entity.AgeUnit;
+import tiameds.com.tiameds.entity.Gender;
 import tiameds.com.tiameds.entity.TestReferenceEntity;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +26,103 @@ public interface TestReferenceRepository extends JpaRepository<TestReferenceEnti
     Optional<TestReferenceEntity> findTopByTestReferenceCodeStartingWithOrderByTestReferenceCodeDesc(String prefix);
     
     Optional<TestReferenceEntity> findByTestReferenceCode(String testReferenceCode);
+
+    @Query("SELECT r.id AS id, r.testReferenceCode AS testReferenceCode, r.category AS category, r.testName AS testName, " +
+            "r.testDescription AS testDescription, r.units AS units, r.gender AS gender, " +
+            "r.minReferenceRange AS minReferenceRange, r.maxReferenceRange AS maxReferenceRange, r.ageMin AS ageMin, " +
+            "r.minAgeUnit AS minAgeUnit, r.ageMax AS ageMax, r.maxAgeUnit AS maxAgeUnit, r.createdBy AS createdBy, " +
+            "r.updatedBy AS updatedBy, r.createdAt AS createdAt, r.updatedAt AS updatedAt, r.reportJson AS reportJson, " +
+            "r.referenceRanges AS referenceRanges, r.dropdown AS dropdown, r.impression AS impression " +
+            "FROM TestReferenceEntity r JOIN r.labs l " +
+            "WHERE l.id = :labId AND r.normalizedTestName = :normalizedTestName " +
+            "ORDER BY r.id")
+    List<TestReferenceDetailProjection> findByLabIdAndNormalizedTestName(@Param("labId") Long labId,
+                                                                         @Param("normalizedTestName") String normalizedTestName);
+
+    /**
+     * One page of the lab's references in id order, without the JSON columns.
+     */
+    @Query("SELECT r.id AS id, r.testReferenceCode AS testReferenceCode, r.category AS category, r.testName AS testName, " +
+            "r.testDescription AS testDescription, r.units AS units, r.gender AS gender, " +
+            "r.minReferenceRange AS minReferenceRange, r.maxReferenceRange AS maxReferenceRange, r.ageMin AS ageMin, " +
+            "r.minAgeUnit AS minAgeUnit, r.ageMax AS ageMax, r.maxAgeUnit AS maxAgeUnit, r.createdBy AS createdBy, " +
+            "r.updatedBy AS updatedBy, r.createdAt AS createdAt, r.updatedAt AS updatedAt " +
+            "FROM TestReferenceEntity r JOIN r.labs l WHERE l.id = :labId ORDER BY r.id")
+    List<TestReferenceSummaryProjection> findSummaryPageByLabId(@Param("labId") Long labId, Pageable pageable);
+
+    @Query("SELECT r.id AS id, r.testReferenceCode AS testReferenceCode, r.category AS category, r.testName AS testName, " +
+            "r.testDescription AS testDescription, r.units AS units, r.gender AS gender, " +
+            "r.minReferenceRange AS minReferenceRange, r.maxReferenceRange AS maxReferenceRange, r.ageMin AS ageMin, " +
+            "r.minAgeUnit AS minAgeUnit, r.ageMax AS ageMax, r.maxAgeUnit AS maxAgeUnit, r.createdBy AS createdBy, " +
+            "r.updatedBy AS updatedBy, r.createdAt AS createdAt, r.updatedAt AS updatedAt, r.reportJson AS reportJson, " +
+            "r.referenceRanges AS referenceRanges, r.dropdown AS dropdown, r.impression AS impression " +
+            "FROM TestReferenceEntity r JOIN r.labs l WHERE l.id = :labId ORDER BY r.id")
+    List<TestReferenceDetailProjection> findDetailPageByLabId(@Param("labId") Long labId, Pageable pageable);
+
+    /**
+     * The columns that identify a reference row of the lab for CSV import deduplication.
+     */
+    @Query("SELECT r.category AS category, r.testName AS testName, r.testDescription AS testDescription, " +
+            "r.units AS units, r.gender AS gender, r.minReferenceRange AS minReferenceRange, " +
+            "r.maxReferenceRange AS maxReferenceRange, r.ageMin AS ageMin, r.minAgeUnit AS minAgeUnit, " +
+            "r.ageMax AS ageMax, r.maxAgeUnit AS maxAgeUnit " +
+            "FROM TestReferenceEntity r JOIN r.labs l WHERE l.id = :labId")
+    List<ImportKeyProjection> findImportKeysByLabId(@Param("labId") Long labId);
+
+    @Query("SELECT COUNT(r) FROM TestReferenceEntity r JOIN r.labs l WHERE l.id = :labId")
+    long countByLabId(@Param("labId") Long labId);
+
+    @Query("SELECT r.id AS id, r.testName AS testName FROM TestReferenceEntity r " +
+            "WHERE r.normalizedTestName IS NULL AND r.testName IS NOT NULL ORDER BY r.id")
+    List<TestNameProjection> findWithoutNormalizedTestName(Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE TestReferenceEntity r SET r.normalizedTestName = :normalizedTestName WHERE r.id = :id")
+    int updateNormalizedTestName(@Param("id") Long id, @Param("normalizedTestName") String normalizedTestName);
+
+    interface TestReferenceSummaryProjection {
+        Long getId();
+        String getTestReferenceCode();
+        String getCategory();
+        String getTestName();
+        String getTestDescription();
+        String getUnits();
+        Gender getGender();
+        Double getMinReferenceRange();
+        Double getMaxReferenceRange();
+        Integer getAgeMin();
+        AgeUnit getMinAgeUnit();
+        Integer getAgeMax();
+        AgeUnit getMaxAgeUnit();
+        String getCreatedBy();
+        String getUpdatedBy();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+
+    interface TestReferenceDetailProjection extends TestReferenceSummaryProjection {
+        String getReportJson();
+        String getReferenceRanges();
+        String getDropdown();
+        String getImpression();
+    }
+
+    interface ImportKeyProjection {
+        String getCategory();
+        String getTestName();
+        String getTestDescription();
+        String getUnits();
+        Gender getGender();
+        Double getMinReferenceRange();
+        Double getMaxReferenceRange();
+        Integer getAgeMin();
+        AgeUnit getMinAgeUnit();
+        Integer getAgeMax();
+        AgeUnit getMaxAgeUnit();
+    }
+
+    interface TestNameProjection {
+        Long getId();
+        String getTestName();
+    }
 }
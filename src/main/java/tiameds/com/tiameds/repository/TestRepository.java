@@ -8,6 +8,7 @@ import tiameds.com.tiameds.entity.Lab;
 import tiameds.com.tiameds.entity.Test;
 import tiameds.com.tiameds.entity.User;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -73,4 +74,19 @@ public interface TestRepository extends JpaRepository<Test, Long> {
         String getCategory();
         Long getTestCount();
     }
-}
\ No newline at end of file
+
+    @Query("SELECT t.id AS id, t.testCode AS testCode, t.category AS category, t.name AS name, t.price AS price, " +
+            "t.createdAt AS createdAt, t.updatedAt AS updatedAt " +
+            "FROM Test t JOIN t.labs l WHERE l.id = :labId ORDER BY t.id")
+    List<CatalogTestProjection> findCatalogByLabId(@Param("labId") Long labId);
+
+    interface CatalogTestProjection {
+        Long getId();
+        String getTestCode();
+        String getCategory();
+        String getName();
+        BigDecimal getPrice();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+}
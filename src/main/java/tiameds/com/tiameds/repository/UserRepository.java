@@ -32,6 +32,9 @@ public interface UserRepository extends CrudRepository<User, Long> {
 
     boolean existsByIdAndLabsId(Long userId, Long labId);
 
+    @Query("SELECT l.id FROM User u JOIN u.labs l WHERE u.id = :userId AND l.isActive = true")
+    List<Long> findActiveLabIdsByUserId(@Param("userId") Long userId);
+
     long countByRolesName(String roleName);
 
     @Query("SELECT COUNT(u) FROM User u JOIN u.roles r WHERE r.name = :roleName AND u.createdBy = :createdBy AND u.enabled = true")
@@ -45,4 +48,48 @@ public interface UserRepository extends CrudRepository<User, Long> {
 
     @Query("SELECT COUNT(u) FROM User u JOIN u.roles r JOIN u.labs l WHERE r.name = :roleName AND l.id = :labId AND u.enabled = true AND u.createdAt BETWEEN :startDate AND :endDate")
     long countByRolesNameAndLabsIdAndCreatedAtBetween(@Param("roleName") String roleName, @Param("labId") Long labId, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-}
\ No newline at end of file
+
+    // Per-lab role member counts of every active lab the user created, labs without members included
+    @Query(value = "SELECT l.lab_id AS labId, l.name AS labName, " +
+            "COALESCE(m.admins, 0) AS admins, COALESCE(m.technicians, 0) AS technicians, COALESCE(m.deskRoles, 0) AS deskRoles " +
+            "FROM labs l " +
+            "LEFT JOIN ( " +
+            "    SELECT lm.lab_id, " +
+            "        COUNT(CASE WHEN r.name = 'ADMIN' THEN 1 END) AS admins, " +
+            "        COUNT(CASE WHEN r.name = 'TECHNICIAN' THEN 1 END) AS technicians, " +
+            "        COUNT(CASE WHEN r.name = 'DESKROLE' THEN 1 END) AS deskRoles " +
+            "    FROM lab_members lm JOIN users u ON u.user_id = lm.user_id " +
+            "    JOIN users_roles ur ON ur.user_id = u.user_id JOIN roles r ON r.role_id = ur.role_id " +
+            "    WHERE lm.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND u.enabled = true " +
+            "    GROUP BY lm.lab_id " +
+            ") m ON m.lab_id = l.lab_id " +
+            "WHERE l.created_by = :createdById AND l.is_active = true " +
+            "ORDER BY l.lab_id", nativeQuery = true)
+    List<LabRoleCountProjection> countRolesByLabForCreator(@Param("createdById") Long createdById);
+
+    @Query(value = "SELECT l.lab_id AS labId, l.name AS labName, " +
+            "COALESCE(m.admins, 0) AS admins, COALESCE(m.technicians, 0) AS technicians, COALESCE(m.deskRoles, 0) AS deskRoles " +
+            "FROM labs l " +
+            "LEFT JOIN ( " +
+            "    SELECT lm.lab_id, " +
+            "        COUNT(CASE WHEN r.name = 'ADMIN' THEN 1 END) AS admins, " +
+            "        COUNT(CASE WHEN r.name = 'TECHNICIAN' THEN 1 END) AS technicians, " +
+            "        COUNT(CASE WHEN r.name = 'DESKROLE' THEN 1 END) AS deskRoles " +
+            "    FROM lab_members lm JOIN users u ON u.user_id = lm.user_id " +
+            "    JOIN users_roles ur ON ur.user_id = u.user_id JOIN roles r ON r.role_id = ur.role_id " +
+            "    WHERE lm.lab_id IN (SELECT o.lab_id FROM labs o WHERE o.created_by = :createdById) AND u.enabled = true " +
+            "    AND u.created_at BETWEEN :startDate AND :endDate " +
+            "    GROUP BY lm.lab_id " +
+            ") m ON m.lab_id = l.lab_id " +
+            "WHERE l.created_by = :createdById AND l.is_active = true " +
+            "ORDER BY l.lab_id", nativeQuery = true)
+    List<LabRoleCountProjection> countRolesByLabForCreatorAndCreatedAtBetween(@Param("createdById") Long createdById, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+
+    interface LabRoleCountProjection {
+        Long getLabId();
+        String getLabName();
+        Long getAdmins();
+        Long getTechnicians();
+        Long getDeskRoles();
+    }
+}
@@ -10,8 +10,10 @@ import tiameds.com.tiameds.entity.Lab;
 import tiameds.com.tiameds.entity.PatientEntity;
 import tiameds.com.tiameds.entity.VisitEntity;
 
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 import tiameds.com.tiameds.entity.User;
@@ -66,4 +68,128 @@ public interface VisitRepository extends JpaRepository<VisitEntity, Long> {
 
     @Query("SELECT COUNT(v) FROM VisitEntity v JOIN v.patient p JOIN p.labs l WHERE l.id = :labId AND v.visitStatus = :status AND v.createdAt BETWEEN :startDate AND :endDate")
     long countVisitsByLabIdAndStatusAndCreatedAtBetween(@Param("labId") Long labId, @Param("status") String status, @Param("startDate") Instant startDate, @Param("endDate") Instant endDate);
+
+    /**
+     * One keyset page of a lab's visits with their patient and billing columns, newest visit first. Pass a
+     * Pageable of (0, size + 1) to detect the next page; afterVisitId is null for the first page. Tests,
+     * packages and insurance are fetched for the whole page with {@link #findChildIdsByVisitIds}.
+     */
+    @Query("SELECT v.visitId AS visitId, v.visitDate AS visitDate, v.visitType AS visitType, " +
+            "v.visitStatus AS visitStatus, v.visitDescription AS visitDescription, d.id AS doctorId, " +
+            "p.patientId AS patientId, p.firstName AS firstName, p.phone AS phone, p.city AS city, " +
+            "p.dateOfBirth AS dateOfBirth, p.gender AS gender, p.age AS age, " +
+            "b.id AS billingId, b.totalAmount AS totalAmount, b.paymentStatus AS paymentStatus, " +
+            "b.paymentMethod AS paymentMethod, b.paymentDate AS paymentDate, b.discount AS discount, " +
+            "b.netAmount AS netAmount, b.discountReason AS discountReason, b.packageAmt AS packageAmt, " +
+            "b.packageDiscount AS packageDiscount " +
+            "FROM VisitEntity v JOIN v.patient p JOIN p.labs l LEFT JOIN v.doctor d LEFT JOIN v.billing b " +
+            "WHERE l.id = :labId " +
+            "AND (:startDate IS NULL OR v.visitDate >= :startDate) " +
+            "AND (:endDate IS NULL OR v.visitDate <= :endDate) " +
+            "AND (:status IS NULL OR v.visitStatus = :status) " +
+            "AND (:afterVisitId IS NULL OR v.visitId < :afterVisitId) " +
+            "ORDER BY v.visitId DESC")
+    List<VisitListProjection> findVisitPage(@Param("labId") Long labId,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate,
+                                            @Param("status") String status,
+                                            @Param("afterVisitId") Long afterVisitId,
+                                            org.springframework.data.domain.Pageable limit);
+
+    /**
+     * Test, package and insurance ids of the given visits in one round trip; kind is TEST, PACKAGE or INSURANCE.
+     */
+    @Query(value = "SELECT visit_id AS visitId, 'TEST' AS kind, test_id AS childId FROM patient_visit_tests WHERE visit_id IN (:visitIds) " +
+            "UNION ALL SELECT visit_id, 'PACKAGE', package_id FROM patient_visit_packages WHERE visit_id IN (:visitIds) " +
+            "UNION ALL SELECT visit_id, 'INSURANCE', insurance_id FROM visit_insurance WHERE visit_id IN (:visitIds)",
+            nativeQuery = true)
+    List<VisitChildIdProjection> findChildIdsByVisitIds(@Param("visitIds") Collection<Long> visitIds);
+
+    interface VisitListProjection {
+        Long getVisitId();
+        LocalDate getVisitDate();
+        String getVisitType();
+        String getVisitStatus();
+        String getVisitDescription();
+        Long getDoctorId();
+        Long getPatientId();
+        String getFirstName();
+        String getPhone();
+        String getCity();
+        LocalDate getDateOfBirth();
+        String getGender();
+        String getAge();
+        Long getBillingId();
+        BigDecimal getTotalAmount();
+        String getPaymentStatus();
+        String getPaymentMethod();
+        String getPaymentDate();
+        BigDecimal getDiscount();
+        BigDecimal getNetAmount();
+        String getDiscountReason();
+        BigDecimal getPackageAmt();
+        BigDecimal getPackageDiscount();
+    }
+
+    interface VisitChildIdProjection {
+        Long getVisitId();
+        String getKind();
+        Long getChildId();
+    }
+
+    /**
+     * One keyset page of the sample worklist: a lab's visits in the given statuses and visit-date range, newest
+     * visit first. Pass a Pageable of (0, size + 1) to detect the next page; afterVisitId is null for the first page.
+     */
+    @Query("SELECT v.visitId AS visitId, p.firstName AS firstName, p.lastName AS lastName, p.gender AS gender, " +
+            "p.dateOfBirth AS dateOfBirth, p.phone AS phone, p.email AS email, v.visitDate AS visitDate, " +
+            "v.visitStatus AS visitStatus, v.visitType AS visitType, d.name AS doctorName, v.visitCode AS visitCode, " +
+            "v.visitTime AS visitTime, v.createdAt AS createdAt " +
+            "FROM VisitEntity v JOIN v.patient p JOIN p.labs l LEFT JOIN v.doctor d " +
+            "WHERE l.id = :labId AND v.visitDate BETWEEN :startDate AND :endDate AND v.visitStatus IN :statuses " +
+            "AND (:afterVisitId IS NULL OR v.visitId < :afterVisitId) " +
+            "ORDER BY v.visitId DESC")
+    List<SampleWorklistProjection> findSampleWorklistPage(@Param("labId") Long labId,
+                                                          @Param("startDate") LocalDate startDate,
+                                                          @Param("endDate") LocalDate endDate,
+                                                          @Param("statuses") Collection<String> statuses,
+                                                          @Param("afterVisitId") Long afterVisitId,
+                                                          org.springframework.data.domain.Pageable limit);
+
+    // ordered so the worklist ETag built from the rows is stable
+    @Query("SELECT v.visitId AS visitId, t.id AS testId, t.name AS testName FROM VisitEntity v JOIN v.tests t " +
+            "WHERE v.visitId IN :visitIds ORDER BY v.visitId, t.id")
+    List<VisitTestProjection> findTestsByVisitIds(@Param("visitIds") Collection<Long> visitIds);
+
+    @Query("SELECT v.visitId AS visitId, hp.id AS packageId FROM VisitEntity v JOIN v.packages hp " +
+            "WHERE v.visitId IN :visitIds ORDER BY v.visitId, hp.id")
+    List<VisitPackageProjection> findPackageIdsByVisitIds(@Param("visitIds") Collection<Long> visitIds);
+
+    interface SampleWorklistProjection {
+        Long getVisitId();
+        String getFirstName();
+        String getLastName();
+        String getGender();
+        LocalDate getDateOfBirth();
+        String getPhone();
+        String getEmail();
+        LocalDate getVisitDate();
+        String getVisitStatus();
+        String getVisitType();
+        String getDoctorName();
+        String getVisitCode();
+        Instant getVisitTime();
+        Instant getCreatedAt();
+    }
+
+    interface VisitTestProjection {
+        Long getVisitId();
+        Long getTestId();
+        String getTestName();
+    }
+
+    interface VisitPackageProjection {
+        Long getVisitId();
+        Long getPackageId();
+    }
 }
@@ -9,6 +9,7 @@ import tiameds.com.tiameds.entity.VisitSample;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -155,30 +156,15 @@ public interface VisitSampleRepository extends JpaRepository<VisitSample, Long>
             "WHERE l.lab_id = :labId AND r.name = :roleName " +
             "AND vs.created_at BETWEEN :startDate AND :endDate", nativeQuery = true)
     long countCollectedSamplesByLabIdAndRoleAndCreatedAtBetween(@Param("labId") Long labId, @Param("roleName") String roleName, @Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
 
+    @Query("SELECT vs.visit.visitId AS visitId, s.name AS sampleName, vs.createdAt AS createdAt " +
+            "FROM VisitSample vs JOIN vs.sample s WHERE vs.visit.visitId IN :visitIds " +
+            "ORDER BY vs.visit.visitId, vs.id")
+    List<VisitSampleProjection> findSamplesByVisitIds(@Param("visitIds") Collection<Long> visitIds);
 
+    interface VisitSampleProjection {
+        Long getVisitId();
+        String getSampleName();
+        LocalDateTime getCreatedAt();
+    }
+}
@@ -9,6 +9,7 @@ import tiameds.com.tiameds.entity.VisitTestResult;
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -510,4 +511,23 @@ public interface VisitTestResultRepository extends JpaRepository<VisitTestResult
         String getTestCode();
         Long getOrderedCount();
     }
+
+    @Query("SELECT vtr.id AS id, vtr.visit.visitId AS visitId, t.id AS testId, t.name AS testName, " +
+            "vtr.isFilled AS isFilled, vtr.reportStatus AS reportStatus, vtr.createdBy AS createdBy, " +
+            "vtr.updatedBy AS updatedBy, vtr.createdAt AS createdAt, vtr.updatedAt AS updatedAt " +
+            "FROM VisitTestResult vtr JOIN vtr.test t WHERE vtr.visit.visitId IN :visitIds ORDER BY vtr.id")
+    List<TestResultRowProjection> findResultRowsByVisitIds(@Param("visitIds") Collection<Long> visitIds);
+
+    interface TestResultRowProjection {
+        Long getId();
+        Long getVisitId();
+        Long getTestId();
+        String getTestName();
+        Boolean getIsFilled();
+        String getReportStatus();
+        String getCreatedBy();
+        String getUpdatedBy();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
 }
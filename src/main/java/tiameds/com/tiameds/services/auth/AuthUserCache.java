@@ -0,0 +1,106 @@
+package tiameds.com.tiameds.services.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tiameds.com.tiameds.entity.Role;
+import tiameds.com.tiameds.entity.User;
+import tiameds.com.tiameds.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Short-lived, per-node cache of what JwtFilter needs to authenticate a request, keyed by username.
+ * A hit authenticates without touching the users table. Anything that changes the token version, roles,
+ * lab membership or the enabled flag must call {@link #evictUser(Long)} or {@link #evict(String)};
+ * other nodes converge within the configured TTL.
+ */
+@Slf4j
+@Component
+public class AuthUserCache {
+
+    public record AuthUserSummary(Long userId,
+                                  String username,
+                                  Integer tokenVersion,
+                                  Set<String> roles,
+                                  Set<Long> labIds,
+                                  boolean enabled) {
+    }
+
+    private final UserRepository userRepository;
+    private final Cache<String, AuthUserSummary> cache;
+
+    public AuthUserCache(UserRepository userRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${security.auth-cache.ttl:PT30S}") Duration ttl,
+                         @Value("${security.auth-cache.max-size:10000}") long maxSize) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "authUserSummary");
+    }
+
+    /**
+     * Returns the cached summary, loading it from the database on a miss. Unknown usernames are not cached.
+     */
+    public Optional<AuthUserSummary> get(String username) {
+        return Optional.ofNullable(cache.get(username, this::load));
+    }
+
+    public void evict(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    /**
+     * Evicts every entry of the given user now and, when called inside a transaction, again after commit
+     * so a concurrent request cannot re-cache the pre-commit state.
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        removeByUserId(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeByUserId(userId);
+                }
+            });
+        }
+    }
+
+    private void removeByUserId(Long userId) {
+        cache.asMap().values().removeIf(summary -> Objects.equals(summary.userId(), userId));
+    }
+
+    private AuthUserSummary load(String username) {
+        return userRepository.findByUsername(username)
+                .map(this::toSummary)
+                .orElse(null);
+    }
+
+    private AuthUserSummary toSummary(User user) {
+        Set<String> roles = user.getRoles().stream()
+                .map(Role::getName)
+                .collect(Collectors.toUnmodifiableSet());
+        Set<Long> labIds = Set.copyOf(userRepository.findActiveLabIdsByUserId(user.getId()));
+        log.debug("Loaded auth summary for user {}", user.getUsername());
+        return new AuthUserSummary(user.getId(), user.getUsername(), user.getTokenVersion(), roles, labIds, user.isEnabled());
+    }
+}
@@ -24,12 +24,15 @@ public class MemberUserServices {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final AuthUserCache authUserCache;
 
-    public MemberUserServices(PasswordEncoder passwordEncoder, UserRepository userRepository, RoleRepository roleRepository, SequenceGeneratorService sequenceGeneratorService) {
+    public MemberUserServices(PasswordEncoder passwordEncoder, UserRepository userRepository, RoleRepository roleRepository, SequenceGeneratorService sequenceGeneratorService,
+                              AuthUserCache authUserCache) {
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.authUserCache = authUserCache;
     }
 
     public static List<UserInLabDTO> getMembersInLab(Lab lab) {
@@ -74,6 +77,7 @@ public class MemberUserServices {
         try {
             userRepository.save(userToUpdate);
             lab.getMembers().add(userToUpdate);
+            authUserCache.evictUser(userToUpdate.getId());
         } catch (Exception e) {
             throw new RuntimeException("Error updating user: " + e.getMessage(), e);
         }
@@ -15,16 +15,36 @@ import java.util.Set;
 @Data
 public class MyUserDetails implements UserDetails {
 
-    private final User user;
+    private final Long userId;
+    private final String username;
+    private final boolean enabled;
+    private final Set<Long> labIds;
+    private final List<SimpleGrantedAuthority> authorities;
+
+    // Loaded lazily when the principal was built from a cached summary
+    private User user;
 
 
 
     // Constructor
     public MyUserDetails(User user) {
         this.user = user;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.enabled = user.isEnabled();
+        this.labIds = Set.of();
+        this.authorities = toAuthorities(user.getRoles().stream().map(Role::getName).toList());
+    }
+
+    public MyUserDetails(AuthUserCache.AuthUserSummary summary) {
+        this.userId = summary.userId();
+        this.username = summary.username();
+        this.enabled = summary.enabled();
+        this.labIds = summary.labIds();
+        this.authorities = toAuthorities(summary.roles());
     }
 
-    // Method to access the User entity
+    // Method to access the User entity; null until resolved when built from a cached summary
     public User getUser() {
         return user;
     }
@@ -43,12 +63,15 @@ public class MyUserDetails implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        Set<Role> roles = user.getRoles();
+        return authorities;
+    }
+
+    private static List<SimpleGrantedAuthority> toAuthorities(Collection<String> roleNames) {
         List<SimpleGrantedAuthority> authorities = new ArrayList<>();
 
-        for (Role role : roles) {
+        for (String roleName : roleNames) {
             // Ensure role names are prefixed with 'ROLE_'
-            authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getName()));
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + roleName));
         }
 
         return authorities;
@@ -57,12 +80,12 @@ public class MyUserDetails implements UserDetails {
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return user != null ? user.getPassword() : null;
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
     }
 
     @Override
@@ -82,7 +105,7 @@ public class MyUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.isEnabled();
+        return enabled;
     }
 
 
@@ -25,6 +25,7 @@ public class RefreshTokenService {
     private static final HexFormat HEX_FORMATTER = HexFormat.of();
 
     private final RefreshTokenRepository refreshTokenRepository;
+    private final AuthUserCache authUserCache;
 
     @Transactional
     public RefreshToken saveRefreshToken(User user, UUID tokenId, String rawToken, Instant expiresAt) {
@@ -75,6 +76,7 @@ public class RefreshTokenService {
             token.setRevoked(true);
         }
         refreshTokenRepository.saveAll(activeTokens);
+        authUserCache.evictUser(userId);
     }
 
     public String hashToken(String rawToken) {
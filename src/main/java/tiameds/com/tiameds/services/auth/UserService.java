@@ -1,10 +1,13 @@
 package tiameds.com.tiameds.services.auth;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import tiameds.com.tiameds.entity.Role;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.ModuleRepository;
@@ -23,12 +26,18 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final ModuleRepository moduleRepository;
+    private final AuthUserCache authUserCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, ModuleRepository moduleRepository) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, ModuleRepository moduleRepository,
+                       AuthUserCache authUserCache) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.moduleRepository = moduleRepository;
+        this.authUserCache = authUserCache;
     }
 
     @Transactional
@@ -55,6 +64,7 @@ public class UserService {
         user.setRoles(roles);
 
         log.info("Assigning roles to user: {} with roles: {}", user.getUsername(), roles);
+        authUserCache.evictUser(user.getId());
         try {
             userRepository.save(user);
         } catch (Exception e) {
@@ -77,6 +87,31 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * Returns the user behind the authenticated principal without querying by username again.
+     * Inside a transaction the caller gets the managed instance (first-level cache or a primary-key load),
+     * because transactional code navigates lazy associations such as labs and compares users by identity.
+     * Outside a transaction the user is loaded by id at most once per request and kept on the principal.
+     */
+    public Optional<User> findAuthenticatedUser(MyUserDetails principal) {
+        Long userId = principal.getUserId();
+        if (userId == null) {
+            return findByUsername(principal.getUsername());
+        }
+        User user = principal.getUser();
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (user != null && entityManager.contains(user)) {
+                return Optional.of(user);
+            }
+            return Optional.ofNullable(entityManager.find(User.class, userId));
+        }
+        if (user == null) {
+            user = userRepository.findById(userId).orElse(null);
+            principal.setUser(user);
+        }
+        return Optional.ofNullable(user);
+    }
+
     //admin service
 
     public List<User> getAllUsers() {
@@ -108,7 +143,9 @@ public class UserService {
             throw new RuntimeException("User already has this role assigned");
         }
         // Save the updated user with the newly added role
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        authUserCache.evictUser(userId);
+        return saved;
     }
 
     public User removeRole(Long userId, Integer roleId) {
@@ -127,7 +164,9 @@ public class UserService {
             throw new RuntimeException("User does not have this role assigned");
         }
         // Save the updated user with the newly removed role
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        authUserCache.evictUser(userId);
+        return saved;
     }
 
 
@@ -138,6 +177,7 @@ public class UserService {
 
         // Delete the user
         userRepository.delete(user);
+        authUserCache.evictUser(userId);
         return user;
     }
 
@@ -177,6 +217,7 @@ public class UserService {
         }
 
         // Save and return the updated user
+        authUserCache.evictUser(userId);
         return userRepository.save(existingUser);
     }
 
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties.UiService.LOGGER;
@@ -39,16 +40,27 @@ public class AdminTestReferanceandTestServices {
 
     private final SuperAdminTestRepository superAdminTestRepository;
     private final SuperAdminReferanceRepository superAdminReferanceRepository;
+    private final SuperAdminReferenceSearch superAdminReferenceSearch;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AdminTestReferanceandTestServices.class);
 
-    public AdminTestReferanceandTestServices(SuperAdminTestRepository superAdminTestRepository, SuperAdminReferanceRepository superAdminReferanceRepository) {
+    public AdminTestReferanceandTestServices(SuperAdminTestRepository superAdminTestRepository, SuperAdminReferanceRepository superAdminReferanceRepository,
+                                             SuperAdminReferenceSearch superAdminReferenceSearch) {
         this.superAdminTestRepository = superAdminTestRepository;
         this.superAdminReferanceRepository = superAdminReferanceRepository;
+        this.superAdminReferenceSearch = superAdminReferenceSearch;
     }
 
     @Transactional
     public void uploadTestDataPriceList(SuperAdminReferanceEntity superAdminReferanceEntity, MultipartFile file, User currentUser) {
+        importPriceList(file, currentUser.getUsername());
+    }
+
+    /**
+     * Adds the tests of a price list CSV ("Category Name", "LabTest Name", "Price(INR)") to the catalog.
+     */
+    @Transactional
+    public void importPriceList(MultipartFile file, String username) {
         // List to store tests to be saved
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
             // Parse CSV file with headers
@@ -73,8 +85,8 @@ public class AdminTestReferanceandTestServices {
                 superAdminTestEntity.setCategory(category);
                 superAdminTestEntity.setName(name);
                 superAdminTestEntity.setPrice(price);
-                superAdminTestEntity.setCreatedBy(currentUser.getUsername());
-                superAdminTestEntity.setUpdatedBy(currentUser.getUsername());
+                superAdminTestEntity.setCreatedBy(username);
+                superAdminTestEntity.setUpdatedBy(username);
                 superAdminTestEntity.setCreatedAt(java.time.LocalDateTime.now());
                 superAdminTestEntity.setUpdatedAt(java.time.LocalDateTime.now());
                 // Save the test entity
@@ -115,6 +127,14 @@ public class AdminTestReferanceandTestServices {
         if (currentUser == null) {
             throw new RuntimeException("User authentication failed.");
         }
+        return importTestReferences(file, currentUser.getUsername());
+    }
+
+    /**
+     * Adds the rows of a test reference CSV to the catalog.
+     */
+    @Transactional
+    public List<SuperAdminReferanceEntity> importTestReferences(MultipartFile file, String username) {
         List<SuperAdminReferanceEntity> testReferenceEntities = new ArrayList<>();
 
         try {
@@ -128,7 +148,7 @@ public class AdminTestReferanceandTestServices {
                          .withTrim())) {
 
                 for (CSVRecord record : csvParser) {
-                    SuperAdminReferanceEntity entity = processRecord(record, currentUser);
+                    SuperAdminReferanceEntity entity = processRecord(record, username);
                     testReferenceEntities.add(superAdminReferanceRepository.save(entity));
                 }
             }
@@ -139,7 +159,7 @@ public class AdminTestReferanceandTestServices {
         }
     }
 
-    private SuperAdminReferanceEntity processRecord(CSVRecord record, User currentUser) {
+    private SuperAdminReferanceEntity processRecord(CSVRecord record, String username) {
         // Required fields validation
         String category = getStringOrBlank(record, "Category");
         String testName = getStringOrBlank(record, "Test Name");
@@ -198,8 +218,8 @@ public class AdminTestReferanceandTestServices {
         }
 
         // Audit fields
-        entity.setCreatedBy(currentUser.getUsername());
-        entity.setUpdatedBy(currentUser.getUsername());
+        entity.setCreatedBy(username);
+        entity.setUpdatedBy(username);
         entity.setCreatedAt(LocalDateTime.now());
         entity.setUpdatedAt(LocalDateTime.now());
 
@@ -486,32 +506,14 @@ public class AdminTestReferanceandTestServices {
         }
     }
 
-    public ResponseEntity<?> searchTestReferencesByJson(String jsonKey, String jsonValue) {
+    /**
+     * One page of the catalog references whose report JSON contains the key and the value, see
+     * {@link SuperAdminReferenceSearch#searchReportJson}.
+     */
+    public ResponseEntity<?> searchTestReferencesByJson(String jsonKey, String jsonValue, int page, int size) {
         try {
-            List<SuperAdminReferanceEntity> allReferences = superAdminReferanceRepository.findAll();
-            List<SuperAdminReferanceEntity> filteredReferences = new ArrayList<>();
-
-            for (SuperAdminReferanceEntity reference : allReferences) {
-                if (reference.getReportJson() != null && !reference.getReportJson().trim().isEmpty()) {
-                    // Simple search - check if the JSON contains the key-value pair
-                    String json = reference.getReportJson().toLowerCase();
-                    if (jsonKey != null && jsonValue != null) {
-                        if (json.contains(jsonKey.toLowerCase()) && json.contains(jsonValue.toLowerCase())) {
-                            filteredReferences.add(reference);
-                        }
-                    } else if (jsonKey != null) {
-                        if (json.contains(jsonKey.toLowerCase())) {
-                            filteredReferences.add(reference);
-                        }
-                    } else if (jsonValue != null) {
-                        if (json.contains(jsonValue.toLowerCase())) {
-                            filteredReferences.add(reference);
-                        }
-                    }
-                }
-            }
-
-            return ApiResponseHelper.successResponse("Test references found", filteredReferences);
+            Map<String, Object> references = superAdminReferenceSearch.searchReportJson(jsonKey, jsonValue, page, size);
+            return ApiResponseHelper.successResponse("Test references found", references);
         } catch (Exception e) {
             LOGGER.error("Error searching test references by JSON: {}", e.getMessage(), e);
             return ApiResponseHelper.errorResponse("Error searching test references: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -557,44 +559,14 @@ public class AdminTestReferanceandTestServices {
         }
     }
 
-    public ResponseEntity<?> searchTestReferencesByReferenceRanges(String gender, String ageMin, String ageMax) {
+    /**
+     * One page of the catalog references with a reference range entry matching the gender and age bounds, see
+     * {@link SuperAdminReferenceSearch#searchReferenceRanges}.
+     */
+    public ResponseEntity<?> searchTestReferencesByReferenceRanges(String gender, String ageMin, String ageMax, int page, int size) {
         try {
-            List<SuperAdminReferanceEntity> allReferences = superAdminReferanceRepository.findAll();
-            List<SuperAdminReferanceEntity> filteredReferences = new ArrayList<>();
-
-            for (SuperAdminReferanceEntity reference : allReferences) {
-                if (reference.getReferenceRanges() != null && !reference.getReferenceRanges().trim().isEmpty()) {
-                    String referenceRanges = reference.getReferenceRanges().toLowerCase();
-                    boolean matches = true;
-
-                    // Search by gender
-                    if (gender != null && !gender.trim().isEmpty()) {
-                        if (!referenceRanges.contains(gender.toLowerCase())) {
-                            matches = false;
-                        }
-                    }
-
-                    // Search by age minimum
-                    if (ageMin != null && !ageMin.trim().isEmpty() && matches) {
-                        if (!referenceRanges.contains(ageMin.toLowerCase())) {
-                            matches = false;
-                        }
-                    }
-
-                    // Search by age maximum
-                    if (ageMax != null && !ageMax.trim().isEmpty() && matches) {
-                        if (!referenceRanges.contains(ageMax.toLowerCase())) {
-                            matches = false;
-                        }
-                    }
-
-                    if (matches) {
-                        filteredReferences.add(reference);
-                    }
-                }
-            }
-
-            return ApiResponseHelper.successResponse("Test references found by reference ranges", filteredReferences);
+            Map<String, Object> references = superAdminReferenceSearch.searchReferenceRanges(gender, ageMin, ageMax, page, size);
+            return ApiResponseHelper.successResponse("Test references found by reference ranges", references);
         } catch (Exception e) {
             LOGGER.error("Error searching test references by reference ranges: {}", e.getMessage(), e);
             return ApiResponseHelper.errorResponse("Error searching test references: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -1,17 +1,34 @@
 package tiameds.com.tiameds.services.lab;
 
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import tiameds.com.tiameds.dto.lab.BillingDTO;
 import tiameds.com.tiameds.entity.*;
 import tiameds.com.tiameds.repository.BillingRepository;
 import tiameds.com.tiameds.repository.LabRepository;
 import tiameds.com.tiameds.repository.PatientRepository;
 import tiameds.com.tiameds.repository.VisitRepository;
-
+import tiameds.com.tiameds.utils.KeysetCursor;
+import tiameds.com.tiameds.utils.KeysetPage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BillingService {
@@ -28,8 +45,81 @@ public class BillingService {
         this.visitRepository = visitRepository;
     }
 
-    public List<BillingDTO> getBillingList(Long labId, Optional<User> currentUser, BillingDTO filterCriteria) {
+    private static final ZoneId LAB_ZONE = ZoneId.of("Asia/Kolkata");
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final String[] EXPORT_HEADER = {
+            "Billing ID", "Created At", "Billing Date", "Payment Status", "Payment Method", "Payment Date",
+            "Total Amount", "Discount", "GST Amount", "Net Amount", "Received Amount", "Actual Received Amount",
+            "Due Amount", "Discount Reason", "Created By"
+    };
+
+    /**
+     * One keyset page of the lab's billings, newest first. Status, payment method and the createdAt date range
+     * are filtered in SQL and only the listed columns are read; no billing entities are loaded.
+     *
+     * @param filterCriteria paymentStatus / paymentMethod filters (null fields are ignored)
+     * @param cursor         nextCursor of the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<BillingDTO> getBillingList(Long labId,
+                                                 Optional<User> currentUser,
+                                                 BillingDTO filterCriteria,
+                                                 LocalDate startDate,
+                                                 LocalDate endDate,
+                                                 String cursor,
+                                                 int size) {
+        checkLabMembership(labId, currentUser);
+
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<BillingDTO> rows = billingRepository.findBillingPage(
+                        labId,
+                        blankToNull(filterCriteria != null ? filterCriteria.getPaymentStatus() : null),
+                        blankToNull(filterCriteria != null ? filterCriteria.getPaymentMethod() : null),
+                        startOfDay(startDate),
+                        endOfDay(endDate),
+                        after != null ? after.createdAt() : null,
+                        after != null ? after.id() : null,
+                        PageRequest.of(0, pageSize + 1))
+                .stream()
+                .map(this::toBillingDTO)
+                .collect(Collectors.toList());
+
+        return KeysetPage.of(rows, pageSize, dto -> new KeysetCursor(dto.getCreatedAt(), dto.getBillingId()));
+    }
+
+    /**
+     * Writes every matching billing of the lab as CSV, streaming rows from a database cursor so memory use
+     * does not grow with the number of billings. Callers must check lab membership first.
+     */
+    @Transactional(readOnly = true)
+    public void exportBillingCsv(Long labId,
+                                 BillingDTO filterCriteria,
+                                 LocalDate startDate,
+                                 LocalDate endDate,
+                                 OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.withHeader(EXPORT_HEADER));
+        try (Stream<BillingRepository.BillingListProjection> rows = billingRepository.streamBillings(
+                labId,
+                blankToNull(filterCriteria != null ? filterCriteria.getPaymentStatus() : null),
+                blankToNull(filterCriteria != null ? filterCriteria.getPaymentMethod() : null),
+                startOfDay(startDate),
+                endOfDay(endDate))) {
+            Iterator<BillingRepository.BillingListProjection> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                BillingRepository.BillingListProjection row = iterator.next();
+                printer.printRecord(
+                        row.getBillingId(), row.getCreatedAt(), row.getBillingDate(), row.getPaymentStatus(),
+                        row.getPaymentMethod(), row.getPaymentDate(), row.getTotalAmount(), row.getDiscount(),
+                        row.getGstAmount(), row.getNetAmount(), row.getReceivedAmount(), row.getActualReceivedAmount(),
+                        row.getDueAmount(), row.getDiscountReason(), row.getCreatedBy());
+            }
+        }
+        printer.flush();
+    }
 
+    public void checkLabMembership(Long labId, Optional<User> currentUser) {
         // Check if the lab exists
         Optional<Lab> labOptional = labRepository.findById(labId);
         if (labOptional.isEmpty()) {
@@ -42,30 +132,42 @@ public class BillingService {
         if (currentUser.isEmpty() || !currentUser.get().getLabs().contains(lab)) {
             throw new SecurityException("User is not a member of this lab");
         }
+    }
 
-        // Fetch the billing list
-        List<BillingEntity> billingList = billingRepository.findAll();
-
-
-        // Transform entities to DTOs
-        return billingList.stream()
-                .map(billingEntity -> {
-                    BillingDTO dto = new BillingDTO();
-                    dto.setBillingId(billingEntity.getId());
-                    dto.setTotalAmount(billingEntity.getTotalAmount());
-                    dto.setPaymentStatus(billingEntity.getPaymentStatus());
-                    dto.setPaymentMethod(billingEntity.getPaymentMethod());
-                    dto.setPaymentDate(billingEntity.getPaymentDate().toString()); // Ensure date is in string format
-                    dto.setDiscount(billingEntity.getDiscount());
-                    dto.setGstRate(billingEntity.getGstRate());
-                    dto.setGstAmount(billingEntity.getGstAmount());
-                    dto.setCgstAmount(billingEntity.getCgstAmount());
-                    dto.setSgstAmount(billingEntity.getSgstAmount());
-                    dto.setIgstAmount(billingEntity.getIgstAmount());
-                    dto.setNetAmount(billingEntity.getNetAmount());
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    private BillingDTO toBillingDTO(BillingRepository.BillingListProjection row) {
+        BillingDTO dto = new BillingDTO();
+        dto.setBillingId(row.getBillingId());
+        dto.setTotalAmount(row.getTotalAmount());
+        dto.setPaymentStatus(row.getPaymentStatus());
+        dto.setPaymentMethod(row.getPaymentMethod());
+        dto.setPaymentDate(row.getPaymentDate());
+        dto.setDiscount(row.getDiscount());
+        dto.setGstRate(row.getGstRate());
+        dto.setGstAmount(row.getGstAmount());
+        dto.setCgstAmount(row.getCgstAmount());
+        dto.setSgstAmount(row.getSgstAmount());
+        dto.setIgstAmount(row.getIgstAmount());
+        dto.setNetAmount(row.getNetAmount());
+        dto.setDiscountReason(row.getDiscountReason());
+        dto.setReceivedAmount(row.getReceivedAmount());
+        dto.setActualReceivedAmount(row.getActualReceivedAmount());
+        dto.setDueAmount(row.getDueAmount());
+        dto.setCreatedBy(row.getCreatedBy());
+        dto.setBillingDate(row.getBillingDate());
+        dto.setCreatedAt(row.getCreatedAt());
+        return dto;
+    }
+
+    private static Instant startOfDay(LocalDate date) {
+        return date != null ? date.atStartOfDay(LAB_ZONE).toInstant() : null;
+    }
+
+    private static Instant endOfDay(LocalDate date) {
+        return date != null ? date.atTime(23, 59, 59).atZone(LAB_ZONE).toInstant() : null;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
 
 
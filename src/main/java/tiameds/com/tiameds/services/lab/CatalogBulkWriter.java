@@ -0,0 +1,154 @@
+package tiameds.com.tiameds.services.lab;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.config.DatabaseDialect;
+import tiameds.com.tiameds.entity.Test;
+import tiameds.com.tiameds.entity.TestReferenceEntity;
+import tiameds.com.tiameds.utils.SnowflakeIdentifierGenerator;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes chunks of CSV-imported tests and test references, and their lab links, with JDBC batch inserts instead
+ * of one persist per row. Every chunk commits in its own transaction, so a long file never holds one open
+ * transaction and a failing chunk only rolls itself back. Rows are inserted as given: codes must already be
+ * assigned and callers evict the lab's caches.
+ */
+@Component
+public class CatalogBulkWriter {
+
+    private static final String INSERT_TEST_SQL =
+            "INSERT INTO tests (category, name, price, test_code, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // tests.test_id is an identity column; the unique test_code finds the generated ids without reading keys back
+    private static final String LINK_TEST_SQL =
+            "INSERT INTO lab_tests (lab_id, test_id) SELECT ?, test_id FROM tests WHERE test_code = ?";
+
+    private static final String LINK_TEST_REFERENCE_SQL =
+            "INSERT INTO lab_test_references (lab_id, test_reference_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseDialect databaseDialect;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    private volatile String insertTestReferenceSql;
+
+    public CatalogBulkWriter(JdbcTemplate jdbcTemplate,
+                             DatabaseDialect databaseDialect,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${lab.csv-import.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseDialect = databaseDialect;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Rows parsed before a chunk is written.
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Inserts the tests and links them to the lab in one transaction.
+     */
+    public void insertTests(Long labId, List<Test> tests) {
+        LocalDateTime now = LocalDateTime.now();
+        tests.forEach(test -> {
+            test.setCreatedAt(now);
+            test.setUpdatedAt(now);
+        });
+        chunkTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_TEST_SQL, tests, tests.size(), (ps, test) -> {
+                ps.setString(1, test.getCategory());
+                ps.setString(2, test.getName());
+                ps.setBigDecimal(3, test.getPrice());
+                ps.setString(4, test.getTestCode());
+                ps.setObject(5, test.getCreatedAt());
+                ps.setObject(6, test.getUpdatedAt());
+            });
+            jdbcTemplate.batchUpdate(LINK_TEST_SQL, tests, tests.size(), (ps, test) -> {
+                ps.setLong(1, labId);
+                ps.setString(2, test.getTestCode());
+            });
+        });
+    }
+
+    /**
+     * Assigns ids from the entity's Snowflake generator, then inserts the references and links them to the lab
+     * in one transaction. The ids stay set on the entities if the chunk rolls back; retries get new ones.
+     */
+    public void insertTestReferences(Long labId, List<TestReferenceEntity> references) {
+        LocalDateTime now = LocalDateTime.now();
+        references.forEach(reference -> {
+            reference.setId(SnowflakeIdentifierGenerator.nextId());
+            reference.setNormalizedTestName(TestReferenceEntity.normalizeTestName(reference.getTestName()));
+            reference.setCreatedAt(now);
+            reference.setUpdatedAt(now);
+        });
+        String sql = insertTestReferenceSql();
+        chunkTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(sql, references, references.size(), this::bindTestReference);
+            jdbcTemplate.batchUpdate(LINK_TEST_REFERENCE_SQL, references, references.size(), (ps, reference) -> {
+                ps.setLong(1, labId);
+                ps.setLong(2, reference.getId());
+            });
+        });
+    }
+
+    private void bindTestReference(PreparedStatement ps, TestReferenceEntity reference) throws SQLException {
+        ps.setLong(1, reference.getId());
+        ps.setString(2, reference.getTestReferenceCode());
+        ps.setString(3, reference.getCategory());
+        ps.setString(4, reference.getTestName());
+        ps.setString(5, reference.getNormalizedTestName());
+        ps.setString(6, reference.getTestDescription());
+        ps.setString(7, reference.getUnits());
+        // same column values as GenderConverter and @Enumerated(STRING)
+        ps.setString(8, reference.getGender() != null ? reference.getGender().getDisplayValue() : null);
+        ps.setObject(9, reference.getMinReferenceRange(), Types.DOUBLE);
+        ps.setObject(10, reference.getMaxReferenceRange(), Types.DOUBLE);
+        ps.setObject(11, reference.getAgeMin(), Types.INTEGER);
+        ps.setString(12, reference.getMinAgeUnit() != null ? reference.getMinAgeUnit().name() : null);
+        ps.setObject(13, reference.getAgeMax(), Types.INTEGER);
+        ps.setString(14, reference.getMaxAgeUnit() != null ? reference.getMaxAgeUnit().name() : null);
+        ps.setString(15, reference.getCreatedBy());
+        ps.setString(16, reference.getUpdatedBy());
+        ps.setObject(17, reference.getCreatedAt());
+        ps.setObject(18, reference.getUpdatedAt());
+        ps.setString(19, reference.getReportJson());
+        ps.setString(20, reference.getReferenceRanges());
+        ps.setString(21, reference.getDropdown());
+        ps.setString(22, reference.getImpression());
+    }
+
+    /**
+     * The jsonb columns need an explicit cast on PostgreSQL when bound as strings.
+     */
+    private String insertTestReferenceSql() {
+        String sql = insertTestReferenceSql;
+        if (sql == null) {
+            String json = databaseDialect.jsonParameter();
+            sql = "INSERT INTO test_reference (test_reference_id, test_reference_code, category, test_name, "
+                    + "normalized_test_name, test_description, units, gender, min_reference_range, max_reference_range, "
+                    + "age_min, min_age_unit, age_max, max_age_unit, created_by, updated_by, created_at, updated_at, "
+                    + "report_json, reference_ranges, dropdown, impression) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, "
+                    + json + ", " + json + ", " + json + ", " + json + ")";
+            insertTestReferenceSql = sql;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,13 @@
+package tiameds.com.tiameds.services.lab;
+
+/**
+ * Published through the application event publisher after every chunk of a CSV import has been written, and
+ * once more with {@code completed} set when the file is done. Listeners run on the importing thread.
+ */
+public record CsvImportProgressEvent(Long labId,
+                                     String importType,
+                                     int rowsRead,
+                                     int imported,
+                                     int skipped,
+                                     boolean completed) {
+}
@@ -0,0 +1,57 @@
+package tiameds.com.tiameds.services.lab;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import tiameds.com.tiameds.dto.lab.CsvImportReport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the rows of one CSV import, collects the reasons rows were skipped and publishes a
+ * {@link CsvImportProgressEvent} per written chunk. Used by a single importing thread.
+ */
+@Slf4j
+final class CsvImportTracker {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final Long labId;
+    private final String importType;
+    private final List<CsvImportReport.RowError> errors = new ArrayList<>();
+
+    private int rowsRead;
+    private int imported;
+    private int skipped;
+
+    CsvImportTracker(ApplicationEventPublisher eventPublisher, Long labId, String importType) {
+        this.eventPublisher = eventPublisher;
+        this.labId = labId;
+        this.importType = importType;
+    }
+
+    void rowRead() {
+        rowsRead++;
+    }
+
+    void imported(int rows) {
+        imported += rows;
+    }
+
+    void skipped(long recordNumber, String message) {
+        skipped++;
+        if (errors.size() < CsvImportReport.MAX_ERRORS) {
+            errors.add(new CsvImportReport.RowError(recordNumber, message));
+        }
+    }
+
+    void chunkWritten() {
+        log.debug("{} import of lab {}: {} rows read, {} imported, {} skipped", importType, labId, rowsRead, imported, skipped);
+        eventPublisher.publishEvent(new CsvImportProgressEvent(labId, importType, rowsRead, imported, skipped, false));
+    }
+
+    CsvImportReport finish() {
+        log.info("{} import of lab {} finished: {} rows, {} imported, {} skipped", importType, labId, rowsRead, imported, skipped);
+        eventPublisher.publishEvent(new CsvImportProgressEvent(labId, importType, rowsRead, imported, skipped, true));
+        return new CsvImportReport(importType, rowsRead, imported, skipped, List.copyOf(errors), skipped > errors.size());
+    }
+}
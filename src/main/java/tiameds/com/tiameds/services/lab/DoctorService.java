@@ -18,11 +18,16 @@ public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final LabRepository labRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final LabCatalogCache labCatalogCache;
     
-    public DoctorService(DoctorRepository doctorRepository, LabRepository labRepository, SequenceGeneratorService sequenceGeneratorService) {
+    public DoctorService(DoctorRepository doctorRepository,
+                         LabRepository labRepository,
+                         SequenceGeneratorService sequenceGeneratorService,
+                         LabCatalogCache labCatalogCache) {
         this.doctorRepository = doctorRepository;
         this.labRepository = labRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.labCatalogCache = labCatalogCache;
     }
 
     // Add doctor to lab
@@ -66,6 +71,7 @@ public class DoctorService {
         // Add the doctor to the lab
         lab.getDoctors().add(doctor);
         labRepository.save(lab);
+        labCatalogCache.evict(labId);
         return toDto(savedDoctor);
     }
 
@@ -91,6 +97,7 @@ public class DoctorService {
         doctor.setCountry(doctorDTO.getCountry());
         doctor.setUpdatedBy(username);
         Doctors updatedDoctor = doctorRepository.save(doctor);
+        labCatalogCache.evictAll(doctor.getLabs().stream().map(Lab::getId).toList());
         return toDto(updatedDoctor);
     }
 
@@ -99,6 +106,7 @@ public class DoctorService {
                 .orElseThrow(() -> new RuntimeException("Lab not found"));
         Doctors doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
+        labCatalogCache.evictAll(doctor.getLabs().stream().map(Lab::getId).toList());
         lab.getDoctors().remove(doctor);
         labRepository.save(lab);
         DoctorDTO snapshot = toDto(doctor);
@@ -107,10 +115,11 @@ public class DoctorService {
     }
 
     public Object getAllDoctors(Long labId) {
-        Lab lab = labRepository.findById(labId)
-                .orElseThrow(() -> new RuntimeException("Lab not found"));
-        return lab.getDoctors().stream()
-                .map(this::toDto)
+        if (!labRepository.existsById(labId)) {
+            throw new RuntimeException("Lab not found");
+        }
+        return labCatalogCache.get(labId).doctors().values().stream()
+                .map(LabCatalogCache.CatalogDoctor::toDto)
                 .collect(Collectors.toList());
     }
 
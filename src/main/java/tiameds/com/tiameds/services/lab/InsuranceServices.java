@@ -20,11 +20,16 @@ public class InsuranceServices {
     private InsuranceRepository insuranceRepository;
     private LabRepository labRepository;
     private SequenceGeneratorService sequenceGeneratorService;
+    private LabCatalogCache labCatalogCache;
 
-    public InsuranceServices(InsuranceRepository insuranceRepository, LabRepository labRepository, SequenceGeneratorService sequenceGeneratorService) {
+    public InsuranceServices(InsuranceRepository insuranceRepository,
+                             LabRepository labRepository,
+                             SequenceGeneratorService sequenceGeneratorService,
+                             LabCatalogCache labCatalogCache) {
         this.insuranceRepository = insuranceRepository;
         this.labRepository = labRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.labCatalogCache = labCatalogCache;
     }
 
     public void addInsurance(Long labId, InsuranceDTO insuranceDTO) {
@@ -53,26 +58,17 @@ public class InsuranceServices {
         insurance.setProvider(insuranceDTO.getProvider());
         insurance.setLab(lab);
         insuranceRepository.save(insurance);
+        labCatalogCache.evict(labId);
 
     }
 
 
     public Object getAllInsurance(Long labId) {
-
-        Lab lab = labRepository.findById(labId)
-                .orElseThrow(() -> new RuntimeException("Lab not found"));
-        return lab.getInsurance().stream()
-                .map(insurance -> new InsuranceDTO(
-                        insurance.getId(),
-                        insurance.getName(),
-                        insurance.getDescription(),
-                        insurance.getPrice(),
-                        insurance.getDuration(),
-                        insurance.getCoverageLimit(),
-                        insurance.getCoverageType(),
-                        insurance.getStatus(),
-                        insurance.getProvider()
-                ))
+        if (!labRepository.existsById(labId)) {
+            throw new RuntimeException("Lab not found");
+        }
+        return labCatalogCache.get(labId).insurance().values().stream()
+                .map(LabCatalogCache.CatalogInsurance::toDto)
                 .collect(Collectors.toList());
     }
 
@@ -122,6 +118,7 @@ public class InsuranceServices {
         insurance.setStatus(insuranceDTO.getStatus());
         insurance.setProvider(insuranceDTO.getProvider());
         insuranceRepository.save(insurance);
+        labCatalogCache.evictAll(insurance.getLabs().stream().map(Lab::getId).toList());
     }
 
 
@@ -136,6 +133,7 @@ public class InsuranceServices {
                 .findFirst()
                 .orElseThrow(() -> new RuntimeException("Insurance not found"));
 
+        labCatalogCache.evictAll(insurance.getLabs().stream().map(Lab::getId).toList());
         insuranceRepository.delete(insurance);
     }
 }
@@ -0,0 +1,64 @@
+package tiameds.com.tiameds.services.lab;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Service;
+import tiameds.com.tiameds.entity.LabJob;
+import tiameds.com.tiameds.entity.LabJobType;
+
+import java.util.Map;
+
+/**
+ * Runs the delete-everything requests of a lab as lab jobs. Their only input is the lab id, so a delete
+ * interrupted by a restart is simply run again.
+ */
+@Slf4j
+@Service
+public class LabBulkDeleteJobs implements SmartInitializingSingleton {
+
+    private final LabJobService labJobService;
+    private final TestReferenceServices testReferenceServices;
+    private final VisitService visitService;
+
+    public LabBulkDeleteJobs(LabJobService labJobService,
+                             TestReferenceServices testReferenceServices,
+                             VisitService visitService) {
+        this.labJobService = labJobService;
+        this.testReferenceServices = testReferenceServices;
+        this.visitService = visitService;
+    }
+
+    public LabJob submitDeleteAllTestReferences(Long labId, Long userId, String createdBy) {
+        return labJobService.submit(labId, LabJobType.DELETE_ALL_TEST_REFERENCES, userId, createdBy,
+                deleteAllTestReferencesTask(labId));
+    }
+
+    public LabJob submitDeleteAllVisits(Long labId, Long userId, String createdBy) {
+        return labJobService.submit(labId, LabJobType.DELETE_ALL_VISITS, userId, createdBy,
+                deleteAllVisitsTask(labId));
+    }
+
+    private LabJobTask deleteAllTestReferencesTask(Long labId) {
+        return context -> {
+            int deleted = testReferenceServices.deleteAllTestReferences(labId);
+            log.info("Deleted {} test references of lab {} in job {}", deleted, labId, context.jobId());
+            return Map.of("deleted", deleted);
+        };
+    }
+
+    private LabJobTask deleteAllVisitsTask(Long labId) {
+        return context -> {
+            int deleted = visitService.deleteAllVisitsForLab(labId);
+            log.info("Deleted {} visits of lab {} in job {}", deleted, labId, context.jobId());
+            return Map.of("deleted", deleted);
+        };
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        labJobService.registerResumer(LabJobType.DELETE_ALL_TEST_REFERENCES,
+                job -> deleteAllTestReferencesTask(job.getLabId()));
+        labJobService.registerResumer(LabJobType.DELETE_ALL_VISITS,
+                job -> deleteAllVisitsTask(job.getLabId()));
+    }
+}
@@ -0,0 +1,157 @@
+package tiameds.com.tiameds.services.lab;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Deletes all visits or all test references of a lab with set-based statements. The ids are read once and
+ * deleted a chunk at a time: each chunk deletes its dependent rows first and commits in its own transaction, so
+ * a large lab never holds one long transaction and an interrupted delete keeps the chunks already done; running
+ * it again finishes the rest. When run as a lab job, progress is reported and cancellation checked between
+ * chunks.
+ */
+@Slf4j
+@Component
+public class LabBulkDeleter {
+
+    // every visit of the lab's patients, as VisitRepository.findAllByPatient_Labs
+    private static final String VISITS_SQL = """
+            SELECT DISTINCT pv.visit_id, pv.billing_id FROM patient_visits pv
+            JOIN lab_patients lp ON lp.patient_id = pv.patient_id
+            WHERE lp.lab_id = :labId
+            ORDER BY pv.visit_id
+            """;
+
+    // children before parents: patient_visits references billing, everything else references one of the two
+    private static final List<String> DELETE_BILLING_CHILDREN_SQL = List.of(
+            "DELETE FROM test_discount WHERE billing_id IN (:billingIds)",
+            "DELETE FROM billing_transaction WHERE billing_id IN (:billingIds)");
+    private static final List<String> DELETE_VISIT_SQL = List.of(
+            "DELETE FROM visit_test_result WHERE visit_id IN (:visitIds)",
+            "DELETE FROM patient_visit_sample WHERE visit_id IN (:visitIds)",
+            "DELETE FROM ai_clinical_observations WHERE visit_id IN (:visitIds)",
+            "DELETE FROM patient_visit_tests WHERE visit_id IN (:visitIds)",
+            "DELETE FROM patient_visit_packages WHERE visit_id IN (:visitIds)",
+            "DELETE FROM visit_insurance WHERE visit_id IN (:visitIds)",
+            "DELETE FROM lab_visit WHERE visit_id IN (:visitIds)",
+            "DELETE FROM patient_visits WHERE visit_id IN (:visitIds)");
+    private static final List<String> DELETE_BILLING_SQL = List.of(
+            "DELETE FROM lab_billing WHERE billing_id IN (:billingIds)",
+            "DELETE FROM billing WHERE billing_id IN (:billingIds)");
+
+    private static final String TEST_REFERENCES_SQL =
+            "SELECT test_reference_id FROM lab_test_references WHERE lab_id = :labId ORDER BY test_reference_id";
+
+    private static final String SHARING_LABS_SQL = """
+            SELECT DISTINCT other.lab_id FROM lab_test_references own
+            JOIN lab_test_references other ON other.test_reference_id = own.test_reference_id
+            WHERE own.lab_id = :labId AND other.lab_id <> :labId
+            """;
+
+    // a reference is deleted outright, so the links of other labs sharing it go too
+    private static final List<String> DELETE_TEST_REFERENCE_SQL = List.of(
+            "DELETE FROM lab_test_references WHERE test_reference_id IN (:ids)",
+            "DELETE FROM test_reference WHERE test_reference_id IN (:ids)");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+
+    public LabBulkDeleter(NamedParameterJdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${lab.bulk-delete.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Deletes every visit of the lab's patients with its results, samples, AI observations, links, billing,
+     * discounts and transactions.
+     *
+     * @return the number of visits deleted
+     */
+    public int deleteVisits(Long labId) {
+        long started = System.nanoTime();
+        List<Long> visitIds = new ArrayList<>();
+        List<Long> billingIds = new ArrayList<>();
+        jdbcTemplate.query(VISITS_SQL, new MapSqlParameterSource("labId", labId), rs -> {
+            visitIds.add(rs.getLong(1));
+            long billingId = rs.getLong(2);
+            // kept aligned with visitIds; visits without billing contribute null
+            billingIds.add(rs.wasNull() ? null : billingId);
+        });
+        Optional<LabJobContext> job = LabJobContext.current();
+        int total = visitIds.size();
+        for (int from = 0; from < total; from += chunkSize) {
+            report(job, from, total);
+            int to = Math.min(from + chunkSize, total);
+            List<Long> billingChunk = billingIds.subList(from, to).stream().filter(Objects::nonNull).toList();
+            MapSqlParameterSource ids = new MapSqlParameterSource("visitIds", visitIds.subList(from, to))
+                    .addValue("billingIds", billingChunk);
+            chunkTransaction.executeWithoutResult(status -> {
+                if (!billingChunk.isEmpty()) {
+                    DELETE_BILLING_CHILDREN_SQL.forEach(sql -> jdbcTemplate.update(sql, ids));
+                }
+                DELETE_VISIT_SQL.forEach(sql -> jdbcTemplate.update(sql, ids));
+                if (!billingChunk.isEmpty()) {
+                    DELETE_BILLING_SQL.forEach(sql -> jdbcTemplate.update(sql, ids));
+                }
+            });
+        }
+        job.ifPresent(context -> context.progress(total, total));
+        log.info("Deleted {} visits of lab {} in {} ms", total, labId, (System.nanoTime() - started) / 1_000_000);
+        return total;
+    }
+
+    /**
+     * Ids of the other labs linked to any test reference of this lab; deleting the lab's references removes
+     * them from those labs as well.
+     */
+    public List<Long> labsSharingTestReferences(Long labId) {
+        return jdbcTemplate.queryForList(SHARING_LABS_SQL, new MapSqlParameterSource("labId", labId), Long.class);
+    }
+
+    /**
+     * Deletes every test reference linked to the lab, with all its lab links.
+     *
+     * @return the number of test references deleted
+     */
+    public int deleteTestReferences(Long labId) {
+        long started = System.nanoTime();
+        List<Long> referenceIds = jdbcTemplate.queryForList(TEST_REFERENCES_SQL,
+                new MapSqlParameterSource("labId", labId), Long.class);
+        Optional<LabJobContext> job = LabJobContext.current();
+        int total = referenceIds.size();
+        for (int from = 0; from < total; from += chunkSize) {
+            report(job, from, total);
+            MapSqlParameterSource ids = new MapSqlParameterSource("ids",
+                    referenceIds.subList(from, Math.min(from + chunkSize, total)));
+            chunkTransaction.executeWithoutResult(status ->
+                    DELETE_TEST_REFERENCE_SQL.forEach(sql -> jdbcTemplate.update(sql, ids)));
+        }
+        job.ifPresent(context -> context.progress(total, total));
+        log.info("Deleted {} test references of lab {} in {} ms", total, labId,
+                (System.nanoTime() - started) / 1_000_000);
+        return total;
+    }
+
+    private static void report(Optional<LabJobContext> job, int done, int total) {
+        job.ifPresent(context -> {
+            context.progress(done, total);
+            context.checkCancelled();
+        });
+    }
+}
@@ -0,0 +1,289 @@
+package tiameds.com.tiameds.services.lab;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.dto.lab.DoctorDTO;
+import tiameds.com.tiameds.dto.lab.InsuranceDTO;
+import tiameds.com.tiameds.dto.lab.TestDTO;
+import tiameds.com.tiameds.repository.DoctorRepository;
+import tiameds.com.tiameds.repository.HealthPackageRepository;
+import tiameds.com.tiameds.repository.InsuranceRepository;
+import tiameds.com.tiameds.repository.TestRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-node cache of each lab's tests, packages, doctors and insurance, keyed by lab id. A snapshot is loaded
+ * with one query per type and never changes; anything that adds, edits or removes a catalog entry of a lab
+ * must call {@link #evict(Long)}, and other nodes converge within the configured TTL.
+ */
+@Slf4j
+@Component
+public class LabCatalogCache {
+
+    public record CatalogTest(long id,
+                              String testCode,
+                              String category,
+                              String name,
+                              BigDecimal price,
+                              LocalDateTime createdAt,
+                              LocalDateTime updatedAt) {
+
+        @JsonProperty("testName")
+        public String testName() {
+            return name;
+        }
+
+        public TestDTO toDto() {
+            return new TestDTO(id, testCode, category, name, price, createdAt, updatedAt);
+        }
+    }
+
+    /**
+     * Serialises with the same properties the package endpoints returned for the HealthPackage entity.
+     */
+    public record CatalogPackage(long id,
+                                 String packageCode,
+                                 String packageName,
+                                 double price,
+                                 double discount,
+                                 boolean active,
+                                 LocalDateTime createdAt,
+                                 LocalDateTime updatedAt,
+                                 List<CatalogTest> tests) {
+
+        @JsonProperty("packageId")
+        public long packageId() {
+            return id;
+        }
+
+        @JsonProperty("name")
+        public String name() {
+            return packageName;
+        }
+    }
+
+    public record CatalogDoctor(long id,
+                                String name,
+                                String email,
+                                String speciality,
+                                String qualification,
+                                String hospitalAffiliation,
+                                String licenseNumber,
+                                String phone,
+                                String address,
+                                String city,
+                                String state,
+                                String country,
+                                String createdBy,
+                                String updatedBy,
+                                LocalDateTime createdAt,
+                                LocalDateTime updatedAt) {
+
+        public DoctorDTO toDto() {
+            DoctorDTO dto = new DoctorDTO();
+            dto.setId(id);
+            dto.setName(name);
+            dto.setEmail(email);
+            dto.setSpeciality(speciality);
+            dto.setQualification(qualification);
+            dto.setHospitalAffiliation(hospitalAffiliation);
+            dto.setLicenseNumber(licenseNumber);
+            dto.setPhone(phone);
+            dto.setAddress(address);
+            dto.setCity(city);
+            dto.setState(state);
+            dto.setCountry(country);
+            dto.setCreatedBy(createdBy);
+            dto.setUpdatedBy(updatedBy);
+            dto.setCreatedAt(createdAt);
+            dto.setUpdatedAt(updatedAt);
+            return dto;
+        }
+    }
+
+    public record CatalogInsurance(long id,
+                                   String name,
+                                   String description,
+                                   double price,
+                                   int duration,
+                                   double coverageLimit,
+                                   String coverageType,
+                                   String status,
+                                   String provider) {
+
+        public InsuranceDTO toDto() {
+            return new InsuranceDTO(id, name, description, price, duration, coverageLimit, coverageType, status, provider);
+        }
+    }
+
+    /**
+     * Immutable catalog of one lab; every map iterates in id order. The version increases with every load,
+     * so two snapshots with the same version have the same content.
+     */
+    public record LabCatalog(Long labId,
+                             long version,
+                             Map<Long, CatalogTest> tests,
+                             Map<Long, CatalogPackage> packages,
+                             Map<Long, CatalogDoctor> doctors,
+                             Map<Long, CatalogInsurance> insurance) {
+
+        public boolean hasTests(Collection<Long> testIds) {
+            return tests.keySet().containsAll(testIds);
+        }
+
+        public boolean hasPackages(Collection<Long> packageIds) {
+            return packages.keySet().containsAll(packageIds);
+        }
+
+        public boolean hasInsurance(Collection<Long> insuranceIds) {
+            return insurance.keySet().containsAll(insuranceIds);
+        }
+
+        public List<CatalogPackage> packages(boolean active) {
+            return packages.values().stream()
+                    .filter(pkg -> pkg.active() == active)
+                    .toList();
+        }
+    }
+
+    private final TestRepository testRepository;
+    private final HealthPackageRepository healthPackageRepository;
+    private final DoctorRepository doctorRepository;
+    private final InsuranceRepository insuranceRepository;
+    private final TransactionTemplate loadTransaction;
+    private final Cache<Long, LabCatalog> cache;
+    private final AtomicLong versions = new AtomicLong();
+
+    public LabCatalogCache(TestRepository testRepository,
+                           HealthPackageRepository healthPackageRepository,
+                           DoctorRepository doctorRepository,
+                           InsuranceRepository insuranceRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${lab.catalog-cache.ttl:PT10M}") Duration ttl,
+                           @Value("${lab.catalog-cache.max-size:2000}") long maxSize) {
+        this.testRepository = testRepository;
+        this.healthPackageRepository = healthPackageRepository;
+        this.doctorRepository = doctorRepository;
+        this.insuranceRepository = insuranceRepository;
+        this.loadTransaction = new TransactionTemplate(transactionManager);
+        this.loadTransaction.setReadOnly(true);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "labCatalog");
+    }
+
+    /**
+     * Returns the cached catalog of the lab, loading it on a miss. Callers must have checked that the lab exists.
+     */
+    public LabCatalog get(Long labId) {
+        return cache.get(labId, this::load);
+    }
+
+    /**
+     * Replaces the lab's snapshot with a freshly loaded one, for when a lookup missed an entry that another node
+     * may have added since this node's snapshot was taken.
+     */
+    public LabCatalog reload(Long labId) {
+        LabCatalog catalog = load(labId);
+        cache.put(labId, catalog);
+        return catalog;
+    }
+
+    /**
+     * Drops the lab's snapshot now and, when called inside a transaction, again after commit so a concurrent
+     * request cannot re-cache the pre-commit catalog.
+     */
+    public void evict(Long labId) {
+        if (labId == null) {
+            return;
+        }
+        cache.invalidate(labId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(labId);
+                }
+            });
+        }
+    }
+
+    public void evictAll(Collection<Long> labIds) {
+        labIds.forEach(this::evict);
+    }
+
+    private LabCatalog load(Long labId) {
+        return loadTransaction.execute(status -> {
+            Map<Long, CatalogTest> tests = new LinkedHashMap<>();
+            for (TestRepository.CatalogTestProjection t : testRepository.findCatalogByLabId(labId)) {
+                tests.put(t.getId(), new CatalogTest(t.getId(), t.getTestCode(), t.getCategory(), t.getName(),
+                        t.getPrice(), t.getCreatedAt(), t.getUpdatedAt()));
+            }
+
+            Map<Long, List<CatalogTest>> packageTests = new HashMap<>();
+            for (HealthPackageRepository.CatalogPackageTestProjection t : healthPackageRepository.findCatalogTestsByLabId(labId)) {
+                packageTests.computeIfAbsent(t.getPackageId(), id -> new ArrayList<>())
+                        .add(new CatalogTest(t.getTestId(), t.getTestCode(), t.getCategory(), t.getName(),
+                                t.getPrice(), t.getCreatedAt(), t.getUpdatedAt()));
+            }
+            Map<Long, CatalogPackage> packages = new LinkedHashMap<>();
+            for (HealthPackageRepository.CatalogPackageProjection p : healthPackageRepository.findCatalogByLabId(labId)) {
+                packages.put(p.getId(), new CatalogPackage(p.getId(), p.getPackageCode(), p.getPackageName(),
+                        p.getPrice(), p.getDiscount(), Boolean.TRUE.equals(p.getActive()), p.getCreatedAt(), p.getUpdatedAt(),
+                        List.copyOf(packageTests.getOrDefault(p.getId(), List.of()))));
+            }
+
+            Map<Long, CatalogDoctor> doctors = new LinkedHashMap<>();
+            for (DoctorRepository.CatalogDoctorProjection d : doctorRepository.findCatalogByLabId(labId)) {
+                doctors.put(d.getId(), new CatalogDoctor(d.getId(), d.getName(), d.getEmail(), d.getSpeciality(),
+                        d.getQualification(), d.getHospitalAffiliation(), d.getLicenseNumber(), d.getPhone(),
+                        d.getAddress(), d.getCity(), d.getState(), d.getCountry(), d.getCreatedBy(), d.getUpdatedBy(),
+                        d.getCreatedAt(), d.getUpdatedAt()));
+            }
+
+            Map<Long, CatalogInsurance> insurance = new LinkedHashMap<>();
+            for (InsuranceRepository.CatalogInsuranceProjection i : insuranceRepository.findCatalogByLabId(labId)) {
+                insurance.put(i.getId(), new CatalogInsurance(i.getId(), i.getName(), i.getDescription(),
+                        valueOf(i.getPrice()), i.getDuration() != null ? i.getDuration() : 0, valueOf(i.getCoverageLimit()),
+                        i.getCoverageType(), i.getStatus(), i.getProvider()));
+            }
+
+            log.debug("Loaded catalog of lab {}: {} tests, {} packages, {} doctors, {} insurance",
+                    labId, tests.size(), packages.size(), doctors.size(), insurance.size());
+            return new LabCatalog(labId, versions.incrementAndGet(),
+                    Collections.unmodifiableMap(tests),
+                    Collections.unmodifiableMap(packages),
+                    Collections.unmodifiableMap(doctors),
+                    Collections.unmodifiableMap(insurance));
+        });
+    }
+
+    private static double valueOf(Double value) {
+        return value != null ? value : 0d;
+    }
+}
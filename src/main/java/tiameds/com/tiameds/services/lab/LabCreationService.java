@@ -8,6 +8,7 @@ import tiameds.com.tiameds.dto.lab.LabRequestDTO;
 import tiameds.com.tiameds.entity.Lab;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.LabRepository;
+import tiameds.com.tiameds.services.auth.AuthUserCache;
 
 /**
  * Service for handling lab creation with user association.
@@ -19,10 +20,12 @@ public class LabCreationService {
 
     private final LabRepository labRepository;
     private final UserLabService userLabService;
+    private final AuthUserCache authUserCache;
 
-    public LabCreationService(LabRepository labRepository, UserLabService userLabService) {
+    public LabCreationService(LabRepository labRepository, UserLabService userLabService, AuthUserCache authUserCache) {
         this.labRepository = labRepository;
         this.userLabService = userLabService;
+        this.authUserCache = authUserCache;
     }
 
     /**
@@ -90,6 +93,7 @@ public class LabCreationService {
         // Step 4: Add user as member of the lab
         savedLab.getMembers().add(currentUser);
         labRepository.save(savedLab);
+        authUserCache.evictUser(currentUser.getId());
         log.info("Added user {} as member of lab {}", currentUser.getUsername(), savedLab.getName());
 
         // Step 5: Build response
@@ -0,0 +1,323 @@
+package tiameds.com.tiameds.services.lab;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.config.DatabaseDialect;
+import tiameds.com.tiameds.repository.BillingRepository;
+import tiameds.com.tiameds.repository.LabDailyStatsRepository;
+import tiameds.com.tiameds.repository.VisitTestResultRepository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Maintains lab_daily_stats and serves the daily revenue and TAT figures from it, so a one-year chart reads 365
+ * rows instead of every billing and report of the year.
+ * <p>
+ * A scheduled compactor folds in changes: every refresh interval it finds the (lab, day) pairs whose billings,
+ * visits, test results or reports were updated since the previous run and recomputes each lab's affected day
+ * range from the raw rows in one transaction. Rows removed without an update trail are caught by the nightly
+ * reconcile of recent days, or by {@link #rebuildLab(Long)} after a bulk delete and
+ * {@link #rebuildDaysAfterCommit(Long, Collection)} after a single one. The first run on a node
+ * backfills every lab when the table is empty; until then, and whenever the rollup is not ready, reads fall back
+ * to the queries on raw rows. Days are the database session's calendar days, as DATE(created_at) was.
+ */
+@Slf4j
+@Service
+public class LabDailyStatsService {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(1970, 1, 1);
+    private static final LocalDate LAST_DAY = LocalDate.of(9999, 12, 31);
+
+    // first key of the two-key advisory lock, the second is the lab id
+    private static final int ADVISORY_LOCK_NAMESPACE = 0x4C445300;
+
+    // (lab, first day, last day) touched since :since, by the creation day each figure is bucketed on
+    private static final String DIRTY_RANGES_SQL = """
+            SELECT d.lab_id, MIN(d.stat_date), MAX(d.stat_date) FROM (
+                SELECT lb.lab_id, CAST(b.created_at AS date) AS stat_date FROM billing b
+                JOIN lab_billing lb ON lb.billing_id = b.billing_id
+                WHERE b.updated_at >= :since
+                UNION
+                SELECT lb.lab_id, CAST(b.created_at AS date) FROM patient_visits v
+                JOIN billing b ON b.billing_id = v.billing_id
+                JOIN lab_billing lb ON lb.billing_id = b.billing_id
+                WHERE v.updated_at >= :since
+                UNION
+                SELECT lv.lab_id, CAST(v.created_at AS date) FROM patient_visits v
+                JOIN lab_visit lv ON lv.visit_id = v.visit_id
+                WHERE v.updated_at >= :since
+                UNION
+                SELECT lv.lab_id, CAST(vtr.created_at AS date) FROM visit_test_result vtr
+                JOIN lab_visit lv ON lv.visit_id = vtr.visit_id
+                WHERE vtr.updated_at >= :sinceLocal
+                UNION
+                SELECT r.lab_id, CAST(v.created_at AS date) FROM lab_report r
+                JOIN patient_visits v ON v.visit_id = r.visit_id
+                WHERE r.updated_at >= :since
+            ) d
+            WHERE d.stat_date IS NOT NULL
+            GROUP BY d.lab_id
+            """;
+
+    private static final String DELETE_SQL =
+            "DELETE FROM lab_daily_stats WHERE lab_id = :labId AND stat_date BETWEEN :fromDay AND :toDay";
+
+    // same filters as the raw-row stats queries in BillingRepository and VisitTestResultRepository
+    private static final String INSERT_SQL = """
+            INSERT INTO lab_daily_stats (lab_id, stat_date, revenue, billing_count, test_count, completed_test_count,
+                                         tat_hours_sum, tat_report_count, refreshed_at)
+            SELECT :labId, d.stat_date, COALESCE(SUM(d.revenue), 0), SUM(d.billing_count), SUM(d.test_count),
+                   SUM(d.completed_test_count), COALESCE(SUM(d.tat_hours_sum), 0), SUM(d.tat_report_count), :refreshedAt
+            FROM (
+                SELECT CAST(b.created_at AS date) AS stat_date, SUM(b.actual_received_amount) AS revenue,
+                       COUNT(*) AS billing_count, 0 AS test_count, 0 AS completed_test_count,
+                       0 AS tat_hours_sum, 0 AS tat_report_count
+                FROM billing b
+                JOIN lab_billing lb ON lb.billing_id = b.billing_id
+                JOIN patient_visits pv ON pv.billing_id = b.billing_id
+                WHERE lb.lab_id = :labId AND b.created_at >= :fromDay AND b.created_at < :untilDay
+                AND LOWER(pv.visit_status) != 'cancelled'
+                GROUP BY CAST(b.created_at AS date)
+                UNION ALL
+                SELECT CAST(vtr.created_at AS date), 0, 0, COUNT(*),
+                       COUNT(CASE WHEN vtr.report_status = 'Completed' THEN 1 END), 0, 0
+                FROM visit_test_result vtr
+                JOIN lab_visit lv ON lv.visit_id = vtr.visit_id
+                JOIN patient_visits pv ON pv.visit_id = vtr.visit_id
+                WHERE lv.lab_id = :labId AND vtr.created_at >= :fromDay AND vtr.created_at < :untilDay
+                AND LOWER(vtr.test_status) = 'active' AND LOWER(pv.visit_status) != 'cancelled'
+                GROUP BY CAST(vtr.created_at AS date)
+                UNION ALL
+                SELECT CAST(v.created_at AS date), 0, 0, 0, 0,
+                       SUM(EXTRACT(EPOCH FROM (r.created_at - v.created_at)) / 3600.0), COUNT(r.created_at)
+                FROM lab_report r
+                JOIN patient_visits v ON v.visit_id = r.visit_id
+                WHERE r.lab_id = :labId AND v.created_at >= :fromDay AND v.created_at < :untilDay
+                GROUP BY CAST(v.created_at AS date)
+            ) d
+            GROUP BY d.stat_date
+            """;
+
+    private record DirtyRange(long labId, LocalDate fromDay, LocalDate toDay) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DatabaseDialect databaseDialect;
+    private final TransactionTemplate transactionTemplate;
+    private final LabDailyStatsRepository labDailyStatsRepository;
+    private final BillingRepository billingRepository;
+    private final VisitTestResultRepository visitTestResultRepository;
+    private final Duration overlap;
+    private final int reconcileDays;
+
+    private volatile boolean ready;
+    private volatile Instant watermark;
+
+    public LabDailyStatsService(NamedParameterJdbcTemplate jdbcTemplate,
+                                DatabaseDialect databaseDialect,
+                                PlatformTransactionManager transactionManager,
+                                LabDailyStatsRepository labDailyStatsRepository,
+                                BillingRepository billingRepository,
+                                VisitTestResultRepository visitTestResultRepository,
+                                @Value("${lab.daily-stats.overlap:PT2M}") Duration overlap,
+                                @Value("${lab.daily-stats.reconcile-days:31}") int reconcileDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseDialect = databaseDialect;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.labDailyStatsRepository = labDailyStatsRepository;
+        this.billingRepository = billingRepository;
+        this.visitTestResultRepository = visitTestResultRepository;
+        this.overlap = overlap;
+        this.reconcileDays = Math.max(1, reconcileDays);
+    }
+
+    /**
+     * Paid amount per day of the lab's billings between the two dates inclusive, days without billings left out.
+     */
+    public List<BillingRepository.DailyRevenueProjection> getDailyRevenue(Long labId, LocalDate startDate, LocalDate endDate) {
+        if (!ready) {
+            return billingRepository.getDailyPaidAmountTrendByLabId(labId, toInstantStart(startDate), toInstantEnd(endDate));
+        }
+        return labDailyStatsRepository.getDailyRevenueByLabId(labId, startDate, endDate);
+    }
+
+    /**
+     * Paid amount per day over every lab created by the user.
+     */
+    public List<BillingRepository.DailyRevenueProjection> getDailyRevenueByLabCreator(Long createdById, LocalDate startDate, LocalDate endDate) {
+        if (!ready) {
+            return billingRepository.getDailyPaidAmountTrend(createdById, toInstantStart(startDate), toInstantEnd(endDate));
+        }
+        return labDailyStatsRepository.getDailyRevenueByLabCreator(createdById, startDate, endDate);
+    }
+
+    /**
+     * Average hours from visit to report over the visits created between the two dates, or all time when either
+     * is null; null when there are no reports.
+     */
+    public Double getAvgTatHours(Long labId, LocalDate startDate, LocalDate endDate) {
+        boolean hasDates = startDate != null && endDate != null;
+        if (!ready) {
+            return hasDates
+                    ? visitTestResultRepository.getAvgTatHoursByLabIdAndDateRange(labId, toInstantStart(startDate), toInstantEnd(endDate))
+                    : visitTestResultRepository.getAvgTatHoursByLabId(labId);
+        }
+        return hasDates
+                ? labDailyStatsRepository.getAvgTatHoursByLabIdAndDateRange(labId, startDate, endDate)
+                : labDailyStatsRepository.getAvgTatHoursByLabId(labId);
+    }
+
+    /**
+     * Recomputes every day of the lab, e.g. after its visits were deleted in bulk.
+     */
+    public void rebuildLab(Long labId) {
+        recompute(labId, FIRST_DAY, LAST_DAY);
+    }
+
+    /**
+     * Recomputes the days of the lab spanned by {@code days} once the caller's transaction commits, or at once
+     * outside a transaction. For deletes of single rows, which leave no update trail for the compactor.
+     */
+    public void rebuildDaysAfterCommit(Long labId, Collection<LocalDate> days) {
+        if (days.isEmpty()) {
+            return;
+        }
+        LocalDate fromDay = Collections.min(days);
+        LocalDate toDay = Collections.max(days);
+        Runnable rebuild = () -> {
+            try {
+                recompute(labId, fromDay, toDay);
+            } catch (RuntimeException e) {
+                // the nightly reconcile repairs recent days
+                log.warn("Daily stats of lab {} for {}..{} not refreshed: {}", labId, fromDay, toDay, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild.run();
+                }
+            });
+        } else {
+            rebuild.run();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lab.daily-stats.refresh-interval:PT1M}",
+            initialDelayString = "${lab.daily-stats.initial-delay:PT20S}")
+    public void refresh() {
+        try {
+            if (!ready) {
+                initialise();
+            } else {
+                foldChanges();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Daily stats refresh failed: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${lab.daily-stats.reconcile-cron:0 30 3 * * *}")
+    public void reconcile() {
+        if (!ready) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(reconcileDays - 1L);
+        long started = System.nanoTime();
+        List<Long> labIds = labIds();
+        for (Long labId : labIds) {
+            try {
+                recompute(labId, from, today);
+            } catch (RuntimeException e) {
+                log.warn("Daily stats reconcile of lab {} failed: {}", labId, e.getMessage());
+            }
+        }
+        log.info("Reconciled {} days of daily stats for {} labs in {} ms", reconcileDays, labIds.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void initialise() {
+        Instant started = Instant.now();
+        Timestamp lastRefresh = jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT MAX(refreshed_at) FROM lab_daily_stats", Timestamp.class);
+        if (lastRefresh == null) {
+            long startedNanos = System.nanoTime();
+            List<Long> labIds = labIds();
+            labIds.forEach(this::rebuildLab);
+            log.info("Backfilled daily stats of {} labs in {} ms", labIds.size(),
+                    (System.nanoTime() - startedNanos) / 1_000_000);
+            watermark = started;
+        } else {
+            watermark = lastRefresh.toInstant();
+            foldChanges();
+        }
+        ready = true;
+    }
+
+    private void foldChanges() {
+        Instant started = Instant.now();
+        Instant since = watermark.minus(overlap);
+        MapSqlParameterSource params = new MapSqlParameterSource("since", Timestamp.from(since))
+                .addValue("sinceLocal", LocalDateTime.ofInstant(since, ZoneId.systemDefault()));
+        List<DirtyRange> ranges = jdbcTemplate.query(DIRTY_RANGES_SQL, params, (rs, rowNum) ->
+                new DirtyRange(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getDate(3).toLocalDate()));
+        for (DirtyRange range : ranges) {
+            recompute(range.labId(), range.fromDay(), range.toDay());
+        }
+        if (!ranges.isEmpty()) {
+            log.debug("Refreshed daily stats of {} labs", ranges.size());
+        }
+        watermark = started;
+    }
+
+    private void recompute(Long labId, LocalDate fromDay, LocalDate toDay) {
+        MapSqlParameterSource params = new MapSqlParameterSource("labId", labId)
+                .addValue("fromDay", Date.valueOf(fromDay))
+                .addValue("toDay", Date.valueOf(toDay))
+                .addValue("untilDay", Date.valueOf(toDay.plusDays(1)))
+                .addValue("refreshedAt", Timestamp.from(Instant.now()));
+        transactionTemplate.executeWithoutResult(status -> {
+            if (databaseDialect.isPostgres()) {
+                // serialises nodes refreshing the same lab; released at commit
+                jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(:namespace, CAST(:labId AS int))",
+                        new MapSqlParameterSource("namespace", ADVISORY_LOCK_NAMESPACE).addValue("labId", labId));
+            }
+            jdbcTemplate.update(DELETE_SQL, params);
+            jdbcTemplate.update(INSERT_SQL, params);
+        });
+    }
+
+    private List<Long> labIds() {
+        return jdbcTemplate.getJdbcTemplate().queryForList("SELECT lab_id FROM labs ORDER BY lab_id", Long.class);
+    }
+
+    private static Instant toInstantStart(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static Instant toInstantEnd(LocalDate date) {
+        return date.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -1,32 +1,54 @@
 package tiameds.com.tiameds.services.lab;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import tiameds.com.tiameds.config.DatabaseDialect;
 import tiameds.com.tiameds.entity.EntityType;
 import tiameds.com.tiameds.entity.Lab;
+import tiameds.com.tiameds.entity.LabJob;
+import tiameds.com.tiameds.entity.LabJobType;
 import tiameds.com.tiameds.entity.SampleEntity;
+import tiameds.com.tiameds.entity.TestReferenceEntity;
 import tiameds.com.tiameds.entity.User;
 import tiameds.com.tiameds.repository.LabRepository;
 import tiameds.com.tiameds.repository.SampleAssocationRepository;
+import tiameds.com.tiameds.repository.SuperAdminReferanceRepository;
+import tiameds.com.tiameds.repository.SuperAdminTestRepository;
 import tiameds.com.tiameds.repository.TestReferenceRepository;
 import tiameds.com.tiameds.repository.TestRepository;
 import tiameds.com.tiameds.repository.UserRepository;
 import org.springframework.util.StreamUtils;
 import tiameds.com.tiameds.utils.CustomMockMultipartFile;
 import tiameds.com.tiameds.utils.EncodingUtils;
+import tiameds.com.tiameds.utils.SnowflakeIdentifierGenerator;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
 @Service
-public class LabDefaultDataService {
+public class LabDefaultDataService implements SmartInitializingSingleton {
+
+    private static final String DEFAULT_PRICE_LIST = "test_price_list-2.csv";
+    private static final String DEFAULT_REFERENCES = "Lab_Modified.xlsx-Sheet2 - Copy.csv";
+    private static final String CATALOG_USER = "system";
+
+    // advisory lock key held while the empty super admin catalog is checked and seeded
+    private static final long CATALOG_SEED_LOCK = 0x4C44465345454400L;
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
 
     private final LabRepository labRepository;
     private final UserRepository userRepository;
@@ -36,6 +58,15 @@ public class LabDefaultDataService {
     private final TestReferenceServices testReferenceServices;
     private final SampleAssocationRepository sampleAssocationRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final SuperAdminTestRepository superAdminTestRepository;
+    private final SuperAdminReferanceRepository superAdminReferanceRepository;
+    private final AdminTestReferanceandTestServices adminTestReferanceandTestServices;
+    private final LabCatalogCache labCatalogCache;
+    private final TestReferenceIndex testReferenceIndex;
+    private final TransactionTemplate cloneTransaction;
+    private final LabJobService labJobService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DatabaseDialect databaseDialect;
 
     private static final List<String> DEFAULT_SAMPLE_NAMES = List.of(
             "Blood",
@@ -68,7 +99,16 @@ public class LabDefaultDataService {
                                  TestServices testServices,
                                  TestReferenceServices testReferenceServices,
                                  SampleAssocationRepository sampleAssocationRepository,
-                                 SequenceGeneratorService sequenceGeneratorService) {
+                                 SequenceGeneratorService sequenceGeneratorService,
+                                 SuperAdminTestRepository superAdminTestRepository,
+                                 SuperAdminReferanceRepository superAdminReferanceRepository,
+                                 AdminTestReferanceandTestServices adminTestReferanceandTestServices,
+                                 LabCatalogCache labCatalogCache,
+                                 TestReferenceIndex testReferenceIndex,
+                                 PlatformTransactionManager transactionManager,
+                                 LabJobService labJobService,
+                                 NamedParameterJdbcTemplate jdbcTemplate,
+                                 DatabaseDialect databaseDialect) {
         this.labRepository = labRepository;
         this.userRepository = userRepository;
         this.testRepository = testRepository;
@@ -77,12 +117,42 @@ public class LabDefaultDataService {
         this.testReferenceServices = testReferenceServices;
         this.sampleAssocationRepository = sampleAssocationRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.superAdminTestRepository = superAdminTestRepository;
+        this.superAdminReferanceRepository = superAdminReferanceRepository;
+        this.adminTestReferanceandTestServices = adminTestReferanceandTestServices;
+        this.labCatalogCache = labCatalogCache;
+        this.testReferenceIndex = testReferenceIndex;
+        this.cloneTransaction = new TransactionTemplate(transactionManager);
+        this.labJobService = labJobService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseDialect = databaseDialect;
+    }
+
+    /**
+     * Seeds the lab with the default data in a background job; a job interrupted by a restart runs again, which
+     * is safe because every part is skipped when the lab already has it.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the job queue is full
+     */
+    public LabJob submitDefaultData(Long labId, Long userId, String createdBy) {
+        return labJobService.submit(labId, LabJobType.DEFAULT_DATA, userId, createdBy, defaultDataTask(labId, userId));
+    }
+
+    private LabJobTask defaultDataTask(Long labId, Long userId) {
+        return context -> {
+            uploadDefaultData(labId, userId);
+            return null;
+        };
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    /**
+     * Seeds a new lab with the default catalog, cloning the canonical super admin tests and test references with
+     * a few INSERT ... SELECT statements. Tests and references are cloned in their own transactions and only
+     * into a lab that has none yet.
+     */
     public void uploadDefaultData(Long labId, Long userId) {
         if (labId == null || userId == null) {
-            log.warn("Skipping default CSV upload due to missing labId or userId (labId={}, userId={})", labId, userId);
+            log.warn("Skipping default data upload due to missing labId or userId (labId={}, userId={})", labId, userId);
             return;
         }
 
@@ -90,7 +160,7 @@ public class LabDefaultDataService {
         User user = userRepository.findById(userId).orElse(null);
 
         if (lab == null || user == null) {
-            log.warn("Skipping default CSV upload because lab or user could not be found (labId={}, userId={})", labId, userId);
+            log.warn("Skipping default data upload because lab or user could not be found (labId={}, userId={})", labId, userId);
             return;
         }
 
@@ -98,11 +168,10 @@ public class LabDefaultDataService {
             log.info("Lab {} already has tests. Skipping default price list upload.", labId);
         } else {
             try {
-                MultipartFile priceListFile = loadCsvAsMultipart("test_price_list-2.csv");
-                testServices.uploadCSV(priceListFile, lab);
-                log.info("Uploaded default price list for lab {}", labId);
+                int cloned = cloneTransaction.execute(status -> cloneDefaultTests(labId));
+                log.info("Cloned {} default tests into lab {}", cloned, labId);
             } catch (Exception e) {
-                log.error("Failed to upload default price list for lab {}: {}", labId, e.getMessage(), e);
+                log.error("Failed to clone default tests into lab {}: {}", labId, e.getMessage(), e);
             }
         }
 
@@ -110,11 +179,10 @@ public class LabDefaultDataService {
             log.info("Lab {} already has test references. Skipping default reference upload.", labId);
         } else {
             try {
-                MultipartFile referenceFile = loadCsvAsMultipart("Lab_Modified.xlsx-Sheet2 - Copy.csv");
-                testReferenceServices.uploadCsv(lab, referenceFile, user);
-                log.info("Uploaded default reference data for lab {}", labId);
+                int cloned = cloneTransaction.execute(status -> cloneDefaultTestReferences(labId, user.getUsername()));
+                log.info("Cloned {} default test references into lab {}", cloned, labId);
             } catch (Exception e) {
-                log.error("Failed to upload default reference data for lab {}: {}", labId, e.getMessage(), e);
+                log.error("Failed to clone default test references into lab {}: {}", labId, e.getMessage(), e);
             }
         }
 
@@ -130,6 +198,96 @@ public class LabDefaultDataService {
         }
     }
 
+    /**
+     * Fills an empty super admin catalog from the bundled CSV files once, so every later lab is cloned from it.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        labJobService.registerResumer(LabJobType.DEFAULT_DATA, job -> defaultDataTask(job.getLabId(), job.getUserId()));
+        try {
+            cloneTransaction.executeWithoutResult(status -> {
+                if (databaseDialect.isPostgres()) {
+                    // nodes starting together on an empty database would each see an empty catalog and import it;
+                    // the lock makes the check and the import one step, released at commit
+                    jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(:key)",
+                            new MapSqlParameterSource("key", CATALOG_SEED_LOCK));
+                }
+                seedCatalog();
+            });
+            // rows added before the column existed; the entity keeps it in step from now on
+            backfillNormalizedTestNames();
+        } catch (Exception e) {
+            log.error("Failed to prepare the default catalog, new labs may start without tests: {}", e.getMessage(), e);
+        }
+    }
+
+    private void seedCatalog() {
+        try {
+            if (superAdminTestRepository.count() == 0) {
+                adminTestReferanceandTestServices.importPriceList(loadCsvAsMultipart(DEFAULT_PRICE_LIST), CATALOG_USER);
+                log.info("Seeded default test catalog from {}", DEFAULT_PRICE_LIST);
+            }
+            if (superAdminReferanceRepository.count() == 0) {
+                adminTestReferanceandTestServices.importTestReferences(loadCsvAsMultipart(DEFAULT_REFERENCES), CATALOG_USER);
+                log.info("Seeded default test reference catalog from {}", DEFAULT_REFERENCES);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Normalises in Java, like {@link TestReferenceIndex}, so cloned references carry exactly the key the index
+     * computes for them.
+     */
+    private void backfillNormalizedTestNames() {
+        int updated = 0;
+        Integer batch;
+        do {
+            batch = cloneTransaction.execute(status -> {
+                List<SuperAdminReferanceRepository.TestNameProjection> rows =
+                        superAdminReferanceRepository.findWithoutNormalizedTestName(PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                rows.forEach(row -> superAdminReferanceRepository.updateNormalizedTestName(
+                        row.getId(), TestReferenceEntity.normalizeTestName(row.getTestName())));
+                return rows.size();
+            });
+            updated += batch != null ? batch : 0;
+        } while (batch != null && batch == BACKFILL_BATCH_SIZE);
+        if (updated > 0) {
+            log.info("Backfilled normalized test name of {} catalog references", updated);
+        }
+    }
+
+    private int cloneDefaultTests(Long labId) {
+        int count = (int) superAdminTestRepository.count();
+        if (count == 0) {
+            return 0;
+        }
+        testServices.alignSequenceWithExistingTests(labId);
+        long firstNumber = sequenceGeneratorService.reserveNumbers(labId, EntityType.TEST, count);
+        String codePrefix = EntityType.TEST.getPrefix() + labId + "-";
+        int inserted = superAdminTestRepository.cloneIntoTests(codePrefix, firstNumber, count, LocalDateTime.now());
+        superAdminTestRepository.linkClonedTests(labId, codePrefix, firstNumber, count);
+        labCatalogCache.evict(labId);
+        return inserted;
+    }
+
+    private int cloneDefaultTestReferences(Long labId, String username) {
+        int count = (int) superAdminReferanceRepository.count();
+        if (count == 0) {
+            return 0;
+        }
+        testReferenceServices.alignReferenceSequence(labId);
+        long firstNumber = sequenceGeneratorService.reserveNumbers(labId, EntityType.TEST_REFERENCE, count);
+        String codePrefix = EntityType.TEST_REFERENCE.getPrefix() + labId + "-";
+        long firstId = SnowflakeIdentifierGenerator.reserveIds(count);
+        int inserted = superAdminReferanceRepository.cloneIntoTestReferences(
+                firstId, codePrefix, firstNumber, count, username, LocalDateTime.now());
+        superAdminReferanceRepository.linkClonedTestReferences(labId, firstId, count);
+        testReferenceIndex.evict(labId);
+        return inserted;
+    }
+
     private MultipartFile loadCsvAsMultipart(String resourcePath) throws IOException {
         ClassPathResource resource = new ClassPathResource(resourcePath);
 
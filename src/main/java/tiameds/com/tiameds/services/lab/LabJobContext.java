@@ -0,0 +1,83 @@
+package tiameds.com.tiameds.services.lab;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Handle a running job uses to report progress and to notice cancellation. Progress is written at most once per
+ * {@code lab.jobs.progress-interval}, and the cancel flag is re-read from the database at the same time so a
+ * cancellation received by another node is seen too. Bound to the job's thread while the job runs.
+ */
+public class LabJobContext {
+
+    private static final ThreadLocal<LabJobContext> CURRENT = new ThreadLocal<>();
+
+    private final LabJobService jobService;
+    private final UUID jobId;
+    private final Long labId;
+
+    private volatile boolean cancelRequested;
+    private long lastWriteNanos;
+
+    LabJobContext(LabJobService jobService, UUID jobId, Long labId) {
+        this.jobService = jobService;
+        this.jobId = jobId;
+        this.labId = labId;
+        this.lastWriteNanos = System.nanoTime();
+    }
+
+    /**
+     * Context of the job running on the calling thread, if any.
+     */
+    public static Optional<LabJobContext> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    public UUID jobId() {
+        return jobId;
+    }
+
+    public Long labId() {
+        return labId;
+    }
+
+    /**
+     * @param total units in total, or null if not known
+     */
+    public void progress(int done, Integer total) {
+        long now = System.nanoTime();
+        if (now - lastWriteNanos < jobService.progressIntervalNanos()) {
+            return;
+        }
+        lastWriteNanos = now;
+        if (jobService.writeProgress(jobId, done, total)) {
+            cancelRequested = true;
+        }
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    /**
+     * Throws a CancellationException once cancellation has been requested; jobs call this between units of work.
+     */
+    public void checkCancelled() {
+        if (cancelRequested) {
+            throw new CancellationException("Job " + jobId + " was cancelled");
+        }
+    }
+
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,465 @@
+package tiameds.com.tiameds.services.lab;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.config.LabJobProperties;
+import tiameds.com.tiameds.dto.lab.LabJobDTO;
+import tiameds.com.tiameds.entity.LabJob;
+import tiameds.com.tiameds.entity.LabJobStatus;
+import tiameds.com.tiameds.entity.LabJobType;
+import tiameds.com.tiameds.repository.LabJobRepository;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs long lab operations (default data, CSV uploads, bulk deletes) on a bounded pool instead of the request
+ * thread, recording each one as a row of lab_jobs that clients poll for status, progress and result.
+ *
+ * Jobs are handed to the pool only after the submitting transaction commits, so they see what it wrote. A full
+ * queue refuses new jobs with a RejectedExecutionException. Cancellation is cooperative: the flag is set in the
+ * database and the job stops at its next {@link LabJobContext#checkCancelled()}. Jobs this node still had queued
+ * or running when it stopped are resumed on the next start if their type registered a resumer, and failed
+ * otherwise.
+ *
+ * Each node holds a lease on its unfinished jobs by refreshing their updated_at every
+ * {@code lab.jobs.heartbeat-interval}. A job whose lease is older than {@code lab.jobs.lease-timeout} belongs to a
+ * node that is gone (or came back under another name), and the first node to claim it resumes or fails it.
+ */
+@Slf4j
+@Service
+public class LabJobService implements SmartLifecycle {
+
+    private static final EnumSet<LabJobStatus> UNFINISHED = EnumSet.of(LabJobStatus.QUEUED, LabJobStatus.RUNNING);
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    private static final Runnable NO_CLEANUP = () -> { };
+
+    private final LabJobRepository labJobRepository;
+    private final LabJobProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate jobTransaction;
+    private final ThreadPoolExecutor executor;
+    // leases run on their own thread: behind a long @Scheduled task they would expire and the jobs run twice
+    private final ScheduledExecutorService leaseScheduler;
+    private final String nodeId;
+    private final Map<UUID, LabJobContext> running = new ConcurrentHashMap<>();
+    private final Set<UUID> owned = ConcurrentHashMap.newKeySet();
+    private final Map<LabJobType, Function<LabJob, LabJobTask>> resumers = new ConcurrentHashMap<>();
+
+    private volatile boolean started;
+
+    public LabJobService(LabJobRepository labJobRepository,
+                         LabJobProperties properties,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry) {
+        this.labJobRepository = labJobRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        // job bookkeeping commits on its own, whatever transaction the caller or the job has open
+        this.jobTransaction = new TransactionTemplate(transactionManager);
+        this.jobTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.nodeId = resolveNodeId(properties.getNodeId());
+
+        int threads = Math.max(1, properties.getThreads());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "lab-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.leaseScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lab-job-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("lab.jobs.queue.depth", executor, e -> e.getQueue().size())
+                .description("Lab jobs waiting for a thread on this node")
+                .register(meterRegistry);
+        Gauge.builder("lab.jobs.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Lab jobs running on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a queued job and runs it in the background once the caller's transaction (if any) has committed.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public LabJob submit(Long labId, LabJobType type, Long userId, String createdBy, LabJobTask task) {
+        return submit(labId, type, userId, createdBy, task, NO_CLEANUP);
+    }
+
+    /**
+     * Like {@link #submit(Long, LabJobType, Long, String, LabJobTask)}, running {@code cleanup} once the job is
+     * over on this node: after it ran, or when it is refused, rolled back or cancelled before it started.
+     */
+    public LabJob submit(Long labId, LabJobType type, Long userId, String createdBy, LabJobTask task,
+                         Runnable cleanup) {
+        LabJob saved;
+        try {
+            if (executor.getQueue().remainingCapacity() == 0) {
+                throw new RejectedExecutionException("Too many background jobs are waiting, try again later");
+            }
+            LabJob job = new LabJob();
+            job.setId(UUID.randomUUID());
+            job.setLabId(labId);
+            job.setType(type);
+            job.setStatus(LabJobStatus.QUEUED);
+            job.setUserId(userId);
+            job.setCreatedBy(createdBy);
+            job.setNode(nodeId);
+            job.setCreatedAt(LocalDateTime.now());
+            job.setUpdatedAt(job.getCreatedAt());
+            saved = jobTransaction.execute(status -> labJobRepository.save(job));
+        } catch (RuntimeException e) {
+            release(null, cleanup);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(saved.getId(), labId, task, cleanup);
+                    } else {
+                        finish(saved.getId(), LabJobStatus.CANCELLED, "Submitting request was rolled back", null);
+                        release(saved.getId(), cleanup);
+                    }
+                }
+            });
+        } else {
+            enqueue(saved.getId(), labId, task, cleanup);
+        }
+        return saved;
+    }
+
+    /**
+     * Lets jobs of the given type that were interrupted by a shutdown run again on the next start. The factory
+     * rebuilds the task from the job row, so only jobs whose input is in that row (lab, user) can be resumed.
+     */
+    public void registerResumer(LabJobType type, Function<LabJob, LabJobTask> taskFactory) {
+        resumers.put(type, taskFactory);
+    }
+
+    public Optional<LabJobDTO> getJob(Long labId, UUID jobId) {
+        return labJobRepository.findByIdAndLabId(jobId, labId).map(this::toDto);
+    }
+
+    public List<LabJobDTO> getRecentJobs(Long labId, int limit) {
+        return labJobRepository.findByLabIdOrderByCreatedAtDesc(labId, PageRequest.of(0, limit)).stream()
+                .map(this::toDto)
+                .toList();
+    }
+
+    /**
+     * Requests cancellation of an unfinished job. A queued job is cancelled before it starts; a running job stops
+     * at its next cancellation check, keeping whatever it already committed.
+     *
+     * @return the job, or empty if the lab has no such job
+     */
+    public Optional<LabJobDTO> cancel(Long labId, UUID jobId) {
+        Optional<LabJob> cancelled = jobTransaction.execute(status ->
+                labJobRepository.findByIdAndLabId(jobId, labId).map(job -> {
+                    if (!job.getStatus().isFinished()) {
+                        job.setCancelRequested(true);
+                        job.setUpdatedAt(LocalDateTime.now());
+                    }
+                    return job;
+                }));
+        LabJobContext context = running.get(jobId);
+        if (context != null) {
+            context.requestCancel();
+        }
+        return cancelled.map(this::toDto);
+    }
+
+    /**
+     * Resumes or fails the jobs this node left unfinished when it last stopped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverInterruptedJobs() {
+        for (LabJob job : labJobRepository.findByNodeAndStatusIn(nodeId, UNFINISHED)) {
+            if (!owned.contains(job.getId())) {
+                recover(job, "Interrupted by a server restart");
+            }
+        }
+    }
+
+    /**
+     * Renews the lease of the jobs queued or running on this node, then takes over the jobs whose lease has run
+     * out, i.e. whose node stopped without recovering them.
+     */
+    void renewLeases() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!owned.isEmpty()) {
+                jobTransaction.executeWithoutResult(status ->
+                        labJobRepository.renewLeases(List.copyOf(owned), nodeId, UNFINISHED, now));
+            }
+            LocalDateTime expired = now.minus(properties.getLeaseTimeout());
+            for (LabJob job : labJobRepository.findByStatusInAndUpdatedAtBefore(UNFINISHED, expired)) {
+                if (!owned.contains(job.getId())) {
+                    recover(job, "Interrupted: node " + job.getNode() + " stopped responding");
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Lab job lease renewal failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the progress of the job running on the calling thread along with the CSV import it is doing.
+     */
+    @EventListener
+    public void onCsvImportProgress(CsvImportProgressEvent event) {
+        LabJobContext.current()
+                .filter(context -> context.labId().equals(event.labId()))
+                .ifPresent(context -> {
+                    context.progress(event.rowsRead(), null);
+                    context.checkCancelled();
+                });
+    }
+
+    long progressIntervalNanos() {
+        return properties.getProgressInterval().toNanos();
+    }
+
+    /**
+     * @return true if cancellation of the job has been requested
+     */
+    boolean writeProgress(UUID jobId, int progress, Integer total) {
+        try {
+            return Boolean.TRUE.equals(jobTransaction.execute(status -> {
+                labJobRepository.updateProgress(jobId, progress, total, LocalDateTime.now());
+                return labJobRepository.findCancelRequested(jobId).orElse(false);
+            }));
+        } catch (RuntimeException e) {
+            // progress is informational; the job itself carries on
+            log.warn("Failed to record progress of job {}: {}", jobId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Resumes the job on this node, or fails it if its type cannot be resumed. Does nothing if another node
+     * claimed the job first.
+     */
+    private void recover(LabJob job, String reason) {
+        boolean claimed = Boolean.TRUE.equals(jobTransaction.execute(status ->
+                labJobRepository.claim(job.getId(), job.getUpdatedAt(), nodeId, UNFINISHED, LocalDateTime.now()) == 1));
+        if (!claimed) {
+            return;
+        }
+        Function<LabJob, LabJobTask> resumer = resumers.get(job.getType());
+        if (resumer == null || job.isCancelRequested()) {
+            finish(job.getId(), job.isCancelRequested() ? LabJobStatus.CANCELLED : LabJobStatus.FAILED, reason, null);
+            return;
+        }
+        log.info("Resuming {} job {} of lab {} left by node {}", job.getType(), job.getId(), job.getLabId(),
+                job.getNode());
+        jobTransaction.executeWithoutResult(status -> labJobRepository.findById(job.getId()).ifPresent(row -> {
+            row.setStatus(LabJobStatus.QUEUED);
+            row.setUpdatedAt(LocalDateTime.now());
+        }));
+        enqueue(job.getId(), job.getLabId(), resumer.apply(job), NO_CLEANUP);
+    }
+
+    private void enqueue(UUID jobId, Long labId, LabJobTask task, Runnable cleanup) {
+        owned.add(jobId);
+        try {
+            executor.execute(() -> run(jobId, labId, task, cleanup));
+        } catch (RejectedExecutionException e) {
+            owned.remove(jobId);
+            log.warn("Job {} of lab {} rejected: {}", jobId, labId, e.getMessage());
+            finish(jobId, LabJobStatus.FAILED, "Too many background jobs are waiting, try again later", null);
+            release(jobId, cleanup);
+        }
+    }
+
+    private void run(UUID jobId, Long labId, LabJobTask task, Runnable cleanup) {
+        try {
+            if (markRunning(jobId)) {
+                runTask(jobId, labId, task);
+            }
+        } finally {
+            owned.remove(jobId);
+            release(jobId, cleanup);
+        }
+    }
+
+    private void runTask(UUID jobId, Long labId, LabJobTask task) {
+        LabJobContext context = new LabJobContext(this, jobId, labId);
+        running.put(jobId, context);
+        context.bind();
+        try {
+            Object result = task.run(context);
+            if (context.isCancelRequested()) {
+                finish(jobId, LabJobStatus.CANCELLED, "Cancelled; work done before the cancellation is kept", result);
+            } else {
+                finish(jobId, LabJobStatus.SUCCEEDED, null, result);
+            }
+        } catch (Exception e) {
+            if (context.isCancelRequested()) {
+                finish(jobId, LabJobStatus.CANCELLED, "Cancelled; work done before the cancellation is kept", null);
+            } else {
+                log.error("Job {} of lab {} failed: {}", jobId, labId, e.getMessage(), e);
+                finish(jobId, LabJobStatus.FAILED, e.getMessage(), null);
+            }
+        } finally {
+            context.unbind();
+            running.remove(jobId);
+        }
+    }
+
+    private void release(UUID jobId, Runnable cleanup) {
+        try {
+            cleanup.run();
+        } catch (RuntimeException e) {
+            log.warn("Cleanup of job {} failed: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * @return false if the job is gone or was cancelled while queued
+     */
+    private boolean markRunning(UUID jobId) {
+        return Boolean.TRUE.equals(jobTransaction.execute(status -> labJobRepository.findById(jobId).map(job -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (job.isCancelRequested()) {
+                job.setStatus(LabJobStatus.CANCELLED);
+                job.setMessage("Cancelled before it started");
+                job.setFinishedAt(now);
+                job.setUpdatedAt(now);
+                return false;
+            }
+            job.setStatus(LabJobStatus.RUNNING);
+            job.setNode(nodeId);
+            job.setStartedAt(now);
+            job.setUpdatedAt(now);
+            return true;
+        }).orElse(false)));
+    }
+
+    private void finish(UUID jobId, LabJobStatus status, String message, Object result) {
+        String json = toJson(jobId, result);
+        try {
+            jobTransaction.executeWithoutResult(tx -> labJobRepository.findById(jobId).ifPresent(job -> {
+                LocalDateTime now = LocalDateTime.now();
+                job.setStatus(status);
+                job.setMessage(message != null && message.length() > MAX_MESSAGE_LENGTH
+                        ? message.substring(0, MAX_MESSAGE_LENGTH) : message);
+                job.setResult(json);
+                job.setFinishedAt(now);
+                job.setUpdatedAt(now);
+            }));
+        } catch (RuntimeException e) {
+            log.error("Failed to record {} of job {}: {}", status, jobId, e.getMessage(), e);
+        }
+    }
+
+    private String toJson(UUID jobId, Object result) {
+        if (result == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            log.warn("Result of job {} is not serialisable: {}", jobId, e.getMessage());
+            return null;
+        }
+    }
+
+    public LabJobDTO toDto(LabJob job) {
+        JsonNode result = null;
+        if (job.getResult() != null) {
+            try {
+                result = objectMapper.readTree(job.getResult());
+            } catch (JsonProcessingException e) {
+                log.warn("Stored result of job {} is not valid JSON: {}", job.getId(), e.getMessage());
+            }
+        }
+        return new LabJobDTO(job.getId(), job.getLabId(), job.getType().name(), job.getStatus().name(),
+                job.getProgress(), job.getTotal(), job.getMessage(), result, job.isCancelRequested(),
+                job.getCreatedBy(), job.getCreatedAt(), job.getStartedAt(), job.getFinishedAt());
+    }
+
+    private static String resolveNodeId(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return configured.trim();
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "local";
+        }
+    }
+
+    @Override
+    public void start() {
+        long interval = properties.getHeartbeatInterval().toMillis();
+        leaseScheduler.scheduleWithFixedDelay(this::renewLeases, interval, interval, TimeUnit.MILLISECONDS);
+        started = true;
+    }
+
+    @Override
+    public void stop() {
+        started = false;
+        leaseScheduler.shutdown();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("{} lab jobs still running at shutdown; they are recovered on the next start",
+                        executor.getActiveCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return started;
+    }
+
+    @Override
+    public int getPhase() {
+        // stopped after the web server stops accepting requests and before the datasource closes
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+}
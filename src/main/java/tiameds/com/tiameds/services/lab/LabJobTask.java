@@ -0,0 +1,10 @@
+package tiameds.com.tiameds.services.lab;
+
+/**
+ * Work of a background lab job. The returned value is stored as the job's JSON result.
+ */
+@FunctionalInterface
+public interface LabJobTask {
+
+    Object run(LabJobContext context) throws Exception;
+}
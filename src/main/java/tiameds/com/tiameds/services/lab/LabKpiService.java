@@ -0,0 +1,79 @@
+package tiameds.com.tiameds.services.lab;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tiameds.com.tiameds.repository.LabRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * KPI snapshots of a lab, each read with a single query and cached per (lab, date range) for a short TTL, so
+ * dashboards polled by many users of a lab cost one round trip per TTL instead of one per request. Values may
+ * lag writes by up to the TTL.
+ */
+@Service
+public class LabKpiService {
+
+    private record Key(Long labId, boolean dashboard, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private final LabRepository labRepository;
+    private final Cache<Key, LabRepository.LabKpiProjection> cache;
+
+    public LabKpiService(LabRepository labRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${lab.kpi-cache.ttl:PT30S}") Duration ttl,
+                         @Value("${lab.kpi-cache.max-size:5000}") long maxSize) {
+        this.labRepository = labRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "labKpis");
+    }
+
+    /**
+     * KPIs of the 7 days ending today, with the 7 days before them as the previous window.
+     */
+    public LabRepository.LabKpiProjection getDashboardKpis(Long labId, LocalDate today) {
+        return cache.get(new Key(labId, true, today.minusDays(6), today), key -> {
+            LocalDate prevEnd = key.startDate().minusDays(1);
+            LocalDate prevStart = prevEnd.minusDays(6);
+            return labRepository.getDashboardKpisByLabId(labId,
+                    toInstantStart(key.startDate()), toInstantEnd(key.endDate()),
+                    toInstantStart(prevStart), toInstantEnd(prevEnd),
+                    key.startDate().atStartOfDay(), key.endDate().atTime(LocalTime.MAX),
+                    prevStart.atStartOfDay(), prevEnd.atTime(LocalTime.MAX));
+        });
+    }
+
+    /**
+     * KPIs between the two dates inclusive, or of all time when either is null.
+     */
+    public LabRepository.LabKpiProjection getKpis(Long labId, LocalDate startDate, LocalDate endDate) {
+        boolean hasDates = startDate != null && endDate != null;
+        Key key = hasDates ? new Key(labId, false, startDate, endDate) : new Key(labId, false, null, null);
+        return cache.get(key, k -> hasDates
+                ? labRepository.getKpisByLabIdAndDateRange(labId,
+                        toInstantStart(startDate), toInstantEnd(endDate),
+                        startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX))
+                : labRepository.getKpisByLabIdAllTime(labId));
+    }
+
+    private static Instant toInstantStart(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static Instant toInstantEnd(LocalDate date) {
+        return date.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
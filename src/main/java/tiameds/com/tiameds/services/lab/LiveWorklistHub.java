@@ -0,0 +1,340 @@
+package tiameds.com.tiameds.services.lab;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tiameds.com.tiameds.config.LiveWorklistProperties;
+import tiameds.com.tiameds.entity.VisitEntity;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-lab push channel for the technician and front-desk worklists. Services report visit changes here; every
+ * open stream of the lab receives a compact delta, so screens load a full page once and then apply deltas
+ * instead of polling the visit endpoints.
+ *
+ * Each lab keeps the last {@code replay-buffer-size} events. A client reconnecting with Last-Event-ID gets what
+ * it missed from that buffer; if the id is older than the buffer or from before a restart it gets a RESET event
+ * and should reload its page. Events are per node: with several nodes a client only sees changes made on the
+ * node it is connected to, and falls back to its periodic reload for the rest.
+ *
+ * Changes made inside a transaction are published after commit, so a rolled-back change is never pushed.
+ */
+@Slf4j
+@Component
+public class LiveWorklistHub {
+
+    public static final String VISIT_CREATED = "VISIT_CREATED";
+    public static final String VISIT_UPDATED = "VISIT_UPDATED";
+    public static final String VISIT_STATUS = "VISIT_STATUS";
+    public static final String SAMPLES_CHANGED = "SAMPLES_CHANGED";
+    public static final String VISIT_DELETED = "VISIT_DELETED";
+    public static final String RESET = "RESET";
+
+    /**
+     * What a subscriber receives as the data of one event. Ids are {@code <node epoch>-<sequence>}.
+     */
+    public record VisitEvent(String id,
+                             String type,
+                             Long visitId,
+                             Long patientId,
+                             String visitStatus,
+                             LocalDate visitDate,
+                             Instant at) {
+    }
+
+    private static final VisitEvent HEARTBEAT = new VisitEvent(null, "HEARTBEAT", null, null, null, null, null);
+
+    private final LiveWorklistProperties properties;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService senders;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Long, LabChannel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    public LiveWorklistHub(LiveWorklistProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newScheduledThreadPool(Math.max(1, properties.getSenderThreads()), runnable -> {
+            Thread thread = new Thread(runnable, "worklist-sse-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long heartbeatMillis = properties.getHeartbeatInterval().toMillis();
+        senders.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        Gauge.builder("worklist.live.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open live worklist streams on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the lab, replaying buffered events after {@code lastEventId} (null for a fresh client).
+     *
+     * @throws IllegalStateException if the lab already has the maximum number of open streams
+     */
+    public SseEmitter subscribe(Long labId, String lastEventId) {
+        LabChannel channel = channels.computeIfAbsent(labId, id -> new LabChannel());
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        Subscriber subscriber = new Subscriber(channel, emitter,
+                properties.getReplayBufferSize() + properties.getSubscriberQueueCapacity());
+        synchronized (channel) {
+            if (channel.subscribers.size() >= properties.getMaxSubscribersPerLab()) {
+                throw new IllegalStateException("Too many live worklist streams for this lab");
+            }
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                List<VisitEvent> missed = channel.eventsAfter(lastEventId);
+                if (missed == null) {
+                    // carries the current id so the client's next reconnect resumes from here
+                    subscriber.queue.offer(new VisitEvent(epoch + "-" + channel.lastSequence, RESET,
+                            null, null, null, null, Instant.now()));
+                } else {
+                    missed.forEach(subscriber.queue::offer);
+                }
+            }
+            channel.subscribers.add(subscriber);
+        }
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        subscriber.schedule();
+        return emitter;
+    }
+
+    public void visitCreated(Long labId, VisitEntity visit) {
+        visitChanged(labId, VISIT_CREATED, visit);
+    }
+
+    public void visitCreated(Long labId, Long visitId, Long patientId, String visitStatus, LocalDate visitDate) {
+        publish(labId, VISIT_CREATED, visitId, patientId, visitStatus, visitDate);
+    }
+
+    public void visitUpdated(Long labId, VisitEntity visit) {
+        visitChanged(labId, VISIT_UPDATED, visit);
+    }
+
+    public void samplesChanged(Long labId, VisitEntity visit) {
+        visitChanged(labId, SAMPLES_CHANGED, visit);
+    }
+
+    public void visitStatusChanged(Long labId, Long visitId, String visitStatus) {
+        publish(labId, VISIT_STATUS, visitId, null, visitStatus, null);
+    }
+
+    public void visitDeleted(Long labId, Long visitId) {
+        publish(labId, VISIT_DELETED, visitId, null, null, null);
+    }
+
+    /**
+     * Tells every client of the lab to reload its page, e.g. after a bulk change that is not worth describing.
+     */
+    public void reset(Long labId) {
+        publish(labId, RESET, null, null, null, null);
+    }
+
+    private void visitChanged(Long labId, String type, VisitEntity visit) {
+        if (visit == null) {
+            return;
+        }
+        Long patientId = visit.getPatient() != null ? visit.getPatient().getPatientId() : null;
+        publish(labId, type, visit.getVisitId(), patientId, visit.getVisitStatus(), visit.getVisitDate());
+    }
+
+    private void publish(Long labId, String type, Long visitId, Long patientId, String visitStatus, LocalDate visitDate) {
+        if (labId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doPublish(labId, type, visitId, patientId, visitStatus, visitDate);
+                }
+            });
+        } else {
+            doPublish(labId, type, visitId, patientId, visitStatus, visitDate);
+        }
+    }
+
+    private void doPublish(Long labId, String type, Long visitId, Long patientId, String visitStatus, LocalDate visitDate) {
+        LabChannel channel = channels.computeIfAbsent(labId, id -> new LabChannel());
+        List<Subscriber> receivers;
+        synchronized (channel) {
+            VisitEvent event = event(channel, type, visitId, patientId, visitStatus, visitDate);
+            channel.buffer.add(event);
+            while (channel.buffer.size() > properties.getReplayBufferSize()) {
+                channel.buffer.poll();
+            }
+            receivers = new ArrayList<>(channel.subscribers.size());
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.queue.offer(event)) {
+                    receivers.add(subscriber);
+                } else {
+                    // too far behind; it resumes from the replay buffer after reconnecting
+                    log.debug("Disconnecting slow live worklist subscriber of lab {}", labId);
+                    subscriber.emitter.complete();
+                }
+            }
+        }
+        receivers.forEach(Subscriber::schedule);
+    }
+
+    private VisitEvent event(LabChannel channel, String type, Long visitId, Long patientId, String visitStatus, LocalDate visitDate) {
+        long sequence = ++channel.lastSequence;
+        return new VisitEvent(epoch + "-" + sequence, type, visitId, patientId, visitStatus, visitDate, Instant.now());
+    }
+
+    private void heartbeat() {
+        for (LabChannel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.queue.offer(HEARTBEAT)) {
+                    subscriber.schedule();
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (LabChannel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private final class LabChannel {
+        // guarded by this
+        private final Queue<VisitEvent> buffer = new ArrayDeque<>();
+        private long lastSequence;
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+        /**
+         * Buffered events after the given id, or null if the client cannot be caught up from the buffer.
+         */
+        List<VisitEvent> eventsAfter(String lastEventId) {
+            int dash = lastEventId.lastIndexOf('-');
+            if (dash < 0 || !epoch.equals(lastEventId.substring(0, dash))) {
+                return null;
+            }
+            long after;
+            try {
+                after = Long.parseLong(lastEventId.substring(dash + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            long oldestBuffered = lastSequence - buffer.size() + 1;
+            if (after > lastSequence || after < oldestBuffered - 1) {
+                return null;
+            }
+            List<VisitEvent> missed = new ArrayList<>();
+            long sequence = oldestBuffered;
+            for (VisitEvent event : buffer) {
+                if (sequence++ > after) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+
+    /**
+     * One open stream. Events are queued by publishers and written by at most one sender thread at a time, so
+     * a slow client never blocks a request thread and events reach each client in order.
+     */
+    private final class Subscriber {
+        private final LabChannel channel;
+        private final SseEmitter emitter;
+        private final BlockingQueue<VisitEvent> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(LabChannel channel, SseEmitter emitter, int capacity) {
+            this.channel = channel;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void schedule() {
+            if (!closed.get() && scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    // executor shut down
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                VisitEvent event;
+                while (!closed.get() && (event = queue.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Live worklist stream closed: {}", e.getMessage());
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                scheduled.set(false);
+            }
+            if (!closed.get() && !queue.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void send(VisitEvent event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("keepalive"));
+                return;
+            }
+            String json;
+            try {
+                json = objectMapper.writeValueAsString(event);
+            } catch (JsonProcessingException e) {
+                log.warn("Could not serialise live worklist event {}", event.id(), e);
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                    .id(event.id())
+                    .name(event.type())
+                    .data(json, MediaType.APPLICATION_JSON));
+        }
+
+        void close() {
+            if (closed.compareAndSet(false, true)) {
+                channel.subscribers.remove(this);
+                subscriberCount.decrementAndGet();
+                queue.clear();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ import tiameds.com.tiameds.utils.ApiResponseHelper;
 import java.math.BigDecimal;
 import java.time.*;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -36,6 +37,8 @@ public class PatientService {
     private final VisitRepository visitRepository;
     private final BillingManagementService billingManagementService;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final LiveWorklistHub liveWorklistHub;
+    private final LabCatalogCache labCatalogCache;
 
     public PatientService(LabRepository labRepository,
                           TestRepository testRepository,
@@ -48,7 +51,9 @@ public class PatientService {
                           TestDiscountRepository testDiscountRepository,
                           VisitRepository visitRepository,
                           BillingManagementService billingManagementService,
-                          SequenceGeneratorService sequenceGeneratorService
+                          SequenceGeneratorService sequenceGeneratorService,
+                          LiveWorklistHub liveWorklistHub,
+                          LabCatalogCache labCatalogCache
     ) {
         this.labRepository = labRepository;
         this.testRepository = testRepository;
@@ -62,6 +67,8 @@ public class PatientService {
         this.visitRepository = visitRepository;
         this.billingManagementService = billingManagementService;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.liveWorklistHub = liveWorklistHub;
+        this.labCatalogCache = labCatalogCache;
     }
 
 
@@ -141,7 +148,11 @@ public class PatientService {
                 patient.getVisits().add(visit);
             }
             PatientEntity savedPatient = patientRepository.save(patient);
-            return new PatientDTO(savedPatient);
+            PatientDTO savedPatientDTO = new PatientDTO(savedPatient);
+            if (patientDTO.getVisit() != null) {
+                publishVisitCreated(lab, savedPatientDTO);
+            }
+            return savedPatientDTO;
         } catch (Exception e) {
 //            log.error("Error saving patient with details", e);
             throw new RuntimeException("Failed to save patient: " + e.getMessage(), e);
@@ -158,7 +169,18 @@ public class PatientService {
             existingPatient.getVisits().add(visit);
         }
         patientRepository.save(existingPatient);
-        return new PatientDTO(existingPatient);
+        PatientDTO savedPatientDTO = new PatientDTO(existingPatient);
+        if (patientDTO.getVisit() != null) {
+            publishVisitCreated(lab, savedPatientDTO);
+        }
+        return savedPatientDTO;
+    }
+
+    private void publishVisitCreated(Lab lab, PatientDTO patient) {
+        VisitDTO visit = patient.getVisit();
+        if (visit != null) {
+            liveWorklistHub.visitCreated(lab.getId(), visit.getVisitId(), patient.getId(), visit.getVisitStatus(), visit.getVisitDate());
+        }
     }
 
     private PatientDTO convertToPatientDTO(PatientEntity patient) {
@@ -203,6 +225,15 @@ public class PatientService {
         return entity;
     }
 
+    /**
+     * The snapshot if the check passes, otherwise a freshly loaded one: entries added on another node are missing
+     * from this node's snapshot until it expires.
+     */
+    private LabCatalogCache.LabCatalog reloadOnMiss(LabCatalogCache.LabCatalog catalog,
+                                                    Predicate<LabCatalogCache.LabCatalog> check) {
+        return check.test(catalog) ? catalog : labCatalogCache.reload(catalog.labId());
+    }
+
     private VisitEntity mapVisitDTOToEntity(VisitDTO visitDTO, Lab lab, String currentUser) {
         VisitEntity visit = new VisitEntity();
         
@@ -228,58 +259,71 @@ public class PatientService {
         visit.setVisitCancellationBy(visitDTO.getVisitCancellationBy());
         visit.setVisitCancellationTime(visitDTO.getVisitCancellationTime());
         visit.setCreatedBy(currentUser);
+        // membership is checked against the lab's catalog snapshot, reloaded once on a miss; the visit only needs
+        // references
+        LabCatalogCache.LabCatalog catalog = labCatalogCache.get(lab.getId());
         if (visitDTO.getDoctorId() != null) {
-            Optional<Doctors> doctorOpt = doctorRepository.findById(visitDTO.getDoctorId());
-            if (doctorOpt.isPresent()) {
-                Doctors doctor = doctorOpt.get();
-                if (!lab.getDoctors().contains(doctor)) {
-                    throw new RuntimeException("Doctor does not belong to the lab");
-                }
-                visit.setDoctor(doctor);
+            catalog = reloadOnMiss(catalog, c -> c.doctors().containsKey(visitDTO.getDoctorId()));
+            if (catalog.doctors().containsKey(visitDTO.getDoctorId())) {
+                visit.setDoctor(doctorRepository.getReferenceById(visitDTO.getDoctorId()));
+            } else if (doctorRepository.existsById(visitDTO.getDoctorId())) {
+                throw new RuntimeException("Doctor does not belong to the lab");
             }
         }
         if (visitDTO.getTestIds() != null && !visitDTO.getTestIds().isEmpty()) {
-            List<Test> tests = testRepository.findAllById(visitDTO.getTestIds());
-            if (tests.stream().anyMatch(test -> !lab.getTests().contains(test))) {
+            catalog = reloadOnMiss(catalog, c -> c.hasTests(visitDTO.getTestIds()));
+            if (!catalog.hasTests(visitDTO.getTestIds())) {
                 throw new RuntimeException("Test does not belong to the lab");
             }
-            visit.setTests(new HashSet<>(tests));
+            visit.setTests(visitDTO.getTestIds().stream()
+                    .distinct()
+                    .map(testRepository::getReferenceById)
+                    .collect(Collectors.toCollection(HashSet::new)));
         }
+        BigDecimal packageAmt = BigDecimal.ZERO;
+        BigDecimal packageDiscount = BigDecimal.ZERO;
         if (visitDTO.getPackageIds() != null && !visitDTO.getPackageIds().isEmpty()) {
-            List<HealthPackage> healthPackages = healthPackageRepository.findAllById(visitDTO.getPackageIds());
-            if (healthPackages.stream().anyMatch(pkg -> !lab.getHealthPackages().contains(pkg))) {
+            catalog = reloadOnMiss(catalog, c -> c.hasPackages(visitDTO.getPackageIds()));
+            if (!catalog.hasPackages(visitDTO.getPackageIds())) {
                 throw new RuntimeException("Health package does not belong to the lab");
             }
-            visit.setPackages(new HashSet<>(healthPackages));
+            // prices are billed from the rows themselves: another node's snapshot may predate a price change
+            Set<HealthPackage> healthPackages = new HashSet<>(
+                    healthPackageRepository.findAllById(new LinkedHashSet<>(visitDTO.getPackageIds())));
+            for (HealthPackage healthPackage : healthPackages) {
+                packageAmt = packageAmt.add(BigDecimal.valueOf(healthPackage.getPrice()));
+                packageDiscount = packageDiscount.add(BigDecimal.valueOf(healthPackage.getDiscount()));
+            }
+            visit.setPackages(healthPackages);
         }
         if (visitDTO.getInsuranceIds() != null && !visitDTO.getInsuranceIds().isEmpty()) {
-            List<InsuranceEntity> insurance = insuranceRepository.findAllById(visitDTO.getInsuranceIds());
-            if (insurance.stream().anyMatch(ins -> !lab.getInsurance().contains(ins))) {
+            catalog = reloadOnMiss(catalog, c -> c.hasInsurance(visitDTO.getInsuranceIds()));
+            if (!catalog.hasInsurance(visitDTO.getInsuranceIds())) {
                 throw new RuntimeException("Insurance does not belong to the lab");
             }
-            visit.setInsurance(new HashSet<>(insurance));
+            visit.setInsurance(visitDTO.getInsuranceIds().stream()
+                    .distinct()
+                    .map(insuranceRepository::getReferenceById)
+                    .collect(Collectors.toCollection(HashSet::new)));
         }
+        LabCatalogCache.LabCatalog checkedCatalog = catalog;
         visit.getLabs().add(lab);
         // handle billing
         if (visitDTO.getBilling() != null) {
             BillingEntity billing = mapBillingDTOToEntity(visitDTO.getBilling(), lab, currentUser);
-            billing.setPackageAmt(visit.getPackages().stream()
-                    .map(p -> BigDecimal.valueOf(p.getPrice()))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
-            billing.setPackageDiscount(visit.getPackages().stream()
-                    .map(p -> BigDecimal.valueOf(p.getDiscount()))
-                    .reduce(BigDecimal.ZERO, BigDecimal::add));
+            billing.setPackageAmt(packageAmt);
+            billing.setPackageDiscount(packageDiscount);
             billing = billingRepository.save(billing); // 💥 Save billing before using it in discounts
             visit.setBilling(billing);
             if (visitDTO.getListOfEachTestDiscount() != null && !visitDTO.getListOfEachTestDiscount().isEmpty()) {
                 BillingEntity finalBilling = billing;
+                // Reserve all test discount codes in one sequence update
+                Iterator<String> testDiscountCodes = sequenceGeneratorService.generateCodes(
+                        lab.getId(), EntityType.TEST_DISCOUNT, visitDTO.getListOfEachTestDiscount().size()).iterator();
                 Set<TestDiscountEntity> discountEntities = visitDTO.getListOfEachTestDiscount().stream()
                         .map(discountDTO -> {
                             TestDiscountEntity discountEntity = new TestDiscountEntity();
-                            
-                            // Generate unique test discount code
-                            String testDiscountCode = sequenceGeneratorService.generateCode(lab.getId(), EntityType.TEST_DISCOUNT);
-                            discountEntity.setTestDiscountCode(testDiscountCode);
+                            discountEntity.setTestDiscountCode(testDiscountCodes.next());
                             
                             discountEntity.setTestId(discountDTO.getTestId());
                             discountEntity.setDiscountAmount(discountDTO.getDiscountAmount());
@@ -296,6 +340,9 @@ public class PatientService {
         }
         // handle visit TestResults
         if (visitDTO.getTestResult() != null && !visitDTO.getTestResult().isEmpty()) {
+            // Reserve all visit test result codes in one sequence update
+            Iterator<String> visitTestResultCodes = sequenceGeneratorService.generateCodes(
+                    lab.getId(), EntityType.VISIT_TEST_RESULT, visitDTO.getTestResult().size()).iterator();
             Set<VisitTestResult> testResults = visitDTO.getTestResult().stream()
                     .map(testResultDTO -> {
                         VisitTestResult testResult = new VisitTestResult();
@@ -310,20 +357,18 @@ public class PatientService {
                         }
                         // Fetch and set test entity
                         testResult.setTest(
-                                testResultDTO.getTestId() != null
-                                        ? testRepository.findById(testResultDTO.getTestId())
+                                testResultDTO.getTestId() == null ? null
+                                        : checkedCatalog.tests().containsKey(testResultDTO.getTestId())
+                                        ? testRepository.getReferenceById(testResultDTO.getTestId())
+                                        : testRepository.findById(testResultDTO.getTestId())
                                         .orElseThrow(() -> new EntityNotFoundException(
                                                 "Test not found with ID: " + testResultDTO.getTestId()))
-                                        : null
                         );
                         // Set audit fields
                         testResult.setCreatedBy(currentUser);
                         testResult.setUpdatedBy(currentUser);
                         testResult.setTestStatus("ACTIVE");
-                        
-                        // Generate unique visit test result code
-                        String visitTestResultCode = sequenceGeneratorService.generateCode(lab.getId(), EntityType.VISIT_TEST_RESULT);
-                        testResult.setVisitTestResultCode(visitTestResultCode);
+                        testResult.setVisitTestResultCode(visitTestResultCodes.next());
 
                         return testResult;
                     })
@@ -382,6 +427,7 @@ public class PatientService {
         
         // Save the visit entity
         visitRepository.save(visit);
+        liveWorklistHub.visitStatusChanged(labId, visitId, visit.getVisitStatus());
     }
 
     private BillingEntity mapBillingDTOToEntity(BillingDTO billingDTO, Lab lab, String currentUser) {
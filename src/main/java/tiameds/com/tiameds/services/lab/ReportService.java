@@ -32,14 +32,16 @@ public class ReportService {
     private final LabRepository labRepository;
     private final VisitTestResultRepository visitTestResultRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final LiveWorklistHub liveWorklistHub;
 
-    public ReportService(ReportRepository reportRepository, VisitRepository visitRepository, TestRepository testRepository, LabRepository labRepository, VisitTestResultRepository visitTestResultRepository, SequenceGeneratorService sequenceGeneratorService) {
+    public ReportService(ReportRepository reportRepository, VisitRepository visitRepository, TestRepository testRepository, LabRepository labRepository, VisitTestResultRepository visitTestResultRepository, SequenceGeneratorService sequenceGeneratorService, LiveWorklistHub liveWorklistHub) {
         this.reportRepository = reportRepository;
         this.visitRepository = visitRepository;
         this.testRepository = testRepository;
         this.labRepository = labRepository;
         this.visitTestResultRepository = visitTestResultRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.liveWorklistHub = liveWorklistHub;
     }
 
     private static final ZoneId IST_ZONE = ZoneId.of("Asia/Kolkata");
@@ -260,7 +262,7 @@ public class ReportService {
     }
 
     @Transactional
-    public ResponseEntity<?> completeVisit(Long visitId) {
+    public ResponseEntity<?> completeVisit(Long labId, Long visitId) {
         Optional<VisitEntity> optionalVisit = visitRepository.findById(visitId);
         if (optionalVisit.isEmpty()) {
             return ApiResponseHelper.errorResponse("Visit not found", HttpStatus.NOT_FOUND);
@@ -273,11 +275,12 @@ public class ReportService {
 
         // Perform direct DB update
         visitRepository.updateVisitStatus(visitId, "Completed");
+        liveWorklistHub.visitStatusChanged(labId, visitId, "Completed");
 
         return ApiResponseHelper.successResponse("Visit completed successfully", HttpStatus.CREATED);
     }
 
-    public ResponseEntity<?> canceledVisit(Long visitId) {
+    public ResponseEntity<?> canceledVisit(Long labId, Long visitId) {
         Optional<VisitEntity> optionalVisit = visitRepository.findById(visitId);
         if (optionalVisit.isEmpty()) {
             return ApiResponseHelper.errorResponse("Visit not found", HttpStatus.NOT_FOUND);
@@ -290,6 +293,7 @@ public class ReportService {
 
         // Perform direct DB update
         visitRepository.updateVisitStatus(visitId, "Canceled");
+        liveWorklistHub.visitStatusChanged(labId, visitId, "Canceled");
 
         return ApiResponseHelper.successResponse("Visit Canceled successfully", HttpStatus.CREATED);
     }
@@ -0,0 +1,154 @@
+package tiameds.com.tiameds.services.lab;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tiameds.com.tiameds.dto.lab.TestSummaryDto;
+import tiameds.com.tiameds.dto.lab.VisitSampleDto;
+import tiameds.com.tiameds.dto.lab.VisitTestResultResponseDTO;
+import tiameds.com.tiameds.repository.ReportRepository;
+import tiameds.com.tiameds.repository.VisitRepository;
+import tiameds.com.tiameds.repository.VisitSampleRepository;
+import tiameds.com.tiameds.repository.VisitTestResultRepository;
+import tiameds.com.tiameds.utils.KeysetPage;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Technician worklist of collected and completed visits. A page is assembled from a fixed number of queries
+ * (the visit page, then tests, packages, samples, test results and reports for all of its visits at once),
+ * so its cost does not grow with the number of visits, tests or samples on it.
+ */
+@Service
+public class SampleWorklistService {
+
+    public static final List<String> COLLECTED_AND_COMPLETED = List.of("Collected", "Completed");
+
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final ZoneId LAB_ZONE = ZoneId.of("Asia/Kolkata");
+
+    private final VisitRepository visitRepository;
+    private final VisitSampleRepository visitSampleRepository;
+    private final VisitTestResultRepository visitTestResultRepository;
+    private final ReportRepository reportRepository;
+
+    public SampleWorklistService(VisitRepository visitRepository,
+                                 VisitSampleRepository visitSampleRepository,
+                                 VisitTestResultRepository visitTestResultRepository,
+                                 ReportRepository reportRepository) {
+        this.visitRepository = visitRepository;
+        this.visitSampleRepository = visitSampleRepository;
+        this.visitTestResultRepository = visitTestResultRepository;
+        this.reportRepository = reportRepository;
+    }
+
+    /**
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<VisitSampleDto> getCollectedAndCompleted(Long labId,
+                                                               LocalDate startDate,
+                                                               LocalDate endDate,
+                                                               String cursor,
+                                                               int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<VisitRepository.SampleWorklistProjection> rows = visitRepository.findSampleWorklistPage(
+                labId, startDate, endDate, COLLECTED_AND_COMPLETED, KeysetPage.decodeId(cursor), PageRequest.of(0, pageSize + 1));
+        KeysetPage<VisitRepository.SampleWorklistProjection> page =
+                KeysetPage.byId(rows, pageSize, VisitRepository.SampleWorklistProjection::getVisitId);
+
+        Map<Long, VisitSampleDto> byVisitId = new LinkedHashMap<>();
+        for (VisitRepository.SampleWorklistProjection row : page.content()) {
+            byVisitId.put(row.getVisitId(), toDto(row));
+        }
+        if (byVisitId.isEmpty()) {
+            return page.withContent(List.of());
+        }
+
+        for (VisitRepository.VisitTestProjection test : visitRepository.findTestsByVisitIds(byVisitId.keySet())) {
+            byVisitId.get(test.getVisitId()).getTests().add(new TestSummaryDto(test.getTestId(), test.getTestName()));
+        }
+        for (VisitRepository.VisitPackageProjection pkg : visitRepository.findPackageIdsByVisitIds(byVisitId.keySet())) {
+            byVisitId.get(pkg.getVisitId()).getPackageIds().add(pkg.getPackageId());
+        }
+
+        Map<Long, LocalDateTime> lastCollectedAt = new HashMap<>();
+        for (VisitSampleRepository.VisitSampleProjection sample : visitSampleRepository.findSamplesByVisitIds(byVisitId.keySet())) {
+            byVisitId.get(sample.getVisitId()).getSampleNames().add(sample.getSampleName());
+            if (sample.getCreatedAt() != null) {
+                lastCollectedAt.merge(sample.getVisitId(), sample.getCreatedAt(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        lastCollectedAt.forEach((visitId, collectedAt) -> byVisitId.get(visitId).setSampleCollectedAt(
+                collectedAt.atZone(ZoneId.systemDefault())
+                        .withZoneSameInstant(LAB_ZONE)
+                        .format(DateTimeFormatter.ISO_OFFSET_DATE_TIME)));
+
+        // first report per (visit, normalised test name); reports are ordered by id
+        Map<Long, Map<String, Long>> reportIds = new HashMap<>();
+        Map<String, String> normalised = new HashMap<>();
+        for (ReportRepository.ReportRefProjection report : reportRepository.findReportRefsByVisitIds(byVisitId.keySet(), labId)) {
+            String testName = normalised.computeIfAbsent(report.getTestName(), SampleWorklistService::normalizeTestName);
+            reportIds.computeIfAbsent(report.getVisitId(), id -> new HashMap<>()).putIfAbsent(testName, report.getReportId());
+        }
+
+        for (VisitTestResultRepository.TestResultRowProjection result : visitTestResultRepository.findResultRowsByVisitIds(byVisitId.keySet())) {
+            VisitTestResultResponseDTO dto = new VisitTestResultResponseDTO(
+                    result.getId(),
+                    result.getTestId(),
+                    result.getIsFilled(),
+                    result.getReportStatus(),
+                    result.getCreatedBy(),
+                    result.getUpdatedBy(),
+                    result.getCreatedAt(),
+                    result.getUpdatedAt(),
+                    null);
+            Map<String, Long> visitReports = reportIds.get(result.getVisitId());
+            if (visitReports != null && result.getTestName() != null) {
+                dto.setReportId(visitReports.get(
+                        normalised.computeIfAbsent(result.getTestName(), SampleWorklistService::normalizeTestName)));
+            }
+            byVisitId.get(result.getVisitId()).getTestResult().add(dto);
+        }
+
+        return page.withContent(new ArrayList<>(byVisitId.values()));
+    }
+
+    private static VisitSampleDto toDto(VisitRepository.SampleWorklistProjection row) {
+        VisitSampleDto dto = new VisitSampleDto(
+                row.getVisitId(),
+                row.getFirstName() + " " + row.getLastName(),
+                row.getGender(),
+                row.getDateOfBirth() != null ? row.getDateOfBirth().toString() : null,
+                row.getPhone(),
+                row.getEmail(),
+                row.getVisitDate(),
+                row.getVisitStatus(),
+                row.getVisitType(),
+                row.getDoctorName(),
+                row.getVisitCode(),
+                new LinkedHashSet<>(),
+                new ArrayList<>(),
+                new ArrayList<>(),
+                new ArrayList<>());
+        dto.setPatientRegisteredAt(row.getVisitTime() != null ? row.getVisitTime() : row.getCreatedAt());
+        return dto;
+    }
+
+    static String normalizeTestName(String testName) {
+        return WHITESPACE.matcher(testName.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,19 +1,42 @@
 package tiameds.com.tiameds.services.lab;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.config.SequenceProperties;
 import tiameds.com.tiameds.entity.EntityType;
 import tiameds.com.tiameds.entity.LabEntitySequence;
+import tiameds.com.tiameds.entity.LabEntitySequenceId;
 import tiameds.com.tiameds.repository.LabEntitySequenceRepository;
 
-import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * Service for generating unique, sequential codes for entities per lab.
- * Uses pessimistic locking to ensure thread-safe sequence generation.
- * 
+ *
+ * Codes are handed out hi/lo style: a block of numbers is reserved per (labId, entity) with a single
+ * locked update of lab_entity_sequence in its own short transaction, and codes are then served from an
+ * in-memory range without a locked update. Every node reserves disjoint blocks, so codes stay
+ * unique across instances; unused numbers of a block are skipped after a restart.
+ *
+ * Codes written outside the sequence (imports, legacy data) are covered by raising the sequence's floor with
+ * {@link #ensureMinimumSequence(Long, EntityType, long)}. The floor is read only where the row is locked anyway,
+ * on a refill or a raise, and the node's block skips past it. A block another node reserved before the raise
+ * keeps its numbers until that node refills or raises the floor itself, which the importers do when a write
+ * hits a code clash.
+ *
  * Example usage:
  *   String code = sequenceGeneratorService.generateCode(labId, EntityType.PATIENT.name(), EntityType.PATIENT.getPrefix());
  *   // Returns: PAT1-00001, PAT1-00002, etc. (includes lab ID for global uniqueness)
@@ -23,22 +46,33 @@ import java.text.DecimalFormat;
 public class SequenceGeneratorService {
 
     private final LabEntitySequenceRepository sequenceRepository;
+    private final SequenceProperties sequenceProperties;
+    private final TransactionTemplate reservationTransaction;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<LabEntitySequenceId, BlockHolder> blocks = new ConcurrentHashMap<>();
 
     @Autowired
-    public SequenceGeneratorService(LabEntitySequenceRepository sequenceRepository) {
+    public SequenceGeneratorService(LabEntitySequenceRepository sequenceRepository,
+                                    SequenceProperties sequenceProperties,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
         this.sequenceRepository = sequenceRepository;
+        this.sequenceProperties = sequenceProperties;
+        this.meterRegistry = meterRegistry;
+        this.reservationTransaction = new TransactionTemplate(transactionManager);
+        this.reservationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
     }
 
     /**
      * Generates a unique sequential code for the given lab and entity type.
-     * Uses pessimistic locking to ensure thread-safe sequence generation.
-     * 
+     * The number comes from the locally reserved block; the database is only hit when the block is exhausted.
+     *
      * @param labId the lab ID
      * @param entityName the entity name (e.g., "PATIENT", "VISIT")
      * @param prefix the prefix for the code (e.g., "PAT", "VIS")
      * @return the generated code (e.g., "PAT1-00001", "VIS1-00001") - includes lab ID for global uniqueness
      */
-    @Transactional
     public String generateCode(Long labId, String entityName, String prefix) {
         if (labId == null) {
             throw new IllegalArgumentException("Lab ID cannot be null");
@@ -51,33 +85,10 @@ public class SequenceGeneratorService {
         }
 
         try {
-            // Use pessimistic write lock to prevent concurrent modifications
-            LabEntitySequence sequence = sequenceRepository
-                    .findByLabIdAndEntityNameWithLock(labId, entityName)
-                    .orElseGet(() -> {
-                        // Create new sequence record if it doesn't exist
-                        LabEntitySequence newSequence = new LabEntitySequence();
-                        newSequence.setLabId(labId);
-                        newSequence.setEntityName(entityName);
-                        newSequence.setLastNumber(0L);
-                        return newSequence;
-                    });
-
-            // Increment the sequence number
-            sequence.setLastNumber(sequence.getLastNumber() + 1);
-            
-            // Save the updated sequence
-            sequenceRepository.save(sequence);
-
-            // Format the code with zero-padding and include lab ID for global uniqueness
-            // Format: PREFIXLABID-NUMBER (e.g., PAT1-00001, VIS2-00001)
-            DecimalFormat formatter = new DecimalFormat("00000");
-            String formattedNumber = formatter.format(sequence.getLastNumber());
-            
-            return prefix + labId + "-" + formattedNumber;
-
+            long number = nextNumber(labId, entityName);
+            return formatCode(prefix, labId, number);
         } catch (Exception e) {
-            log.error("Error generating sequence code for labId: {}, entityName: {}, prefix: {}", 
+            log.error("Error generating sequence code for labId: {}, entityName: {}, prefix: {}",
                     labId, entityName, prefix, e);
             throw new RuntimeException("Failed to generate sequence code: " + e.getMessage(), e);
         }
@@ -87,49 +98,111 @@ public class SequenceGeneratorService {
      * Ensures the stored sequence for the given lab/entity is at least the provided value.
      * If the existing lastNumber is lower, it is updated so future code generations
      * continue from the higher boundary (useful when importing historical data).
+     * The value also becomes the sequence's floor: this node's block skips every number at or below the highest
+     * floor stored, including floors raised by other nodes.
      *
      * @param labId lab identifier
      * @param entityType entity enum
      * @param minimumValue minimum value that sequence lastNumber must reach
      */
-    @Transactional
     public void ensureMinimumSequence(Long labId, EntityType entityType, long minimumValue) {
         if (labId == null) {
             throw new IllegalArgumentException("Lab ID cannot be null");
         }
-        LabEntitySequence sequence = sequenceRepository
-                .findByLabIdAndEntityNameWithLock(labId, entityType.getEntityName())
-                .orElseGet(() -> {
-                    LabEntitySequence newSequence = new LabEntitySequence();
-                    newSequence.setLabId(labId);
-                    newSequence.setEntityName(entityType.getEntityName());
-                    newSequence.setLastNumber(0L);
-                    return newSequence;
-                });
-
-        if (sequence.getLastNumber() < minimumValue) {
-            sequence.setLastNumber(minimumValue);
-            sequenceRepository.save(sequence);
+        LabEntitySequenceId key = new LabEntitySequenceId(labId, entityType.getEntityName());
+        BlockHolder holder = blocks.computeIfAbsent(key, k -> new BlockHolder());
+        synchronized (holder) {
+            long floor = runInReservationTransaction(() -> {
+                LabEntitySequence sequence = lockSequence(labId, entityType.getEntityName());
+                boolean changed = false;
+                if (sequence.getLastNumber() < minimumValue) {
+                    sequence.setLastNumber(minimumValue);
+                    changed = true;
+                }
+                if (sequence.getFloorNumber() == null || sequence.getFloorNumber() < minimumValue) {
+                    sequence.setFloorNumber(minimumValue);
+                    changed = true;
+                }
+                if (changed) {
+                    sequenceRepository.save(sequence);
+                }
+                return sequence.getFloorNumber();
+            });
+            SequenceBlock current = holder.current;
+            if (current != null) {
+                current.skipTo(floor);
+            }
         }
     }
 
     /**
      * Generates a code using EntityType enum.
      * Convenience method that uses the enum's name and prefix.
-     * 
+     *
      * @param labId the lab ID
      * @param entityType the entity type enum
      * @return the generated code
      */
-    @Transactional
     public String generateCode(Long labId, EntityType entityType) {
         return generateCode(labId, entityType.getEntityName(), entityType.getPrefix());
     }
 
+    /**
+     * Generates {@code count} codes with contiguous numbers for one lab and entity type.
+     * Multi-row inserts (visit test results, CSV imports) should use this instead of calling
+     * {@link #generateCode(Long, EntityType)} in a loop: the whole range costs at most one sequence update.
+     *
+     * @param labId the lab ID
+     * @param entityType the entity type enum
+     * @param count number of codes to reserve
+     * @return the generated codes in ascending order
+     */
+    public List<String> generateCodes(Long labId, EntityType entityType, int count) {
+        if (labId == null) {
+            throw new IllegalArgumentException("Lab ID cannot be null");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+        if (count == 0) {
+            return List.of();
+        }
+
+        try {
+            long first = nextRange(labId, entityType.getEntityName(), count);
+            List<String> codes = new ArrayList<>(count);
+            for (long number = first; number < first + count; number++) {
+                codes.add(formatCode(entityType.getPrefix(), labId, number));
+            }
+            return codes;
+        } catch (Exception e) {
+            log.error("Error generating {} sequence codes for labId: {}, entityName: {}",
+                    count, labId, entityType.getEntityName(), e);
+            throw new RuntimeException("Failed to generate sequence codes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserves {@code count} contiguous numbers for codes that are built in SQL rather than by
+     * {@link #generateCodes(Long, EntityType, int)}; the SQL must format them like this service does:
+     * prefix, lab id, "-", and the number zero-padded to five digits.
+     *
+     * @return the first reserved number
+     */
+    public long reserveNumbers(Long labId, EntityType entityType, int count) {
+        if (labId == null) {
+            throw new IllegalArgumentException("Lab ID cannot be null");
+        }
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive");
+        }
+        return nextRange(labId, entityType.getEntityName(), count);
+    }
+
     /**
      * Gets the current sequence number for a lab and entity type without incrementing.
-     * Useful for checking the last used number.
-     * 
+     * This is the high-water mark of all reserved blocks, not the last code actually handed out.
+     *
      * @param labId the lab ID
      * @param entityName the entity name
      * @return the current sequence number, or 0 if no sequence exists
@@ -144,7 +217,7 @@ public class SequenceGeneratorService {
 
     /**
      * Gets the current sequence number using EntityType enum.
-     * 
+     *
      * @param labId the lab ID
      * @param entityType the entity type enum
      * @return the current sequence number, or 0 if no sequence exists
@@ -153,5 +226,158 @@ public class SequenceGeneratorService {
     public Long getCurrentSequenceNumber(Long labId, EntityType entityType) {
         return getCurrentSequenceNumber(labId, entityType.getEntityName());
     }
-}
 
+    private long nextNumber(Long labId, String entityName) {
+        LabEntitySequenceId key = new LabEntitySequenceId(labId, entityName);
+        BlockHolder holder = blocks.computeIfAbsent(key, k -> new BlockHolder());
+        while (true) {
+            SequenceBlock block = holder.current;
+            if (block != null) {
+                long number = block.next();
+                if (number > 0) {
+                    counter(entityName, "hit").increment();
+                    return number;
+                }
+            }
+            synchronized (holder) {
+                // another thread may have refilled while we were waiting for the monitor
+                if (holder.current == block) {
+                    counter(entityName, "refill").increment();
+                    holder.current = reserveBlock(labId, entityName, sequenceProperties.blockSizeFor(entityName));
+                }
+            }
+        }
+    }
+
+    private long nextRange(Long labId, String entityName, int count) {
+        LabEntitySequenceId key = new LabEntitySequenceId(labId, entityName);
+        BlockHolder holder = blocks.computeIfAbsent(key, k -> new BlockHolder());
+        int blockSize = sequenceProperties.blockSizeFor(entityName);
+        while (true) {
+            SequenceBlock block = holder.current;
+            if (block != null) {
+                long first = block.take(count);
+                if (first > 0) {
+                    counter(entityName, "hit").increment(count);
+                    return first;
+                }
+            }
+            if (count >= blockSize) {
+                // larger than a block: reserve exactly this range and keep the current block for single codes
+                counter(entityName, "refill").increment();
+                return reserveBlock(labId, entityName, count).take(count);
+            }
+            synchronized (holder) {
+                if (holder.current == block) {
+                    counter(entityName, "refill").increment();
+                    holder.current = reserveBlock(labId, entityName, blockSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Advances lab_entity_sequence by blockSize under a row lock held only for this short transaction. The block
+     * starts past the floor read under the same lock.
+     */
+    private SequenceBlock reserveBlock(Long labId, String entityName, int blockSize) {
+        SequenceBlock block = runInReservationTransaction(() -> {
+            LabEntitySequence sequence = lockSequence(labId, entityName);
+            sequence.setLastNumber(sequence.getLastNumber() + blockSize);
+            sequenceRepository.save(sequence);
+            long high = sequence.getLastNumber();
+            SequenceBlock reserved = new SequenceBlock(high - blockSize + 1, high);
+            if (sequence.getFloorNumber() != null) {
+                reserved.skipTo(sequence.getFloorNumber());
+            }
+            return reserved;
+        });
+        log.debug("Reserved sequence block {}..{} for labId: {}, entityName: {}",
+                block.peek(), block.limit, labId, entityName);
+        return block;
+    }
+
+    private LabEntitySequence lockSequence(Long labId, String entityName) {
+        return sequenceRepository
+                .findByLabIdAndEntityNameWithLock(labId, entityName)
+                .orElseGet(() -> {
+                    // Create new sequence record if it doesn't exist
+                    LabEntitySequence newSequence = new LabEntitySequence();
+                    newSequence.setLabId(labId);
+                    newSequence.setEntityName(entityName);
+                    newSequence.setLastNumber(0L);
+                    return newSequence;
+                });
+    }
+
+    private <T> T runInReservationTransaction(Supplier<T> work) {
+        try {
+            return reservationTransaction.execute(status -> work.get());
+        } catch (DataIntegrityViolationException e) {
+            // another node inserted the sequence row first; the retry finds and locks it
+            log.debug("Concurrent sequence row creation detected, retrying: {}", e.getMostSpecificCause().getMessage());
+            return reservationTransaction.execute(status -> work.get());
+        }
+    }
+
+    private Counter counter(String entityName, String result) {
+        return Counter.builder("lab.sequence.allocations")
+                .description("Sequence numbers served from a reserved block (hit) or requiring a block reservation (refill)")
+                .tag("entity", entityName)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    // Format: PREFIXLABID-NUMBER (e.g., PAT1-00001, VIS2-00001)
+    private static String formatCode(String prefix, Long labId, long number) {
+        return prefix + labId + "-" + String.format("%05d", number);
+    }
+
+    private static final class BlockHolder {
+        private volatile SequenceBlock current;
+    }
+
+    /**
+     * Inclusive range [next, limit] of numbers this node owns.
+     */
+    private static final class SequenceBlock {
+        private final AtomicLong next;
+        private final long limit;
+
+        private SequenceBlock(long first, long limit) {
+            this.next = new AtomicLong(first);
+            this.limit = limit;
+        }
+
+        private long next() {
+            long number = next.getAndIncrement();
+            return number <= limit ? number : -1;
+        }
+
+        /**
+         * Claims {@code count} consecutive numbers, or returns -1 if the block cannot supply all of them.
+         */
+        private long take(int count) {
+            while (true) {
+                long first = next.get();
+                if (first + count - 1 > limit) {
+                    return -1;
+                }
+                if (next.compareAndSet(first, first + count)) {
+                    return first;
+                }
+            }
+        }
+
+        private long peek() {
+            return next.get();
+        }
+
+        /**
+         * Drops every number of the block at or below {@code floor}.
+         */
+        private void skipTo(long floor) {
+            next.accumulateAndGet(floor + 1, Math::max);
+        }
+    }
+}
@@ -1,16 +1,15 @@
 package tiameds.com.tiameds.services.lab;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tiameds.com.tiameds.controller.lab.LabStatisticsDTO;
+import tiameds.com.tiameds.dto.lab.DatewiseBillingPage;
+import tiameds.com.tiameds.dto.lab.DatewiseTotalsDTO;
 import tiameds.com.tiameds.dto.lab.StaticDto;
 import tiameds.com.tiameds.entity.*;
 import tiameds.com.tiameds.repository.*;
+import tiameds.com.tiameds.utils.KeysetCursor;
+import tiameds.com.tiameds.utils.KeysetPage;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -20,34 +19,32 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class StaticServices {
 
-    private final DoctorRepository doctorRepository;
-    private final PatientRepository patientRepository;
-    private final VisitRepository visitRepository;
+    // sorts after every real row, so the first page starts from the newest
+    private static final KeysetCursor FIRST_PAGE_CURSOR = new KeysetCursor(Instant.parse("9999-12-31T23:59:59Z"), Long.MAX_VALUE);
+
     private final BillingRepository billingRepository;
     private final TestRepository testRepository;
-    private final HealthPackageRepository healthPackageRepository;
     private final TransactionRepository transactionRepository;
+    private final LabRepository labRepository;
 
 
     public StaticServices(
-            DoctorRepository doctorRepository,
-            PatientRepository patientRepository,
-            VisitRepository visitRepository,
             BillingRepository billingRepository,
             TestRepository testRepository,
-            HealthPackageRepository healthPackageRepository, TransactionRepository transactionRepository) {
-        this.doctorRepository = doctorRepository;
-        this.patientRepository = patientRepository;
-        this.visitRepository = visitRepository;
+            TransactionRepository transactionRepository,
+            LabRepository labRepository) {
         this.billingRepository = billingRepository;
         this.testRepository = testRepository;
-        this.healthPackageRepository = healthPackageRepository;
         this.transactionRepository = transactionRepository;
+        this.labRepository = labRepository;
     }
 
     @Transactional(readOnly = true)
@@ -60,30 +57,26 @@ public class StaticServices {
         // Convert to LocalDateTime for other entities (which still use LocalDateTime)
         LocalDateTime startDateTime = startLocalDate.atStartOfDay();
         LocalDateTime endDateTime = endLocalDate.atTime(23, 59, 59);
-        // Fetch aggregated data in one query if possible
-        long numberOfPatients = patientRepository.countByLabIdAndCreatedAtBetween(labId, startDateTimeInstant, endDateTimeInstant);
-        long numberOfVisits = visitRepository.countByLabIdAndCreatedAtBetween(labId, startDateTimeInstant, endDateTimeInstant);
-
-        // Use an Enum or Constants for status values
-        long collectedSamples = visitRepository.countByLabIdAndStatus(labId, "Collected", startDateTimeInstant, endDateTimeInstant);
-        long pendingSamples = visitRepository.countByLabIdAndStatus(labId, "Pending", startDateTimeInstant, endDateTimeInstant);
-        long paidVisits = billingRepository.countByLabIdAndStatus(labId, "PAID", startDateTimeInstant, endDateTimeInstant);
-
-        // Fetch sums safely
-        BigDecimal totalSales = Optional.ofNullable(billingRepository.sumTotalByLabId(labId, startDateTimeInstant, endDateTimeInstant))
-                .orElse(BigDecimal.ZERO);
-        BigDecimal totalDiscounts = Optional.ofNullable(billingRepository.sumDiscountByLabId(labId, startDateTimeInstant, endDateTimeInstant))
-                .orElse(BigDecimal.ZERO);
-        BigDecimal totalGrossSales = Optional.ofNullable(billingRepository.sumGrossByLabId(labId, startDateTimeInstant, endDateTimeInstant))
-                .orElse(BigDecimal.ZERO);
-
-        long productsSold = Optional.ofNullable(billingRepository.countByLabId(labId, startDateTimeInstant, endDateTimeInstant))
-                .orElse(0L);
+        // Every figure in one round trip
+        LabRepository.LabStaticDataProjection stats = labRepository.getStaticDataByLabId(labId,
+                startDateTimeInstant, endDateTimeInstant, startDateTime, endDateTime);
+
+        long numberOfPatients = stats.getPatients();
+        long numberOfVisits = stats.getVisits();
+        long collectedSamples = stats.getCollectedSamples();
+        long pendingSamples = stats.getPendingSamples();
+        long paidVisits = stats.getPaidVisits();
+
+        BigDecimal totalSales = Optional.ofNullable(stats.getTotalSales()).orElse(BigDecimal.ZERO);
+        BigDecimal totalDiscounts = Optional.ofNullable(stats.getTotalDiscounts()).orElse(BigDecimal.ZERO);
+        BigDecimal totalGrossSales = Optional.ofNullable(stats.getTotalGrossSales()).orElse(BigDecimal.ZERO);
+
+        long productsSold = stats.getBills();
         long averageOrderValue = (productsSold > 0) ? totalSales.divide(BigDecimal.valueOf(productsSold), RoundingMode.HALF_UP).longValue() : 0;
 
-        long totalTests = testRepository.countByLabId(labId, startDateTime, endDateTime);
-        long totalHealthPackages = healthPackageRepository.countByLabId(labId, startDateTime, endDateTime);
-        long totalDoctors = doctorRepository.countByLabId(labId, startDateTime, endDateTime);
+        long totalTests = stats.getTests();
+        long totalHealthPackages = stats.getHealthPackages();
+        long totalDoctors = stats.getDoctors();
 
         return new StaticDto(
                 numberOfPatients, numberOfVisits, collectedSamples, pendingSamples,
@@ -95,37 +88,36 @@ public class StaticServices {
 
 
 
+    /**
+     * One keyset page of the billings created in the date range, newest first by (createdAt, id). Ordering and
+     * the page cut are done in SQL, so pages never overlap or skip rows.
+     *
+     * @param cursor        nextCursor of the previous page, or null for the first page
+     * @param includeTotals also compute the totals of the whole range, in the same query
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
     @Transactional(readOnly = true)
-    public Page<LabStatisticsDTO> getTransactionDatewise(Long labId,
-                                                         LocalDate startDate,
-                                                         LocalDate endDate,
-                                                         User user,
-                                                         int page,
-                                                         int size) {
+    public DatewiseBillingPage getTransactionDatewise(Long labId,
+                                                      LocalDate startDate,
+                                                      LocalDate endDate,
+                                                      User user,
+                                                      String cursor,
+                                                      int size,
+                                                      boolean includeTotals) {
         Instant startDateTime = (startDate != null ? startDate.atStartOfDay(ZoneId.of("Asia/Kolkata")).toInstant() : LocalDate.MIN.atStartOfDay(ZoneId.of("Asia/Kolkata")).toInstant());
         Instant endDateTime = (endDate != null ? endDate.atTime(23, 59, 59).atZone(ZoneId.of("Asia/Kolkata")).toInstant() : LocalDate.MAX.atTime(23, 59, 59).atZone(ZoneId.of("Asia/Kolkata")).toInstant());
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-
-        Page<BillingEntity> billings = billingRepository.findBillingsByLabAndDateRange(
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<BillingRepository.DatewiseBillingRowProjection> rows = billingRepository.findTransactionDatewisePage(
                 labId,
                 startDateTime,
                 endDateTime,
-                pageable
+                after != null ? after.createdAt() : FIRST_PAGE_CURSOR.createdAt(),
+                after != null ? after.id() : FIRST_PAGE_CURSOR.id(),
+                size + 1,
+                includeTotals
         );
-
-        List<LabStatisticsDTO> dtoList = billings.getContent().stream()
-                .map(billing -> {
-                    try {
-                        return mapBillingToLabStatisticsDTO(billing);
-                    } catch (Exception ex) {
-                        return null;
-                    }
-                })
-                .filter(dto -> dto != null)
-                .toList();
-
-        return new PageImpl<>(dtoList, pageable, billings.getTotalElements());
+        return toDatewisePage(rows, size, includeTotals ? toTotals(rows.get(0), false) : null);
     }
 
     /**
@@ -134,38 +126,58 @@ public class StaticServices {
      * - AND have transactions where transaction date is in the filter date range
      * - Excludes bills created on the filter date
      * - Excludes bills without transactions
-     * Results are sorted by most recent transaction date (descending)
+     * Results are sorted by most recent transaction date (descending), then id, in SQL and paged by keyset.
+     *
+     * @param cursor        nextCursor of the previous page, or null for the first page
+     * @param includeTotals also compute the totals of the whole range, in the same query
+     * @throws IllegalArgumentException if the cursor is malformed
      */
     @Transactional(readOnly = true)
-    public Page<LabStatisticsDTO> getPaymentDatewise(Long labId,
-                                                     LocalDate startDate,
-                                                     LocalDate endDate,
-                                                     User user,
-                                                     int page,
-                                                     int size) {
+    public DatewiseBillingPage getPaymentDatewise(Long labId,
+                                                  LocalDate startDate,
+                                                  LocalDate endDate,
+                                                  User user,
+                                                  String cursor,
+                                                  int size,
+                                                  boolean includeTotals) {
         Instant startDateTime = (startDate != null ? startDate.atStartOfDay(ZoneId.of("Asia/Kolkata")).toInstant() : LocalDate.MIN.atStartOfDay(ZoneId.of("Asia/Kolkata")).toInstant());
         Instant endDateTime = (endDate != null ? endDate.atTime(23, 59, 59).atZone(ZoneId.of("Asia/Kolkata")).toInstant() : LocalDate.MAX.atTime(23, 59, 59).atZone(ZoneId.of("Asia/Kolkata")).toInstant());
 
-        // First, get billings without explicit sorting (we'll sort in memory by most recent transaction date)
-        Pageable pageable = PageRequest.of(page, size);
-
-        Page<BillingEntity> billings = billingRepository.findBillingsByLabAndPaymentDateRange(
+        // the cursor's instant is the most recent transaction date of the last billing on the page
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        List<BillingRepository.DatewiseBillingRowProjection> rows = billingRepository.findPaymentDatewisePage(
                 labId,
                 startDateTime,
                 endDateTime,
-                pageable
+                after != null ? after.createdAt() : FIRST_PAGE_CURSOR.createdAt(),
+                after != null ? after.id() : FIRST_PAGE_CURSOR.id(),
+                size + 1,
+                includeTotals
         );
+        return toDatewisePage(rows, size, includeTotals ? toTotals(rows.get(0), true) : null);
+    }
 
-        // Sort by most recent transaction date (if exists), else billing creation date
-        List<BillingEntity> sortedBillings = billings.getContent().stream()
-                .sorted((b1, b2) -> {
-                    Instant date1 = getMostRecentActivityDate(b1);
-                    Instant date2 = getMostRecentActivityDate(b2);
-                    return date2.compareTo(date1); // Descending order (newest first)
-                })
+    /**
+     * Loads and maps the billings of a page query's rows in their SQL order. The query returns one row with a
+     * null billingId when the page is empty, and size + 1 rows when another page follows.
+     */
+    private DatewiseBillingPage toDatewisePage(List<BillingRepository.DatewiseBillingRowProjection> rows,
+                                               int size,
+                                               DatewiseTotalsDTO totals) {
+        List<BillingRepository.DatewiseBillingRowProjection> pageRows = rows.stream()
+                .filter(row -> row.getBillingId() != null)
                 .toList();
+        KeysetPage<BillingRepository.DatewiseBillingRowProjection> page =
+                KeysetPage.of(pageRows, size, row -> new KeysetCursor(row.getSortAt(), row.getBillingId()));
 
-        List<LabStatisticsDTO> dtoList = sortedBillings.stream()
+        Map<Long, BillingEntity> billings = billingRepository.findAllById(
+                        page.content().stream().map(BillingRepository.DatewiseBillingRowProjection::getBillingId).toList())
+                .stream()
+                .collect(Collectors.toMap(BillingEntity::getId, Function.identity()));
+
+        List<LabStatisticsDTO> dtoList = page.content().stream()
+                .map(row -> billings.get(row.getBillingId()))
+                .filter(billing -> billing != null)
                 .map(billing -> {
                     try {
                         return mapBillingToLabStatisticsDTO(billing);
@@ -176,23 +188,23 @@ public class StaticServices {
                 .filter(dto -> dto != null)
                 .toList();
 
-        return new PageImpl<>(dtoList, pageable, billings.getTotalElements());
+        return new DatewiseBillingPage(page.withContent(dtoList), totals);
     }
 
-    /**
-     * Gets the most recent activity date for a billing:
-     * - Returns the most recent transaction.createdAt if transactions exist
-     * - Returns billing.createdAt if no transactions exist
-     */
-    private Instant getMostRecentActivityDate(BillingEntity billing) {
-        if (billing.getTransactions() != null && !billing.getTransactions().isEmpty()) {
-            return billing.getTransactions().stream()
-                    .map(TransactionEntity::getCreatedAt)
-                    .filter(date -> date != null)
-                    .max(Instant::compareTo)
-                    .orElse(billing.getCreatedAt() != null ? billing.getCreatedAt() : Instant.MIN);
-        }
-        return billing.getCreatedAt() != null ? billing.getCreatedAt() : Instant.MIN;
+    private static DatewiseTotalsDTO toTotals(BillingRepository.DatewiseBillingRowProjection row, boolean payments) {
+        return new DatewiseTotalsDTO(
+                row.getBillingCount() != null ? row.getBillingCount() : 0L,
+                orZero(row.getTotalAmount()),
+                orZero(row.getTotalDiscount()),
+                orZero(row.getTotalNetAmount()),
+                orZero(row.getTotalReceivedAmount()),
+                orZero(row.getTotalDueAmount()),
+                payments ? orZero(row.getPaidInRange()) : null,
+                payments ? orZero(row.getRefundedInRange()) : null);
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
     }
 
     private LabStatisticsDTO mapBillingToLabStatisticsDTO(BillingEntity billing) {
@@ -0,0 +1,256 @@
+package tiameds.com.tiameds.services.lab;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.config.DatabaseDialect;
+import tiameds.com.tiameds.entity.SuperAdminReferanceEntity;
+import tiameds.com.tiameds.repository.SuperAdminReferanceRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Searches the super admin test reference catalog inside the database. On PostgreSQL the free-text search of
+ * report_json is a case-insensitive LIKE served by a pg_trgm index on its text, and the reference range search is
+ * a jsonb containment (@>) served by a jsonb_path_ops GIN index; both indexes are created at startup when
+ * missing. Other databases (H2 in CI) filter the catalog in memory with the same rules.
+ */
+@Slf4j
+@Component
+public class SuperAdminReferenceSearch implements SmartInitializingSingleton {
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final String TABLE = "super_admin_test_referance";
+
+    private static final List<String> POSTGRES_INDEXES = List.of(
+            "CREATE INDEX IF NOT EXISTS idx_sa_ref_reference_ranges_path ON " + TABLE
+                    + " USING gin (reference_ranges jsonb_path_ops)",
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_sa_ref_report_json_trgm ON " + TABLE
+                    + " USING gin (lower(CAST(report_json AS text)) gin_trgm_ops)");
+
+    // must stay the expression of idx_sa_ref_report_json_trgm for the index to be used
+    private static final String REPORT_JSON_TEXT = "lower(CAST(r.report_json AS text))";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DatabaseDialect databaseDialect;
+    private final TransactionTemplate transactionTemplate;
+    private final SuperAdminReferanceRepository superAdminReferanceRepository;
+    private final ObjectMapper objectMapper;
+
+
+    public SuperAdminReferenceSearch(NamedParameterJdbcTemplate jdbcTemplate,
+                                     DatabaseDialect databaseDialect,
+                                     PlatformTransactionManager transactionManager,
+                                     SuperAdminReferanceRepository superAdminReferanceRepository,
+                                     ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseDialect = databaseDialect;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.superAdminReferanceRepository = superAdminReferanceRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * References whose report JSON contains the key and the value (case-insensitive, anywhere in the JSON text).
+     * With neither given nothing matches.
+     */
+    public Map<String, Object> searchReportJson(String jsonKey, String jsonValue, int page, int size) {
+        String key = blankToNull(jsonKey);
+        String value = blankToNull(jsonValue);
+        if (key == null && value == null) {
+            return pageResponse(List.of(), 0, page, size);
+        }
+        if (!databaseDialect.isPostgres()) {
+            return filterInMemory(reference -> {
+                String json = reference.getReportJson();
+                if (json == null || json.isBlank()) {
+                    return false;
+                }
+                String text = json.toLowerCase(Locale.ROOT);
+                return (key == null || text.contains(key.toLowerCase(Locale.ROOT)))
+                        && (value == null || text.contains(value.toLowerCase(Locale.ROOT)));
+            }, page, size);
+        }
+        StringBuilder where = new StringBuilder("r.report_json IS NOT NULL");
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (key != null) {
+            where.append(" AND ").append(REPORT_JSON_TEXT).append(" LIKE :key ESCAPE '\\'");
+            params.addValue("key", likePattern(key));
+        }
+        if (value != null) {
+            where.append(" AND ").append(REPORT_JSON_TEXT).append(" LIKE :value ESCAPE '\\'");
+            params.addValue("value", likePattern(value));
+        }
+        return queryPage(where.toString(), params, page, size);
+    }
+
+    /**
+     * References with a reference range entry matching every given field: Gender exactly (upper-cased), AgeMin
+     * and AgeMax as numbers when numeric. With no field given every reference with ranges matches.
+     */
+    public Map<String, Object> searchReferenceRanges(String gender, String ageMin, String ageMax, int page, int size) {
+        ObjectNode entry = objectMapper.createObjectNode();
+        if (blankToNull(gender) != null) {
+            entry.put("Gender", gender.trim().toUpperCase(Locale.ROOT));
+        }
+        if (blankToNull(ageMin) != null) {
+            entry.set("AgeMin", jsonValue(ageMin.trim()));
+        }
+        if (blankToNull(ageMax) != null) {
+            entry.set("AgeMax", jsonValue(ageMax.trim()));
+        }
+        if (!databaseDialect.isPostgres()) {
+            return filterInMemory(reference -> rangesContain(reference.getReferenceRanges(), entry), page, size);
+        }
+        ArrayNode filter = objectMapper.createArrayNode().add(entry);
+        MapSqlParameterSource params = new MapSqlParameterSource("filter", filter.toString());
+        return queryPage("r.reference_ranges @> CAST(:filter AS jsonb)", params, page, size);
+    }
+
+    private Map<String, Object> queryPage(String where, MapSqlParameterSource params, int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE + " r WHERE " + where,
+                params, Long.class);
+        List<Long> ids = jdbcTemplate.queryForList("SELECT r.test_reference_id FROM " + TABLE + " r WHERE " + where
+                        + " ORDER BY r.test_reference_id LIMIT :limit OFFSET :offset",
+                new MapSqlParameterSource(params.getValues())
+                        .addValue("limit", pageSize)
+                        .addValue("offset", (long) pageNumber * pageSize),
+                Long.class);
+        List<SuperAdminReferanceEntity> content = new ArrayList<>(superAdminReferanceRepository.findAllById(ids));
+        content.sort(Comparator.comparing(SuperAdminReferanceEntity::getId));
+        return pageResponse(content, total != null ? total : 0, pageNumber, pageSize);
+    }
+
+    private Map<String, Object> filterInMemory(Predicate<SuperAdminReferanceEntity> filter, int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        List<SuperAdminReferanceEntity> matches = superAdminReferanceRepository.findAll().stream()
+                .filter(filter)
+                .sorted(Comparator.comparing(SuperAdminReferanceEntity::getId))
+                .toList();
+        int from = (int) Math.min((long) pageNumber * pageSize, matches.size());
+        int to = Math.min(from + pageSize, matches.size());
+        return pageResponse(matches.subList(from, to), matches.size(), pageNumber, pageSize);
+    }
+
+    private static Map<String, Object> pageResponse(List<SuperAdminReferanceEntity> content, long totalElements,
+                                                    int page, int size) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int totalPages = (int) Math.ceil((double) totalElements / pageSize);
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", content);
+        response.put("page", pageNumber);
+        response.put("size", pageSize);
+        response.put("totalElements", totalElements);
+        response.put("totalPages", totalPages);
+        response.put("hasNext", pageNumber < totalPages - 1);
+        response.put("hasPrevious", pageNumber > 0);
+        return response;
+    }
+
+    /**
+     * In-memory equivalent of {@code ranges @> [entry]} for the flat entries used here.
+     */
+    private boolean rangesContain(String ranges, ObjectNode entry) {
+        if (ranges == null || ranges.isBlank()) {
+            return false;
+        }
+        JsonNode array;
+        try {
+            array = objectMapper.readTree(ranges);
+        } catch (JsonProcessingException e) {
+            return false;
+        }
+        if (!array.isArray()) {
+            return false;
+        }
+        for (JsonNode candidate : array) {
+            if (candidate.isObject() && containsFields(candidate, entry)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsFields(JsonNode candidate, ObjectNode entry) {
+        Iterator<Map.Entry<String, JsonNode>> fields = entry.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode actual = candidate.get(field.getKey());
+            JsonNode expected = field.getValue();
+            if (actual == null) {
+                return false;
+            }
+            boolean equal = expected.isNumber() && actual.isNumber()
+                    ? actual.decimalValue().compareTo(expected.decimalValue()) == 0
+                    : actual.equals(expected);
+            if (!equal) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private JsonNode jsonValue(String value) {
+        try {
+            return objectMapper.getNodeFactory().numberNode(new BigDecimal(value));
+        } catch (NumberFormatException e) {
+            return objectMapper.getNodeFactory().textNode(value);
+        }
+    }
+
+    private static String likePattern(String term) {
+        String escaped = term.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            if (!databaseDialect.isPostgres()) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not detect the database for the reference search indexes: {}", e.getMessage());
+            return;
+        }
+        for (String ddl : POSTGRES_INDEXES) {
+            try {
+                // each in its own transaction: a failure aborts only that statement
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.getJdbcTemplate().execute(ddl));
+            } catch (RuntimeException e) {
+                // pg_trgm may need a superuser; the search still works, only without the trigram index
+                log.warn("Reference search index statement failed ({}): {}", ddl, e.getMessage());
+            }
+        }
+    }
+}
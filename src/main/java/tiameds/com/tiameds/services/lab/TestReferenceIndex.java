@@ -0,0 +1,161 @@
+package tiameds.com.tiameds.services.lab;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tiameds.com.tiameds.dto.lab.TestReferenceDTO;
+import tiameds.com.tiameds.entity.TestReferenceEntity;
+import tiameds.com.tiameds.repository.TestReferenceRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-node, read-through index of each lab's test references by normalised test name, plus the lab's reference
+ * count. A miss runs one indexed query for that name (or one count) only; anything that adds, renames or removes
+ * a test reference of a lab must call {@link #evict(Long)}, and other nodes converge within the configured TTL.
+ */
+@Slf4j
+@Component
+public class TestReferenceIndex implements SmartInitializingSingleton {
+
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final TestReferenceRepository testReferenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Long, Map<String, List<TestReferenceDTO>>> cache;
+    private final Cache<Long, Long> counts;
+
+    public TestReferenceIndex(TestReferenceRepository testReferenceRepository,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${lab.test-reference-index.ttl:PT30M}") Duration ttl,
+                              @Value("${lab.test-reference-index.max-labs:500}") long maxLabs) {
+        this.testReferenceRepository = testReferenceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxLabs)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxLabs)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "testReferenceIndex");
+        CaffeineCacheMetrics.monitor(meterRegistry, counts, "testReferenceCount");
+    }
+
+    /**
+     * Test references of the lab whose normalised name equals that of testName, ordered by id. The returned list
+     * is shared between callers and must not be modified.
+     */
+    public List<TestReferenceDTO> find(Long labId, String testName) {
+        String normalizedTestName = TestReferenceEntity.normalizeTestName(testName);
+        Map<String, List<TestReferenceDTO>> byName = cache.get(labId, id -> new ConcurrentHashMap<>());
+        List<TestReferenceDTO> references = byName.get(normalizedTestName);
+        if (references == null) {
+            // loaded outside the map so a slow query does not block lookups of other names
+            references = load(labId, normalizedTestName);
+            byName.putIfAbsent(normalizedTestName, references);
+        }
+        return references;
+    }
+
+    public long count(Long labId) {
+        return counts.get(labId, testReferenceRepository::countByLabId);
+    }
+
+    /**
+     * Drops the lab's index and count now and, when called inside a transaction, again after commit so a
+     * concurrent lookup cannot re-cache the pre-commit references.
+     */
+    public void evict(Long labId) {
+        if (labId == null) {
+            return;
+        }
+        cache.invalidate(labId);
+        counts.invalidate(labId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(labId);
+                    counts.invalidate(labId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Fills normalized_test_name for rows written before the column existed, before the server takes requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        int updated = 0;
+        Integer batch;
+        do {
+            batch = transactionTemplate.execute(status -> {
+                List<TestReferenceRepository.TestNameProjection> rows =
+                        testReferenceRepository.findWithoutNormalizedTestName(PageRequest.of(0, BACKFILL_BATCH_SIZE));
+                rows.forEach(row -> testReferenceRepository.updateNormalizedTestName(
+                        row.getId(), TestReferenceEntity.normalizeTestName(row.getTestName())));
+                return rows.size();
+            });
+            updated += batch != null ? batch : 0;
+        } while (batch != null && batch == BACKFILL_BATCH_SIZE);
+        if (updated > 0) {
+            log.info("Backfilled normalized test name of {} test references", updated);
+        }
+    }
+
+    private List<TestReferenceDTO> load(Long labId, String normalizedTestName) {
+        return testReferenceRepository.findByLabIdAndNormalizedTestName(labId, normalizedTestName).stream()
+                .map(TestReferenceIndex::toDto)
+                .toList();
+    }
+
+    /**
+     * Maps a listing or lookup row; the JSON columns are only set for detail rows.
+     */
+    static TestReferenceDTO toDto(TestReferenceRepository.TestReferenceSummaryProjection row) {
+        TestReferenceDTO dto = new TestReferenceDTO();
+        dto.setId(row.getId());
+        dto.setTestReferenceCode(row.getTestReferenceCode());
+        dto.setCategory(row.getCategory());
+        dto.setTestName(row.getTestName());
+        dto.setTestDescription(row.getTestDescription());
+        dto.setUnits(row.getUnits());
+        dto.setGender(row.getGender());
+        dto.setMinReferenceRange(row.getMinReferenceRange());
+        dto.setMaxReferenceRange(row.getMaxReferenceRange());
+        dto.setAgeMin(row.getAgeMin());
+        dto.setMinAgeUnit(row.getMinAgeUnit() != null ? row.getMinAgeUnit().toString() : null);
+        dto.setAgeMax(row.getAgeMax());
+        dto.setMaxAgeUnit(row.getMaxAgeUnit() != null ? row.getMaxAgeUnit().toString() : null);
+        dto.setCreatedBy(row.getCreatedBy());
+        dto.setUpdatedBy(row.getUpdatedBy());
+        dto.setCreatedAt(row.getCreatedAt());
+        dto.setUpdatedAt(row.getUpdatedAt());
+        if (row instanceof TestReferenceRepository.TestReferenceDetailProjection detail) {
+            dto.setReportJson(detail.getReportJson());
+            dto.setReferenceRanges(detail.getReferenceRanges());
+            dto.setDropdown(detail.getDropdown());
+            dto.setImpression(detail.getImpression());
+        }
+        return dto;
+    }
+}
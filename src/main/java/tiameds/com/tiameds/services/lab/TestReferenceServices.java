@@ -7,11 +7,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import tiameds.com.tiameds.dto.lab.CsvImportReport;
 import tiameds.com.tiameds.dto.lab.TestReferenceDTO;
 import tiameds.com.tiameds.entity.*;
 import tiameds.com.tiameds.repository.LabTestReferenceLinkRepository;
@@ -21,6 +24,7 @@ import tiameds.com.tiameds.utils.EncodingUtils;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.logging.Logger;
@@ -34,17 +38,30 @@ public class TestReferenceServices {
     private final TestReferenceRepository testReferenceRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
     private final LabTestReferenceLinkRepository labTestReferenceLinkRepository;
+    private final TestReferenceIndex testReferenceIndex;
+    private final CatalogBulkWriter catalogBulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LabBulkDeleter labBulkDeleter;
     private static final Logger LOGGER = Logger.getLogger(TestReferenceServices.class.getName());
+    private static final int MAX_PAGE_SIZE = 500;
 
     @PersistenceContext
     private EntityManager entityManager;
 
     public TestReferenceServices(TestReferenceRepository testReferenceRepository,
                                  SequenceGeneratorService sequenceGeneratorService,
-                                 LabTestReferenceLinkRepository labTestReferenceLinkRepository) {
+                                 LabTestReferenceLinkRepository labTestReferenceLinkRepository,
+                                 TestReferenceIndex testReferenceIndex,
+                                 CatalogBulkWriter catalogBulkWriter,
+                                 ApplicationEventPublisher eventPublisher,
+                                 LabBulkDeleter labBulkDeleter) {
         this.testReferenceRepository = testReferenceRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
         this.labTestReferenceLinkRepository = labTestReferenceLinkRepository;
+        this.testReferenceIndex = testReferenceIndex;
+        this.catalogBulkWriter = catalogBulkWriter;
+        this.eventPublisher = eventPublisher;
+        this.labBulkDeleter = labBulkDeleter;
     }
 
     public List<TestReferenceDTO> getAllTestReferences(Lab lab) {
@@ -80,60 +97,33 @@ public class TestReferenceServices {
 
     }
 
-    public Map<String, Object> getAllTestReferences(Lab lab, int page, int size) {
-        List<TestReferenceDTO> allTestReferences = lab.getTestReferences().stream()
-                .sorted(Comparator.comparingLong(TestReferenceEntity::getId))
-                .map(TestReferenceEntity -> {
-                    TestReferenceDTO dto = new TestReferenceDTO();
-                    dto.setId(TestReferenceEntity.getId());
-                    dto.setTestReferenceCode(TestReferenceEntity.getTestReferenceCode());
-                    dto.setCategory(TestReferenceEntity.getCategory());
-                    dto.setTestName(TestReferenceEntity.getTestName());
-                    dto.setTestDescription(TestReferenceEntity.getTestDescription());
-                    dto.setUnits(TestReferenceEntity.getUnits());
-                    dto.setGender(TestReferenceEntity.getGender());
-                    dto.setMinReferenceRange(TestReferenceEntity.getMinReferenceRange());
-                    dto.setMaxReferenceRange(TestReferenceEntity.getMaxReferenceRange());
-                    dto.setAgeMin(TestReferenceEntity.getAgeMin());
-                    dto.setMinAgeUnit(TestReferenceEntity.getMinAgeUnit() != null ? TestReferenceEntity.getMinAgeUnit().toString() : null);
-                    dto.setAgeMax(TestReferenceEntity.getAgeMax());
-                    dto.setMaxAgeUnit(TestReferenceEntity.getMaxAgeUnit() != null ? TestReferenceEntity.getMaxAgeUnit().toString() : null);
-                    dto.setCreatedBy(TestReferenceEntity.getCreatedBy());
-                    dto.setUpdatedBy(TestReferenceEntity.getUpdatedBy());
-                    dto.setCreatedAt(TestReferenceEntity.getCreatedAt());
-                    dto.setUpdatedAt(TestReferenceEntity.getUpdatedAt());
-                    
-                    // Add JSON fields
-                    dto.setReportJson(TestReferenceEntity.getReportJson());
-                    dto.setReferenceRanges(TestReferenceEntity.getReferenceRanges());
-                    dto.setDropdown(TestReferenceEntity.getDropdown());
-                    dto.setImpression(TestReferenceEntity.getImpression());
-                    dto.setDropdown(TestReferenceEntity.getDropdown());
-                    dto.setImpression(TestReferenceEntity.getImpression());
+    /**
+     * One page of the lab's references in id order. The JSON columns are only read and returned when includeJson
+     * is set; the total comes from the per-lab count cached in {@link TestReferenceIndex}.
+     */
+    public Map<String, Object> getAllTestReferences(Lab lab, int page, int size, boolean includeJson) {
+        int pageNumber = Math.max(page, 0);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        PageRequest pageRequest = PageRequest.of(pageNumber, pageSize);
+        List<? extends TestReferenceRepository.TestReferenceSummaryProjection> rows = includeJson
+                ? testReferenceRepository.findDetailPageByLabId(lab.getId(), pageRequest)
+                : testReferenceRepository.findSummaryPageByLabId(lab.getId(), pageRequest);
+        List<TestReferenceDTO> paginatedReferences = rows.stream()
+                .map(TestReferenceIndex::toDto)
+                .toList();
+
+        long totalElements = testReferenceIndex.count(lab.getId());
+        int totalPages = (int) Math.ceil((double) totalElements / pageSize);
 
-                    return dto;
-                }).toList();
-        
-        // Calculate pagination
-        int totalElements = allTestReferences.size();
-        int totalPages = (int) Math.ceil((double) totalElements / size);
-        int start = page * size;
-        int end = Math.min(start + size, totalElements);
-        
-        // Get paginated subset
-        List<TestReferenceDTO> paginatedReferences = start < totalElements 
-                ? allTestReferences.subList(start, end)
-                : new ArrayList<>();
-        
         // Build response with pagination metadata
         Map<String, Object> response = new HashMap<>();
         response.put("content", paginatedReferences);
-        response.put("page", page);
-        response.put("size", size);
+        response.put("page", pageNumber);
+        response.put("size", pageSize);
         response.put("totalElements", totalElements);
         response.put("totalPages", totalPages);
-        response.put("hasNext", page < totalPages - 1);
-        response.put("hasPrevious", page > 0);
+        response.put("hasNext", pageNumber < totalPages - 1);
+        response.put("hasPrevious", pageNumber > 0);
         
         return response;
     }
@@ -272,6 +262,7 @@ public class TestReferenceServices {
 
         testReferenceEntity.setUpdatedBy(currentUser.getUsername());
         testReferenceRepository.save(testReferenceEntity);
+        testReferenceEntity.getLabs().forEach(l -> testReferenceIndex.evict(l.getId()));
         
         LOGGER.info("Successfully updated test reference with ID: " + testReferenceId);
         
@@ -406,6 +397,7 @@ public class TestReferenceServices {
             throw new RuntimeException("Test reference does not belong to the specified lab.");
         }
 
+        testReferenceEntity.getLabs().forEach(l -> testReferenceIndex.evict(l.getId()));
         // Remove from both sides of the relationship
         lab.removeTestReference(testReferenceEntity);
         testReferenceRepository.delete(testReferenceEntity);
@@ -446,6 +438,7 @@ public class TestReferenceServices {
         // Also update the join table via native query as a safety net
         // (ON CONFLICT DO NOTHING handles duplicates gracefully)
         labTestReferenceLinkRepository.linkLabToReference(lab.getId(), saved.getId());
+        testReferenceIndex.evict(lab.getId());
 
         TestReferenceDTO dto = new TestReferenceDTO();
         dto.setId(saved.getId());
@@ -607,80 +600,23 @@ public class TestReferenceServices {
             LOGGER.warning("Test name is null or empty");
             return new ArrayList<>();
         }
-        // Normalize the search term: trim, replace multiple spaces with single space, and normalize parentheses spacing
-        String normalizedSearchTerm = testName.trim()
-                .replaceAll("\\s+", " ")
-                .replaceAll("\\s*\\(", " (")
-                .replaceAll("\\s*\\)", ") ");
-        LOGGER.info("Normalized search term: '" + normalizedSearchTerm + "' (original: '" + testName + "')");
-        LOGGER.info("Total test references in lab: " + lab.getTestReferences().size());
-
-        // Log all test names in the lab for debugging
-        if (LOGGER.isLoggable(java.util.logging.Level.INFO)) {
-            List<String> allTestNames = lab.getTestReferences().stream()
-                    .map(TestReferenceEntity::getTestName)
-                    .filter(name -> name != null)
-                    .toList();
-            LOGGER.info("All test names in lab: " + String.join(", ", allTestNames));
-        }
-
-        List<TestReferenceDTO> testReferenceDTOS = lab.getTestReferences().stream()
-                .filter(testReferenceEntity -> {
-                    if (testReferenceEntity.getTestName() == null) {
-                        return false;
-                    }
-                    // Normalize database value: trim, replace multiple spaces, and normalize parentheses spacing
-                    String normalizedDbValue = testReferenceEntity.getTestName().trim()
-                            .replaceAll("\\s+", " ")
-                            .replaceAll("\\s*\\(", " (")
-                            .replaceAll("\\s*\\)", ") ");
-
-                    // Exact match only (case-insensitive) after normalization
-                    boolean matches = normalizedDbValue.equalsIgnoreCase(normalizedSearchTerm);
-                    if (matches) {
-                        LOGGER.info("Match found: DB='" + testReferenceEntity.getTestName() + "' normalized='" + normalizedDbValue + "' search='" + normalizedSearchTerm + "'");
-                    }
-
-                    return matches;
-                })
-                .sorted(Comparator.comparingLong(TestReferenceEntity::getId))
-                .map(TestReferenceEntity -> {
-                    TestReferenceDTO dto = new TestReferenceDTO();
-                    dto.setId(TestReferenceEntity.getId());
-                    dto.setCategory(TestReferenceEntity.getCategory());
-                    dto.setTestName(TestReferenceEntity.getTestName());
-                    dto.setTestDescription(TestReferenceEntity.getTestDescription());
-                    dto.setUnits(TestReferenceEntity.getUnits());
-                    dto.setGender(TestReferenceEntity.getGender());
-                    dto.setMinReferenceRange(TestReferenceEntity.getMinReferenceRange());
-                    dto.setMaxReferenceRange(TestReferenceEntity.getMaxReferenceRange());
-                    dto.setAgeMin(TestReferenceEntity.getAgeMin());
-                    dto.setMinAgeUnit(TestReferenceEntity.getMinAgeUnit() != null ? TestReferenceEntity.getMinAgeUnit().toString() : null);
-                    dto.setAgeMax(TestReferenceEntity.getAgeMax());
-                    dto.setMaxAgeUnit(TestReferenceEntity.getMaxAgeUnit() != null ? TestReferenceEntity.getMaxAgeUnit().toString() : null);
-                    dto.setCreatedBy(TestReferenceEntity.getCreatedBy());
-                    dto.setUpdatedBy(TestReferenceEntity.getUpdatedBy());
-                    dto.setCreatedAt(TestReferenceEntity.getCreatedAt());
-                    dto.setUpdatedAt(TestReferenceEntity.getUpdatedAt());
-
-                    // Add JSON fields
-                    dto.setReportJson(TestReferenceEntity.getReportJson());
-                    dto.setReferenceRanges(TestReferenceEntity.getReferenceRanges());
-                    dto.setDropdown(TestReferenceEntity.getDropdown());
-                    dto.setImpression(TestReferenceEntity.getImpression());
-
-                    return dto;
-                }).toList();
-        return testReferenceDTOS;
+        // Exact, case-insensitive match on the normalised name (see TestReferenceEntity.normalizeTestName)
+        return testReferenceIndex.find(lab.getId(), testName);
     }
 
-    public void deleteAllTestReferences(Lab lab) {
-        List<TestReferenceEntity> testReferences = new ArrayList<>(lab.getTestReferences());
-        for (TestReferenceEntity testReference : testReferences) {
-            lab.removeTestReference(testReference);
-            testReferenceRepository.delete(testReference);
+    /**
+     * Deletes every test reference of the lab with set-based deletes committed a chunk at a time
+     * (see {@link LabBulkDeleter}). A reference shared with other labs is deleted for them as well.
+     */
+    public int deleteAllTestReferences(Long labId) {
+        List<Long> affectedLabs = new ArrayList<>(labBulkDeleter.labsSharingTestReferences(labId));
+        affectedLabs.add(labId);
+        try {
+            return labBulkDeleter.deleteTestReferences(labId);
+        } finally {
+            // chunks commit on their own, so drop lookups loaded while the delete was running too
+            affectedLabs.forEach(testReferenceIndex::evict);
         }
-        LOGGER.info("All test references deleted successfully.");
     }
 
     //============================================ updating referance and  fix meau and beta Symbol========================//
@@ -840,53 +776,120 @@ public class TestReferenceServices {
 //    }
 
 
-    @Transactional
-    public List<TestReferenceEntity> uploadCsv(Lab lab, MultipartFile file, User currentUser) {
+    /**
+     * Imports test references from a CSV, streaming it in chunks of {@link CatalogBulkWriter#chunkSize()} that
+     * are each written with JDBC batches in their own transaction. A row is skipped, and listed in the report,
+     * when Category or Test Name is missing or when the lab or an earlier row already has a reference with the
+     * same category, name, description, units, gender, ranges and age bounds.
+     */
+    public CsvImportReport uploadCsv(Lab lab, MultipartFile file, User currentUser) {
 
         if (currentUser == null) {
             throw new RuntimeException("User authentication failed.");
         }
 
-        alignReferenceSequence(lab.getId());
-        List<TestReferenceEntity> savedEntities = new ArrayList<>();
-
-        try (BufferedReader reader = createNormalizedReader(file)) {
-            try (CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT
-                    .withFirstRecordAsHeader()
-                    .withIgnoreHeaderCase()
-                    .withTrim())) {
-
-                for (CSVRecord record : csvParser) {
-                    boolean persisted = false;
-                    int attempts = 0;
+        Long labId = lab.getId();
+        alignReferenceSequence(labId);
 
-                    while (!persisted && attempts < 5) {
-                        attempts++;
-                        TestReferenceEntity entity = null;
-                        try {
-                            entity = processRecord(record, currentUser);
-                            entity.setTestReferenceCode(generateUniqueReferenceCode(lab.getId()));
-                            TestReferenceEntity saved = testReferenceRepository.save(entity);
-                            labTestReferenceLinkRepository.linkLabToReference(lab.getId(), saved.getId());
-                            savedEntities.add(saved);
-                            persisted = true;
-                        } catch (DataIntegrityViolationException dive) {
-                            handleReferenceDuplicate(lab, entity, dive);
-                        } catch (Exception ex) {
-                            LOGGER.warning("Skipping row " + record.getRecordNumber() +
-                                    " due to error: " + ex.getMessage());
-                            persisted = true; // stop retrying for this row
-                        }
-                    }
+        Set<String> keys = new HashSet<>();
+        for (TestReferenceRepository.ImportKeyProjection row : testReferenceRepository.findImportKeysByLabId(labId)) {
+            keys.add(importKey(row.getCategory(), row.getTestName(), row.getTestDescription(), row.getUnits(),
+                    row.getGender(), row.getMinReferenceRange(), row.getMaxReferenceRange(),
+                    row.getAgeMin(), row.getMinAgeUnit(), row.getAgeMax(), row.getMaxAgeUnit()));
+        }
+        CsvImportTracker tracker = new CsvImportTracker(eventPublisher, labId, EntityType.TEST_REFERENCE.getEntityName());
+
+        try (BufferedReader reader = createNormalizedReader(file);
+             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT
+                     .withFirstRecordAsHeader()
+                     .withIgnoreHeaderCase()
+                     .withTrim())) {
+
+            List<TestReferenceEntity> chunk = new ArrayList<>(catalogBulkWriter.chunkSize());
+            List<Long> recordNumbers = new ArrayList<>(catalogBulkWriter.chunkSize());
+            for (CSVRecord record : csvParser) {
+                tracker.rowRead();
+                TestReferenceEntity entity;
+                try {
+                    entity = processRecord(record, currentUser);
+                } catch (IllegalArgumentException ex) {
+                    tracker.skipped(record.getRecordNumber(), ex.getMessage());
+                    continue;
+                }
+                if (!keys.add(importKey(entity))) {
+                    tracker.skipped(record.getRecordNumber(), "Duplicate test reference '" + entity.getTestName() + "'");
+                    continue;
+                }
+                chunk.add(entity);
+                recordNumbers.add(record.getRecordNumber());
+                if (chunk.size() == catalogBulkWriter.chunkSize()) {
+                    writeChunk(labId, chunk, recordNumbers, tracker);
                 }
-
             }
-        } catch (Exception ex) {
+            if (!chunk.isEmpty()) {
+                writeChunk(labId, chunk, recordNumbers, tracker);
+            }
+        } catch (IOException | UncheckedIOException | IllegalStateException ex) {
             LOGGER.warning("Failed to process CSV file: " + ex.getMessage());
             throw new RuntimeException("Failed to process CSV file: " + ex.getMessage(), ex);
+        } finally {
+            testReferenceIndex.evict(labId);
+        }
+
+        return tracker.finish();
+    }
+
+    /**
+     * Reserves codes for the chunk and writes it. A code clash (codes written outside the sequence) rolls only
+     * this chunk back; it is retried once with fresh codes after resyncing the sequence, then reported as skipped.
+     */
+    private void writeChunk(Long labId, List<TestReferenceEntity> chunk, List<Long> recordNumbers, CsvImportTracker tracker) {
+        for (int attempt = 1; ; attempt++) {
+            List<String> codes = sequenceGeneratorService.generateCodes(labId, EntityType.TEST_REFERENCE, chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setTestReferenceCode(codes.get(i));
+            }
+            try {
+                catalogBulkWriter.insertTestReferences(labId, chunk);
+                tracker.imported(chunk.size());
+                break;
+            } catch (DataIntegrityViolationException dive) {
+                LOGGER.warning("Chunk of " + chunk.size() + " test references for lab " + labId + " rejected (attempt "
+                        + attempt + "). Cause: " + dive.getMostSpecificCause().getMessage());
+                alignReferenceSequence(labId);
+                if (attempt == 2) {
+                    recordNumbers.forEach(recordNumber -> tracker.skipped(recordNumber,
+                            "Not saved: " + dive.getMostSpecificCause().getMessage()));
+                    break;
+                }
+            }
         }
+        chunk.clear();
+        recordNumbers.clear();
+        tracker.chunkWritten();
+    }
 
-        return savedEntities;
+    private static String importKey(TestReferenceEntity entity) {
+        return importKey(entity.getCategory(), entity.getTestName(), entity.getTestDescription(), entity.getUnits(),
+                entity.getGender(), entity.getMinReferenceRange(), entity.getMaxReferenceRange(),
+                entity.getAgeMin(), entity.getMinAgeUnit(), entity.getAgeMax(), entity.getMaxAgeUnit());
+    }
+
+    private static String importKey(String category, String testName, String testDescription, String units,
+                                    Gender gender, Double minReferenceRange, Double maxReferenceRange,
+                                    Integer ageMin, AgeUnit minAgeUnit, Integer ageMax, AgeUnit maxAgeUnit) {
+        return String.join("\u0001",
+                category != null ? category.trim().toLowerCase(Locale.ROOT) : "",
+                String.valueOf(TestReferenceEntity.normalizeTestName(testName)),
+                testDescription != null ? testDescription.trim() : "",
+                units != null ? units.trim() : "",
+                String.valueOf(gender),
+                String.valueOf(minReferenceRange),
+                String.valueOf(maxReferenceRange),
+                String.valueOf(ageMin),
+                String.valueOf(minAgeUnit),
+                String.valueOf(ageMax),
+                String.valueOf(maxAgeUnit));
     }
 
     private TestReferenceEntity processRecord(CSVRecord record, User currentUser) {
@@ -1108,7 +1111,7 @@ public class TestReferenceServices {
         throw new IllegalStateException("Unable to generate unique test reference code for lab " + labId);
     }
 
-    private void alignReferenceSequence(Long labId) {
+    void alignReferenceSequence(Long labId) {
         String prefix = EntityType.TEST_REFERENCE.getPrefix() + labId + "-";
         testReferenceRepository.findTopByTestReferenceCodeStartingWithOrderByTestReferenceCodeDesc(prefix)
                 .ifPresent(existing -> {
@@ -1125,14 +1128,6 @@ public class TestReferenceServices {
                 });
     }
 
-    private void handleReferenceDuplicate(Lab lab, TestReferenceEntity entity, DataIntegrityViolationException dive) {
-        if (entity != null && entityManager != null && entityManager.contains(entity)) {
-            entityManager.detach(entity);
-        }
-        LOGGER.warning("Duplicate test_reference_code for lab " + lab.getId() + ". Cause: " + dive.getMostSpecificCause().getMessage());
-        alignReferenceSequence(lab.getId());
-    }
-
     private BufferedReader createNormalizedReader(MultipartFile file) throws IOException {
         byte[] fileBytes = file.getBytes();
         String normalizedContent = EncodingUtils.decodeWithUtf8Fallback(fileBytes);
@@ -1,12 +1,10 @@
 package tiameds.com.tiameds.services.lab;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
@@ -17,16 +15,21 @@ import tiameds.com.tiameds.entity.Lab;
 import tiameds.com.tiameds.entity.Test;
 import tiameds.com.tiameds.repository.TestRepository;
 
+import tiameds.com.tiameds.dto.lab.CsvImportReport;
 import tiameds.com.tiameds.dto.lab.TestDTO;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -34,102 +37,141 @@ public class TestServices {
 
     private final TestRepository testRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final LabCatalogCache labCatalogCache;
+    private final CatalogBulkWriter catalogBulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @PersistenceContext
-    private EntityManager entityManager;
+    private static final List<String> REQUIRED_COLUMNS = List.of("Category Name", "LabTest Name", "Price(INR)");
 
-    public TestServices(TestRepository testRepository, SequenceGeneratorService sequenceGeneratorService) {
+    public TestServices(TestRepository testRepository,
+                        SequenceGeneratorService sequenceGeneratorService,
+                        LabCatalogCache labCatalogCache,
+                        CatalogBulkWriter catalogBulkWriter,
+                        ApplicationEventPublisher eventPublisher) {
         this.testRepository = testRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.labCatalogCache = labCatalogCache;
+        this.catalogBulkWriter = catalogBulkWriter;
+        this.eventPublisher = eventPublisher;
     }
 
-    @Transactional
-    public List<Test> uploadCSV(MultipartFile file, Lab lab) throws Exception {
-        alignSequenceWithExistingTests(lab.getId());
-
-        List<Test> savedTests = new ArrayList<>();
+    /**
+     * Imports the lab's tests from a CSV with the columns "Category Name", "LabTest Name" and "Price(INR)".
+     * Rows are validated and checked against the lab's existing tests and the rows before them (same category
+     * and name, ignoring case) while streaming, and written in chunks of {@link CatalogBulkWriter#chunkSize()},
+     * each in its own transaction. Invalid and duplicate rows are skipped and listed in the report.
+     */
+    public CsvImportReport uploadCSV(MultipartFile file, Lab lab) {
+        Long labId = lab.getId();
+        alignSequenceWithExistingTests(labId);
+
+        Set<String> keys = new HashSet<>();
+        labCatalogCache.get(labId).tests().values()
+                .forEach(test -> keys.add(testKey(test.category(), test.name())));
+        CsvImportTracker tracker = new CsvImportTracker(eventPublisher, labId, EntityType.TEST.getEntityName());
 
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream()));
              CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
 
-            for (CSVRecord record : csvParser) {
-                Test saved = persistRecord(record, lab);
-                if (saved != null) {
-                    savedTests.add(saved);
+            for (String column : REQUIRED_COLUMNS) {
+                if (!csvParser.getHeaderMap().containsKey(column)) {
+                    throw new IllegalArgumentException("Missing column '" + column + "'");
                 }
             }
 
-            return savedTests;
-
+            List<Test> chunk = new ArrayList<>(catalogBulkWriter.chunkSize());
+            List<Long> recordNumbers = new ArrayList<>(catalogBulkWriter.chunkSize());
+            for (CSVRecord record : csvParser) {
+                tracker.rowRead();
+                Test test;
+                try {
+                    test = parseRecord(record);
+                } catch (IllegalArgumentException e) {
+                    tracker.skipped(record.getRecordNumber(), e.getMessage());
+                    continue;
+                }
+                if (!keys.add(testKey(test.getCategory(), test.getName()))) {
+                    tracker.skipped(record.getRecordNumber(), "Duplicate test '" + test.getName()
+                            + "' in category '" + test.getCategory() + "'");
+                    continue;
+                }
+                chunk.add(test);
+                recordNumbers.add(record.getRecordNumber());
+                if (chunk.size() == catalogBulkWriter.chunkSize()) {
+                    writeChunk(labId, chunk, recordNumbers, tracker);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(labId, chunk, recordNumbers, tracker);
+            }
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid data in CSV file: " + e.getMessage(), e);
-        } catch (Exception e) {
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
             throw new RuntimeException("Error processing CSV file: " + e.getMessage(), e);
+        } finally {
+            labCatalogCache.evict(labId);
         }
+        return tracker.finish();
     }
 
-    private Test persistRecord(CSVRecord record, Lab lab) {
+    private Test parseRecord(CSVRecord record) {
         String category = record.get("Category Name");
         String name = record.get("LabTest Name");
         String priceString = record.get("Price(INR)");
 
-        if (category == null || name == null || priceString == null) {
+        if (category == null || category.isBlank() || name == null || name.isBlank() || priceString == null) {
             throw new IllegalArgumentException("Missing required fields in CSV: " + record);
         }
 
         BigDecimal price;
         try {
-            price = new BigDecimal(priceString);
+            price = new BigDecimal(priceString.trim());
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Invalid price format in CSV: " + priceString);
         }
 
-        int attempt = 0;
-        while (attempt < 5) {
-            attempt++;
-            Test test = new Test();
-            test.setCategory(category);
-            test.setName(name);
-            test.setPrice(price);
-
-            String testCode = generateUniqueTestCode(lab.getId());
-            test.setTestCode(testCode);
-            test.getLabs().add(lab);
+        Test test = new Test();
+        test.setCategory(category);
+        test.setName(name);
+        test.setPrice(price);
+        return test;
+    }
 
+    /**
+     * Reserves codes for the chunk and writes it. A code clash (codes written outside the sequence) rolls only
+     * this chunk back; it is retried once with fresh codes after resyncing the sequence, then reported as skipped.
+     */
+    private void writeChunk(Long labId, List<Test> chunk, List<Long> recordNumbers, CsvImportTracker tracker) {
+        for (int attempt = 1; ; attempt++) {
+            List<String> codes = sequenceGeneratorService.generateCodes(labId, EntityType.TEST, chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                chunk.get(i).setTestCode(codes.get(i));
+            }
             try {
-                Test saved = testRepository.save(test);
-                lab.addTest(saved);
-                return saved;
+                catalogBulkWriter.insertTests(labId, chunk);
+                tracker.imported(chunk.size());
+                break;
             } catch (DataIntegrityViolationException dive) {
-                handleDuplicateCode(lab, test, dive);
+                log.warn("Chunk of {} tests for lab {} rejected (attempt {}). Resyncing sequence. Cause: {}",
+                        chunk.size(), labId, attempt, dive.getMostSpecificCause().getMessage());
+                alignSequenceWithExistingTests(labId);
+                if (attempt == 2) {
+                    recordNumbers.forEach(recordNumber -> tracker.skipped(recordNumber,
+                            "Not saved: " + dive.getMostSpecificCause().getMessage()));
+                    break;
+                }
             }
         }
-
-        log.error("Failed to persist test '{}' for lab {} after multiple attempts.", name, lab.getId());
-        return null;
-    }
-
-    private void handleDuplicateCode(Lab lab, Test test, DataIntegrityViolationException dive) {
-        if (entityManager != null && entityManager.contains(test)) {
-            entityManager.detach(test);
-        }
-        log.warn("Duplicate test_code {} detected for lab {}. Attempting to resync sequence. Cause: {}", test.getTestCode(), lab.getId(), dive.getMostSpecificCause().getMessage());
-        alignSequenceWithExistingTests(lab.getId());
+        chunk.clear();
+        recordNumbers.clear();
+        tracker.chunkWritten();
     }
 
-    private String generateUniqueTestCode(Long labId) {
-        int guard = 0;
-        while (guard < 1000) {
-            String candidate = sequenceGeneratorService.generateCode(labId, EntityType.TEST);
-            if (!testRepository.existsByTestCode(candidate)) {
-                return candidate;
-            }
-            guard++;
-        }
-        throw new IllegalStateException("Unable to generate unique test code for lab " + labId);
+    private static String testKey(String category, String name) {
+        return category.trim().toLowerCase(Locale.ROOT) + '\u0000' + name.trim().toLowerCase(Locale.ROOT);
     }
 
-    private void alignSequenceWithExistingTests(Long labId) {
+    void alignSequenceWithExistingTests(Long labId) {
         String prefix = EntityType.TEST.getPrefix() + labId + "-";
         testRepository.findTopByTestCodeStartingWithOrderByTestCodeDesc(prefix)
                 .ifPresent(existingTest -> {
@@ -151,33 +193,13 @@ public class TestServices {
 
 
     public List<TestDTO> getAllTests(Lab lab) {
-        return lab.getTests().stream()
-                .sorted(Comparator.comparingLong(Test::getId))
-                .map(test -> new TestDTO(
-                        test.getId(),
-                        test.getTestCode(),
-                        test.getCategory(),
-                        test.getName(),
-                        test.getPrice(),
-                        test.getCreatedAt(),
-                        test.getUpdatedAt()
-                ))
+        return labCatalogCache.get(lab.getId()).tests().values().stream()
+                .map(LabCatalogCache.CatalogTest::toDto)
                 .toList();
     }
 
     public Map<String, Object> getAllTests(Lab lab, int page, int size) {
-        List<TestDTO> allTests = lab.getTests().stream()
-                .sorted(Comparator.comparingLong(Test::getId))
-                .map(test -> new TestDTO(
-                        test.getId(),
-                        test.getTestCode(),
-                        test.getCategory(),
-                        test.getName(),
-                        test.getPrice(),
-                        test.getCreatedAt(),
-                        test.getUpdatedAt()
-                ))
-                .toList();
+        List<TestDTO> allTests = getAllTests(lab);
         
         // Calculate pagination
         int totalElements = allTests.size();
@@ -1,5 +1,6 @@
 package tiameds.com.tiameds.services.lab;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,14 +11,18 @@ import tiameds.com.tiameds.dto.visits.VisitDetailsDTO;
 import tiameds.com.tiameds.entity.*;
 import tiameds.com.tiameds.repository.*;
 import tiameds.com.tiameds.utils.ApiResponseHelper;
+import tiameds.com.tiameds.utils.KeysetPage;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.stream.Collectors;
 
 
 @Service
 public class VisitService {
+    private static final int MAX_VISIT_PAGE_SIZE = 500;
+
     private final PatientRepository patientRepository;
     private final LabRepository labRepository;
     private final TestRepository testRepository;
@@ -29,6 +34,9 @@ public class VisitService {
     private final TestDiscountRepository testDiscountRepository;
     private final VisitTestResultRepository visitTestResultRepository;
     private final SequenceGeneratorService sequenceGeneratorService;
+    private final LiveWorklistHub liveWorklistHub;
+    private final LabBulkDeleter labBulkDeleter;
+    private final LabDailyStatsService labDailyStatsService;
 
     public VisitService(PatientRepository patientRepository,
                         LabRepository labRepository,
@@ -40,7 +48,10 @@ public class VisitService {
                         VisitRepository visitRepository, 
                         TestDiscountRepository testDiscountRepository,
                         VisitTestResultRepository visitTestResultRepository,
-                        SequenceGeneratorService sequenceGeneratorService) {
+                        SequenceGeneratorService sequenceGeneratorService,
+                        LiveWorklistHub liveWorklistHub,
+                        LabBulkDeleter labBulkDeleter,
+                        LabDailyStatsService labDailyStatsService) {
         this.patientRepository = patientRepository;
         this.labRepository = labRepository;
         this.testRepository = testRepository;
@@ -52,6 +63,9 @@ public class VisitService {
         this.testDiscountRepository = testDiscountRepository;
         this.visitTestResultRepository = visitTestResultRepository;
         this.sequenceGeneratorService = sequenceGeneratorService;
+        this.liveWorklistHub = liveWorklistHub;
+        this.labBulkDeleter = labBulkDeleter;
+        this.labDailyStatsService = labDailyStatsService;
     }
 
     @Transactional
@@ -129,9 +143,23 @@ public class VisitService {
 
         // Save the visit
         visitRepository.save(visit);
+        liveWorklistHub.visitCreated(labId, visit);
     }
 
-    public List<PatientDTO> getVisits(Long labId, Optional<User> currentUser) {
+    /**
+     * One keyset page of a lab's visits, newest first, in a fixed number of queries: the page itself,
+     * the test/package/insurance ids of all its visits and the per-test discounts of all its billings.
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<PatientDTO> getVisits(Long labId,
+                                            Optional<User> currentUser,
+                                            LocalDate startDate,
+                                            LocalDate endDate,
+                                            String status,
+                                            String cursor,
+                                            int size) {
         Optional<Lab> labOptional = labRepository.findById(labId);
         if (labOptional.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Lab not found");
@@ -139,10 +167,87 @@ public class VisitService {
         if (currentUser.isEmpty() || !currentUser.get().getLabs().contains(labOptional.get())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User is not a member of this lab");
         }
-        List<VisitEntity> visits = visitRepository.findAllByPatient_Labs(labOptional.get());
-        return visits.stream()
-                .map(this::mapVisitToPatientDTO)
-                .collect(Collectors.toList());
+        int pageSize = Math.min(Math.max(size, 1), MAX_VISIT_PAGE_SIZE);
+        List<VisitRepository.VisitListProjection> rows = visitRepository.findVisitPage(
+                labId, startDate, endDate, status == null || status.isBlank() ? null : status,
+                KeysetPage.decodeId(cursor), PageRequest.of(0, pageSize + 1));
+        KeysetPage<VisitRepository.VisitListProjection> page =
+                KeysetPage.byId(rows, pageSize, VisitRepository.VisitListProjection::getVisitId);
+
+        Map<Long, VisitDTO> visitsById = new LinkedHashMap<>();
+        Map<Long, VisitDTO> visitsByBillingId = new HashMap<>();
+        List<PatientDTO> content = new ArrayList<>(page.content().size());
+        for (VisitRepository.VisitListProjection row : page.content()) {
+            PatientDTO patientDTO = toVisitListDTO(row);
+            visitsById.put(row.getVisitId(), patientDTO.getVisit());
+            if (row.getBillingId() != null) {
+                visitsByBillingId.put(row.getBillingId(), patientDTO.getVisit());
+            }
+            content.add(patientDTO);
+        }
+        if (!visitsById.isEmpty()) {
+            for (VisitRepository.VisitChildIdProjection child : visitRepository.findChildIdsByVisitIds(visitsById.keySet())) {
+                VisitDTO visit = visitsById.get(child.getVisitId());
+                switch (child.getKind()) {
+                    case "TEST" -> visit.getTestIds().add(child.getChildId());
+                    case "PACKAGE" -> visit.getPackageIds().add(child.getChildId());
+                    default -> visit.getInsuranceIds().add(child.getChildId());
+                }
+            }
+        }
+        if (!visitsByBillingId.isEmpty()) {
+            for (TestDiscountRepository.TestDiscountProjection discount : testDiscountRepository.findAllByBillingIds(visitsByBillingId.keySet())) {
+                visitsByBillingId.get(discount.getBillingId()).getListOfEachTestDiscount().add(new TestDiscountDTO(
+                        discount.getTestId(),
+                        discount.getDiscountAmount(),
+                        discount.getDiscountPercent(),
+                        discount.getFinalPrice(),
+                        discount.getCreatedBy(),
+                        discount.getUpdatedBy()));
+            }
+        }
+        return page.withContent(content);
+    }
+
+    private PatientDTO toVisitListDTO(VisitRepository.VisitListProjection row) {
+        PatientDTO patientDTO = new PatientDTO();
+        patientDTO.setId(row.getPatientId());
+        patientDTO.setFirstName(row.getFirstName());
+        patientDTO.setPhone(row.getPhone());
+        patientDTO.setCity(row.getCity());
+        patientDTO.setDateOfBirth(row.getDateOfBirth());
+        patientDTO.setGender(row.getGender());
+        patientDTO.setAge(row.getAge());
+
+        VisitDTO visitDTO = new VisitDTO();
+        visitDTO.setVisitId(row.getVisitId());
+        visitDTO.setVisitDate(row.getVisitDate());
+        visitDTO.setVisitType(row.getVisitType());
+        visitDTO.setVisitStatus(row.getVisitStatus());
+        visitDTO.setVisitDescription(row.getVisitDescription());
+        visitDTO.setDoctorId(row.getDoctorId());
+        visitDTO.setTestIds(new ArrayList<>());
+        visitDTO.setPackageIds(new ArrayList<>());
+        visitDTO.setInsuranceIds(new ArrayList<>());
+        visitDTO.setListOfEachTestDiscount(new ArrayList<>());
+
+        if (row.getBillingId() != null) {
+            BillingDTO billingDTO = new BillingDTO();
+            billingDTO.setBillingId(row.getBillingId());
+            billingDTO.setTotalAmount(row.getTotalAmount());
+            billingDTO.setPaymentStatus(row.getPaymentStatus());
+            billingDTO.setPaymentMethod(row.getPaymentMethod());
+            billingDTO.setPaymentDate(row.getPaymentDate());
+            billingDTO.setDiscount(row.getDiscount());
+            billingDTO.setNetAmount(row.getNetAmount());
+            billingDTO.setDiscountReason(row.getDiscountReason());
+            billingDTO.setPackageAmt(row.getPackageAmt());
+            billingDTO.setPackageDiscount(row.getPackageDiscount());
+            billingDTO.setTransactions(new HashSet<>());
+            visitDTO.setBilling(billingDTO);
+        }
+        patientDTO.setVisit(visitDTO);
+        return patientDTO;
     }
 
     private PatientDTO mapVisitToPatientDTO(VisitEntity visitEntity) {
@@ -285,7 +390,7 @@ public class VisitService {
         visit.setBilling(billingEntity);
         // Save the visit
         visitRepository.save(visit);
-
+        liveWorklistHub.visitUpdated(labId, visit);
     }
 
     @Transactional
@@ -314,6 +419,20 @@ public class VisitService {
             throw new IllegalArgumentException("Visit does not belong to the specified lab");
         }
         
+        // days the visit counts towards in lab_daily_stats; deleted rows leave no update trail for the compactor
+        Set<LocalDate> statDays = new HashSet<>();
+        if (visit.getCreatedAt() != null) {
+            statDays.add(LocalDate.ofInstant(visit.getCreatedAt(), ZoneId.systemDefault()));
+        }
+        if (visit.getBilling() != null && visit.getBilling().getCreatedAt() != null) {
+            statDays.add(LocalDate.ofInstant(visit.getBilling().getCreatedAt(), ZoneId.systemDefault()));
+        }
+        for (VisitTestResult result : visit.getTestResults()) {
+            if (result.getCreatedAt() != null) {
+                statDays.add(result.getCreatedAt().toLocalDate());
+            }
+        }
+
         // Delete all related entities in the correct order
         
         // 1. Delete VisitTestResults (cascade should handle this, but being explicit)
@@ -349,74 +468,24 @@ public class VisitService {
         
         // 4. Finally delete the visit entity
         visitRepository.delete(visit);
+        liveWorklistHub.visitDeleted(labId, visitId);
+        labDailyStatsService.rebuildDaysAfterCommit(labId, statDays);
     }
 
-    @Transactional
-    public int deleteAllVisitsForLab(Long labId, Optional<User> currentUser) {
-        // Validate lab exists
-        Optional<Lab> labOptional = labRepository.findById(labId);
-        if (labOptional.isEmpty()) {
+    /**
+     * Deletes every visit of the lab with its results, billing and links, using set-based deletes committed a
+     * chunk at a time (see {@link LabBulkDeleter}). Callers check lab membership.
+     */
+    public int deleteAllVisitsForLab(Long labId) {
+        if (!labRepository.existsById(labId)) {
             throw new IllegalArgumentException("Lab not found");
         }
-        
-        // Validate user access to lab
-        if (currentUser.isEmpty() || !currentUser.get().getLabs().contains(labOptional.get())) {
-            throw new IllegalArgumentException("User is not a member of this lab");
+        int deletedCount = labBulkDeleter.deleteVisits(labId);
+        if (deletedCount > 0) {
+            liveWorklistHub.reset(labId);
+            // deleted rows leave no update trail for the rollup compactor
+            labDailyStatsService.rebuildLab(labId);
         }
-        
-        Lab lab = labOptional.get();
-        
-        // Find all visits for this lab
-        List<VisitEntity> visits = visitRepository.findAllByPatient_Labs(lab);
-        
-        if (visits.isEmpty()) {
-            return 0; // No visits to delete
-        }
-        
-        int deletedCount = 0;
-        
-        // Delete each visit and all its related data
-        for (VisitEntity visit : visits) {
-            try {
-                // 1. Delete VisitTestResults
-                if (visit.getTestResults() != null && !visit.getTestResults().isEmpty()) {
-                    visitTestResultRepository.deleteAll(visit.getTestResults());
-                }
-                
-                // 2. Clear many-to-many relationships
-                visit.getTests().clear();
-                visit.getPackages().clear();
-                visit.getInsurance().clear();
-                visit.getSamples().clear();
-                visit.getLabs().clear();
-                
-                // 3. Delete billing and related entities
-                if (visit.getBilling() != null) {
-                    BillingEntity billing = visit.getBilling();
-                    
-                    // Delete test discounts related to billing
-                    if (billing.getTestDiscounts() != null && !billing.getTestDiscounts().isEmpty()) {
-                        testDiscountRepository.deleteAll(billing.getTestDiscounts());
-                    }
-                    
-                    // Delete transactions related to billing (cascade should handle this)
-                    // Note: If explicit deletion is needed, TransactionRepository would be required
-                    
-                    // Delete the billing entity
-                    billingRepository.delete(billing);
-                }
-                
-                // 4. Delete the visit entity
-                visitRepository.delete(visit);
-                deletedCount++;
-                
-            } catch (Exception e) {
-                // Log the error but continue with other visits
-                System.err.println("Error deleting visit " + visit.getVisitId() + ": " + e.getMessage());
-                // You might want to use a proper logger instead of System.err
-            }
-        }
-        
         return deletedCount;
     }
 
@@ -0,0 +1,187 @@
+package tiameds.com.tiameds.services.superAdmin;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import tiameds.com.tiameds.entity.User;
+import tiameds.com.tiameds.repository.BillingRepository;
+import tiameds.com.tiameds.repository.LabRepository;
+import tiameds.com.tiameds.repository.UserRepository;
+import tiameds.com.tiameds.repository.VisitRepository;
+import tiameds.com.tiameds.repository.VisitTestResultRepository;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cross-lab figures of the super admin dashboards. Each is read for all of a user's labs with one grouped query
+ * and cached per (user, date range) for a short TTL, so the dashboards cost the same whatever the number of labs
+ * and repeated loads within the TTL cost nothing. Values may lag writes by up to the TTL.
+ */
+@Service
+public class SuperAdminStatsService {
+
+    public record PlatformTotals(long totalLabs,
+                                 long totalTests,
+                                 long reportsGenerated,
+                                 long pendingSamples,
+                                 BigDecimal totalRevenue) {
+    }
+
+    private record Key(String kind, Long userId, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private static final Map<String, Comparator<LabRepository.LabPerformanceSummaryProjection>> LAB_SORTS = Map.of(
+            "labname", Comparator.comparing(LabRepository.LabPerformanceSummaryProjection::getLabName,
+                    Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)),
+            "revenue", nullsFirst(LabRepository.LabPerformanceSummaryProjection::getRevenue),
+            "tests", nullsFirst(LabRepository.LabPerformanceSummaryProjection::getTestCount),
+            "patients", nullsFirst(LabRepository.LabPerformanceSummaryProjection::getPatientCount),
+            "pendingsamples", nullsFirst(LabRepository.LabPerformanceSummaryProjection::getPendingSamples),
+            "reportsgenerated", nullsFirst(LabRepository.LabPerformanceSummaryProjection::getReportsGenerated),
+            "avgtathours", nullsFirst(LabRepository.LabPerformanceSummaryProjection::getAvgTatHours));
+
+    private final LabRepository labRepository;
+    private final UserRepository userRepository;
+    private final VisitTestResultRepository visitTestResultRepository;
+    private final VisitRepository visitRepository;
+    private final BillingRepository billingRepository;
+    private final Cache<Key, Object> cache;
+
+    public SuperAdminStatsService(LabRepository labRepository,
+                                  UserRepository userRepository,
+                                  VisitTestResultRepository visitTestResultRepository,
+                                  VisitRepository visitRepository,
+                                  BillingRepository billingRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${super-admin.stats-cache.ttl:PT30S}") Duration ttl,
+                                  @Value("${super-admin.stats-cache.max-size:2000}") long maxSize) {
+        this.labRepository = labRepository;
+        this.userRepository = userRepository;
+        this.visitTestResultRepository = visitTestResultRepository;
+        this.visitRepository = visitRepository;
+        this.billingRepository = billingRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "superAdminStats");
+    }
+
+    /**
+     * Labs, tests, completed reports, pending visits and paid revenue over every lab the user created; all time
+     * when either date is null.
+     */
+    public PlatformTotals getPlatformTotals(User user, LocalDate startDate, LocalDate endDate) {
+        boolean hasDates = startDate != null && endDate != null;
+        return cached("totals", user.getId(), startDate, endDate, () -> {
+            if (!hasDates) {
+                return new PlatformTotals(
+                        labRepository.countByCreatedBy(user),
+                        visitTestResultRepository.countAllTestsByLabsCreatedBy(user),
+                        visitTestResultRepository.countCompletedReportsByLabsCreatedBy(user),
+                        visitRepository.countPendingVisitsByLabsCreatedBy(user),
+                        orZero(billingRepository.sumPaidAmountByLabsCreatedBy(user)));
+            }
+            Instant is = toInstantStart(startDate);
+            Instant ie = toInstantEnd(endDate);
+            return new PlatformTotals(
+                    labRepository.countByCreatedByAndCreatedAtBetween(user, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)),
+                    visitTestResultRepository.countAllTestsByLabsCreatedByAndCreatedAtBetween(user, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)),
+                    visitTestResultRepository.countCompletedReportsByLabsCreatedByAndCreatedAtBetween(user, startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX)),
+                    visitRepository.countPendingVisitsByLabsCreatedByAndCreatedAtBetween(user, is, ie),
+                    orZero(billingRepository.sumPaidAmountByLabsCreatedByAndCreatedAtBetween(user, is, ie)));
+        });
+    }
+
+    /**
+     * Admin, technician and desk role members of each active lab the user created, ordered by lab id. With dates,
+     * only members created in the range are counted.
+     */
+    public List<UserRepository.LabRoleCountProjection> getRoleCountsByLab(Long userId, LocalDate startDate, LocalDate endDate) {
+        boolean hasDates = startDate != null && endDate != null;
+        return cached("roles", userId, startDate, endDate, () -> hasDates
+                ? userRepository.countRolesByLabForCreatorAndCreatedAtBetween(userId,
+                        startDate.atStartOfDay(), endDate.atTime(LocalTime.MAX))
+                : userRepository.countRolesByLabForCreator(userId));
+    }
+
+    /**
+     * Performance summary of every lab the user created, by revenue descending. With dates, previous revenue is
+     * of the same-length period just before.
+     */
+    public List<LabRepository.LabPerformanceSummaryProjection> getLabSummaries(Long userId, LocalDate startDate, LocalDate endDate) {
+        boolean hasDates = startDate != null && endDate != null;
+        return cached("labs", userId, startDate, endDate, () -> {
+            if (!hasDates) {
+                return labRepository.getAllLabsSummaryAllTime(userId);
+            }
+            long periodDays = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+            LocalDate prevEnd = startDate.minusDays(1);
+            LocalDate prevStart = prevEnd.minusDays(periodDays - 1);
+            return labRepository.getAllLabsSummaryWithDateRange(userId,
+                    toInstantStart(startDate), toInstantEnd(endDate),
+                    toInstantStart(prevStart), toInstantEnd(prevEnd));
+        });
+    }
+
+    /**
+     * The rows sorted by one of labName, revenue, tests, patients, pendingSamples, reportsGenerated or
+     * avgTatHours (case-insensitive), ascending unless direction is "desc"; unchanged when sortBy is null.
+     *
+     * @throws IllegalArgumentException for any other sortBy
+     */
+    public static List<LabRepository.LabPerformanceSummaryProjection> sortLabSummaries(
+            List<LabRepository.LabPerformanceSummaryProjection> rows, String sortBy, String direction) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return rows;
+        }
+        Comparator<LabRepository.LabPerformanceSummaryProjection> comparator = LAB_SORTS.get(sortBy.trim().toLowerCase(Locale.ROOT));
+        if (comparator == null) {
+            throw new IllegalArgumentException("Unsupported sort field: " + sortBy);
+        }
+        if ("desc".equalsIgnoreCase(direction)) {
+            comparator = comparator.reversed();
+        }
+        return rows.stream().sorted(comparator).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String kind, Long userId, LocalDate startDate, LocalDate endDate, Supplier<T> loader) {
+        boolean hasDates = startDate != null && endDate != null;
+        Key key = hasDates ? new Key(kind, userId, startDate, endDate) : new Key(kind, userId, null, null);
+        return (T) cache.get(key, k -> loader.get());
+    }
+
+    private static <T extends Comparable<? super T>> Comparator<LabRepository.LabPerformanceSummaryProjection> nullsFirst(
+            Function<LabRepository.LabPerformanceSummaryProjection, T> field) {
+        return Comparator.comparing(field, Comparator.nullsFirst(Comparator.naturalOrder()));
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static Instant toInstantStart(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static Instant toInstantEnd(LocalDate date) {
+        return date.atTime(LocalTime.MAX).atZone(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -1,10 +1,16 @@
 package tiameds.com.tiameds.utils;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -15,6 +21,8 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.spec.PKCS8EncodedKeySpec;
@@ -22,9 +30,12 @@ import java.security.spec.X509EncodedKeySpec;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -41,10 +52,17 @@ public class JwtUtil {
 
     private final JwtProperties jwtProperties;
     private final EncryptionUtil encryptionUtil;
+    private final MeterRegistry meterRegistry;
 
     private PrivateKey privateKey;
     private PublicKey publicKey;
 
+    // JwtParser is immutable and thread-safe once built
+    private JwtParser parser;
+
+    // SHA-256 of the compact token -> claims as signed (subject still encrypted), evicted at the token's exp
+    private Cache<String, Map<String, Object>> verifiedClaims;
+
     @PostConstruct
     void initKeys() {
         try {
@@ -53,6 +71,17 @@ public class JwtUtil {
         } catch (IOException | GeneralSecurityException e) {
             throw new IllegalStateException("Unable to load RSA keys for JWT processing", e);
         }
+        this.parser = Jwts.parserBuilder()
+                .requireIssuer(jwtProperties.getIssuer())
+                .requireAudience(jwtProperties.getAudience())
+                .setSigningKey(publicKey)
+                .build();
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getVerifiedClaimsCacheSize())
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, "jwtVerifiedClaims");
     }
 
     public JwtToken generateAccessToken(String username, Integer tokenVersion) {
@@ -138,14 +167,34 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Verifies the token and returns a private, mutable copy of its claims. A token whose signature was
+     * already verified is served from {@link #verifiedClaims} until its expiry; callers may modify the
+     * returned claims (e.g. decrypt the subject) without affecting the cached entry.
+     */
     private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .requireIssuer(jwtProperties.getIssuer())
-                .requireAudience(jwtProperties.getAudience())
-                .setSigningKey(publicKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("JWT token cannot be empty");
+        }
+        String key = sha256(token);
+        Map<String, Object> cached = verifiedClaims.getIfPresent(key);
+        if (cached != null) {
+            return Jwts.claims(new HashMap<>(cached));
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(key, Collections.unmodifiableMap(new HashMap<>(claims)));
+        }
+        return Jwts.claims(new HashMap<>(claims));
+    }
+
+    private static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     private String createToken(Map<String, Object> claims,
@@ -206,6 +255,33 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Keeps each verified token only until its own exp claim, so an expired token is never served from cache
+     * and falls through to the parser, which rejects it.
+     */
+    private static final class UntilTokenExpiry implements Expiry<String, Map<String, Object>> {
+
+        @Override
+        public long expireAfterCreate(String key, Map<String, Object> claims, long currentTime) {
+            Object exp = claims.get(Claims.EXPIRATION);
+            if (!(exp instanceof Number seconds)) {
+                return 0;
+            }
+            long remainingMillis = seconds.longValue() * 1000 - System.currentTimeMillis();
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Map<String, Object> claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Map<String, Object> claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     private enum TokenType {
         ACCESS("access"),
         REFRESH("refresh");
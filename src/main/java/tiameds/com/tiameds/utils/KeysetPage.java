@@ -0,0 +1,54 @@
+package tiameds.com.tiameds.utils;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is passed back as the {@code cursor}
+ * request parameter to fetch the following page; it is null on the last page.
+ */
+public record KeysetPage<T>(List<T> content, int size, boolean hasNext, String nextCursor) {
+
+    /**
+     * Builds a page from a query that fetched {@code size + 1} rows; the extra row only signals that
+     * another page exists and is not returned.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new KeysetPage<>(content, size, hasNext, nextCursor);
+    }
+
+    /**
+     * Like {@link #of} for listings ordered by id alone (id DESC); the cursor is the last id on the page.
+     */
+    public static <T> KeysetPage<T> byId(List<T> rows, int size, Function<T, Long> idOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? String.valueOf(idOf.apply(content.get(content.size() - 1))) : null;
+        return new KeysetPage<>(content, size, hasNext, nextCursor);
+    }
+
+    /**
+     * @return the id a {@link #byId} cursor points after, or null for a null/blank token (first page)
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static Long decodeId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    /**
+     * The same page position with its rows replaced, e.g. projections mapped to DTOs.
+     */
+    public <R> KeysetPage<R> withContent(List<R> mapped) {
+        return new KeysetPage<>(mapped, size, hasNext, nextCursor);
+    }
+}
@@ -2,6 +2,13 @@ package tiameds.com.tiameds.utils;
 
 public class SnowflakeIdGenerator {
 
+    /**
+     * Ids a {@link #reserve(int)} takes from each millisecond, and the difference between the first ids of two
+     * consecutive milliseconds.
+     */
+    public static final int IDS_PER_MILLISECOND = 4096;
+    public static final long MILLISECOND_STRIDE = 1L << 22;
+
     // Bits allocation
     private final long twepoch = 1672531200000L; // custom epoch (Jan 1, 2023)
     private final long workerIdBits = 5L;
@@ -57,6 +64,31 @@ public class SnowflakeIdGenerator {
                 sequence;
     }
 
+    /**
+     * Reserves {@code count} ids for rows whose ids are computed in SQL: the i-th id (from 0) is
+     * {@code first + (i / IDS_PER_MILLISECOND) * MILLISECOND_STRIDE + i % IDS_PER_MILLISECOND}. Whole milliseconds
+     * are taken and the call waits until the last of them has begun, so {@link #nextId()} never returns one of them.
+     *
+     * @return the first id
+     */
+    public synchronized long reserve(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be positive");
+        }
+        long first = waitNextMillis(lastTimestamp);
+        long last = first + (count - 1) / IDS_PER_MILLISECOND;
+        while (System.currentTimeMillis() < last) {
+            Thread.onSpinWait();
+        }
+        lastTimestamp = last;
+        // the next nextId() in this millisecond overflows and moves on to the following one
+        sequence = sequenceMask;
+
+        return ((first - twepoch) << timestampLeftShift) |
+                (datacenterId << datacenterIdShift) |
+                (workerId << workerIdShift);
+    }
+
     private long waitNextMillis(long lastTimestamp) {
         long timestamp = System.currentTimeMillis();
         while (timestamp <= lastTimestamp) {
@@ -14,4 +14,18 @@ public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
     public Serializable generate(SharedSessionContractImplementor session, Object object) {
         return generator.nextId();
     }
+
+    /**
+     * Next id from the same generator Hibernate uses, for rows inserted with plain JDBC.
+     */
+    public static long nextId() {
+        return generator.nextId();
+    }
+
+    /**
+     * @see SnowflakeIdGenerator#reserve(int)
+     */
+    public static long reserveIds(int count) {
+        return generator.reserve(count);
+    }
 }
\ No newline at end of file
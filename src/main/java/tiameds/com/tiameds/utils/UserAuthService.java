@@ -1,9 +1,12 @@
 package tiameds.com.tiameds.utils;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tiameds.com.tiameds.entity.User;
+import tiameds.com.tiameds.services.auth.MyUserDetails;
 import tiameds.com.tiameds.services.auth.UserService;
 
 
@@ -27,6 +30,12 @@ public class UserAuthService {
             return Optional.empty();
         }
 
+        // JwtFilter has already verified the token and resolved the user for this request
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof MyUserDetails principal) {
+            return userService.findAuthenticatedUser(principal);
+        }
+
         // Extract the username from the token
         String currentUsername = jwtUtils.extractUsername(token.substring(7));
 
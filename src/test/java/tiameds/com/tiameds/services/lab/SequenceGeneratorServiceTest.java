@@ -0,0 +1,135 @@
+package tiameds.com.tiameds.services.lab;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import tiameds.com.tiameds.config.SequenceProperties;
+import tiameds.com.tiameds.entity.EntityType;
+import tiameds.com.tiameds.entity.LabEntitySequence;
+import tiameds.com.tiameds.entity.LabEntitySequenceId;
+import tiameds.com.tiameds.repository.LabEntitySequenceRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs two generators, standing in for two nodes, against one in-memory lab_entity_sequence table.
+ */
+public class SequenceGeneratorServiceTest {
+
+    private static final long LAB_ID = 7L;
+    private static final int BLOCK_SIZE = 3;
+
+    private final Map<LabEntitySequenceId, LabEntitySequence> table = new HashMap<>();
+    private int reservations;
+
+    private LabEntitySequenceRepository repository;
+
+    private SequenceGeneratorService nodeA;
+    private SequenceGeneratorService nodeB;
+
+    @BeforeEach
+    public void setUp() {
+        repository = mock(LabEntitySequenceRepository.class);
+        when(repository.findByLabIdAndEntityNameWithLock(anyLong(), anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(table.get(new LabEntitySequenceId(invocation.getArgument(0), invocation.getArgument(1)))));
+        when(repository.findByLabIdAndEntityName(anyLong(), anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(table.get(new LabEntitySequenceId(invocation.getArgument(0), invocation.getArgument(1)))));
+        when(repository.save(any(LabEntitySequence.class))).thenAnswer(invocation -> {
+            LabEntitySequence sequence = invocation.getArgument(0);
+            table.put(sequence.getId(), sequence);
+            reservations++;
+            return sequence;
+        });
+
+        SequenceProperties properties = new SequenceProperties();
+        properties.setDefaultBlockSize(BLOCK_SIZE);
+        nodeA = new SequenceGeneratorService(repository, properties, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry());
+        nodeB = new SequenceGeneratorService(repository, properties, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void codesAreServedFromABlockAndRefilledWhenItRunsOut() {
+        for (int i = 1; i <= 7; i++) {
+            assertEquals("TST7-0000" + i, nodeA.generateCode(LAB_ID, EntityType.TEST));
+        }
+        assertEquals(3, reservations, "7 codes from blocks of 3 need 3 reservations");
+        assertEquals(6, mockingDetails(repository).getInvocations().size(),
+                "codes served from a block must not touch the database");
+        assertEquals(9L, nodeA.getCurrentSequenceNumber(LAB_ID, EntityType.TEST));
+    }
+
+    @Test
+    public void nodesServeDisjointBlocks() {
+        assertEquals("TST7-00001", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00004", nodeB.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00002", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00005", nodeB.generateCode(LAB_ID, EntityType.TEST));
+    }
+
+    @Test
+    public void rangesLargerThanABlockAreReservedWholeAndKeepTheCurrentBlock() {
+        assertEquals("TST7-00001", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals(List.of("TST7-00004", "TST7-00005", "TST7-00006", "TST7-00007"),
+                nodeA.generateCodes(LAB_ID, EntityType.TEST, 4));
+        assertEquals("TST7-00002", nodeA.generateCode(LAB_ID, EntityType.TEST));
+    }
+
+    @Test
+    public void floorRaisedOnAnotherNodeIsPickedUpWhenThisNodeRaisesItsOwn() {
+        assertEquals("TST7-00001", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00004", nodeB.generateCode(LAB_ID, EntityType.TEST));
+
+        // node B finds codes up to 5 written outside the sequence; node A, on its own clash, only knows of 2
+        nodeB.ensureMinimumSequence(LAB_ID, EntityType.TEST, 5);
+        nodeA.ensureMinimumSequence(LAB_ID, EntityType.TEST, 2);
+        assertEquals("TST7-00007", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00006", nodeB.generateCode(LAB_ID, EntityType.TEST));
+    }
+
+    @Test
+    public void blockReservedBeforeAnotherNodesFloorIsUsedUpThenRefilledAboveIt() {
+        assertEquals("TST7-00001", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        nodeB.ensureMinimumSequence(LAB_ID, EntityType.TEST, 10);
+
+        // node A learns of the floor at its next refill, without a database read per code
+        assertEquals("TST7-00002", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00003", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00011", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals(List.of("TST7-00014", "TST7-00015"), nodeB.generateCodes(LAB_ID, EntityType.TEST, 2));
+    }
+
+    @Test
+    public void floorOnTheSameNodeSkipsItsOwnBlock() {
+        assertEquals("TST7-00001", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        nodeA.ensureMinimumSequence(LAB_ID, EntityType.TEST, 2);
+
+        assertEquals("TST7-00003", nodeA.generateCode(LAB_ID, EntityType.TEST));
+        assertEquals("TST7-00004", nodeA.generateCode(LAB_ID, EntityType.TEST));
+    }
+
+    @Test
+    public void lowerFloorNeverMovesTheSequenceBack() {
+        nodeA.generateCodes(LAB_ID, EntityType.TEST, 5);
+        nodeA.ensureMinimumSequence(LAB_ID, EntityType.TEST, 8);
+        nodeA.ensureMinimumSequence(LAB_ID, EntityType.TEST, 3);
+
+        LabEntitySequence sequence = table.get(new LabEntitySequenceId(LAB_ID, EntityType.TEST.getEntityName()));
+        assertEquals(8L, sequence.getLastNumber());
+        assertEquals(8L, sequence.getFloorNumber());
+        assertEquals("TST7-00009", nodeB.generateCode(LAB_ID, EntityType.TEST));
+    }
+}
@@ -0,0 +1,101 @@
+package tiameds.com.tiameds.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.repository.Query;
+import tiameds.com.tiameds.repository.SuperAdminReferanceRepository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The ids reserved by {@link SnowflakeIdentifierGenerator#reserveIds(int)} are computed in SQL when the catalog
+ * is cloned; these tests keep the Java and SQL sequences from drifting apart.
+ */
+public class SnowflakeIdGeneratorTest {
+
+    // more than two milliseconds' worth, so the sequence crosses two 4096 boundaries
+    private static final int COUNT = 2 * SnowflakeIdGenerator.IDS_PER_MILLISECOND + 10;
+
+    private static final Pattern ID_EXPRESSION = Pattern.compile(":firstId \\+ [^\\n]*?MOD\\([^)]*\\)");
+
+    @Test
+    public void reservedIdsFollowTheSnowflakeLayout() {
+        long first = SnowflakeIdentifierGenerator.reserveIds(COUNT);
+        List<Long> ids = javaSequence(first);
+
+        for (int i = 0; i < COUNT; i++) {
+            long id = ids.get(i);
+            assertEquals(i % SnowflakeIdGenerator.IDS_PER_MILLISECOND, id & 0xFFF, "sequence bits of id " + i);
+            assertEquals((first >> 22) + i / SnowflakeIdGenerator.IDS_PER_MILLISECOND, id >> 22, "millisecond of id " + i);
+            assertEquals(first & 0x3FF000, id & 0x3FF000, "worker and datacenter bits of id " + i);
+        }
+        assertEquals(COUNT, new HashSet<>(ids).size());
+    }
+
+    @Test
+    public void idsAfterAReservationDoNotReuseIt() {
+        long first = SnowflakeIdentifierGenerator.reserveIds(COUNT);
+        long last = javaSequence(first).get(COUNT - 1);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(SnowflakeIdentifierGenerator.nextId() > last);
+        }
+    }
+
+    @Test
+    public void cloneQueriesComputeTheReservedIds() throws Exception {
+        long first = SnowflakeIdentifierGenerator.reserveIds(COUNT);
+        List<Long> expected = javaSequence(first);
+
+        for (String method : List.of("cloneIntoTestReferences", "linkClonedTestReferences")) {
+            assertEquals(expected, sqlSequence(idExpression(method), first), method);
+        }
+    }
+
+    private static List<Long> javaSequence(long first) {
+        List<Long> ids = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            ids.add(first + (long) (i / SnowflakeIdGenerator.IDS_PER_MILLISECOND) * SnowflakeIdGenerator.MILLISECOND_STRIDE
+                    + i % SnowflakeIdGenerator.IDS_PER_MILLISECOND);
+        }
+        return ids;
+    }
+
+    private static String idExpression(String method) {
+        String sql = List.of(SuperAdminReferanceRepository.class.getMethods()).stream()
+                .filter(m -> m.getName().equals(method))
+                .findFirst()
+                .orElseThrow()
+                .getAnnotation(Query.class)
+                .value();
+        Matcher matcher = ID_EXPRESSION.matcher(sql);
+        assertTrue(matcher.find(), "no id expression in " + method);
+        return matcher.group();
+    }
+
+    /**
+     * Evaluates the query's id expression for row numbers 1..COUNT, as its ROW_NUMBER() would number the catalog.
+     */
+    private static List<Long> sqlSequence(String expression, long first) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:snowflake;MODE=PostgreSQL");
+             PreparedStatement statement = connection.prepareStatement("SELECT " + expression.replace(":firstId", "?")
+                     + " FROM (SELECT X AS rn FROM SYSTEM_RANGE(1, " + COUNT + ")) s ORDER BY s.rn")) {
+            statement.setLong(1, first);
+            List<Long> ids = new ArrayList<>(COUNT);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+            return ids;
+        }
+    }
+}